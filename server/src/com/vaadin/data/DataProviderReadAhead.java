@@ -0,0 +1,240 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.vaadin.data.Container.Indexed;
+import com.vaadin.shared.ui.grid.Range;
+
+/**
+ * Keeps track of the rows requested by the client side of a
+ * {@link com.vaadin.ui.Grid} to guess which rows will be requested next, and
+ * holds the items of those rows once they have been fetched from the
+ * container.
+ * <p>
+ * The scroll direction and the number of rows scrolled per request are learned
+ * from the requested ranges. The faster the user scrolls, the more rows are
+ * read ahead, up to {@link #MAX_READ_AHEAD_LENGTH} rows.
+ *
+ * @since 7.6
+ * @author Vaadin Ltd
+ */
+class DataProviderReadAhead implements Serializable {
+
+    /**
+     * The maximum number of rows to read ahead.
+     */
+    static final int MAX_READ_AHEAD_LENGTH = 500;
+
+    /**
+     * How many requests at the current scroll speed the read ahead range
+     * should cover.
+     */
+    private static final int READ_AHEAD_REQUESTS = 3;
+
+    /**
+     * Weight of the latest request when updating the scroll speed.
+     */
+    private static final double SPEED_WEIGHT = 0.5;
+
+    private int lastRequestStart = -1;
+
+    private boolean scrollingDown = true;
+
+    private double rowsPerRequest = 0;
+
+    private int cachedStart = 0;
+
+    private List<?> cachedItemIds = Collections.emptyList();
+
+    private Map<Object, Item> cachedItems = Collections.emptyMap();
+
+    /**
+     * Updates the scroll direction and speed based on a range of rows
+     * requested by the client.
+     *
+     * @param requested
+     *            the requested range of rows
+     */
+    void rowsRequested(Range requested) {
+        if (lastRequestStart >= 0) {
+            int delta = requested.getStart() - lastRequestStart;
+            if (delta != 0) {
+                scrollingDown = delta > 0;
+                if (rowsPerRequest == 0) {
+                    rowsPerRequest = Math.abs(delta);
+                } else {
+                    rowsPerRequest = SPEED_WEIGHT * Math.abs(delta)
+                            + (1 - SPEED_WEIGHT) * rowsPerRequest;
+                }
+            }
+        }
+        lastRequestStart = requested.getStart();
+    }
+
+    /**
+     * Gets the range of rows that should be read ahead after the given range
+     * has been requested.
+     *
+     * @param requested
+     *            the range of rows requested by the client
+     * @param size
+     *            the number of rows in the container
+     * @return the range to read ahead, or an empty range if the rows are
+     *         already cached
+     */
+    Range getReadAheadRange(Range requested, int size) {
+        int length = Math.max(requested.length(),
+                (int) Math.ceil(rowsPerRequest * READ_AHEAD_REQUESTS));
+        length = Math.min(length, MAX_READ_AHEAD_LENGTH);
+
+        Range range;
+        if (scrollingDown) {
+            range = Range.withLength(requested.getEnd(), length);
+        } else {
+            int start = Math.max(0, requested.getStart() - length);
+            range = Range.between(start, requested.getStart());
+        }
+        range = range.restrictTo(Range.withLength(0, size));
+
+        if (range.isEmpty() || range.isSubsetOf(getCachedRange())) {
+            return Range.withLength(0, 0);
+        }
+        return range;
+    }
+
+    /**
+     * Fetches the items of the given range from the container and caches them
+     * together with the rows that the client currently has. Rows that are
+     * already cached are not fetched again and all other previously cached
+     * rows are discarded.
+     *
+     * @param container
+     *            the container to read from
+     * @param clientRange
+     *            the range of rows the client has
+     * @param readAheadRange
+     *            the range of rows to read ahead
+     */
+    void readAhead(Indexed container, Range clientRange, Range readAheadRange) {
+        Range window = readAheadRange;
+        if (!clientRange.isEmpty()
+                && clientRange.getStart() <= readAheadRange.getEnd()
+                && readAheadRange.getStart() <= clientRange.getEnd()) {
+            window = clientRange.combineWith(readAheadRange);
+        }
+
+        Range[] partitions = window.partitionWith(getCachedRange());
+        List<Object> itemIds = new ArrayList<Object>(window.length());
+        Map<Object, Item> items = new HashMap<Object, Item>();
+
+        if (fetchRows(container, partitions[0], itemIds, items)) {
+            List<?> cached = getItemIds(partitions[1]);
+            if (cached != null) {
+                for (Object itemId : cached) {
+                    itemIds.add(itemId);
+                    items.put(itemId, cachedItems.get(itemId));
+                }
+            }
+            fetchRows(container, partitions[2], itemIds, items);
+        }
+
+        cachedStart = window.getStart();
+        cachedItemIds = itemIds;
+        cachedItems = items;
+    }
+
+    /**
+     * Fetches the rows of the given range from the container.
+     *
+     * @return <code>true</code> if all rows of the range were fetched,
+     *         <code>false</code> if the container has fewer rows
+     */
+    private static boolean fetchRows(Indexed container, Range range,
+            List<Object> itemIds, Map<Object, Item> items) {
+        if (range.isEmpty()) {
+            return true;
+        }
+        List<?> fetched = container.getItemIds(range.getStart(),
+                range.length());
+        for (Object itemId : fetched) {
+            itemIds.add(itemId);
+            items.put(itemId, container.getItem(itemId));
+        }
+        return fetched.size() == range.length();
+    }
+
+    /**
+     * Gets the item ids of the given range if all of them have been read
+     * ahead.
+     *
+     * @param range
+     *            the range of rows
+     * @return the item ids of the rows, or <code>null</code> if the range is
+     *         not cached
+     */
+    List<?> getItemIds(Range range) {
+        if (range.isEmpty() || !range.isSubsetOf(getCachedRange())) {
+            return null;
+        }
+        int offset = range.getStart() - cachedStart;
+        return cachedItemIds.subList(offset, offset + range.length());
+    }
+
+    /**
+     * Gets an item that has been read ahead.
+     *
+     * @param itemId
+     *            the id of the item
+     * @return the item, or <code>null</code> if the item is not cached
+     */
+    Item getItem(Object itemId) {
+        return cachedItems.get(itemId);
+    }
+
+    /**
+     * Discards a cached item, e.g. because it has been updated. The item is
+     * then fetched from the container when needed, while the cached item ids
+     * stay valid.
+     *
+     * @param itemId
+     *            the id of the item
+     */
+    void removeItem(Object itemId) {
+        if (cachedItems.containsKey(itemId)) {
+            cachedItems.remove(itemId);
+        }
+    }
+
+    /**
+     * Discards all cached rows, e.g. because the container has changed.
+     */
+    void clear() {
+        cachedStart = 0;
+        cachedItemIds = Collections.emptyList();
+        cachedItems = Collections.emptyMap();
+    }
+
+    private Range getCachedRange() {
+        return Range.withLength(cachedStart, cachedItemIds.size());
+    }
+}
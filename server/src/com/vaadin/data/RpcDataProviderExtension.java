@@ -92,7 +92,7 @@ public class RpcDataProviderExtension extends AbstractExtension {
             for (Object itemId : itemIds) {
                 if (!activeItemMap.containsKey(itemId)) {
                     activeItemMap.put(itemId, new GridValueChangeListener(
-                            itemId, container.getItem(itemId)));
+                            itemId, getItem(itemId)));
                 }
             }
 
@@ -381,6 +381,7 @@ public class RpcDataProviderExtension extends AbstractExtension {
     private final ItemSetChangeListener itemListener = new ItemSetChangeListener() {
         @Override
         public void containerItemSetChange(ItemSetChangeEvent event) {
+            clearReadAhead();
 
             if (event instanceof ItemAddEvent) {
                 ItemAddEvent addEvent = (ItemAddEvent) event;
@@ -475,6 +476,15 @@ public class RpcDataProviderExtension extends AbstractExtension {
 
     private final ActiveItemHandler activeItemHandler = new ActiveItemHandler();
 
+    /** Rows read ahead of the client requests, null if read ahead is disabled */
+    private DataProviderReadAhead readAhead = null;
+
+    /**
+     * Incremented whenever rows are requested or the read ahead rows become
+     * invalid, so that outdated read ahead tasks can be skipped.
+     */
+    private int readAheadRequestCount = 0;
+
     /**
      * Creates a new data provider using the given container.
      * 
@@ -491,6 +501,11 @@ public class RpcDataProviderExtension extends AbstractExtension {
                     int firstCachedRowIndex, int cacheSize) {
                 pushRowData(firstRow, numberOfRows, firstCachedRowIndex,
                         cacheSize);
+                if (readAhead != null) {
+                    scheduleReadAhead(
+                            Range.withLength(firstRow, numberOfRows),
+                            Range.withLength(firstCachedRowIndex, cacheSize));
+                }
             }
 
             @Override
@@ -564,8 +579,14 @@ public class RpcDataProviderExtension extends AbstractExtension {
             fullRange = newRange.combineWith(cached);
         }
 
-        List<?> itemIds = container.getItemIds(fullRange.getStart(),
-                fullRange.length());
+        List<?> itemIds = null;
+        if (readAhead != null) {
+            itemIds = readAhead.getItemIds(fullRange);
+        }
+        if (itemIds == null) {
+            itemIds = container.getItemIds(fullRange.getStart(),
+                    fullRange.length());
+        }
 
         JsonArray rows = Json.createArray();
 
@@ -585,8 +606,96 @@ public class RpcDataProviderExtension extends AbstractExtension {
         activeItemHandler.addActiveItems(itemIds);
     }
 
+    /**
+     * Reads the rows following the requested rows in the scroll direction
+     * ahead of time. The rows are read once the response with the requested
+     * rows has been written, see
+     * {@link com.vaadin.server.VaadinSession#accessAfterResponse(Runnable)}.
+     */
+    private void scheduleReadAhead(Range requested, Range cached) {
+        readAhead.rowsRequested(requested);
+        final Range readAheadRange = readAhead.getReadAheadRange(requested,
+                container.size());
+        if (readAheadRange.isEmpty()) {
+            return;
+        }
+
+        final Range clientRange;
+        if (cached.isEmpty()) {
+            clientRange = requested;
+        } else {
+            clientRange = requested.combineWith(cached);
+        }
+
+        final int requestCount = ++readAheadRequestCount;
+        getSession().accessAfterResponse(new Runnable() {
+            @Override
+            public void run() {
+                if (readAhead != null && isAttached()
+                        && requestCount == readAheadRequestCount) {
+                    readAhead.readAhead(container, clientRange,
+                            readAheadRange);
+                }
+            }
+        });
+    }
+
+    private void clearReadAhead() {
+        if (readAhead != null) {
+            readAhead.clear();
+            readAheadRequestCount++;
+        }
+    }
+
+    /**
+     * Sets whether rows should be read from the container ahead of the client
+     * requests. The scroll direction and speed are learned from the rows
+     * requested by the client, and the rows the client is likely to request
+     * next are fetched and kept in memory after the response has been sent.
+     * This helps with containers like
+     * {@link com.vaadin.data.util.sqlcontainer.SQLContainer} where fetching
+     * rows is slow.
+     * <p>
+     * Read ahead is disabled by default.
+     * 
+     * @since 7.6
+     * @param readAheadEnabled
+     *            <code>true</code> to enable read ahead, <code>false</code>
+     *            to disable it
+     */
+    public void setReadAheadEnabled(boolean readAheadEnabled) {
+        if (readAheadEnabled == isReadAheadEnabled()) {
+            return;
+        }
+        readAheadRequestCount++;
+        readAhead = readAheadEnabled ? new DataProviderReadAhead() : null;
+    }
+
+    /**
+     * Checks whether rows are read from the container ahead of the client
+     * requests.
+     * 
+     * @since 7.6
+     * @see #setReadAheadEnabled(boolean)
+     * @return <code>true</code> if read ahead is enabled, otherwise
+     *         <code>false</code>
+     */
+    public boolean isReadAheadEnabled() {
+        return readAhead != null;
+    }
+
+    private Item getItem(Object itemId) {
+        if (readAhead != null) {
+            Item item = readAhead.getItem(itemId);
+            if (item != null) {
+                return item;
+            }
+        }
+        return container.getItem(itemId);
+    }
+
     private JsonObject getRowData(Collection<Column> columns, Object itemId) {
-        Item item = container.getItem(itemId);
+        Item item = getItem(itemId);
 
         final JsonObject rowObject = Json.createObject();
         for (DataGenerator dg : dataGenerators) {
@@ -702,6 +811,11 @@ public class RpcDataProviderExtension extends AbstractExtension {
         }
 
         updatedItemIds.add(itemId);
+
+        if (readAhead != null) {
+            // The item might be replaced by the container when it is updated
+            readAhead.removeItem(itemId);
+        }
     }
 
     private void internalUpdateRows(Set<Object> itemIds) {
@@ -724,6 +838,7 @@ public class RpcDataProviderExtension extends AbstractExtension {
      * Pushes a new version of all the rows in the active cache range.
      */
     public void refreshCache() {
+        clearReadAhead();
         if (!refreshCache) {
             refreshCache = true;
             markAsDirty();
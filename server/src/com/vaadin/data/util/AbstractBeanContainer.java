@@ -22,6 +22,7 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import com.vaadin.data.Container;
 import com.vaadin.data.Container.Filterable;
@@ -489,6 +490,16 @@ public abstract class AbstractBeanContainer<IDTYPE, BEANTYPE> extends
         super.setItemSorter(itemSorter);
     }
 
+    @Override
+    public void setParallelExecutor(ExecutorService executor) {
+        super.setParallelExecutor(executor);
+    }
+
+    @Override
+    public ExecutorService getParallelExecutor() {
+        return super.getParallelExecutor();
+    }
+
     @Override
     protected void registerNewItem(int position, IDTYPE itemId,
             BeanItem<BEANTYPE> item) {
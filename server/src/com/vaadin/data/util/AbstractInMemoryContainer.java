@@ -16,20 +16,27 @@
 package com.vaadin.data.util;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EventObject;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import com.vaadin.data.Container;
 import com.vaadin.data.Container.ItemSetChangeNotifier;
 import com.vaadin.data.Item;
+import com.vaadin.data.Property;
 import com.vaadin.data.util.filter.SimpleStringFilter;
 import com.vaadin.data.util.filter.UnsupportedFilterException;
+import com.vaadin.shared.util.SharedUtil;
 
 /**
  * Abstract {@link Container} class that handles common functionality for
@@ -127,6 +134,37 @@ public abstract class AbstractInMemoryContainer<ITEMIDTYPE, PROPERTYIDCLASS, ITE
      */
     private ItemSorter itemSorter = new DefaultItemSorter();
 
+    /**
+     * Indexes of property values used for filtering, or null if no property is
+     * indexed.
+     */
+    private Map<Object, PropertyValueIndex> propertyIndexes;
+
+    /**
+     * The items among which the items passing the filters are searched during
+     * incremental filtering, or null to search all items.
+     */
+    private transient List<ITEMIDTYPE> filterCandidates;
+
+    /**
+     * Whether the indexes may be built during the current filtering.
+     */
+    private transient boolean buildIndexes;
+
+    /**
+     * The most recently removed filter and the filtered item ids before it was
+     * removed, kept until the container is changed in any other way in case
+     * the filter is replaced by a narrower one.
+     */
+    private transient Filter removedFilter;
+    private transient List<ITEMIDTYPE> filteredItemIdsBeforeRemoval;
+
+    /**
+     * The executor used for sorting and filtering in parallel, or null to
+     * sort and filter in the calling thread. Not serialized.
+     */
+    private transient ExecutorService parallelExecutor;
+
     // Constructors
 
     /**
@@ -484,11 +522,36 @@ public abstract class AbstractInMemoryContainer<ITEMIDTYPE, PROPERTYIDCLASS, ITE
      * way.
      */
     protected void filterAll() {
+        discardRemovedFilter();
         if (doFilterContainer(!getFilters().isEmpty())) {
             fireItemSetChange();
         }
     }
 
+    /**
+     * Filters the container after the filters have changed so that
+     * {@link #doFilterContainer(boolean)} only searches the given items and may
+     * build property indexes.
+     */
+    private void filterAll(List<ITEMIDTYPE> candidates) {
+        discardRemovedFilter();
+        if (doFilterContainer(candidates, true)) {
+            fireItemSetChange();
+        }
+    }
+
+    private boolean doFilterContainer(List<ITEMIDTYPE> candidates,
+            boolean buildIndexes) {
+        filterCandidates = candidates;
+        this.buildIndexes = buildIndexes;
+        try {
+            return doFilterContainer(!getFilters().isEmpty());
+        } finally {
+            filterCandidates = null;
+            this.buildIndexes = false;
+        }
+    }
+
     /**
      * Filters the data in the container and updates internal data structures.
      * This method should reset any internal data structures and then repopulate
@@ -520,10 +583,13 @@ public abstract class AbstractInMemoryContainer<ITEMIDTYPE, PROPERTYIDCLASS, ITE
         // Filter
         boolean equal = true;
         Iterator<ITEMIDTYPE> origIt = originalFilteredItemIds.iterator();
-        for (final Iterator<ITEMIDTYPE> i = getAllItemIds().iterator(); i
-                .hasNext();) {
+        List<ITEMIDTYPE> candidates = getFilterCandidates();
+        BitSet passing = getPassingCandidates(candidates);
+        int index = 0;
+        for (final Iterator<ITEMIDTYPE> i = candidates.iterator(); i
+                .hasNext(); index++) {
             final ITEMIDTYPE id = i.next();
-            if (passesFilters(id)) {
+            if (passing != null ? passing.get(index) : passesFilters(id)) {
                 // filtered list comes from the full list, can use ==
                 equal = equal && origIt.hasNext() && origIt.next() == id;
                 getFilteredItemIds().add(id);
@@ -534,6 +600,305 @@ public abstract class AbstractInMemoryContainer<ITEMIDTYPE, PROPERTYIDCLASS, ITE
                 || origIt.hasNext();
     }
 
+    /**
+     * Evaluates the filters for large lists of items in parallel if an
+     * executor has been set.
+     *
+     * @return the positions of the items passing the filters, or null if the
+     *         filters should be evaluated in the current thread
+     */
+    private BitSet getPassingCandidates(List<ITEMIDTYPE> candidates) {
+        int[] bounds = parallelExecutor == null ? null : ParallelTasks
+                .split(candidates.size());
+        if (bounds == null) {
+            return null;
+        }
+        final Object[] ids = candidates.toArray();
+        final BitSet[] results = new BitSet[bounds.length - 1];
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        for (int i = 0; i < results.length; i++) {
+            final int chunk = i;
+            final int from = bounds[i];
+            final int to = bounds[i + 1];
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    BitSet passing = new BitSet(to - from);
+                    for (int j = from; j < to; j++) {
+                        if (passesFilters(ids[j])) {
+                            passing.set(j - from);
+                        }
+                    }
+                    results[chunk] = passing;
+                }
+            });
+        }
+        ParallelTasks.runAll(parallelExecutor, tasks);
+        BitSet passing = new BitSet(ids.length);
+        for (int i = 0; i < results.length; i++) {
+            BitSet chunk = results[i];
+            for (int j = chunk.nextSetBit(0); j >= 0; j = chunk
+                    .nextSetBit(j + 1)) {
+                passing.set(bounds[i] + j);
+            }
+        }
+        return passing;
+    }
+
+    /**
+     * Sets the executor used for sorting the container and evaluating the
+     * filters in parallel. Large containers are split into chunks processed by
+     * separate tasks run by the executor while the calling thread waits for
+     * them to complete, so the executor must not be one whose threads may
+     * themselves sort or filter the container.
+     * <p>
+     * The items of the container, the filters and the comparator of the item
+     * sorter must support concurrent read access when an executor is used.
+     * The executor is not serialized; a deserialized container sorts and
+     * filters in the calling thread. The tasks are run with the current
+     * instances, such as {@link com.vaadin.ui.UI#getCurrent()}, of the thread
+     * sorting or filtering the container.
+     *
+     * @since 7.6
+     * @param executor
+     *            the executor to use, or null to sort and filter in the
+     *            calling thread
+     */
+    protected void setParallelExecutor(ExecutorService executor) {
+        parallelExecutor = executor;
+    }
+
+    /**
+     * Gets the executor used for sorting the container and evaluating the
+     * filters in parallel.
+     *
+     * @see #setParallelExecutor(ExecutorService)
+     * @since 7.6
+     * @return the executor, or null if sorting and filtering is done in the
+     *         calling thread
+     */
+    protected ExecutorService getParallelExecutor() {
+        return parallelExecutor;
+    }
+
+    /**
+     * Gets the items that may pass the filters, in the order of the unfiltered
+     * item ids. Without incremental filtering, this is all items.
+     */
+    private List<ITEMIDTYPE> getFilterCandidates() {
+        List<ITEMIDTYPE> candidates = getAllItemIds();
+        if (!isIncrementalFilteringSupported()) {
+            return candidates;
+        }
+        if (filterCandidates != null) {
+            candidates = filterCandidates;
+        }
+
+        // Only build indexes when the alternative is to scan all items
+        BitSet positions = getIndexedPositions(buildIndexes
+                && filterCandidates == null);
+        if (positions != null && positions.cardinality() < candidates.size()) {
+            List<ITEMIDTYPE> allItemIds = getAllItemIds();
+            candidates = new ArrayList<ITEMIDTYPE>(positions.cardinality());
+            for (int i = positions.nextSetBit(0); i >= 0; i = positions
+                    .nextSetBit(i + 1)) {
+                candidates.add(allItemIds.get(i));
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Gets the positions of the items passing the filters that can be
+     * answered using property indexes.
+     *
+     * @param build
+     *            true to build indexes that are not up to date
+     * @return the positions in the unfiltered item id list, or null if no
+     *         filter can be answered using an index
+     */
+    private BitSet getIndexedPositions(boolean build) {
+        if (propertyIndexes == null) {
+            return null;
+        }
+        BitSet result = null;
+        for (Filter filter : getFilters()) {
+            Object propertyId = PropertyValueIndex
+                    .getIndexedPropertyId(filter);
+            PropertyValueIndex index = propertyId == null ? null
+                    : propertyIndexes.get(propertyId);
+            if (index == null || (!index.isBuilt() && !build)) {
+                continue;
+            }
+            if (!index.isBuilt()) {
+                buildIndex(propertyId, index);
+            }
+            BitSet positions = index.getMatchingPositions(filter);
+            if (positions != null) {
+                if (result == null) {
+                    result = positions;
+                } else {
+                    result.and(positions);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void buildIndex(Object propertyId, PropertyValueIndex index) {
+        List<ITEMIDTYPE> itemIds = getAllItemIds();
+        Object[] values = new Object[itemIds.size()];
+        int i = 0;
+        for (ITEMIDTYPE itemId : itemIds) {
+            Item item = getUnfilteredItem(itemId);
+            Property<?> property = item == null ? null : item
+                    .getItemProperty(propertyId);
+            values[i++] = property == null ? null : property.getValue();
+        }
+        index.build(values);
+    }
+
+    /**
+     * Checks whether the container supports incremental filtering and
+     * property indexes. When supported, adding a filter or replacing a filter
+     * with a narrower one only re-evaluates the filters for the items that
+     * were visible before, and filters on indexed properties (see
+     * {@link #setPropertyIndexed(Object, boolean)}) are answered using the
+     * indexes instead of evaluating them for all items.
+     * <p>
+     * Subclasses returning true must call
+     * {@link #propertyValueChanged(Object)} whenever the value of a property
+     * of an item changes, and {@link #doFilterContainer(boolean)} must only
+     * include the items that pass {@link #passesFilters(Object)}. The default
+     * implementation returns false.
+     *
+     * @since 7.6
+     * @return true if incremental filtering is supported, false otherwise
+     */
+    protected boolean isIncrementalFilteringSupported() {
+        return false;
+    }
+
+    /**
+     * Sets whether the values of a property are indexed to speed up filtering
+     * with {@link com.vaadin.data.util.filter.Compare},
+     * {@link com.vaadin.data.util.filter.Between},
+     * {@link com.vaadin.data.util.filter.IsNull} and prefix matching
+     * {@link SimpleStringFilter} filters. The index is built when the filters
+     * are changed and discarded whenever the items or the values of the
+     * property change, so indexing is only useful if the filters change more
+     * often than the data. Has no effect unless
+     * {@link #isIncrementalFilteringSupported()} returns true.
+     *
+     * @since 7.6
+     * @param propertyId
+     *            the id of the property
+     * @param indexed
+     *            true to index the values of the property, false to remove the
+     *            index
+     */
+    protected void setPropertyIndexed(Object propertyId, boolean indexed) {
+        if (indexed) {
+            if (propertyIndexes == null) {
+                propertyIndexes = new HashMap<Object, PropertyValueIndex>();
+            }
+            if (!propertyIndexes.containsKey(propertyId)) {
+                propertyIndexes.put(propertyId, new PropertyValueIndex());
+            }
+        } else if (propertyIndexes != null) {
+            propertyIndexes.remove(propertyId);
+            if (propertyIndexes.isEmpty()) {
+                propertyIndexes = null;
+            }
+        }
+    }
+
+    /**
+     * Checks whether the values of a property are indexed.
+     *
+     * @see #setPropertyIndexed(Object, boolean)
+     * @since 7.6
+     * @param propertyId
+     *            the id of the property
+     * @return true if the property is indexed, false otherwise
+     */
+    protected boolean isPropertyIndexed(Object propertyId) {
+        return propertyIndexes != null
+                && propertyIndexes.containsKey(propertyId);
+    }
+
+    /**
+     * Gets the ids of the indexed properties, for implementing clone().
+     */
+    Set<Object> getIndexedPropertyIds() {
+        if (propertyIndexes == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(propertyIndexes.keySet());
+    }
+
+    /**
+     * Notifies the container that the value of a property has changed for one
+     * or more items. This discards any state kept for incremental filtering.
+     *
+     * @see #isIncrementalFilteringSupported()
+     * @since 7.6
+     * @param propertyId
+     *            the id of the property whose value changed
+     */
+    protected void propertyValueChanged(Object propertyId) {
+        discardRemovedFilter();
+        if (propertyIndexes != null) {
+            PropertyValueIndex index = propertyIndexes.get(propertyId);
+            if (index != null) {
+                index.invalidate();
+            }
+        }
+    }
+
+    /**
+     * Discards the state kept for incremental filtering after the item ids or
+     * their order changed.
+     */
+    private void itemIdsChanged() {
+        discardRemovedFilter();
+        if (propertyIndexes != null) {
+            for (PropertyValueIndex index : propertyIndexes.values()) {
+                index.invalidate();
+            }
+        }
+    }
+
+    private void discardRemovedFilter() {
+        removedFilter = null;
+        filteredItemIdsBeforeRemoval = null;
+    }
+
+    /**
+     * Checks whether all items passing the added filter also pass the removed
+     * filter.
+     */
+    private static boolean isNarrowedBy(Filter removed, Filter added) {
+        if (removed.equals(added)) {
+            return true;
+        } else if (removed instanceof SimpleStringFilter
+                && added instanceof SimpleStringFilter) {
+            SimpleStringFilter r = (SimpleStringFilter) removed;
+            SimpleStringFilter a = (SimpleStringFilter) added;
+            if (!SharedUtil.equals(r.getPropertyId(), a.getPropertyId())
+                    || r.isIgnoreCase() != a.isIgnoreCase()
+                    || r.isOnlyMatchPrefix() != a.isOnlyMatchPrefix()) {
+                return false;
+            }
+            if (a.isOnlyMatchPrefix()) {
+                return a.getFilterString().startsWith(r.getFilterString());
+            } else {
+                return a.getFilterString().contains(r.getFilterString());
+            }
+        }
+        return false;
+    }
+
     /**
      * Checks if the given itemId passes the filters set for the container. The
      * caller should make sure the itemId exists in the container. For
@@ -579,8 +944,13 @@ public abstract class AbstractInMemoryContainer<ITEMIDTYPE, PROPERTYIDCLASS, ITE
      *             if the filter is detected as not supported by the container
      */
     protected void addFilter(Filter filter) throws UnsupportedFilterException {
+        // Only the items that are currently visible can pass the new filters
+        List<ITEMIDTYPE> candidates = getFilteredItemIds();
+        if (removedFilter != null && isNarrowedBy(removedFilter, filter)) {
+            candidates = filteredItemIdsBeforeRemoval;
+        }
         getFilters().add(filter);
-        filterAll();
+        filterAll(candidates);
     }
 
     /**
@@ -614,8 +984,14 @@ public abstract class AbstractInMemoryContainer<ITEMIDTYPE, PROPERTYIDCLASS, ITE
                 .hasNext();) {
             Filter f = iterator.next();
             if (f.equals(filter)) {
+                List<ITEMIDTYPE> filteredBefore = getFilteredItemIds();
                 iterator.remove();
-                filterAll();
+                boolean changed = doFilterContainer(null, true);
+                removedFilter = f;
+                filteredItemIdsBeforeRemoval = filteredBefore;
+                if (changed) {
+                    fireItemSetChange();
+                }
                 return;
             }
         }
@@ -632,7 +1008,7 @@ public abstract class AbstractInMemoryContainer<ITEMIDTYPE, PROPERTYIDCLASS, ITE
             return;
         }
         getFilters().clear();
-        filterAll();
+        filterAll(null);
     }
 
     /**
@@ -680,7 +1056,7 @@ public abstract class AbstractInMemoryContainer<ITEMIDTYPE, PROPERTYIDCLASS, ITE
             }
         }
         if (!removedFilters.isEmpty()) {
-            filterAll();
+            filterAll(null);
             return removedFilters;
         }
         return Collections.emptyList();
@@ -733,10 +1109,26 @@ public abstract class AbstractInMemoryContainer<ITEMIDTYPE, PROPERTYIDCLASS, ITE
 
         // Perform the actual sort
         doSort();
+        itemIdsChanged();
 
         // Post sort updates
         if (isFiltered()) {
-            filterAll();
+            if (isIncrementalFilteringSupported()) {
+                // Sorting does not change which items pass the filters
+                List<ITEMIDTYPE> candidates = new ArrayList<ITEMIDTYPE>(
+                        getFilteredItemIds().size());
+                for (ITEMIDTYPE itemId : getAllItemIds()) {
+                    if (getFilteredItemIds().contains(itemId)) {
+                        candidates.add(itemId);
+                    }
+                }
+                discardRemovedFilter();
+                if (doFilterContainer(candidates, false)) {
+                    fireItemSetChange();
+                }
+            } else {
+                filterAll();
+            }
         } else {
             fireItemSetChange();
         }
@@ -752,7 +1144,13 @@ public abstract class AbstractInMemoryContainer<ITEMIDTYPE, PROPERTYIDCLASS, ITE
      * 
      */
     protected void doSort() {
-        Collections.sort(getAllItemIds(), getItemSorter());
+        ItemSorter sorter = getItemSorter();
+        if (sorter instanceof DefaultItemSorter) {
+            ((DefaultItemSorter) sorter).sort(getAllItemIds(),
+                    getParallelExecutor());
+        } else {
+            Collections.sort(getAllItemIds(), sorter);
+        }
     }
 
     /**
@@ -781,6 +1179,8 @@ public abstract class AbstractInMemoryContainer<ITEMIDTYPE, PROPERTYIDCLASS, ITE
      * change notification.
      */
     protected void internalRemoveAllItems() {
+        itemIdsChanged();
+
         // Removes all Items
         getAllItemIds().clear();
         if (isFiltered()) {
@@ -806,6 +1206,9 @@ public abstract class AbstractInMemoryContainer<ITEMIDTYPE, PROPERTYIDCLASS, ITE
         }
 
         boolean result = getAllItemIds().remove(itemId);
+        if (result) {
+            itemIdsChanged();
+        }
         if (result && isFiltered()) {
             getFilteredItemIds().remove(itemId);
         }
@@ -853,6 +1256,7 @@ public abstract class AbstractInMemoryContainer<ITEMIDTYPE, PROPERTYIDCLASS, ITE
         // "filteredList" will be updated in filterAll() which should be invoked
         // by the caller after calling this method.
         getAllItemIds().add(position, itemId);
+        itemIdsChanged();
         registerNewItem(position, itemId, item);
 
         return item;
@@ -1125,6 +1529,7 @@ public abstract class AbstractInMemoryContainer<ITEMIDTYPE, PROPERTYIDCLASS, ITE
     @Deprecated
     protected void setAllItemIds(List<ITEMIDTYPE> allItemIds) {
         this.allItemIds = allItemIds;
+        itemIdsChanged();
     }
 
     /**
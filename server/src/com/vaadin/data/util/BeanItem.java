@@ -16,13 +16,10 @@
 
 package com.vaadin.data.util;
 
-import java.beans.PropertyDescriptor;
-import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -83,7 +80,7 @@ public class BeanItem<BT> extends PropertysetItem {
      * 
      */
     public BeanItem(BT bean, Class<BT> beanClass) {
-        this(bean, getPropertyDescriptors(beanClass));
+        this(bean, BeanPropertyCache.getPropertyDescriptors(beanClass));
     }
 
     /**
@@ -131,8 +128,8 @@ public class BeanItem<BT> extends PropertysetItem {
         this.bean = bean;
 
         // Create bean information
-        LinkedHashMap<String, VaadinPropertyDescriptor<BT>> pds = getPropertyDescriptors((Class<BT>) bean
-                .getClass());
+        Map<String, VaadinPropertyDescriptor<BT>> pds = BeanPropertyCache
+                .getPropertyDescriptors((Class<BT>) bean.getClass());
 
         // Add all the bean properties as MethodProperties to this Item
         for (Object id : propertyIds) {
@@ -177,35 +174,19 @@ public class BeanItem<BT> extends PropertysetItem {
      * <code>are</code> methods are not supported.
      * </p>
      * 
+     * <p>
+     * The introspection results are cached per bean class, and the returned
+     * map is a copy that can be modified by the caller.
+     * </p>
+     * 
      * @param beanClass
      *            the Java Bean class to get properties for.
      * @return an ordered map from property names to property descriptors
      */
     static <BT> LinkedHashMap<String, VaadinPropertyDescriptor<BT>> getPropertyDescriptors(
             final Class<BT> beanClass) {
-        final LinkedHashMap<String, VaadinPropertyDescriptor<BT>> pdMap = new LinkedHashMap<String, VaadinPropertyDescriptor<BT>>();
-
-        // Try to introspect, if it fails, we just have an empty Item
-        try {
-            List<PropertyDescriptor> propertyDescriptors = BeanUtil
-                    .getBeanPropertyDescriptor(beanClass);
-
-            // Add all the bean properties as MethodProperties to this Item
-            // later entries on the list overwrite earlier ones
-            for (PropertyDescriptor pd : propertyDescriptors) {
-                final Method getMethod = pd.getReadMethod();
-                if ((getMethod != null)
-                        && getMethod.getDeclaringClass() != Object.class) {
-                    VaadinPropertyDescriptor<BT> vaadinPropertyDescriptor = new MethodPropertyDescriptor<BT>(
-                            pd.getName(), pd.getPropertyType(),
-                            pd.getReadMethod(), pd.getWriteMethod());
-                    pdMap.put(pd.getName(), vaadinPropertyDescriptor);
-                }
-            }
-        } catch (final java.beans.IntrospectionException ignored) {
-        }
-
-        return pdMap;
+        return new LinkedHashMap<String, VaadinPropertyDescriptor<BT>>(
+                BeanPropertyCache.getPropertyDescriptors(beanClass));
     }
 
     /**
@@ -226,7 +207,8 @@ public class BeanItem<BT> extends PropertysetItem {
         if (0 == subPropertyIds.length) {
             // Enumerate all sub-properties
             Class<?> propertyType = getItemProperty(propertyId).getType();
-            Map<String, ?> pds = getPropertyDescriptors(propertyType);
+            Map<String, ?> pds = BeanPropertyCache
+                    .getPropertyDescriptors(propertyType);
             subPropertySet.addAll(pds.keySet());
         }
 
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data.util;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.io.Serializable;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.vaadin.data.util.NestedMethodProperty.Accessors;
+
+/**
+ * Caches the results of bean introspection shared by {@link BeanItem}, the
+ * bean containers and nested bean properties, so that creating items for
+ * beans of an already seen class does not introspect the class again.
+ * <p>
+ * Classes loaded by the class loader of this class or its parents are cached
+ * for as long as this class is loaded. Other classes, e.g. classes of an
+ * application deployed separately from the Vaadin libraries, are weakly
+ * referenced and their cached values softly referenced, so that the cache
+ * does not prevent their class loader from being garbage collected after the
+ * application is undeployed.
+ *
+ * @since 7.6
+ */
+final class BeanPropertyCache implements Serializable {
+
+    private static final Map<Class<?>, Map<String, ?>> propertyDescriptors = new ConcurrentHashMap<Class<?>, Map<String, ?>>();
+
+    private static final Map<Class<?>, SoftReference<Map<String, ?>>> foreignPropertyDescriptors = Collections
+            .synchronizedMap(new WeakHashMap<Class<?>, SoftReference<Map<String, ?>>>());
+
+    private static final Map<Class<?>, Map<String, Accessors>> nestedProperties = new ConcurrentHashMap<Class<?>, Map<String, Accessors>>();
+
+    private static final Map<Class<?>, SoftReference<Map<String, Accessors>>> foreignNestedProperties = Collections
+            .synchronizedMap(new WeakHashMap<Class<?>, SoftReference<Map<String, Accessors>>>());
+
+    private BeanPropertyCache() {
+        // Only static methods
+    }
+
+    /**
+     * Gets the property descriptors of a bean class. Only introspectable bean
+     * properties with a getter method are included.
+     *
+     * @param beanClass
+     *            the bean class to get properties for
+     * @return an unmodifiable ordered map from property names to property
+     *         descriptors
+     */
+    @SuppressWarnings("unchecked")
+    static <BT> Map<String, VaadinPropertyDescriptor<BT>> getPropertyDescriptors(
+            Class<BT> beanClass) {
+        Map<String, ?> descriptors = get(propertyDescriptors,
+                foreignPropertyDescriptors, beanClass);
+        if (descriptors == null) {
+            descriptors = Collections
+                    .unmodifiableMap(introspectPropertyDescriptors(beanClass));
+            put(propertyDescriptors, foreignPropertyDescriptors, beanClass,
+                    descriptors);
+        }
+        return (Map<String, VaadinPropertyDescriptor<BT>>) descriptors;
+    }
+
+    /**
+     * Gets the accessor methods of a nested property of a bean class.
+     *
+     * @param beanClass
+     *            class of the top-level bean
+     * @param propertyName
+     *            dot separated nested property name
+     * @return the accessors of the property
+     * @throws IllegalArgumentException
+     *             if the property name is invalid
+     */
+    static Accessors getNestedPropertyAccessors(Class<?> beanClass,
+            String propertyName) throws IllegalArgumentException {
+        Map<String, Accessors> properties = get(nestedProperties,
+                foreignNestedProperties, beanClass);
+        if (properties == null) {
+            properties = new ConcurrentHashMap<String, Accessors>();
+            put(nestedProperties, foreignNestedProperties, beanClass,
+                    properties);
+        }
+        Accessors accessors = properties.get(propertyName);
+        if (accessors == null) {
+            accessors = NestedMethodProperty.resolveAccessors(beanClass,
+                    propertyName);
+            properties.put(propertyName, accessors);
+        }
+        return accessors;
+    }
+
+    private static <V> V get(Map<Class<?>, V> cache,
+            Map<Class<?>, SoftReference<V>> foreignCache, Class<?> beanClass) {
+        V value = cache.get(beanClass);
+        if (value == null) {
+            SoftReference<V> reference = foreignCache.get(beanClass);
+            value = reference == null ? null : reference.get();
+        }
+        return value;
+    }
+
+    private static <V> void put(Map<Class<?>, V> cache,
+            Map<Class<?>, SoftReference<V>> foreignCache, Class<?> beanClass,
+            V value) {
+        if (isCacheSafe(beanClass)) {
+            cache.put(beanClass, value);
+        } else {
+            foreignCache.put(beanClass, new SoftReference<V>(value));
+        }
+    }
+
+    /**
+     * Checks whether a class can be referenced strongly without preventing
+     * its class loader from being garbage collected before this class.
+     */
+    static boolean isCacheSafe(Class<?> beanClass) {
+        ClassLoader beanClassLoader = beanClass.getClassLoader();
+        if (beanClassLoader == null) {
+            // Loaded by the bootstrap class loader
+            return true;
+        }
+        for (ClassLoader loader = BeanPropertyCache.class.getClassLoader(); loader != null; loader = loader
+                .getParent()) {
+            if (loader == beanClassLoader) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <BT> Map<String, VaadinPropertyDescriptor<BT>> introspectPropertyDescriptors(
+            Class<BT> beanClass) {
+        final LinkedHashMap<String, VaadinPropertyDescriptor<BT>> pdMap = new LinkedHashMap<String, VaadinPropertyDescriptor<BT>>();
+
+        // Try to introspect, if it fails, we just have an empty Item
+        try {
+            List<PropertyDescriptor> propertyDescriptors = BeanUtil
+                    .getBeanPropertyDescriptor(beanClass);
+
+            // Add all the bean properties as MethodProperties to this Item
+            // later entries on the list overwrite earlier ones
+            for (PropertyDescriptor pd : propertyDescriptors) {
+                final Method getMethod = pd.getReadMethod();
+                if ((getMethod != null)
+                        && getMethod.getDeclaringClass() != Object.class) {
+                    VaadinPropertyDescriptor<BT> vaadinPropertyDescriptor = new MethodPropertyDescriptor<BT>(
+                            pd.getName(), pd.getPropertyType(),
+                            MethodProperty.makeAccessible(getMethod),
+                            MethodProperty.makeAccessible(pd
+                                    .getWriteMethod()));
+                    pdMap.put(pd.getName(), vaadinPropertyDescriptor);
+                }
+            }
+        } catch (final IntrospectionException ignored) {
+        }
+
+        return pdMap;
+    }
+}
@@ -0,0 +1,618 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data.util;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage for the values of one property of all items in a
+ * {@link ColumnarContainer}. Values are addressed by a row number that the
+ * container assigns to each item.
+ * <p>
+ * Integer, long, double and boolean values are stored in primitive arrays.
+ * Strings and enums are dictionary encoded: each distinct value is stored once
+ * and the rows only hold an int code referring to it. Values of other types
+ * are stored as object references.
+ *
+ * @since 7.6
+ * @author Vaadin Ltd
+ */
+abstract class ColumnStorage implements Serializable {
+
+    private final Class<?> type;
+
+    private ColumnStorage(Class<?> type) {
+        this.type = type;
+    }
+
+    /**
+     * Creates a column suitable for storing values of the given type.
+     *
+     * @param type
+     *            the type of the property
+     * @param capacity
+     *            the initial number of rows
+     * @return a new column
+     */
+    static ColumnStorage create(Class<?> type, int capacity) {
+        ColumnStorage column;
+        if (type == Integer.class) {
+            column = new IntColumn(type);
+        } else if (type == Long.class) {
+            column = new LongColumn(type);
+        } else if (type == Double.class) {
+            column = new DoubleColumn(type);
+        } else if (type == Boolean.class) {
+            column = new BooleanColumn(type);
+        } else if (type == String.class || type.isEnum()) {
+            column = new DictionaryColumn(type);
+        } else {
+            column = new ObjectColumn(type);
+        }
+        column.reset(capacity);
+        return column;
+    }
+
+    /**
+     * Gets the type of the values in this column.
+     *
+     * @return the value type
+     */
+    Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Discards all values and allocates room for the given number of rows.
+     *
+     * @param capacity
+     *            the number of rows
+     */
+    abstract void reset(int capacity);
+
+    /**
+     * Grows the column to hold the given number of rows, keeping the current
+     * values.
+     *
+     * @param capacity
+     *            the new number of rows
+     */
+    abstract void ensureCapacity(int capacity);
+
+    /**
+     * Gets the value of a row.
+     *
+     * @param row
+     *            the row number
+     * @return the value, possibly <code>null</code>
+     */
+    abstract Object get(int row);
+
+    /**
+     * Sets the value of a row. The value must be <code>null</code> or an
+     * instance of the type of the column.
+     *
+     * @param row
+     *            the row number
+     * @param value
+     *            the new value, possibly <code>null</code>
+     */
+    abstract void set(int row, Object value);
+
+    /**
+     * Checks whether the value of a row is <code>null</code>.
+     *
+     * @param row
+     *            the row number
+     * @return <code>true</code> if the value is <code>null</code>
+     */
+    abstract boolean isNull(int row);
+
+    /**
+     * Compares the non-null values of two rows.
+     */
+    abstract int compareValues(int row1, int row2);
+
+    /**
+     * Prepares the column for a series of {@link #compare(int, int)} calls.
+     * The values must not be changed before {@link #finishSort()} is called.
+     */
+    void prepareSort() {
+    }
+
+    /**
+     * Releases any data structures created by {@link #prepareSort()}.
+     */
+    void finishSort() {
+    }
+
+    /**
+     * Compares the values of two rows in the same way as
+     * {@link DefaultItemSorter.DefaultPropertyValueComparator}, i.e.
+     * <code>null</code> is less than any other value.
+     *
+     * @param row1
+     *            the first row number
+     * @param row2
+     *            the second row number
+     * @return a negative integer, zero, or a positive integer as the value of
+     *         the first row is less than, equal to, or greater than the value of
+     *         the second row
+     */
+    int compare(int row1, int row2) {
+        boolean null1 = isNull(row1);
+        boolean null2 = isNull(row2);
+        if (null1 || null2) {
+            return null1 == null2 ? 0 : (null1 ? -1 : 1);
+        }
+        return compareValues(row1, row2);
+    }
+
+    private static int newLength(int length, int capacity) {
+        return Math.max(capacity, length + (length >> 1));
+    }
+
+    /**
+     * Base class for columns storing primitive values, keeping track of
+     * <code>null</code> values in a bit set.
+     */
+    private static abstract class PrimitiveColumn extends ColumnStorage {
+
+        protected BitSet nulls;
+
+        private PrimitiveColumn(Class<?> type) {
+            super(type);
+        }
+
+        @Override
+        void reset(int capacity) {
+            nulls = new BitSet(capacity);
+            nulls.set(0, capacity);
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            int length = getLength();
+            if (capacity > length) {
+                int newLength = newLength(length, capacity);
+                grow(newLength);
+                nulls.set(length, newLength);
+            }
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : getValue(row);
+        }
+
+        @Override
+        void set(int row, Object value) {
+            nulls.set(row, value == null);
+            if (value != null) {
+                setValue(row, value);
+            }
+        }
+
+        protected abstract int getLength();
+
+        protected abstract void grow(int length);
+
+        protected abstract Object getValue(int row);
+
+        protected abstract void setValue(int row, Object value);
+    }
+
+    private static class IntColumn extends PrimitiveColumn {
+
+        private int[] values;
+
+        private IntColumn(Class<?> type) {
+            super(type);
+        }
+
+        @Override
+        void reset(int capacity) {
+            super.reset(capacity);
+            values = new int[capacity];
+        }
+
+        @Override
+        protected int getLength() {
+            return values.length;
+        }
+
+        @Override
+        protected void grow(int length) {
+            values = Arrays.copyOf(values, length);
+        }
+
+        @Override
+        protected Object getValue(int row) {
+            return Integer.valueOf(values[row]);
+        }
+
+        @Override
+        protected void setValue(int row, Object value) {
+            values[row] = ((Integer) value).intValue();
+        }
+
+        @Override
+        int compareValues(int row1, int row2) {
+            int value1 = values[row1];
+            int value2 = values[row2];
+            return value1 < value2 ? -1 : (value1 == value2 ? 0 : 1);
+        }
+    }
+
+    private static class LongColumn extends PrimitiveColumn {
+
+        private long[] values;
+
+        private LongColumn(Class<?> type) {
+            super(type);
+        }
+
+        @Override
+        void reset(int capacity) {
+            super.reset(capacity);
+            values = new long[capacity];
+        }
+
+        @Override
+        protected int getLength() {
+            return values.length;
+        }
+
+        @Override
+        protected void grow(int length) {
+            values = Arrays.copyOf(values, length);
+        }
+
+        @Override
+        protected Object getValue(int row) {
+            return Long.valueOf(values[row]);
+        }
+
+        @Override
+        protected void setValue(int row, Object value) {
+            values[row] = ((Long) value).longValue();
+        }
+
+        @Override
+        int compareValues(int row1, int row2) {
+            long value1 = values[row1];
+            long value2 = values[row2];
+            return value1 < value2 ? -1 : (value1 == value2 ? 0 : 1);
+        }
+    }
+
+    private static class DoubleColumn extends PrimitiveColumn {
+
+        private double[] values;
+
+        private DoubleColumn(Class<?> type) {
+            super(type);
+        }
+
+        @Override
+        void reset(int capacity) {
+            super.reset(capacity);
+            values = new double[capacity];
+        }
+
+        @Override
+        protected int getLength() {
+            return values.length;
+        }
+
+        @Override
+        protected void grow(int length) {
+            values = Arrays.copyOf(values, length);
+        }
+
+        @Override
+        protected Object getValue(int row) {
+            return Double.valueOf(values[row]);
+        }
+
+        @Override
+        protected void setValue(int row, Object value) {
+            values[row] = ((Double) value).doubleValue();
+        }
+
+        @Override
+        int compareValues(int row1, int row2) {
+            // Same ordering as Double.compareTo
+            return Double.compare(values[row1], values[row2]);
+        }
+    }
+
+    private static class BooleanColumn extends PrimitiveColumn {
+
+        private BitSet values;
+
+        private int length;
+
+        private BooleanColumn(Class<?> type) {
+            super(type);
+        }
+
+        @Override
+        void reset(int capacity) {
+            super.reset(capacity);
+            values = new BitSet(capacity);
+            length = capacity;
+        }
+
+        @Override
+        protected int getLength() {
+            return length;
+        }
+
+        @Override
+        protected void grow(int length) {
+            // BitSet grows on demand
+            this.length = length;
+        }
+
+        @Override
+        protected Object getValue(int row) {
+            return Boolean.valueOf(values.get(row));
+        }
+
+        @Override
+        protected void setValue(int row, Object value) {
+            values.set(row, ((Boolean) value).booleanValue());
+        }
+
+        @Override
+        int compareValues(int row1, int row2) {
+            boolean value1 = values.get(row1);
+            boolean value2 = values.get(row2);
+            return value1 == value2 ? 0 : (value1 ? 1 : -1);
+        }
+    }
+
+    /**
+     * Column storing each distinct value only once. The codes of values that
+     * are no longer used by any row are reused for new values.
+     */
+    static class DictionaryColumn extends ColumnStorage {
+
+        private static final int NULL_CODE = -1;
+
+        private int[] codes;
+
+        private List<Object> dictionary;
+
+        private Map<Object, Integer> codeOfValue;
+
+        private int[] useCounts;
+
+        private int[] unusedCodes;
+
+        private int unusedCodeCount;
+
+        private transient int[] sortRanks;
+
+        private DictionaryColumn(Class<?> type) {
+            super(type);
+        }
+
+        @Override
+        void reset(int capacity) {
+            codes = new int[capacity];
+            Arrays.fill(codes, NULL_CODE);
+            dictionary = new ArrayList<Object>();
+            codeOfValue = new HashMap<Object, Integer>();
+            useCounts = new int[16];
+            unusedCodes = new int[16];
+            unusedCodeCount = 0;
+            sortRanks = null;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            int length = codes.length;
+            if (capacity > length) {
+                codes = Arrays.copyOf(codes, newLength(length, capacity));
+                Arrays.fill(codes, length, codes.length, NULL_CODE);
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            int code = codes[row];
+            return code == NULL_CODE ? null : dictionary.get(code);
+        }
+
+        @Override
+        void set(int row, Object value) {
+            int oldCode = codes[row];
+            int newCode = value == null ? NULL_CODE : getOrAddCode(value);
+            codes[row] = newCode;
+            if (oldCode != NULL_CODE && --useCounts[oldCode] == 0) {
+                releaseCode(oldCode);
+            }
+        }
+
+        private int getOrAddCode(Object value) {
+            Integer code = codeOfValue.get(value);
+            if (code == null) {
+                int newCode;
+                if (unusedCodeCount > 0) {
+                    newCode = unusedCodes[--unusedCodeCount];
+                    dictionary.set(newCode, value);
+                } else {
+                    newCode = dictionary.size();
+                    dictionary.add(value);
+                    if (newCode == useCounts.length) {
+                        useCounts = Arrays.copyOf(useCounts,
+                                newLength(newCode, newCode + 1));
+                    }
+                }
+                code = Integer.valueOf(newCode);
+                codeOfValue.put(value, code);
+            }
+            useCounts[code.intValue()]++;
+            return code.intValue();
+        }
+
+        private void releaseCode(int code) {
+            codeOfValue.remove(dictionary.get(code));
+            dictionary.set(code, null);
+            if (unusedCodeCount == unusedCodes.length) {
+                unusedCodes = Arrays.copyOf(unusedCodes,
+                        newLength(unusedCodeCount, unusedCodeCount + 1));
+            }
+            unusedCodes[unusedCodeCount++] = code;
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return codes[row] == NULL_CODE;
+        }
+
+        /**
+         * Gets the dictionary code of the value of a row. Rows with equal
+         * values have the same code.
+         *
+         * @param row
+         *            the row number
+         * @return the code, or a negative number for <code>null</code>
+         */
+        int getCode(int row) {
+            return codes[row];
+        }
+
+        /**
+         * Gets an upper bound for the codes in use.
+         *
+         * @return the number of codes
+         */
+        int getCodeCount() {
+            return dictionary.size();
+        }
+
+        @Override
+        void prepareSort() {
+            // Rank the distinct values once instead of comparing the values
+            // for each pair of rows
+            Integer[] sortedCodes = new Integer[dictionary.size()
+                    - unusedCodeCount];
+            int index = 0;
+            for (int code = 0; code < dictionary.size(); code++) {
+                if (dictionary.get(code) != null) {
+                    sortedCodes[index++] = Integer.valueOf(code);
+                }
+            }
+            Comparator<Integer> comparator = new Comparator<Integer>() {
+                @Override
+                @SuppressWarnings({ "unchecked", "rawtypes" })
+                public int compare(Integer code1, Integer code2) {
+                    return ((Comparable) dictionary.get(code1.intValue()))
+                            .compareTo(dictionary.get(code2.intValue()));
+                }
+            };
+            Arrays.sort(sortedCodes, comparator);
+
+            sortRanks = new int[dictionary.size()];
+            for (int rank = 0; rank < sortedCodes.length; rank++) {
+                int code = sortedCodes[rank].intValue();
+                if (rank > 0
+                        && comparator.compare(sortedCodes[rank - 1],
+                                sortedCodes[rank]) == 0) {
+                    sortRanks[code] = sortRanks[sortedCodes[rank - 1]
+                            .intValue()];
+                } else {
+                    sortRanks[code] = rank;
+                }
+            }
+        }
+
+        @Override
+        void finishSort() {
+            sortRanks = null;
+        }
+
+        @Override
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        int compareValues(int row1, int row2) {
+            if (sortRanks == null) {
+                return ((Comparable) dictionary.get(codes[row1]))
+                        .compareTo(dictionary.get(codes[row2]));
+            }
+            int rank1 = sortRanks[codes[row1]];
+            int rank2 = sortRanks[codes[row2]];
+            return rank1 < rank2 ? -1 : (rank1 == rank2 ? 0 : 1);
+        }
+    }
+
+    private static class ObjectColumn extends ColumnStorage {
+
+        private Object[] values;
+
+        private ObjectColumn(Class<?> type) {
+            super(type);
+        }
+
+        @Override
+        void reset(int capacity) {
+            values = new Object[capacity];
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values,
+                        newLength(values.length, capacity));
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void set(int row, Object value) {
+            values[row] = value;
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return values[row] == null;
+        }
+
+        @Override
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        int compareValues(int row1, int row2) {
+            return ((Comparable) values[row1]).compareTo(values[row2]);
+        }
+    }
+}
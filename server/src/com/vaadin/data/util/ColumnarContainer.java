@@ -0,0 +1,1264 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data.util;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EventObject;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import com.vaadin.data.Container;
+import com.vaadin.data.Item;
+import com.vaadin.data.Property;
+import com.vaadin.data.util.ColumnStorage.DictionaryColumn;
+import com.vaadin.data.util.filter.Between;
+import com.vaadin.data.util.filter.Compare;
+import com.vaadin.data.util.filter.IsNull;
+import com.vaadin.data.util.filter.Like;
+import com.vaadin.data.util.filter.SimpleStringFilter;
+import com.vaadin.data.util.filter.UnsupportedFilterException;
+
+/**
+ * An in-memory container with the same features as {@link IndexedContainer},
+ * storing the values of each property in a separate column instead of a map
+ * per item.
+ * <p>
+ * Integer, Long, Double and Boolean properties are stored in primitive arrays
+ * and String and enum properties are dictionary encoded, i.e. each distinct
+ * value is stored only once. This makes the container considerably smaller
+ * than an {@link IndexedContainer} with the same data, especially when there
+ * are many items with few distinct values.
+ * <p>
+ * Sorting with the default item sorter compares the column values directly
+ * without creating items or properties. Filtering evaluates the filters against
+ * a lightweight view of each row, and filters on a single dictionary encoded
+ * property ({@link SimpleStringFilter}, {@link Compare}, {@link Like},
+ * {@link Between} and {@link IsNull}) are only evaluated once for each distinct
+ * value. The view reads the row directly, so filters passed to this container
+ * must not keep references to the items they are given.
+ * <p>
+ * Features:
+ * <ul>
+ * <li> {@link Container.Indexed}
+ * <li> {@link Container.Ordered}
+ * <li> {@link Container.Sortable}
+ * <li> {@link Container.Filterable}
+ * <li>Sends all needed events on content changes.
+ * </ul>
+ *
+ * @see IndexedContainer
+ *
+ * @since 7.6
+ * @author Vaadin Ltd
+ */
+@SuppressWarnings("serial")
+public class ColumnarContainer extends
+        AbstractInMemoryContainer<Object, Object, Item> implements
+        Container.PropertySetChangeNotifier, Property.ValueChangeNotifier,
+        Container.Sortable, Container.Filterable, Container.SimpleFilterable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Property ID to column mapping, in the order the properties were added.
+     */
+    private LinkedHashMap<Object, ColumnStorage> columns = new LinkedHashMap<Object, ColumnStorage>();
+
+    private HashMap<Object, Object> defaultPropertyValues;
+
+    /**
+     * Item ID to row number mapping.
+     */
+    private HashMap<Object, Integer> rows = new HashMap<Object, Integer>();
+
+    /**
+     * Row number to item ID mapping.
+     */
+    private Object[] rowItemIds = new Object[INITIAL_CAPACITY];
+
+    /**
+     * Number of rows that have been allocated, including rows of removed
+     * items.
+     */
+    private int rowCount = 0;
+
+    /**
+     * Rows of removed items that can be reused.
+     */
+    private int[] freeRows = new int[0];
+
+    private int freeRowCount = 0;
+
+    /**
+     * Set of properties that are read-only.
+     */
+    private HashSet<Property<?>> readOnlyProperties = new HashSet<Property<?>>();
+
+    /**
+     * List of all Property value change event listeners listening all the
+     * properties.
+     */
+    private LinkedList<Property.ValueChangeListener> propertyValueChangeListeners = null;
+
+    /**
+     * Listeners interested in changes to single properties, mapped by property
+     * ID and item ID.
+     */
+    private HashMap<Object, Map<Object, List<Property.ValueChangeListener>>> singlePropertyValueChangeListeners = null;
+
+    private int nextGeneratedItemId = 1;
+
+    private boolean incrementalFilteringEnabled = false;
+
+    /**
+     * State of the filtering of the whole container, only kept while
+     * filtering.
+     */
+    private transient FilterPass filterPass;
+
+    public ColumnarContainer() {
+        super();
+        setItemSorter(new ColumnItemSorter());
+    }
+
+    public ColumnarContainer(Collection<?> itemIds) {
+        this();
+        for (Object itemId : itemIds) {
+            internalAddItemAtEnd(itemId, new ColumnarContainerItem(itemId),
+                    false);
+        }
+        filterAll();
+    }
+
+    /* Container methods */
+
+    @Override
+    protected Item getUnfilteredItem(Object itemId) {
+        if (itemId != null && rows.containsKey(itemId)) {
+            return new ColumnarContainerItem(itemId);
+        }
+        return null;
+    }
+
+    @Override
+    public Collection<?> getContainerPropertyIds() {
+        return Collections.unmodifiableCollection(columns.keySet());
+    }
+
+    @Override
+    public Class<?> getType(Object propertyId) {
+        ColumnStorage column = columns.get(propertyId);
+        return column == null ? null : column.getType();
+    }
+
+    @Override
+    public Property getContainerProperty(Object itemId, Object propertyId) {
+        if (!containsId(itemId) || propertyId == null
+                || !columns.containsKey(propertyId)) {
+            return null;
+        }
+
+        return new ColumnarContainerProperty(itemId, propertyId);
+    }
+
+    @Override
+    public boolean addContainerProperty(Object propertyId, Class<?> type,
+            Object defaultValue) {
+        if (propertyId == null || type == null
+                || columns.containsKey(propertyId)) {
+            return false;
+        }
+        if (defaultValue != null
+                && !type.isAssignableFrom(defaultValue.getClass())) {
+            throw new IllegalArgumentException(
+                    "Default value is of invalid type, got "
+                            + defaultValue.getClass().getName() + " but "
+                            + type.getName() + " was expected");
+        }
+
+        ColumnStorage column = ColumnStorage.create(type, rowItemIds.length);
+        columns.put(propertyId, column);
+
+        if (defaultValue != null) {
+            // for existing rows
+            for (Integer row : rows.values()) {
+                column.set(row.intValue(), defaultValue);
+            }
+            // store for next rows
+            if (defaultPropertyValues == null) {
+                defaultPropertyValues = new HashMap<Object, Object>();
+            }
+            defaultPropertyValues.put(propertyId, defaultValue);
+            propertyValueChanged(propertyId);
+
+            if (isPropertyFiltered(propertyId)) {
+                filterAll();
+            }
+        }
+
+        fireContainerPropertySetChange();
+
+        return true;
+    }
+
+    @Override
+    public boolean removeContainerProperty(Object propertyId) {
+        if (columns.remove(propertyId) == null) {
+            return false;
+        }
+        if (defaultPropertyValues != null) {
+            defaultPropertyValues.remove(propertyId);
+        }
+        propertyValueChanged(propertyId);
+
+        fireContainerPropertySetChange();
+
+        return true;
+    }
+
+    @Override
+    public boolean removeAllItems() {
+        int origSize = size();
+        Object firstItem = getFirstVisibleItem();
+
+        internalRemoveAllItems();
+
+        rows.clear();
+        rowItemIds = new Object[INITIAL_CAPACITY];
+        rowCount = 0;
+        freeRowCount = 0;
+        for (ColumnStorage column : columns.values()) {
+            column.reset(INITIAL_CAPACITY);
+        }
+
+        // fire event only if the visible view changed, regardless of whether
+        // filtered out items were removed or not
+        if (origSize != 0) {
+            fireItemsRemoved(0, firstItem, origSize);
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The item ID is generated from a sequence of Integers. The id of the first
+     * added item is 1.
+     */
+    @Override
+    public Object addItem() {
+        final Object id = generateId();
+        addItem(id);
+        return id;
+    }
+
+    @Override
+    public Item addItem(Object itemId) {
+        Item item = internalAddItemAtEnd(itemId, new ColumnarContainerItem(
+                itemId), false);
+        if (!isFiltered()) {
+            // always the last item
+            fireItemAdded(size() - 1, itemId, item);
+        } else if (passesFilters(itemId) && !containsId(itemId)) {
+            getFilteredItemIds().add(itemId);
+            // always the last item
+            fireItemAdded(size() - 1, itemId, item);
+        }
+        return item;
+    }
+
+    @Override
+    public boolean removeItem(Object itemId) {
+        if (itemId == null) {
+            return false;
+        }
+        Integer row = rows.remove(itemId);
+        if (row == null) {
+            return false;
+        }
+        releaseRow(row.intValue());
+
+        int origSize = size();
+        int position = indexOfId(itemId);
+        if (internalRemoveItem(itemId)) {
+            // fire event only if the visible view changed, regardless of
+            // whether filtered out items were removed or not
+            if (size() != origSize) {
+                fireItemRemoved(position, itemId);
+            }
+
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /* Container.Ordered methods */
+
+    @Override
+    public Item addItemAfter(Object previousItemId, Object newItemId) {
+        return internalAddItemAfter(previousItemId, newItemId,
+                new ColumnarContainerItem(newItemId), true);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The item ID is generated from a sequence of Integers. The id of the first
+     * added item is 1.
+     */
+    @Override
+    public Object addItemAfter(Object previousItemId) {
+        final Object id = generateId();
+        if (addItemAfter(previousItemId, id) != null) {
+            return id;
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public Item addItemAt(int index, Object newItemId) {
+        return internalAddItemAt(index, newItemId, new ColumnarContainerItem(
+                newItemId), true);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The item ID is generated from a sequence of Integers. The id of the first
+     * added item is 1.
+     */
+    @Override
+    public Object addItemAt(int index) {
+        final Object id = generateId();
+        addItemAt(index, id);
+        return id;
+    }
+
+    /**
+     * Generates an unique identifier for use as an item id. Guarantees that the
+     * generated id is not currently used as an id.
+     */
+    private Serializable generateId() {
+        Serializable id;
+        do {
+            id = Integer.valueOf(nextGeneratedItemId++);
+        } while (rows.containsKey(id));
+
+        return id;
+    }
+
+    @Override
+    protected void registerNewItem(int index, Object newItemId, Item item) {
+        int row = allocateRow();
+        rowItemIds[row] = newItemId;
+        rows.put(newItemId, Integer.valueOf(row));
+        if (defaultPropertyValues != null) {
+            for (Map.Entry<Object, Object> entry : defaultPropertyValues
+                    .entrySet()) {
+                columns.get(entry.getKey()).set(row, entry.getValue());
+            }
+        }
+    }
+
+    /* Row storage */
+
+    private int allocateRow() {
+        if (freeRowCount > 0) {
+            return freeRows[--freeRowCount];
+        }
+        if (rowCount == rowItemIds.length) {
+            int capacity = rowCount + (rowCount >> 1);
+            rowItemIds = Arrays.copyOf(rowItemIds, capacity);
+            for (ColumnStorage column : columns.values()) {
+                column.ensureCapacity(capacity);
+            }
+        }
+        return rowCount++;
+    }
+
+    private void releaseRow(int row) {
+        rowItemIds[row] = null;
+        for (ColumnStorage column : columns.values()) {
+            // release references and dictionary entries
+            column.set(row, null);
+        }
+        if (freeRowCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows,
+                    Math.max(INITIAL_CAPACITY, freeRowCount * 2));
+        }
+        freeRows[freeRowCount++] = row;
+    }
+
+    private int getRow(Object itemId) {
+        return rows.get(itemId).intValue();
+    }
+
+    /* Filtering */
+
+    @Override
+    protected boolean doFilterContainer(boolean hasFilters) {
+        if (!hasFilters) {
+            return super.doFilterContainer(hasFilters);
+        }
+        filterPass = new FilterPass(getFilters());
+        try {
+            return super.doFilterContainer(hasFilters);
+        } finally {
+            filterPass = null;
+        }
+    }
+
+    @Override
+    protected boolean passesFilters(Object itemId) {
+        if (getFilters().isEmpty()) {
+            return true;
+        }
+        /*
+         * The filters may be evaluated in parallel, so each evaluation gets
+         * its own view of the row
+         */
+        int row = getRow(itemId);
+        if (filterPass != null) {
+            return filterPass.passesFilters(itemId, row);
+        }
+        RowItem rowItem = new RowItem(row);
+        for (Filter filter : getFilters()) {
+            if (!filter.passesFilter(itemId, rowItem)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The filters of one pass over all items, remembering the results of
+     * filters on dictionary encoded properties for each distinct value.
+     */
+    private class FilterPass implements Serializable {
+
+        private static final byte UNKNOWN = 0;
+        private static final byte PASSES = 1;
+        private static final byte FAILS = 2;
+
+        private final Filter[] filters;
+
+        private final DictionaryColumn[] dictionaries;
+
+        private final byte[][] results;
+
+        private FilterPass(Collection<Filter> filters) {
+            this.filters = filters.toArray(new Filter[filters.size()]);
+            dictionaries = new DictionaryColumn[this.filters.length];
+            results = new byte[this.filters.length][];
+            for (int i = 0; i < this.filters.length; i++) {
+                ColumnStorage column = columns
+                        .get(getFilteredPropertyId(this.filters[i]));
+                if (column instanceof DictionaryColumn) {
+                    dictionaries[i] = (DictionaryColumn) column;
+                    results[i] = new byte[dictionaries[i].getCodeCount()];
+                }
+            }
+        }
+
+        private boolean passesFilters(Object itemId, int row) {
+            for (int i = 0; i < filters.length; i++) {
+                if (!passesFilter(i, itemId, row)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean passesFilter(int index, Object itemId, int row) {
+            if (dictionaries[index] != null) {
+                int code = dictionaries[index].getCode(row);
+                if (code >= 0) {
+                    /*
+                     * Concurrent evaluations may both evaluate the filter for
+                     * the same value, but store the same result
+                     */
+                    if (results[index][code] == UNKNOWN) {
+                        results[index][code] = filters[index].passesFilter(
+                                itemId, new RowItem(row)) ? PASSES : FAILS;
+                    }
+                    return results[index][code] == PASSES;
+                }
+            }
+            return filters[index].passesFilter(itemId, new RowItem(row));
+        }
+    }
+
+    /**
+     * Gets the property whose value alone determines whether an item passes a
+     * filter.
+     *
+     * @return the property id, or <code>null</code> if the filter is not known
+     *         to only depend on the value of one property
+     */
+    private static Object getFilteredPropertyId(Filter filter) {
+        /*
+         * Only the exact classes are known to look at nothing but the value of
+         * the property, subclasses might e.g. also use the item id.
+         */
+        Class<?> filterClass = filter.getClass();
+        if (filterClass == SimpleStringFilter.class) {
+            return ((SimpleStringFilter) filter).getPropertyId();
+        } else if (filterClass == Compare.Equal.class
+                || filterClass == Compare.Greater.class
+                || filterClass == Compare.Less.class
+                || filterClass == Compare.GreaterOrEqual.class
+                || filterClass == Compare.LessOrEqual.class) {
+            return ((Compare) filter).getPropertyId();
+        } else if (filterClass == Like.class) {
+            return ((Like) filter).getPropertyId();
+        } else if (filterClass == Between.class) {
+            return ((Between) filter).getPropertyId();
+        } else if (filterClass == IsNull.class) {
+            return ((IsNull) filter).getPropertyId();
+        }
+        return null;
+    }
+
+    /* Sorting */
+
+    @Override
+    protected void doSort() {
+        ItemSorter itemSorter = getItemSorter();
+        if (!(itemSorter instanceof ColumnItemSorter)
+                || ((ColumnItemSorter) itemSorter).getHost() != this) {
+            super.doSort();
+            return;
+        }
+
+        final List<ColumnStorage> sortColumns = new ArrayList<ColumnStorage>();
+        final List<Boolean> sortAscending = new ArrayList<Boolean>();
+        ((ColumnItemSorter) itemSorter).getSortColumns(sortColumns,
+                sortAscending);
+        if (sortColumns.isEmpty()) {
+            return;
+        }
+
+        List<Object> itemIds = getAllItemIds();
+        Integer[] sortedRows = new Integer[itemIds.size()];
+        for (int i = 0; i < sortedRows.length; i++) {
+            sortedRows[i] = rows.get(itemIds.get(i));
+        }
+
+        for (ColumnStorage column : sortColumns) {
+            column.prepareSort();
+        }
+        try {
+            // stable sort, equal rows keep their order
+            Arrays.sort(sortedRows, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer row1, Integer row2) {
+                    return compareRows(sortColumns, sortAscending,
+                            row1.intValue(), row2.intValue());
+                }
+            });
+        } finally {
+            for (ColumnStorage column : sortColumns) {
+                column.finishSort();
+            }
+        }
+
+        // ListSet allows duplicates while the order is being replaced
+        for (int i = 0; i < sortedRows.length; i++) {
+            itemIds.set(i, rowItemIds[sortedRows[i].intValue()]);
+        }
+    }
+
+    private static int compareRows(List<ColumnStorage> sortColumns,
+            List<Boolean> sortAscending, int row1, int row2) {
+        for (int i = 0; i < sortColumns.size(); i++) {
+            int result = sortColumns.get(i).compare(row1, row2);
+            if (result != 0) {
+                return sortAscending.get(i).booleanValue() ? result : -result;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void sort(Object[] propertyId, boolean[] ascending) {
+        sortContainer(propertyId, ascending);
+    }
+
+    @Override
+    public Collection<?> getSortableContainerPropertyIds() {
+        return getSortablePropertyIds();
+    }
+
+    @Override
+    public ItemSorter getItemSorter() {
+        return super.getItemSorter();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * By default, the container compares the column values directly. Using a
+     * custom item sorter makes sorting slower as items and properties have to
+     * be created for the comparisons.
+     */
+    @Override
+    public void setItemSorter(ItemSorter itemSorter) {
+        super.setItemSorter(itemSorter);
+    }
+
+    /**
+     * Sets whether filters are evaluated incrementally. When enabled, adding a
+     * filter or replacing a filter with a narrower one only re-evaluates the
+     * filters for the items that were visible before, and filters on indexed
+     * properties (see {@link #setPropertyIndexed(Object, boolean)}) are
+     * answered using the indexes.
+     * <p>
+     * Incremental filtering assumes that whether an item passes a filter only
+     * depends on the values of the item in this container. It should not be
+     * enabled if a filter uses any other data that may change between
+     * filtering operations. Disabled by default.
+     * 
+     * @param incrementalFilteringEnabled
+     *            true to enable incremental filtering, false to evaluate the
+     *            filters for all items whenever they change
+     */
+    public void setIncrementalFilteringEnabled(
+            boolean incrementalFilteringEnabled) {
+        this.incrementalFilteringEnabled = incrementalFilteringEnabled;
+    }
+
+    /**
+     * Checks whether filters are evaluated incrementally.
+     * 
+     * @see #setIncrementalFilteringEnabled(boolean)
+     * @return true if incremental filtering is enabled, false otherwise
+     */
+    public boolean isIncrementalFilteringEnabled() {
+        return incrementalFilteringEnabled;
+    }
+
+    @Override
+    protected boolean isIncrementalFilteringSupported() {
+        return incrementalFilteringEnabled;
+    }
+
+    @Override
+    public void setPropertyIndexed(Object propertyId, boolean indexed) {
+        super.setPropertyIndexed(propertyId, indexed);
+    }
+
+    @Override
+    public boolean isPropertyIndexed(Object propertyId) {
+        return super.isPropertyIndexed(propertyId);
+    }
+
+    /**
+     * The default item sorter of the container, comparing the values in the
+     * columns using the same ordering as {@link DefaultItemSorter}.
+     */
+    private class ColumnItemSorter implements ItemSorter {
+
+        private Object[] sortPropertyIds = new Object[0];
+
+        private boolean[] sortAscending = new boolean[0];
+
+        @Override
+        public void setSortProperties(Container.Sortable container,
+                Object[] propertyId, boolean[] ascending) {
+            Collection<?> sortable = container
+                    .getSortableContainerPropertyIds();
+            List<Object> ids = new ArrayList<Object>();
+            List<Boolean> orders = new ArrayList<Boolean>();
+            for (int i = 0; i < propertyId.length; i++) {
+                if (sortable.contains(propertyId[i])) {
+                    ids.add(propertyId[i]);
+                    orders.add(Boolean.valueOf(i < ascending.length ? ascending[i]
+                            : true));
+                }
+            }
+
+            sortPropertyIds = ids.toArray();
+            sortAscending = new boolean[orders.size()];
+            for (int i = 0; i < sortAscending.length; i++) {
+                sortAscending[i] = orders.get(i).booleanValue();
+            }
+        }
+
+        private void getSortColumns(List<ColumnStorage> sortColumns,
+                List<Boolean> ascending) {
+            for (int i = 0; i < sortPropertyIds.length; i++) {
+                ColumnStorage column = columns.get(sortPropertyIds[i]);
+                if (column != null) {
+                    sortColumns.add(column);
+                    ascending.add(Boolean.valueOf(sortAscending[i]));
+                }
+            }
+        }
+
+        @Override
+        public int compare(Object itemId1, Object itemId2) {
+            Integer row1 = rows.get(itemId1);
+            Integer row2 = rows.get(itemId2);
+            // Items that do not exist are last, as in DefaultItemSorter
+            if (row1 == null || row2 == null) {
+                return row1 == row2 ? 0 : (row1 == null ? 1 : -1);
+            }
+
+            List<ColumnStorage> sortColumns = new ArrayList<ColumnStorage>();
+            List<Boolean> ascending = new ArrayList<Boolean>();
+            getSortColumns(sortColumns, ascending);
+            return compareRows(sortColumns, ascending, row1.intValue(),
+                    row2.intValue());
+        }
+
+        private ColumnarContainer getHost() {
+            return ColumnarContainer.this;
+        }
+    }
+
+    /* Event notifiers */
+
+    private static class PropertyValueChangeEvent extends EventObject implements
+            Property.ValueChangeEvent, Serializable {
+
+        private PropertyValueChangeEvent(Property source) {
+            super(source);
+        }
+
+        @Override
+        public Property getProperty() {
+            return (Property) getSource();
+        }
+
+    }
+
+    @Override
+    public void addPropertySetChangeListener(
+            Container.PropertySetChangeListener listener) {
+        super.addPropertySetChangeListener(listener);
+    }
+
+    /**
+     * @deprecated As of 7.0, replaced by
+     *             {@link #addPropertySetChangeListener(com.vaadin.data.Container.PropertySetChangeListener)}
+     **/
+    @Deprecated
+    @Override
+    public void addListener(Container.PropertySetChangeListener listener) {
+        addPropertySetChangeListener(listener);
+    }
+
+    @Override
+    public void removePropertySetChangeListener(
+            Container.PropertySetChangeListener listener) {
+        super.removePropertySetChangeListener(listener);
+    }
+
+    /**
+     * @deprecated As of 7.0, replaced by
+     *             {@link #removePropertySetChangeListener(com.vaadin.data.Container.PropertySetChangeListener)}
+     **/
+    @Deprecated
+    @Override
+    public void removeListener(Container.PropertySetChangeListener listener) {
+        removePropertySetChangeListener(listener);
+    }
+
+    @Override
+    public void addValueChangeListener(Property.ValueChangeListener listener) {
+        if (propertyValueChangeListeners == null) {
+            propertyValueChangeListeners = new LinkedList<Property.ValueChangeListener>();
+        }
+        propertyValueChangeListeners.add(listener);
+    }
+
+    /**
+     * @deprecated As of 7.0, replaced by
+     *             {@link #addValueChangeListener(com.vaadin.data.Property.ValueChangeListener)}
+     **/
+    @Override
+    @Deprecated
+    public void addListener(Property.ValueChangeListener listener) {
+        addValueChangeListener(listener);
+    }
+
+    @Override
+    public void removeValueChangeListener(Property.ValueChangeListener listener) {
+        if (propertyValueChangeListeners != null) {
+            propertyValueChangeListeners.remove(listener);
+        }
+    }
+
+    /**
+     * @deprecated As of 7.0, replaced by
+     *             {@link #removeValueChangeListener(com.vaadin.data.Property.ValueChangeListener)}
+     **/
+    @Override
+    @Deprecated
+    public void removeListener(Property.ValueChangeListener listener) {
+        removeValueChangeListener(listener);
+    }
+
+    /**
+     * Sends a Property value change event to all interested listeners.
+     */
+    private void firePropertyValueChange(ColumnarContainerProperty source) {
+        if (propertyValueChangeListeners != null) {
+            final Object[] l = propertyValueChangeListeners.toArray();
+            final Property.ValueChangeEvent event = new PropertyValueChangeEvent(
+                    source);
+            for (int i = 0; i < l.length; i++) {
+                ((Property.ValueChangeListener) l[i]).valueChange(event);
+            }
+        }
+
+        if (singlePropertyValueChangeListeners != null) {
+            final Map<Object, List<Property.ValueChangeListener>> itemListeners = singlePropertyValueChangeListeners
+                    .get(source.propertyId);
+            if (itemListeners != null) {
+                final List<Property.ValueChangeListener> listenerList = itemListeners
+                        .get(source.itemId);
+                if (listenerList != null) {
+                    final Property.ValueChangeEvent event = new PropertyValueChangeEvent(
+                            source);
+                    Object[] listeners = listenerList.toArray();
+                    for (int i = 0; i < listeners.length; i++) {
+                        ((Property.ValueChangeListener) listeners[i])
+                                .valueChange(event);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public Collection<?> getListeners(Class<?> eventType) {
+        if (Property.ValueChangeEvent.class.isAssignableFrom(eventType)) {
+            if (propertyValueChangeListeners == null) {
+                return Collections.EMPTY_LIST;
+            } else {
+                return Collections
+                        .unmodifiableCollection(propertyValueChangeListeners);
+            }
+        }
+        return super.getListeners(eventType);
+    }
+
+    @Override
+    protected void fireItemAdded(int position, Object itemId, Item item) {
+        if (position >= 0) {
+            super.fireItemAdded(position, itemId, item);
+        }
+    }
+
+    private void addSinglePropertyChangeListener(Object propertyId,
+            Object itemId, Property.ValueChangeListener listener) {
+        if (listener != null) {
+            if (singlePropertyValueChangeListeners == null) {
+                singlePropertyValueChangeListeners = new HashMap<Object, Map<Object, List<Property.ValueChangeListener>>>();
+            }
+            Map<Object, List<Property.ValueChangeListener>> itemListeners = singlePropertyValueChangeListeners
+                    .get(propertyId);
+            if (itemListeners == null) {
+                itemListeners = new HashMap<Object, List<Property.ValueChangeListener>>();
+                singlePropertyValueChangeListeners.put(propertyId,
+                        itemListeners);
+            }
+            List<Property.ValueChangeListener> listenerList = itemListeners
+                    .get(itemId);
+            if (listenerList == null) {
+                listenerList = new LinkedList<Property.ValueChangeListener>();
+                itemListeners.put(itemId, listenerList);
+            }
+            listenerList.add(listener);
+        }
+    }
+
+    private void removeSinglePropertyChangeListener(Object propertyId,
+            Object itemId, Property.ValueChangeListener listener) {
+        if (listener != null && singlePropertyValueChangeListeners != null) {
+            final Map<Object, List<Property.ValueChangeListener>> itemListeners = singlePropertyValueChangeListeners
+                    .get(propertyId);
+            if (itemListeners != null) {
+                final List<Property.ValueChangeListener> listenerList = itemListeners
+                        .get(itemId);
+                if (listenerList != null) {
+                    listenerList.remove(listener);
+                    if (listenerList.isEmpty()) {
+                        itemListeners.remove(itemId);
+                    }
+                }
+                if (itemListeners.isEmpty()) {
+                    singlePropertyValueChangeListeners.remove(propertyId);
+                }
+            }
+            if (singlePropertyValueChangeListeners.isEmpty()) {
+                singlePropertyValueChangeListeners = null;
+            }
+        }
+    }
+
+    /* Filterable */
+
+    @Override
+    public void addContainerFilter(Object propertyId, String filterString,
+            boolean ignoreCase, boolean onlyMatchPrefix) {
+        try {
+            addFilter(new SimpleStringFilter(propertyId, filterString,
+                    ignoreCase, onlyMatchPrefix));
+        } catch (UnsupportedFilterException e) {
+            // the filter instance created here is always valid for in-memory
+            // containers
+        }
+    }
+
+    @Override
+    public void removeAllContainerFilters() {
+        removeAllFilters();
+    }
+
+    @Override
+    public void removeContainerFilters(Object propertyId) {
+        removeFilters(propertyId);
+    }
+
+    @Override
+    public void addContainerFilter(Filter filter)
+            throws UnsupportedFilterException {
+        addFilter(filter);
+    }
+
+    @Override
+    public void removeContainerFilter(Filter filter) {
+        removeFilter(filter);
+    }
+
+    @Override
+    public boolean hasContainerFilters() {
+        return super.hasContainerFilters();
+    }
+
+    @Override
+    public Collection<Filter> getContainerFilters() {
+        return super.getContainerFilters();
+    }
+
+    /* Internal Item and Property implementations */
+
+    /**
+     * An item of the container, reading its values from the columns.
+     */
+    class ColumnarContainerItem implements Item {
+
+        private final Object itemId;
+
+        private ColumnarContainerItem(Object itemId) {
+            if (itemId == null) {
+                throw new NullPointerException();
+            }
+            this.itemId = itemId;
+        }
+
+        @Override
+        public Property getItemProperty(Object id) {
+            if (!columns.containsKey(id)) {
+                return null;
+            }
+            return new ColumnarContainerProperty(itemId, id);
+        }
+
+        @Override
+        public Collection<?> getItemPropertyIds() {
+            return getContainerPropertyIds();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (final Iterator<?> i = columns.keySet().iterator(); i
+                    .hasNext();) {
+                sb.append(getItemProperty(i.next()).getValue());
+                if (i.hasNext()) {
+                    sb.append(' ');
+                }
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public int hashCode() {
+            return itemId.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null
+                    || !obj.getClass().equals(ColumnarContainerItem.class)) {
+                return false;
+            }
+            final ColumnarContainerItem other = (ColumnarContainerItem) obj;
+            return getHost() == other.getHost() && itemId.equals(other.itemId);
+        }
+
+        private ColumnarContainer getHost() {
+            return ColumnarContainer.this;
+        }
+
+        /**
+         * ColumnarContainerItem does not support adding new properties. Add
+         * properties at container level. See
+         * {@link ColumnarContainer#addContainerProperty(Object, Class, Object)}
+         */
+        @Override
+        public boolean addItemProperty(Object id, Property property)
+                throws UnsupportedOperationException {
+            throw new UnsupportedOperationException("Columnar container item "
+                    + "does not support adding new properties");
+        }
+
+        /**
+         * ColumnarContainerItem does not support removing properties. Remove
+         * properties at container level. See
+         * {@link ColumnarContainer#removeContainerProperty(Object)}
+         */
+        @Override
+        public boolean removeItemProperty(Object id)
+                throws UnsupportedOperationException {
+            throw new UnsupportedOperationException(
+                    "Columnar container item does not support property removal");
+        }
+
+    }
+
+    /**
+     * A property of an item in the container, reading and writing its value
+     * from the column of the property.
+     */
+    private class ColumnarContainerProperty implements Property<Object>,
+            Property.ValueChangeNotifier {
+
+        private final Object itemId;
+
+        private final Object propertyId;
+
+        private ColumnarContainerProperty(Object itemId, Object propertyId) {
+            if (itemId == null || propertyId == null) {
+                // Null ids are not accepted
+                throw new NullPointerException(
+                        "Container item or property ids can not be null");
+            }
+            this.propertyId = propertyId;
+            this.itemId = itemId;
+        }
+
+        @Override
+        public Class<?> getType() {
+            return ColumnarContainer.this.getType(propertyId);
+        }
+
+        @Override
+        public Object getValue() {
+            return columns.get(propertyId).get(getRow(itemId));
+        }
+
+        @Override
+        public boolean isReadOnly() {
+            return readOnlyProperties.contains(this);
+        }
+
+        @Override
+        public void setReadOnly(boolean newStatus) {
+            if (newStatus) {
+                readOnlyProperties.add(this);
+            } else {
+                readOnlyProperties.remove(this);
+            }
+        }
+
+        @Override
+        public void setValue(Object newValue) throws Property.ReadOnlyException {
+            ColumnStorage column = columns.get(propertyId);
+
+            // Support null values on all types
+            if (newValue != null
+                    && !column.getType().isAssignableFrom(newValue.getClass())) {
+                throw new IllegalArgumentException(
+                        "Value is of invalid type, got "
+                                + newValue.getClass().getName() + " but "
+                                + column.getType().getName() + " was expected");
+            }
+            column.set(getRow(itemId), newValue);
+            propertyValueChanged(propertyId);
+
+            // update the container filtering if this property is being filtered
+            if (isPropertyFiltered(propertyId)) {
+                filterAll();
+            }
+
+            firePropertyValueChange(this);
+        }
+
+        /**
+         * Returns a string representation of this object. The returned string
+         * representation depends on if the legacy Property toString mode is
+         * enabled or disabled.
+         *
+         * @deprecated As of 7.0. To get the property value, use
+         *             {@link #getValue()} instead (and possibly toString on
+         *             that)
+         */
+        @Deprecated
+        @Override
+        public String toString() {
+            if (!LegacyPropertyHelper.isLegacyToStringEnabled()) {
+                return super.toString();
+            } else {
+                return LegacyPropertyHelper.legacyPropertyToString(this);
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return itemId.hashCode() ^ propertyId.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null
+                    || !obj.getClass().equals(ColumnarContainerProperty.class)) {
+                return false;
+            }
+            final ColumnarContainerProperty other = (ColumnarContainerProperty) obj;
+            return other.getHost() == getHost()
+                    && other.propertyId.equals(propertyId)
+                    && other.itemId.equals(itemId);
+        }
+
+        @Override
+        public void addValueChangeListener(Property.ValueChangeListener listener) {
+            addSinglePropertyChangeListener(propertyId, itemId, listener);
+        }
+
+        /**
+         * @deprecated As of 7.0, replaced by
+         *             {@link #addValueChangeListener(com.vaadin.data.Property.ValueChangeListener)}
+         **/
+        @Override
+        @Deprecated
+        public void addListener(Property.ValueChangeListener listener) {
+            addValueChangeListener(listener);
+        }
+
+        @Override
+        public void removeValueChangeListener(
+                Property.ValueChangeListener listener) {
+            removeSinglePropertyChangeListener(propertyId, itemId, listener);
+        }
+
+        /**
+         * @deprecated As of 7.0, replaced by
+         *             {@link #removeValueChangeListener(com.vaadin.data.Property.ValueChangeListener)}
+         **/
+        @Override
+        @Deprecated
+        public void removeListener(Property.ValueChangeListener listener) {
+            removeValueChangeListener(listener);
+        }
+
+        private ColumnarContainer getHost() {
+            return ColumnarContainer.this;
+        }
+
+    }
+
+    /**
+     * Lightweight read-only item exposing the values of one row to filters.
+     */
+    private class RowItem implements Item {
+
+        private final int row;
+
+        private RowItem(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Property<?> getItemProperty(Object id) {
+            ColumnStorage column = columns.get(id);
+            return column == null ? null : new RowProperty(column);
+        }
+
+        @Override
+        public Collection<?> getItemPropertyIds() {
+            return getContainerPropertyIds();
+        }
+
+        @Override
+        public boolean addItemProperty(Object id, Property property) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean removeItemProperty(Object id) {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Read-only property reading the value of the row.
+         */
+        private class RowProperty extends AbstractProperty<Object> {
+
+            private final ColumnStorage column;
+
+            private RowProperty(ColumnStorage column) {
+                this.column = column;
+            }
+
+            @Override
+            public Object getValue() {
+                return column.get(row);
+            }
+
+            @Override
+            public void setValue(Object newValue) {
+                throw new ReadOnlyException();
+            }
+
+            @Override
+            public Class<? extends Object> getType() {
+                return column.getType();
+            }
+
+            @Override
+            public boolean isReadOnly() {
+                return true;
+            }
+        }
+    }
+}
@@ -17,9 +17,13 @@ package com.vaadin.data.util;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ExecutorService;
 
 import com.vaadin.data.Container;
 import com.vaadin.data.Container.Sortable;
@@ -186,6 +190,187 @@ public class DefaultItemSorter implements ItemSorter {
 
     }
 
+    /**
+     * Sorts the given item ids according to the sort properties set using
+     * {@link #setSortProperties(Sortable, Object[], boolean[])}. The result is
+     * the same as when sorting using this sorter as a comparator, but the
+     * values of the sort properties are only read once for each item instead
+     * of in every comparison.
+     * <p>
+     * If an executor is given, the property values of large lists are read
+     * and the item ids sorted in parallel tasks run by the executor. The items
+     * of the container and the property value comparator must then support
+     * concurrent access.
+     * <p>
+     * Subclasses overriding {@link #compare(Object, Object)} or
+     * {@link #compareProperty(Object, boolean, Item, Item)} are always sorted
+     * using the sorter as a comparator in the current thread.
+     *
+     * @since 7.6
+     * @param itemIds
+     *            the item ids to sort, not null
+     * @param executor
+     *            the executor to use for sorting in parallel, or null to sort
+     *            in the current thread
+     */
+    public <T> void sort(List<T> itemIds, ExecutorService executor) {
+        if (getClass() != DefaultItemSorter.class || sortPropertyIds == null) {
+            Collections.sort(itemIds, this);
+            return;
+        }
+
+        final Object[] ids = itemIds.toArray();
+        final SortEntry[] entries = new SortEntry[ids.length];
+        final Comparator<SortEntry> entryComparator = new Comparator<SortEntry>() {
+            @Override
+            public int compare(SortEntry entry1, SortEntry entry2) {
+                return compareEntries(entry1, entry2);
+            }
+        };
+
+        int[] bounds = executor == null ? null : ParallelTasks
+                .split(ids.length);
+        if (bounds == null) {
+            readSortValues(ids, entries, 0, ids.length);
+            Arrays.sort(entries, entryComparator);
+        } else {
+            List<Runnable> tasks = new ArrayList<Runnable>();
+            for (int i = 0; i < bounds.length - 1; i++) {
+                final int from = bounds[i];
+                final int to = bounds[i + 1];
+                tasks.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        readSortValues(ids, entries, from, to);
+                        Arrays.sort(entries, from, to, entryComparator);
+                    }
+                });
+            }
+            ParallelTasks.runAll(executor, tasks);
+            mergeSortedChunks(entries, bounds, entryComparator, executor);
+        }
+
+        ListIterator<T> iterator = itemIds.listIterator();
+        for (SortEntry entry : entries) {
+            iterator.next();
+            @SuppressWarnings("unchecked")
+            T itemId = (T) entry.itemId;
+            iterator.set(itemId);
+        }
+    }
+
+    private void readSortValues(Object[] ids, SortEntry[] entries, int from,
+            int to) {
+        for (int i = from; i < to; i++) {
+            Item item = container.getItem(ids[i]);
+            Object[] values = null;
+            if (item != null) {
+                values = new Object[sortPropertyIds.length];
+                for (int j = 0; j < values.length; j++) {
+                    Property<?> property = item
+                            .getItemProperty(sortPropertyIds[j]);
+                    values[j] = property == null ? null : property.getValue();
+                }
+            }
+            entries[i] = new SortEntry(ids[i], values);
+        }
+    }
+
+    /**
+     * Compares the values read for two items in the same way as
+     * {@link #compare(Object, Object)} compares the items.
+     */
+    private int compareEntries(SortEntry entry1, SortEntry entry2) {
+        if (entry1.values == null) {
+            return entry2.values == null ? 0 : 1;
+        } else if (entry2.values == null) {
+            return -1;
+        }
+        for (int i = 0; i < sortDirections.length; i++) {
+            int result;
+            if (sortDirections[i]) {
+                result = propertyValueComparator.compare(entry1.values[i],
+                        entry2.values[i]);
+            } else {
+                result = propertyValueComparator.compare(entry2.values[i],
+                        entry1.values[i]);
+            }
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Merges adjacent sorted chunks pairwise in parallel until the whole
+     * array is sorted. Entries of the left chunk come first when equal, so the
+     * sort stays stable.
+     */
+    private static void mergeSortedChunks(SortEntry[] entries, int[] bounds,
+            final Comparator<SortEntry> comparator, ExecutorService executor) {
+        SortEntry[] source = entries;
+        SortEntry[] target = new SortEntry[entries.length];
+        while (bounds.length > 2) {
+            int chunks = bounds.length - 1;
+            int[] mergedBounds = new int[(chunks + 1) / 2 + 1];
+            List<Runnable> tasks = new ArrayList<Runnable>();
+            for (int i = 0; i < chunks; i += 2) {
+                final int from = bounds[i];
+                final int middle = bounds[i + 1];
+                final int to = bounds[Math.min(i + 2, chunks)];
+                final SortEntry[] src = source;
+                final SortEntry[] dst = target;
+                mergedBounds[i / 2] = from;
+                tasks.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        merge(src, dst, from, middle, to, comparator);
+                    }
+                });
+            }
+            mergedBounds[mergedBounds.length - 1] = entries.length;
+            ParallelTasks.runAll(executor, tasks);
+
+            SortEntry[] swap = source;
+            source = target;
+            target = swap;
+            bounds = mergedBounds;
+        }
+        if (source != entries) {
+            System.arraycopy(source, 0, entries, 0, entries.length);
+        }
+    }
+
+    private static void merge(SortEntry[] source, SortEntry[] target,
+            int from, int middle, int to, Comparator<SortEntry> comparator) {
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to
+                    || (left < middle && comparator.compare(source[left],
+                            source[right]) <= 0)) {
+                target[i] = source[left++];
+            } else {
+                target[i] = source[right++];
+            }
+        }
+    }
+
+    /**
+     * An item id and the values of its sort properties, or null values if the
+     * item is not in the container.
+     */
+    private static class SortEntry implements Serializable {
+        private final Object itemId;
+        private final Object[] values;
+
+        private SortEntry(Object itemId, Object[] values) {
+            this.itemId = itemId;
+            this.values = values;
+        }
+    }
+
     /**
      * Provides a default comparator used for comparing {@link Property} values.
      * The <code>DefaultPropertyValueComparator</code> assumes all objects it
@@ -853,6 +853,17 @@ public class HierarchicalContainer extends IndexedContainer implements
         }
     }
 
+    /*
+     * Overridden as items that do not pass the filters may be included as
+     * parents of items that do, so the filtering cannot be narrowed down to
+     * the previously visible items. setIncrementalFilteringEnabled() has no
+     * effect for the same reason.
+     */
+    @Override
+    protected boolean isIncrementalFilteringSupported() {
+        return false;
+    }
+
     private static final Logger getLogger() {
         return Logger.getLogger(HierarchicalContainer.class.getName());
     }
@@ -28,6 +28,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Logger;
 
 import com.vaadin.data.Container;
@@ -106,6 +107,8 @@ public class IndexedContainer extends
 
     private int nextGeneratedItemId = 1;
 
+    private boolean incrementalFilteringEnabled = false;
+
     /* Container constructors */
 
     public IndexedContainer() {
@@ -343,6 +346,7 @@ public class IndexedContainer extends
         for (final Iterator<Object> i = getAllItemIds().iterator(); i.hasNext();) {
             items.get(i.next()).remove(propertyId);
         }
+        propertyValueChanged(propertyId);
 
         // Sends a change event
         fireContainerPropertySetChange();
@@ -946,6 +950,7 @@ public class IndexedContainer extends
                                 + newValue.getClass().getName() + " but "
                                 + getType().getName() + " was expected");
             }
+            propertyValueChanged(propertyId);
 
             // update the container filtering if this property is being filtered
             if (isPropertyFiltered(propertyId)) {
@@ -1104,6 +1109,64 @@ public class IndexedContainer extends
         super.setItemSorter(itemSorter);
     }
 
+    /**
+     * Sets whether filters are evaluated incrementally. When enabled, adding a
+     * filter or replacing a filter with a narrower one only re-evaluates the
+     * filters for the items that were visible before, and filters on indexed
+     * properties (see {@link #setPropertyIndexed(Object, boolean)}) are
+     * answered using the indexes.
+     * <p>
+     * Incremental filtering assumes that whether an item passes a filter only
+     * depends on the values of the item in this container. It should not be
+     * enabled if a filter uses any other data that may change between
+     * filtering operations. Disabled by default.
+     * 
+     * @since 7.6
+     * @param incrementalFilteringEnabled
+     *            true to enable incremental filtering, false to evaluate the
+     *            filters for all items whenever they change
+     */
+    public void setIncrementalFilteringEnabled(
+            boolean incrementalFilteringEnabled) {
+        this.incrementalFilteringEnabled = incrementalFilteringEnabled;
+    }
+
+    /**
+     * Checks whether filters are evaluated incrementally.
+     * 
+     * @see #setIncrementalFilteringEnabled(boolean)
+     * @since 7.6
+     * @return true if incremental filtering is enabled, false otherwise
+     */
+    public boolean isIncrementalFilteringEnabled() {
+        return incrementalFilteringEnabled;
+    }
+
+    @Override
+    protected boolean isIncrementalFilteringSupported() {
+        return incrementalFilteringEnabled;
+    }
+
+    @Override
+    public void setPropertyIndexed(Object propertyId, boolean indexed) {
+        super.setPropertyIndexed(propertyId, indexed);
+    }
+
+    @Override
+    public boolean isPropertyIndexed(Object propertyId) {
+        return super.isPropertyIndexed(propertyId);
+    }
+
+    @Override
+    public void setParallelExecutor(ExecutorService executor) {
+        super.setParallelExecutor(executor);
+    }
+
+    @Override
+    public ExecutorService getParallelExecutor() {
+        return super.getParallelExecutor();
+    }
+
     /**
      * Supports cloning of the IndexedContainer cleanly.
      * 
@@ -1146,6 +1209,12 @@ public class IndexedContainer extends
                 : (ListSet<Object>) ((ListSet<Object>) getFilteredItemIds())
                         .clone());
 
+        nc.incrementalFilteringEnabled = incrementalFilteringEnabled;
+        for (Object propertyId : getIndexedPropertyIds()) {
+            nc.setPropertyIndexed(propertyId, true);
+        }
+        nc.setParallelExecutor(getParallelExecutor());
+
         // Clone property-values
         if (items == null) {
             nc.items = null;
@@ -549,6 +549,26 @@ public class MethodProperty<T> extends AbstractProperty<T> {
         return getMethod;
     }
 
+    /**
+     * Makes a method accessible if permitted, so that the access checks are
+     * skipped on each invocation of the method. If the method cannot be made
+     * accessible, the access is checked on each invocation as usual.
+     * 
+     * @param method
+     *            the method to make accessible, may be null
+     * @return the method
+     */
+    static Method makeAccessible(Method method) {
+        if (method != null && !method.isAccessible()) {
+            try {
+                method.setAccessible(true);
+            } catch (RuntimeException ignored) {
+                // e.g. SecurityException, access is checked on each call
+            }
+        }
+        return method;
+    }
+
     /**
      * Returns the type of the Property. The methods <code>getValue</code> and
      * <code>setValue</code> must be compatible with this type: one must be able
@@ -18,6 +18,7 @@ package com.vaadin.data.util;
 import static com.vaadin.util.ReflectTools.convertPrimitiveType;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -47,12 +48,10 @@ public class NestedMethodProperty<T> extends AbstractProperty<T> {
     // needed for de-serialization
     private String propertyName;
 
-    // chain of getter methods
-    private transient List<Method> getMethods;
     /**
-     * The setter method.
+     * The chain of getter methods and the setter method.
      */
-    private transient Method setMethod;
+    private transient Accessors accessors;
 
     /**
      * Bean instance used as a starting point for accessing the property value.
@@ -64,7 +63,7 @@ public class NestedMethodProperty<T> extends AbstractProperty<T> {
     /* Special serialization to handle method references */
     private void writeObject(java.io.ObjectOutputStream out) throws IOException {
         out.defaultWriteObject();
-        // getMethods and setMethod are reconstructed on read based on
+        // accessors are reconstructed on read based on
         // propertyName
     }
 
@@ -122,6 +121,27 @@ public class NestedMethodProperty<T> extends AbstractProperty<T> {
      */
     private void initialize(Class<?> beanClass, String propertyName)
             throws IllegalArgumentException {
+        Accessors accessors = BeanPropertyCache.getNestedPropertyAccessors(
+                beanClass, propertyName);
+
+        this.type = (Class<? extends T>) accessors.type;
+        this.propertyName = propertyName;
+        this.accessors = accessors;
+    }
+
+    /**
+     * Finds the getter methods and the setter method of a nested property.
+     * 
+     * @param beanClass
+     *            class of the top-level bean to which the property applies
+     * @param propertyName
+     *            dot separated nested property name
+     * @return the accessors of the property
+     * @throws IllegalArgumentException
+     *             if the property name is invalid
+     */
+    static Accessors resolveAccessors(Class<?> beanClass, String propertyName)
+            throws IllegalArgumentException {
 
         List<Method> getMethods = new ArrayList<Method>();
 
@@ -144,7 +164,7 @@ public class NestedMethodProperty<T> extends AbstractProperty<T> {
                     Method getter = MethodProperty.initGetterMethod(
                             simplePropertyName, propertyClass);
                     propertyClass = getter.getReturnType();
-                    getMethods.add(getter);
+                    getMethods.add(MethodProperty.makeAccessible(getter));
                 } catch (final java.lang.NoSuchMethodException e) {
                     throw new IllegalArgumentException("Bean property '"
                             + simplePropertyName + "' not found", e);
@@ -173,10 +193,65 @@ public class NestedMethodProperty<T> extends AbstractProperty<T> {
         } catch (final NoSuchMethodException skipped) {
         }
 
-        this.type = (Class<? extends T>) convertPrimitiveType(type);
-        this.propertyName = propertyName;
-        this.getMethods = getMethods;
-        this.setMethod = setMethod;
+        return new Accessors(getMethods,
+                MethodProperty.makeAccessible(setMethod),
+                convertPrimitiveType(type));
+    }
+
+    /**
+     * The getter method chain, setter method and type of a nested property of
+     * a bean class, shared by all properties with the same name for beans of
+     * the same class. The methods are made accessible when possible to skip
+     * the access checks on each invocation.
+     * 
+     * @since 7.6
+     */
+    static final class Accessors implements Serializable {
+        private static final Object[] NO_ARGUMENTS = new Object[0];
+
+        private final List<Method> getMethods;
+        private final Method[] getMethodArray;
+        private final Method setMethod;
+        private final Class<?> type;
+
+        private Accessors(List<Method> getMethods, Method setMethod,
+                Class<?> type) {
+            this.getMethods = Collections.unmodifiableList(getMethods);
+            getMethodArray = getMethods.toArray(new Method[getMethods.size()]);
+            this.setMethod = setMethod;
+            this.type = type;
+        }
+
+        /**
+         * Calls the getter methods in sequence starting from the given bean.
+         * 
+         * @return the property value, or null if an intermediate getter
+         *         returns null
+         */
+        private Object getValue(Object bean) throws IllegalAccessException,
+                InvocationTargetException {
+            Object object = bean;
+            for (Method m : getMethodArray) {
+                object = m.invoke(object, NO_ARGUMENTS);
+                if (object == null) {
+                    return null;
+                }
+            }
+            return object;
+        }
+
+        /**
+         * Calls all but the last getter method in sequence starting from the
+         * given bean and then the setter method.
+         */
+        private void setValue(Object bean, Object value)
+                throws IllegalAccessException, InvocationTargetException {
+            Object object = bean;
+            for (int i = 0; i < getMethodArray.length - 1; i++) {
+                object = getMethodArray[i].invoke(object, NO_ARGUMENTS);
+            }
+            setMethod.invoke(object, new Object[] { value });
+        }
     }
 
     @Override
@@ -186,7 +261,7 @@ public class NestedMethodProperty<T> extends AbstractProperty<T> {
 
     @Override
     public boolean isReadOnly() {
-        return super.isReadOnly() || (null == setMethod);
+        return super.isReadOnly() || (null == accessors.setMethod);
     }
 
     /**
@@ -198,14 +273,7 @@ public class NestedMethodProperty<T> extends AbstractProperty<T> {
     @Override
     public T getValue() {
         try {
-            Object object = instance;
-            for (Method m : getMethods) {
-                object = m.invoke(object);
-                if (object == null) {
-                    return null;
-                }
-            }
-            return (T) object;
+            return (T) accessors.getValue(instance);
         } catch (final Throwable e) {
             throw new MethodException(this, e);
         }
@@ -240,11 +308,7 @@ public class NestedMethodProperty<T> extends AbstractProperty<T> {
      */
     protected void invokeSetMethod(T value) {
         try {
-            Object object = instance;
-            for (int i = 0; i < getMethods.size() - 1; i++) {
-                object = getMethods.get(i).invoke(object);
-            }
-            setMethod.invoke(object, new Object[] { value });
+            accessors.setValue(instance, value);
         } catch (final InvocationTargetException e) {
             throw new MethodException(this, e.getTargetException());
         } catch (final Exception e) {
@@ -262,7 +326,7 @@ public class NestedMethodProperty<T> extends AbstractProperty<T> {
      *         of the property name
      */
     protected List<Method> getGetMethods() {
-        return Collections.unmodifiableList(getMethods);
+        return accessors.getMethods;
     }
 
 }
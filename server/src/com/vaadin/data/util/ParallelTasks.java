@@ -0,0 +1,128 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data.util;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.vaadin.util.CurrentInstance;
+
+/**
+ * Helpers for splitting sorting and filtering of in-memory containers into
+ * tasks run by an {@link ExecutorService}.
+ *
+ * @since 7.6
+ */
+final class ParallelTasks implements Serializable {
+
+    /**
+     * The minimum number of items processed by one task.
+     */
+    static final int MIN_CHUNK_SIZE = 1000;
+
+    private ParallelTasks() {
+        // Only static helpers
+    }
+
+    /**
+     * Splits a range of items into chunks processed by separate tasks.
+     *
+     * @param size
+     *            the number of items
+     * @return the chunk boundaries, chunk <code>i</code> being
+     *         <code>[bounds[i], bounds[i + 1])</code>, or null if the range is
+     *         too small to be split
+     */
+    static int[] split(int size) {
+        int chunks = Math.min(size / MIN_CHUNK_SIZE, 4 * Runtime.getRuntime()
+                .availableProcessors());
+        if (chunks < 2) {
+            return null;
+        }
+        int[] bounds = new int[chunks + 1];
+        for (int i = 0; i <= chunks; i++) {
+            bounds[i] = (int) ((long) size * i / chunks);
+        }
+        return bounds;
+    }
+
+    /**
+     * Runs the given tasks using the executor and waits for all of them to
+     * complete. The tasks are run with the current instances (see
+     * {@link CurrentInstance}) of the calling thread, so that e.g. filters
+     * using {@link com.vaadin.ui.UI#getCurrent()} work the same way as when
+     * run in the calling thread.
+     *
+     * @param executor
+     *            the executor to run the tasks with
+     * @param tasks
+     *            the tasks to run
+     * @throws RuntimeException
+     *             if a task fails or the thread is interrupted while waiting
+     */
+    static void runAll(ExecutorService executor, List<Runnable> tasks) {
+        List<Callable<Object>> callables = new ArrayList<Callable<Object>>(
+                tasks.size());
+        Map<Class<?>, CurrentInstance> instances = CurrentInstance
+                .getInstances(false);
+        for (Runnable task : tasks) {
+            callables.add(Executors.callable(withInstances(task, instances)));
+        }
+        try {
+            for (Future<Object> future : executor.invokeAll(callables)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(
+                    "Interrupted while waiting for parallel tasks", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private static Runnable withInstances(final Runnable task,
+            final Map<Class<?>, CurrentInstance> instances) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                Map<Class<?>, CurrentInstance> old = CurrentInstance
+                        .getInstances(false);
+                CurrentInstance.clearAll();
+                CurrentInstance.restoreInstances(instances);
+                try {
+                    task.run();
+                } finally {
+                    CurrentInstance.clearAll();
+                    CurrentInstance.restoreInstances(old);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,437 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.vaadin.data.Container.Filter;
+import com.vaadin.data.util.filter.Between;
+import com.vaadin.data.util.filter.Compare;
+import com.vaadin.data.util.filter.IsNull;
+import com.vaadin.data.util.filter.SimpleStringFilter;
+
+/**
+ * Index of the values of one property of the items in an
+ * {@link AbstractInMemoryContainer}, used for finding the items that pass a
+ * filter without evaluating the filter for every item.
+ * <p>
+ * The index refers to items by their position in the unfiltered item id list
+ * of the container. It is built from the values of all items when first
+ * needed and must be invalidated whenever the values of the property or the
+ * positions of the items change. The lookup structures are created lazily:
+ * <ul>
+ * <li>a hash map from value to positions for {@link Compare.Equal}
+ * <li>positions sorted by value for {@link Compare} and {@link Between}
+ * <li>positions sorted by the string representation of the value for prefix
+ * matching {@link SimpleStringFilter}s
+ * </ul>
+ * The lookups replicate the semantics of the supported filters. Filters that
+ * cannot be answered exactly, e.g. because the values are of different
+ * classes, are not answered at all.
+ *
+ * @since 7.6
+ * @author Vaadin Ltd
+ */
+class PropertyValueIndex implements Serializable {
+
+    /**
+     * Classes whose <code>compareTo</code> is consistent with
+     * <code>equals</code>, so that {@link Compare.Equal} can be answered using
+     * a hash map.
+     */
+    private static final Class<?>[] HASHABLE_CLASSES = { String.class,
+            Integer.class, Long.class, Short.class, Byte.class,
+            Character.class, Boolean.class, Double.class, Float.class,
+            Date.class };
+
+    private transient Object[] values;
+
+    /**
+     * The class of all non-null values, or <code>null</code> if the values are
+     * of different classes or all <code>null</code>.
+     */
+    private transient Class<?> valueClass;
+
+    private transient BitSet nullPositions;
+
+    private transient Map<Object, int[]> positionsByValue;
+
+    private transient int[] positionsSortedByValue;
+
+    private transient int[] positionsSortedByString;
+
+    private transient String[] sortedStrings;
+
+    private transient boolean sortedStringsLowerCase;
+
+    /**
+     * Gets the property id a filter applies to, if the filter can be answered
+     * using an index.
+     *
+     * @param filter
+     *            the filter
+     * @return the property id, or <code>null</code> if the filter is not
+     *         supported
+     */
+    static Object getIndexedPropertyId(Filter filter) {
+        /*
+         * Only the exact classes are known to look at nothing but the value of
+         * the property, subclasses might e.g. override passesFilter.
+         */
+        Class<?> filterClass = filter.getClass();
+        if (isCompareClass(filterClass)) {
+            return ((Compare) filter).getPropertyId();
+        } else if (filterClass == Between.class) {
+            return ((Between) filter).getPropertyId();
+        } else if (filterClass == IsNull.class) {
+            return ((IsNull) filter).getPropertyId();
+        } else if (filterClass == SimpleStringFilter.class
+                && ((SimpleStringFilter) filter).isOnlyMatchPrefix()) {
+            return ((SimpleStringFilter) filter).getPropertyId();
+        }
+        return null;
+    }
+
+    private static boolean isCompareClass(Class<?> filterClass) {
+        return filterClass == Compare.Equal.class
+                || filterClass == Compare.Greater.class
+                || filterClass == Compare.Less.class
+                || filterClass == Compare.GreaterOrEqual.class
+                || filterClass == Compare.LessOrEqual.class;
+    }
+
+    /**
+     * Checks whether the index has been built since it was last invalidated.
+     *
+     * @return <code>true</code> if the index is up to date
+     */
+    boolean isBuilt() {
+        return values != null;
+    }
+
+    /**
+     * Builds the index from the values of all items.
+     *
+     * @param values
+     *            the values of the property, in the order of the unfiltered
+     *            item ids of the container
+     */
+    void build(Object[] values) {
+        invalidate();
+        this.values = values;
+        nullPositions = new BitSet(values.length);
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value == null) {
+                nullPositions.set(i);
+            } else if (valueClass == null) {
+                valueClass = value.getClass();
+            } else if (valueClass != value.getClass()) {
+                valueClass = Object.class;
+            }
+        }
+        if (valueClass == Object.class) {
+            valueClass = null;
+        }
+    }
+
+    /**
+     * Discards the index, e.g. because the values have changed.
+     */
+    void invalidate() {
+        values = null;
+        valueClass = null;
+        nullPositions = null;
+        positionsByValue = null;
+        positionsSortedByValue = null;
+        positionsSortedByString = null;
+        sortedStrings = null;
+    }
+
+    /**
+     * Gets the positions of the items that pass the given filter.
+     *
+     * @param filter
+     *            a filter for the property of this index
+     * @return the positions of the items passing the filter, or
+     *         <code>null</code> if the filter cannot be answered using the index
+     */
+    BitSet getMatchingPositions(Filter filter) {
+        Class<?> filterClass = filter.getClass();
+        if (isCompareClass(filterClass)) {
+            return getMatchingPositions((Compare) filter);
+        } else if (filterClass == Between.class) {
+            return getMatchingPositions((Between) filter);
+        } else if (filterClass == IsNull.class) {
+            return (BitSet) nullPositions.clone();
+        } else if (filterClass == SimpleStringFilter.class) {
+            return getMatchingPositions((SimpleStringFilter) filter);
+        }
+        return null;
+    }
+
+    private BitSet getMatchingPositions(Compare filter) {
+        Object value = filter.getValue();
+        if (value == null) {
+            // Compare treats null values specially, not worth indexing
+            return null;
+        }
+        if (valueClass == null && nullPositions.cardinality() == values.length) {
+            return getPositionsIfAllNull(filter);
+        } else if (value.getClass() != valueClass) {
+            // Compare would fail or fall back to equals for other classes
+            return null;
+        }
+
+        switch (filter.getOperation()) {
+        case EQUAL:
+            if (!(value instanceof Comparable) || isHashable(valueClass)) {
+                return toBitSet(getPositionsByValue().get(value));
+            }
+            return getRange(value, true, value, true, false);
+        case GREATER:
+            // Compare considers a null value greater than any other value
+            return getRange(value, false, null, false, true);
+        case GREATER_OR_EQUAL:
+            return getRange(value, true, null, false, true);
+        case LESS:
+            return getRange(null, false, value, false, false);
+        case LESS_OR_EQUAL:
+            return getRange(null, false, value, true, false);
+        }
+        return null;
+    }
+
+    private BitSet getPositionsIfAllNull(Compare filter) {
+        switch (filter.getOperation()) {
+        case GREATER:
+        case GREATER_OR_EQUAL:
+            return (BitSet) nullPositions.clone();
+        default:
+            return new BitSet();
+        }
+    }
+
+    private BitSet getMatchingPositions(Between filter) {
+        Object start = filter.getStartValue();
+        Object end = filter.getEndValue();
+        if (start == null && end == null) {
+            // Every comparable value and null passes
+            return null;
+        }
+        if ((start != null && start.getClass() != valueClass)
+                || (end != null && end.getClass() != valueClass)) {
+            return null;
+        }
+        return getRange(start, true, end, true, false);
+    }
+
+    private BitSet getMatchingPositions(SimpleStringFilter filter) {
+        if (!filter.isOnlyMatchPrefix()) {
+            return null;
+        }
+        String prefix = filter.getFilterString();
+        String[] strings = getSortedStrings(filter.isIgnoreCase());
+        int[] positions = positionsSortedByString;
+
+        BitSet result = new BitSet(values.length);
+        for (int i = lowerBound(strings, prefix); i < strings.length
+                && strings[i].startsWith(prefix); i++) {
+            result.set(positions[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the positions of the values in the given range. A <code>null</code>
+     * bound means that the range is not bounded at that end.
+     */
+    private BitSet getRange(Object start, boolean startInclusive, Object end,
+            boolean endInclusive, boolean includeNulls) {
+        if (valueClass == null
+                || !Comparable.class.isAssignableFrom(valueClass)) {
+            return null;
+        }
+        int[] positions = getPositionsSortedByValue();
+        int from = start == null ? 0 : search(positions, start,
+                !startInclusive);
+        int to = end == null ? positions.length : search(positions, end,
+                endInclusive);
+
+        BitSet result = includeNulls ? (BitSet) nullPositions.clone()
+                : new BitSet(values.length);
+        for (int i = from; i < to; i++) {
+            result.set(positions[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the first index in the sorted positions whose value is greater
+     * than (or equal to, if <code>afterEqual</code> is false) the given value.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private int search(int[] positions, Object value, boolean afterEqual) {
+        Comparable comparable = (Comparable) value;
+        int low = 0;
+        int high = positions.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int result = comparable.compareTo(values[positions[mid]]);
+            if (result > 0 || (afterEqual && result == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int lowerBound(String[] strings, String value) {
+        int index = Arrays.binarySearch(strings, value);
+        if (index < 0) {
+            return -index - 1;
+        }
+        // Find the first of equal strings
+        while (index > 0 && strings[index - 1].equals(value)) {
+            index--;
+        }
+        return index;
+    }
+
+    private Map<Object, int[]> getPositionsByValue() {
+        if (positionsByValue == null) {
+            // Count the occurrences first to allocate exact arrays
+            Map<Object, int[]> counts = new HashMap<Object, int[]>();
+            for (Object value : values) {
+                if (value != null) {
+                    int[] count = counts.get(value);
+                    if (count == null) {
+                        count = new int[2];
+                        counts.put(value, count);
+                    }
+                    count[0]++;
+                }
+            }
+            positionsByValue = new HashMap<Object, int[]>(counts.size() * 2);
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                if (value != null) {
+                    int[] count = counts.get(value);
+                    int[] positions = positionsByValue.get(value);
+                    if (positions == null) {
+                        positions = new int[count[0]];
+                        positionsByValue.put(value, positions);
+                    }
+                    positions[count[1]++] = i;
+                }
+            }
+        }
+        return positionsByValue;
+    }
+
+    private int[] getPositionsSortedByValue() {
+        if (positionsSortedByValue == null) {
+            Integer[] sorted = getNonNullPositions();
+            Arrays.sort(sorted, new Comparator<Integer>() {
+                @Override
+                @SuppressWarnings({ "unchecked", "rawtypes" })
+                public int compare(Integer position1, Integer position2) {
+                    return ((Comparable) values[position1.intValue()])
+                            .compareTo(values[position2.intValue()]);
+                }
+            });
+            positionsSortedByValue = toIntArray(sorted);
+        }
+        return positionsSortedByValue;
+    }
+
+    private String[] getSortedStrings(boolean lowerCase) {
+        if (sortedStrings == null || sortedStringsLowerCase != lowerCase) {
+            // Same conversion as in SimpleStringFilter
+            final String[] strings = new String[values.length];
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null) {
+                    strings[i] = lowerCase ? values[i].toString()
+                            .toLowerCase() : values[i].toString();
+                }
+            }
+            Integer[] sorted = getNonNullPositions();
+            Arrays.sort(sorted, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer position1, Integer position2) {
+                    return strings[position1.intValue()]
+                            .compareTo(strings[position2.intValue()]);
+                }
+            });
+            positionsSortedByString = toIntArray(sorted);
+            sortedStrings = new String[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                sortedStrings[i] = strings[positionsSortedByString[i]];
+            }
+            sortedStringsLowerCase = lowerCase;
+        }
+        return sortedStrings;
+    }
+
+    private Integer[] getNonNullPositions() {
+        Integer[] positions = new Integer[values.length
+                - nullPositions.cardinality()];
+        int index = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                positions[index++] = Integer.valueOf(i);
+            }
+        }
+        return positions;
+    }
+
+    private static int[] toIntArray(Integer[] integers) {
+        int[] ints = new int[integers.length];
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = integers[i].intValue();
+        }
+        return ints;
+    }
+
+    private static BitSet toBitSet(int[] positions) {
+        BitSet result = new BitSet();
+        if (positions != null) {
+            for (int position : positions) {
+                result.set(position);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isHashable(Class<?> type) {
+        if (type.isEnum()) {
+            return true;
+        }
+        for (Class<?> hashable : HASHABLE_CLASSES) {
+            if (hashable == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
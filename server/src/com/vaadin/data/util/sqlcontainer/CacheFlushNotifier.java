@@ -91,6 +91,11 @@ class CacheFlushNotifier implements Serializable {
                         && qd instanceof TableQuery
                         && ((TableQuery) wrQd).getTableName().equals(
                                 ((TableQuery) qd).getTableName())) {
+                    SharedRowCache cache = wrc.getSharedRowCache();
+                    if (cache != null) {
+                        cache.invalidate(SharedRowCache
+                                .getTableName((TableQuery) wrQd));
+                    }
                     wrc.refresh();
                 } else if (wrQd instanceof FreeformQuery
                         && qd instanceof FreeformQuery
@@ -16,6 +16,7 @@
 package com.vaadin.data.util.sqlcontainer;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -29,6 +30,8 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -45,6 +48,7 @@ import com.vaadin.data.util.sqlcontainer.query.QueryDelegate.RowIdChangeListener
 import com.vaadin.data.util.sqlcontainer.query.TableQuery;
 import com.vaadin.data.util.sqlcontainer.query.generator.MSSQLGenerator;
 import com.vaadin.data.util.sqlcontainer.query.generator.OracleGenerator;
+import com.vaadin.server.VaadinSession;
 
 public class SQLContainer implements Container, Container.Filterable,
         Container.Indexed, Container.Sortable, Container.ItemSetChangeNotifier {
@@ -90,10 +94,18 @@ public class SQLContainer implements Container, Container.Filterable,
      * Size updating logic. Do not update size from data source if it has been
      * updated in the last sizeValidMilliSeconds milliseconds.
      */
-    private final int sizeValidMilliSeconds = 10000;
+    private int sizeValidMilliSeconds = 10000;
     private boolean sizeDirty = true;
     private Date sizeUpdated = new Date();
 
+    /** The filters the current size was determined with */
+    private List<Filter> sizeFilters;
+
+    /** Executor for counting rows in the background, null to count directly */
+    private transient Executor countExecutor;
+    /** The row count being updated in the background */
+    private transient volatile CountTask pendingCount;
+
     /** Starting row number of the currently fetched page */
     private int currentOffset;
 
@@ -111,6 +123,12 @@ public class SQLContainer implements Container, Container.Filterable,
     /** Cache flush notification system enabled. Disabled by default. */
     private boolean notificationsEnabled;
 
+    /** Commit changes using JDBC batches. Disabled by default. */
+    private boolean batchCommitEnabled;
+
+    /** Row cache shared with other containers, null if not used */
+    private SharedRowCache sharedRowCache;
+
     /**
      * Prevent instantiation without a QueryDelegate.
      */
@@ -179,10 +197,8 @@ public class SQLContainer implements Container, Container.Filterable,
                     queryDelegate.storeRow(newRowItem);
                     queryDelegate.commit();
                 }
+                notifyOfCacheFlush();
                 refresh();
-                if (notificationsEnabled) {
-                    CacheFlushNotifier.notifyOfCacheFlush(this);
-                }
                 getLogger().log(Level.FINER, "Row added to DB...");
                 return itemId;
             } catch (SQLException e) {
@@ -434,10 +450,8 @@ public class SQLContainer implements Container, Container.Filterable,
                 queryDelegate.beginTransaction();
                 boolean success = queryDelegate.removeRow((RowItem) i);
                 queryDelegate.commit();
+                notifyOfCacheFlush();
                 refresh();
-                if (notificationsEnabled) {
-                    CacheFlushNotifier.notifyOfCacheFlush(this);
-                }
                 if (success) {
                     getLogger().log(Level.FINER, "Row removed from DB...");
                 }
@@ -494,10 +508,8 @@ public class SQLContainer implements Container, Container.Filterable,
                 if (success) {
                     queryDelegate.commit();
                     getLogger().log(Level.FINER, "All rows removed from DB...");
+                    notifyOfCacheFlush();
                     refresh();
-                    if (notificationsEnabled) {
-                        CacheFlushNotifier.notifyOfCacheFlush(this);
-                    }
                 } else {
                     queryDelegate.rollback();
                 }
@@ -941,6 +953,102 @@ public class SQLContainer implements Container, Container.Filterable,
         return autoCommit;
     }
 
+    /**
+     * Sets how long the size of the container is considered up to date after
+     * counting the rows in the data source. The rows are counted again when
+     * the size is requested after this time, or right away if the container
+     * is refreshed or its filters change. The default is 10 seconds.
+     * 
+     * @param sizeValidMilliSeconds
+     *            the time in milliseconds, 0 to count rows every time the size
+     *            is requested
+     * @since 7.6
+     */
+    public void setSizeValidMilliSeconds(int sizeValidMilliSeconds) {
+        this.sizeValidMilliSeconds = sizeValidMilliSeconds;
+    }
+
+    /**
+     * Returns how long the size of the container is considered up to date
+     * after counting the rows in the data source.
+     * 
+     * @return the time in milliseconds
+     * @since 7.6
+     */
+    public int getSizeValidMilliSeconds() {
+        return sizeValidMilliSeconds;
+    }
+
+    /**
+     * Sets the executor used for counting rows in the background. When an
+     * executor is set and the query delegate implements
+     * {@link QueryDelegate.RowCounter}, the rows are counted in the background
+     * instead of blocking the thread requesting the size. Until the count
+     * completes, the container uses its previous size if the filters have not
+     * changed, otherwise the estimate of
+     * {@link QueryDelegate.RowCounter#estimateRowCount(List)}. If no estimate
+     * is available, the rows are counted right away.
+     * <p>
+     * When the count completes, the size is updated and an item set change
+     * event is fired if the size changed. If the count was started while
+     * holding the lock of a {@link VaadinSession}, the size is updated using
+     * {@link VaadinSession#access(Runnable)}, otherwise in the thread that
+     * counted the rows.
+     * <p>
+     * The executor is not serialized with the container.
+     * 
+     * @param countExecutor
+     *            the executor to count rows with, or null to count rows in the
+     *            thread requesting the size
+     * @since 7.6
+     */
+    public void setCountExecutor(Executor countExecutor) {
+        this.countExecutor = countExecutor;
+        pendingCount = null;
+    }
+
+    /**
+     * Returns the executor used for counting rows in the background.
+     * 
+     * @see #setCountExecutor(Executor)
+     * @return the executor, or null if rows are counted in the thread
+     *         requesting the size
+     * @since 7.6
+     */
+    public Executor getCountExecutor() {
+        return countExecutor;
+    }
+
+    /**
+     * Sets a row cache shared with other containers. Pages of rows found in
+     * the shared cache are not fetched from the database, and fetched pages
+     * are added to the cache. Changes written to the database by this
+     * container discard the pages of its table from the cache.
+     * <p>
+     * The shared cache is only used with a {@link TableQuery}. As a side
+     * effect the container will be refreshed.
+     * 
+     * @param sharedRowCache
+     *            the shared cache, or null to always fetch rows from the
+     *            database
+     * @since 7.6
+     */
+    public void setSharedRowCache(SharedRowCache sharedRowCache) {
+        this.sharedRowCache = sharedRowCache;
+        refresh();
+    }
+
+    /**
+     * Returns the row cache shared with other containers.
+     * 
+     * @see #setSharedRowCache(SharedRowCache)
+     * @return the shared cache, or null if not used
+     * @since 7.6
+     */
+    public SharedRowCache getSharedRowCache() {
+        return sharedRowCache;
+    }
+
     /**
      * Returns the currently set page length.
      * 
@@ -1010,6 +1118,28 @@ public class SQLContainer implements Container, Container.Filterable,
             getLogger().log(Level.FINER,
                     "Commiting changes through delegate...");
             queryDelegate.beginTransaction();
+            if (batchCommitEnabled && queryDelegate instanceof TableQuery) {
+                TableQuery query = (TableQuery) queryDelegate;
+                boolean countsUnknown = query.isBatchUpdateCountsUnknown();
+                try {
+                    commitBatches(query);
+                } catch (SQLException e) {
+                    if (countsUnknown || !query.isBatchUpdateCountsUnknown()) {
+                        throw e;
+                    }
+                    /*
+                     * The driver does not report the numbers of affected rows
+                     * needed for checking the version column. Start over,
+                     * executing the statements one by one.
+                     */
+                    getLogger().log(Level.FINE,
+                            "Retrying the commit without batches", e);
+                    queryDelegate.rollback();
+                    queryDelegate.beginTransaction();
+                    commitBatches(query);
+                }
+                return;
+            }
             /* Perform buffered deletions */
             for (RowItem item : removedItems.values()) {
                 try {
@@ -1049,10 +1179,8 @@ public class SQLContainer implements Container, Container.Filterable,
             removedItems.clear();
             addedItems.clear();
             modifiedItems.clear();
+            notifyOfCacheFlush();
             refresh();
-            if (notificationsEnabled) {
-                CacheFlushNotifier.notifyOfCacheFlush(this);
-            }
         } catch (SQLException e) {
             queryDelegate.rollback();
             throw e;
@@ -1062,6 +1190,93 @@ public class SQLContainer implements Container, Container.Filterable,
         }
     }
 
+    /**
+     * Commits all the changes, additions and removals using JDBC batches. The
+     * transaction must have been started.
+     */
+    private void commitBatches(TableQuery query) throws SQLException {
+        /* Perform buffered deletions */
+        List<RowItem> removed = new ArrayList<RowItem>(removedItems.values());
+        int[] results;
+        try {
+            results = query.removeRows(removed);
+        } catch (IllegalArgumentException e) {
+            throw new SQLException("Removal failed", e);
+        }
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != 1) {
+                throw new SQLException("Removal failed for row with ID: "
+                        + removed.get(i).getId());
+            }
+        }
+        /* Perform buffered modifications */
+        List<RowItem> modified = new ArrayList<RowItem>();
+        for (RowItem item : modifiedItems) {
+            if (!removedItems.containsKey(item.getId())) {
+                modified.add(item);
+            }
+        }
+        results = query.storeRows(modified);
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] > 0) {
+                /*
+                 * Also reset the modified state in the item in case it is
+                 * reused e.g. in a form.
+                 */
+                modified.get(i).commit();
+            } else {
+                queryDelegate.rollback();
+                refresh();
+                throw new ConcurrentModificationException("Item with the ID '"
+                        + modified.get(i).getId()
+                        + "' has been externally modified.");
+            }
+        }
+        /* Perform buffered additions */
+        query.storeRows(addedItems);
+        queryDelegate.commit();
+        removedItems.clear();
+        addedItems.clear();
+        modifiedItems.clear();
+        notifyOfCacheFlush();
+        refresh();
+    }
+
+    /**
+     * Sets whether {@link #commit()} writes the changes to the database using
+     * JDBC batches. When enabled, the rows that are removed, modified or added
+     * are each written using a few batched statements instead of executing a
+     * statement per row, which is considerably faster when committing many
+     * rows. The JDBC driver must support batch updates, and retrieving
+     * generated keys of batched inserts for the new ids of added items to be
+     * known. If a version column is set and the driver does not report the
+     * number of rows affected by batched statements, the statements are
+     * executed one by one instead.
+     * <p>
+     * Batched commits are only supported with a {@link TableQuery}. Disabled
+     * by default.
+     * 
+     * @param batchCommitEnabled
+     *            true to write changes in batches, false to write each row
+     *            separately
+     * @since 7.6
+     */
+    public void setBatchCommitEnabled(boolean batchCommitEnabled) {
+        this.batchCommitEnabled = batchCommitEnabled;
+    }
+
+    /**
+     * Returns whether {@link #commit()} writes the changes to the database
+     * using JDBC batches.
+     * 
+     * @see #setBatchCommitEnabled(boolean)
+     * @return true if changes are written in batches, false otherwise
+     * @since 7.6
+     */
+    public boolean isBatchCommitEnabled() {
+        return batchCommitEnabled;
+    }
+
     /**
      * Rolls back all the changes, additions and removals made to the items of
      * this container.
@@ -1097,9 +1312,7 @@ public class SQLContainer implements Container, Container.Filterable,
                                     + "' has been externally modified.");
                 }
                 queryDelegate.commit();
-                if (notificationsEnabled) {
-                    CacheFlushNotifier.notifyOfCacheFlush(this);
-                }
+                notifyOfCacheFlush();
                 getLogger().log(Level.FINER, "Row updated to DB...");
             } catch (SQLException e) {
                 getLogger().log(Level.WARNING,
@@ -1167,9 +1380,16 @@ public class SQLContainer implements Container, Container.Filterable,
                 getLogger().log(Level.FINE,
                         "The query delegate doesn't support sorting", e);
             }
+            if (countExecutor != null
+                    && queryDelegate instanceof QueryDelegate.RowCounter
+                    && updateCountInBackground()) {
+                return;
+            }
             int newSize = queryDelegate.getCount();
             sizeUpdated = new Date();
             sizeDirty = false;
+            sizeFilters = new ArrayList<Filter>(filters);
+            pendingCount = null;
             if (newSize != size) {
                 size = newSize;
                 // Size is up to date so don't set it back to dirty in refresh()
@@ -1182,6 +1402,116 @@ public class SQLContainer implements Container, Container.Filterable,
         }
     }
 
+    /**
+     * Starts counting rows in the background, unless the rows are already
+     * being counted with the current filters. Until the count is complete, the
+     * previous size is used if it was determined with the current filters,
+     * otherwise an estimated size.
+     * 
+     * @return true if the rows are counted in the background, false if they
+     *         should be counted right away
+     */
+    private boolean updateCountInBackground() throws SQLException {
+        List<Filter> currentFilters = new ArrayList<Filter>(filters);
+        CountTask task = pendingCount;
+        if (task != null && task.filters.equals(currentFilters)) {
+            return true;
+        }
+
+        task = new CountTask(currentFilters, VaadinSession.getCurrent());
+        if (!currentFilters.equals(sizeFilters)) {
+            int estimate = ((QueryDelegate.RowCounter) queryDelegate)
+                    .estimateRowCount(currentFilters);
+            if (estimate < 0) {
+                return false;
+            }
+            pendingCount = task;
+            sizeFilters = currentFilters;
+            if (estimate != size) {
+                size = estimate;
+                refresh(false);
+            }
+            getLogger().log(Level.FINER,
+                    "Estimated row count. Estimated count is: {0}", size);
+        } else {
+            pendingCount = task;
+        }
+
+        try {
+            countExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            getLogger().log(Level.WARNING,
+                    "Failed to count rows in the background", e);
+            pendingCount = null;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Updates the size with a row count completed in the background.
+     * 
+     * @param task
+     *            the task that counted the rows
+     * @param newSize
+     *            the row count, or -1 if counting failed
+     */
+    private void applyCount(CountTask task, int newSize) {
+        if (pendingCount != task) {
+            // Filters have changed or the size has been updated directly
+            return;
+        }
+        pendingCount = null;
+        sizeUpdated = new Date();
+        sizeDirty = false;
+        if (newSize >= 0 && newSize != size) {
+            size = newSize;
+            refresh(false);
+        }
+        getLogger().log(Level.FINER,
+                "Updated row count in the background. New count is: {0}",
+                size);
+    }
+
+    /**
+     * Counts rows in the background and updates the size of the container
+     * while holding the lock of the session the count was started in.
+     */
+    private class CountTask implements Runnable, Serializable {
+        private final List<Filter> filters;
+        private final VaadinSession session;
+
+        private CountTask(List<Filter> filters, VaadinSession session) {
+            this.filters = filters;
+            this.session = session;
+        }
+
+        @Override
+        public void run() {
+            int count;
+            try {
+                count = ((QueryDelegate.RowCounter) queryDelegate)
+                        .countRows(filters);
+            } catch (Exception e) {
+                getLogger().log(Level.WARNING,
+                        "Failed to count rows in the background", e);
+                count = -1;
+            }
+            final int newSize = count;
+            Runnable update = new Runnable() {
+                @Override
+                public void run() {
+                    applyCount(CountTask.this, newSize);
+                }
+            };
+            if (session != null) {
+                session.access(update);
+            } else {
+                update.run();
+            }
+        }
+    }
+
     /**
      * Fetches property id's (column names and their types) from the data
      * source.
@@ -1298,89 +1628,82 @@ public class SQLContainer implements Container, Container.Filterable,
                 getLogger().log(Level.FINE,
                         "The query delegate doesn't support sorting", e);
             }
-            queryDelegate.beginTransaction();
             int fetchedRows = pageLength * CACHE_RATIO + cacheOverlap;
+            List<String> pKeys = queryDelegate.getPrimaryKeyColumns();
+
+            /* Use the rows of the shared cache if available */
+            SharedRowCache.PageKey pageKey = null;
+            long generation = 0;
+            if (sharedRowCache != null && queryDelegate instanceof TableQuery) {
+                String tableName = SharedRowCache
+                        .getTableName((TableQuery) queryDelegate);
+                pageKey = new SharedRowCache.PageKey(tableName, filters,
+                        sorters, currentOffset, fetchedRows);
+                // Read before fetching in case the table is written meanwhile
+                generation = sharedRowCache.getGeneration(tableName);
+                SharedRowCache.Page page = sharedRowCache.get(pageKey);
+                if (page != null) {
+                    int rowCount = currentOffset;
+                    for (Object[] values : page.rows) {
+                        rowCount = addRow(new RowId(getKeyValues(pKeys,
+                                page.columnLabels, values)),
+                                page.columnLabels, values, rowCount);
+                    }
+                    getLogger().log(Level.FINER,
+                            "Fetched {0} cached rows starting from {1}",
+                            new Object[] { fetchedRows, currentOffset });
+                    return;
+                }
+            }
+
+            queryDelegate.beginTransaction();
             rs = queryDelegate.getResults(currentOffset, fetchedRows);
             rsmd = rs.getMetaData();
-            List<String> pKeys = queryDelegate.getPrimaryKeyColumns();
-            // }
+            String[] columnLabels = new String[rsmd.getColumnCount()];
+            for (int i = 0; i < columnLabels.length; i++) {
+                columnLabels[i] = rsmd.getColumnLabel(i + 1);
+            }
+            List<Object[]> rows = pageKey != null ? new ArrayList<Object[]>()
+                    : null;
             /* Create new items and column properties */
-            ColumnProperty cp = null;
             int rowCount = currentOffset;
             if (!queryDelegate.implementationRespectsPagingLimits()) {
                 rowCount = currentOffset = 0;
                 setPageLengthInternal(size);
             }
+            /* Remember the rows for keyset pagination of the next pages */
+            TableQuery keysetQuery = queryDelegate instanceof TableQuery
+                    && ((TableQuery) queryDelegate)
+                            .isKeysetPaginationEnabled() ? (TableQuery) queryDelegate
+                    : null;
+            int rowIndex = currentOffset;
             while (rs.next()) {
-                List<ColumnProperty> itemProperties = new ArrayList<ColumnProperty>();
-                /* Generate row itemId based on primary key(s) */
-                Object[] itemId = new Object[pKeys.size()];
-                for (int i = 0; i < pKeys.size(); i++) {
-                    itemId[i] = rs.getObject(pKeys.get(i));
+                Object[] values = new Object[columnLabels.length];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = rs.getObject(i + 1);
+                }
+                if (rows != null) {
+                    rows.add(values);
+                }
+                if (keysetQuery != null) {
+                    keysetQuery.rowFetched(rowIndex++, columnLabels, values);
                 }
+                /* Generate row itemId based on primary key(s) */
                 RowId id = null;
                 if (pKeys.isEmpty()) {
                     id = new ReadOnlyRowId(rs.getRow());
                 } else {
-                    id = new RowId(itemId);
-                }
-                List<String> propertiesToAdd = new ArrayList<String>(
-                        propertyIds);
-                if (!removedItems.containsKey(id)) {
-                    for (int i = 1; i <= rsmd.getColumnCount(); i++) {
-                        if (!isColumnIdentifierValid(rsmd.getColumnLabel(i))) {
-                            continue;
-                        }
-                        String colName = rsmd.getColumnLabel(i);
-                        Object value = rs.getObject(i);
-                        Class<?> type = value != null ? value.getClass()
-                                : Object.class;
-                        if (value == null) {
-                            for (String propName : propertyTypes.keySet()) {
-                                if (propName.equals(rsmd.getColumnLabel(i))) {
-                                    type = propertyTypes.get(propName);
-                                    break;
-                                }
-                            }
-                        }
-                        /*
-                         * In case there are more than one column with the same
-                         * name, add only the first one. This can easily happen
-                         * if you join many tables where each table has an ID
-                         * column.
-                         */
-                        if (propertiesToAdd.contains(colName)) {
-
-                            cp = new ColumnProperty(colName,
-                                    propertyReadOnly.get(colName),
-                                    propertyPersistable.get(colName),
-                                    propertyNullable.get(colName),
-                                    propertyPrimaryKey.get(colName), value,
-                                    type);
-                            itemProperties.add(cp);
-                            propertiesToAdd.remove(colName);
-                        }
-                    }
-                    /* Cache item */
-                    itemIndexes.put(rowCount, id);
-
-                    // if an item with the id is contained in the modified
-                    // cache, then use this record and add it to the cached
-                    // items. Otherwise create a new item
-                    int modifiedIndex = indexInModifiedCache(id);
-                    if (modifiedIndex != -1) {
-                        cachedItems.put(id, modifiedItems.get(modifiedIndex));
-                    } else {
-                        cachedItems.put(id, new RowItem(this, id,
-                                itemProperties));
-                    }
-
-                    rowCount++;
+                    id = new RowId(getKeyValues(pKeys, columnLabels, values));
                 }
+                rowCount = addRow(id, columnLabels, values, rowCount);
             }
             rs.getStatement().close();
             rs.close();
             queryDelegate.commit();
+            if (rows != null) {
+                sharedRowCache.put(pageKey, new SharedRowCache.Page(
+                        columnLabels, rows), generation);
+            }
             getLogger().log(Level.FINER, "Fetched {0} rows starting from {1}",
                     new Object[] { fetchedRows, currentOffset });
         } catch (SQLException e) {
@@ -1405,6 +1728,104 @@ public class SQLContainer implements Container, Container.Filterable,
         }
     }
 
+    /**
+     * Picks the values of the primary key columns from the values of a row.
+     */
+    private static Object[] getKeyValues(List<String> pKeys,
+            String[] columnLabels, Object[] values) {
+        Object[] itemId = new Object[pKeys.size()];
+        for (int i = 0; i < pKeys.size(); i++) {
+            for (int j = 0; j < columnLabels.length; j++) {
+                if (columnLabels[j].equalsIgnoreCase(pKeys.get(i))) {
+                    itemId[i] = values[j];
+                    break;
+                }
+            }
+        }
+        return itemId;
+    }
+
+    /**
+     * Creates an item for a fetched row and adds it to the item cache, unless
+     * the item has been removed.
+     * 
+     * @param id
+     *            the id of the row
+     * @param columnLabels
+     *            the labels of the columns of the row
+     * @param values
+     *            the values of the columns of the row
+     * @param rowCount
+     *            the index of the row
+     * @return the index of the next row
+     */
+    private int addRow(RowId id, String[] columnLabels, Object[] values,
+            int rowCount) {
+        if (removedItems.containsKey(id)) {
+            return rowCount;
+        }
+        List<ColumnProperty> itemProperties = new ArrayList<ColumnProperty>();
+        List<String> propertiesToAdd = new ArrayList<String>(propertyIds);
+        for (int i = 0; i < columnLabels.length; i++) {
+            if (!isColumnIdentifierValid(columnLabels[i])) {
+                continue;
+            }
+            String colName = columnLabels[i];
+            Object value = values[i];
+            Class<?> type = value != null ? value.getClass() : Object.class;
+            if (value == null) {
+                for (String propName : propertyTypes.keySet()) {
+                    if (propName.equals(colName)) {
+                        type = propertyTypes.get(propName);
+                        break;
+                    }
+                }
+            }
+            /*
+             * In case there are more than one column with the same name, add
+             * only the first one. This can easily happen if you join many
+             * tables where each table has an ID column.
+             */
+            if (propertiesToAdd.contains(colName)) {
+                ColumnProperty cp = new ColumnProperty(colName,
+                        propertyReadOnly.get(colName),
+                        propertyPersistable.get(colName),
+                        propertyNullable.get(colName),
+                        propertyPrimaryKey.get(colName), value, type);
+                itemProperties.add(cp);
+                propertiesToAdd.remove(colName);
+            }
+        }
+        /* Cache item */
+        itemIndexes.put(rowCount, id);
+
+        // if an item with the id is contained in the modified
+        // cache, then use this record and add it to the cached
+        // items. Otherwise create a new item
+        int modifiedIndex = indexInModifiedCache(id);
+        if (modifiedIndex != -1) {
+            cachedItems.put(id, modifiedItems.get(modifiedIndex));
+        } else {
+            cachedItems.put(id, new RowItem(this, id, itemProperties));
+        }
+        return rowCount + 1;
+    }
+
+    /**
+     * Discards the rows of the table of this container from the shared row
+     * cache, and notifies other containers of the table if cache flush
+     * notifications are enabled.
+     */
+    private void notifyOfCacheFlush() {
+        if (sharedRowCache != null && queryDelegate instanceof TableQuery) {
+            sharedRowCache.invalidate(SharedRowCache
+                    .getTableName((TableQuery) queryDelegate));
+        }
+        if (notificationsEnabled) {
+            CacheFlushNotifier.notifyOfCacheFlush(this);
+        }
+    }
+
     /**
      * Returns the index of the item with the given itemId for the modified
      * cache.
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data.util.sqlcontainer;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.vaadin.data.Container.Filter;
+import com.vaadin.data.util.sqlcontainer.query.OrderBy;
+import com.vaadin.data.util.sqlcontainer.query.TableQuery;
+
+/**
+ * A cache of fetched rows that can be shared by {@link SQLContainer} instances
+ * in different sessions, e.g. when many users view the same reference tables.
+ * Containers using the cache look up the rows of a page from the cache before
+ * querying the database. A page is identified by the table, the filters, the
+ * ordering and the rows fetched, so containers with the same settings share
+ * the pages.
+ * <p>
+ * The cache holds at most a given number of pages, discarding the least
+ * recently used pages first. The pages of a table are discarded when a
+ * container using the cache writes changes to the table. Changes made to the
+ * database by other means are only seen after the pages expire, see
+ * {@link #setTimeToLive(long)}, or after calling {@link #invalidate(String)}.
+ * <p>
+ * All containers using the same cache must access the same database. The cache
+ * is only used by containers with a {@link TableQuery}. A deserialized cache
+ * starts out empty and is not shared with the original cache.
+ *
+ * @see SQLContainer#setSharedRowCache(SharedRowCache)
+ * @since 7.6
+ */
+public class SharedRowCache implements Serializable {
+
+    private final int maxPages;
+    private volatile long timeToLive = 0;
+
+    private transient Map<PageKey, Page> pages;
+    /*
+     * The generation of a table changes whenever its pages are invalidated,
+     * so that pages fetched before the invalidation are not cached after it.
+     * Guarded by pages.
+     */
+    private transient Map<String, Long> generations;
+    private transient long lastGeneration;
+    private transient long invalidateAllGeneration;
+    private transient AtomicLong hits;
+    private transient AtomicLong misses;
+
+    /**
+     * Creates a new cache holding at most the given number of pages.
+     *
+     * @param maxPages
+     *            the maximum number of pages to cache
+     */
+    public SharedRowCache(int maxPages) {
+        if (maxPages < 1) {
+            throw new IllegalArgumentException(
+                    "The maximum number of pages must be positive.");
+        }
+        this.maxPages = maxPages;
+        initialize();
+    }
+
+    private void initialize() {
+        pages = new LinkedHashMap<PageKey, Page>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PageKey, Page> eldest) {
+                return size() > maxPages;
+            }
+        };
+        generations = new HashMap<String, Long>();
+        lastGeneration = 0;
+        invalidateAllGeneration = 0;
+        hits = new AtomicLong();
+        misses = new AtomicLong();
+    }
+
+    /**
+     * Gets a cached page.
+     *
+     * @param key
+     *            the key of the page
+     * @return the page, or null if it is not cached
+     */
+    Page get(PageKey key) {
+        Page page;
+        synchronized (pages) {
+            page = pages.get(key);
+            if (page != null && timeToLive > 0
+                    && System.currentTimeMillis() - page.created > timeToLive) {
+                pages.remove(key);
+                page = null;
+            }
+        }
+        if (page == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return page;
+    }
+
+    /**
+     * Gets the current generation of a table. The generation must be read
+     * before fetching a page to be cached with
+     * {@link #put(PageKey, Page, long)}.
+     *
+     * @param tableName
+     *            the name of the table
+     * @return the generation of the table
+     */
+    long getGeneration(String tableName) {
+        synchronized (pages) {
+            Long generation = generations.get(tableName);
+            return Math.max(generation == null ? 0 : generation.longValue(),
+                    invalidateAllGeneration);
+        }
+    }
+
+    /**
+     * Caches a page unless the pages of its table have been invalidated since
+     * the page was fetched.
+     *
+     * @param key
+     *            the key of the page
+     * @param page
+     *            the page to cache
+     * @param generation
+     *            the generation of the table before the page was fetched, see
+     *            {@link #getGeneration(String)}
+     */
+    void put(PageKey key, Page page, long generation) {
+        synchronized (pages) {
+            if (getGeneration(key.tableName) == generation) {
+                pages.put(key, page);
+            }
+        }
+    }
+
+    /**
+     * Discards the cached pages of a table, e.g. after it has been modified
+     * without using a container that uses this cache.
+     *
+     * @param tableName
+     *            the name of the table including its catalog and schema names,
+     *            if any, as returned by {@link #getTableName(TableQuery)}
+     */
+    public void invalidate(String tableName) {
+        synchronized (pages) {
+            generations.put(tableName, ++lastGeneration);
+            Iterator<PageKey> i = pages.keySet().iterator();
+            while (i.hasNext()) {
+                if (i.next().tableName.equals(tableName)) {
+                    i.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards all cached pages.
+     */
+    public void invalidateAll() {
+        synchronized (pages) {
+            invalidateAllGeneration = ++lastGeneration;
+            pages.clear();
+        }
+    }
+
+    /**
+     * Sets how long a page stays in the cache after it has been fetched. By
+     * default, pages stay in the cache until discarded to make room for other
+     * pages or invalidated.
+     *
+     * @param timeToLive
+     *            the time in milliseconds, 0 to keep pages indefinitely
+     */
+    public void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Gets how long a page stays in the cache after it has been fetched.
+     *
+     * @return the time in milliseconds, 0 if pages are kept indefinitely
+     */
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Gets the maximum number of pages in the cache.
+     *
+     * @return the maximum number of pages
+     */
+    public int getMaxPages() {
+        return maxPages;
+    }
+
+    /**
+     * Gets the number of pages currently in the cache.
+     *
+     * @return the number of pages
+     */
+    public int getPageCount() {
+        synchronized (pages) {
+            return pages.size();
+        }
+    }
+
+    /**
+     * Gets the number of times a page was found in the cache.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of times a page was not found in the cache and was
+     * fetched from the database.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the ratio of cache hits to all page lookups.
+     *
+     * @return the hit rate between 0 and 1, or 0 if no pages have been looked
+     *         up
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Gets the name identifying the table of a query in this cache.
+     *
+     * @param query
+     *            the query
+     * @return the table name including the catalog and schema names, if any
+     */
+    public static String getTableName(TableQuery query) {
+        StringBuilder sb = new StringBuilder();
+        if (query.getCatalogName() != null) {
+            sb.append(query.getCatalogName()).append(".");
+        }
+        if (query.getSchemaName() != null) {
+            sb.append(query.getSchemaName()).append(".");
+        }
+        return sb.append(query.getTableName()).toString();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException,
+            ClassNotFoundException {
+        in.defaultReadObject();
+        initialize();
+    }
+
+    /**
+     * Identifies a page of rows.
+     */
+    static final class PageKey implements Serializable {
+        private final String tableName;
+        private final List<Filter> filters;
+        private final List<String> orderBys;
+        private final int offset;
+        private final int pageLength;
+
+        PageKey(String tableName, List<Filter> filters, List<OrderBy> orderBys,
+                int offset, int pageLength) {
+            this.tableName = tableName;
+            this.filters = new ArrayList<Filter>(filters);
+            // OrderBy does not implement equals
+            this.orderBys = new ArrayList<String>(orderBys.size());
+            for (OrderBy o : orderBys) {
+                this.orderBys.add(o.getColumn()
+                        + (o.isAscending() ? " ASC" : " DESC"));
+            }
+            this.offset = offset;
+            this.pageLength = pageLength;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof PageKey)) {
+                return false;
+            }
+            PageKey other = (PageKey) obj;
+            return offset == other.offset && pageLength == other.pageLength
+                    && tableName.equals(other.tableName)
+                    && filters.equals(other.filters)
+                    && orderBys.equals(other.orderBys);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = tableName.hashCode();
+            hash = 31 * hash + filters.hashCode();
+            hash = 31 * hash + orderBys.hashCode();
+            hash = 31 * hash + offset;
+            return 31 * hash + pageLength;
+        }
+    }
+
+    /**
+     * The column labels and values of a page of rows. The page must not be
+     * modified after it has been cached.
+     */
+    static final class Page implements Serializable {
+        final String[] columnLabels;
+        final List<Object[]> rows;
+        private final long created = System.currentTimeMillis();
+
+        Page(String[] columnLabels, List<Object[]> rows) {
+            this.columnLabels = columnLabels;
+            this.rows = Collections.unmodifiableList(rows);
+        }
+    }
+}
@@ -0,0 +1,567 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data.util.sqlcontainer.connection;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connection pool for a high number of concurrent users. Unlike
+ * {@link SimpleJDBCConnectionPool}, reserving and releasing connections does
+ * not synchronize on the pool, and a thread reserving a connection when all
+ * connections are in use waits for a connection to be released for up to
+ * {@link #getMaxWaitTime()} milliseconds before failing.
+ * <p>
+ * Connections that have been idle for longer than {@link #getMaxIdleTime()}
+ * milliseconds are closed, and connections that have been idle for at least
+ * {@link #getValidationIdleTime()} milliseconds are validated using
+ * {@link Connection#isValid(int)}, or {@link #getValidationQuery()} with
+ * drivers not implementing it, before they are reserved again. The pool
+ * collects statistics about its usage, e.g. {@link #getActiveConnectionCount()}
+ * and {@link #getTotalWaitTime()}.
+ * <p>
+ * Like {@link SimpleJDBCConnectionPool}, the pool opens connections using
+ * {@link java.sql.DriverManager} with auto commit disabled, and rolls back any
+ * open transaction when a connection is released. The connections are not
+ * serialized; a deserialized pool opens new connections.
+ *
+ * @since 7.6
+ */
+public class ConcurrentJDBCConnectionPool implements JDBCConnectionPool {
+
+    private final String driverName;
+    private final String connectionUri;
+    private final String userName;
+    private final String password;
+    private final int maxConnections;
+
+    private volatile long maxWaitTime = 10000;
+    private volatile long maxIdleTime = 10 * 60 * 1000;
+    private volatile long validationIdleTime = 5000;
+    private volatile int validationTimeout = 5;
+    private volatile String validationQuery = "SELECT 1";
+
+    /**
+     * Set when the driver has been found not to implement
+     * {@link Connection#isValid(int)}, which was added in JDBC 4.
+     */
+    private transient volatile boolean isValidUnsupported = false;
+
+    /**
+     * The pool state, replaced when the pool is destroyed.
+     */
+    private transient volatile PoolState state;
+
+    private transient AtomicLong reservationCount;
+    private transient AtomicLong timeoutCount;
+    private transient AtomicLong totalWaitNanos;
+    private transient AtomicLong maxWaitNanos;
+
+    /**
+     * Creates a new connection pool.
+     *
+     * @param driverName
+     *            the class name of the JDBC driver
+     * @param connectionUri
+     *            the connection URI of the database
+     * @param userName
+     *            the user name for the database
+     * @param password
+     *            the password for the database
+     * @param maxConnections
+     *            the maximum number of connections open at the same time
+     */
+    public ConcurrentJDBCConnectionPool(String driverName,
+            String connectionUri, String userName, String password,
+            int maxConnections) {
+        if (driverName == null) {
+            throw new IllegalArgumentException(
+                    "JDBC driver class name must be given.");
+        }
+        if (connectionUri == null) {
+            throw new IllegalArgumentException(
+                    "Database connection URI must be given.");
+        }
+        if (userName == null) {
+            throw new IllegalArgumentException(
+                    "Database username must be given.");
+        }
+        if (password == null) {
+            throw new IllegalArgumentException(
+                    "Database password must be given.");
+        }
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException(
+                    "The maximum number of connections must be positive.");
+        }
+        this.driverName = driverName;
+        this.connectionUri = connectionUri;
+        this.userName = userName;
+        this.password = password;
+        this.maxConnections = maxConnections;
+
+        SimpleJDBCConnectionPool.loadDriver(driverName);
+        initialize();
+    }
+
+    private void initialize() {
+        state = new PoolState(maxConnections);
+        reservationCount = new AtomicLong();
+        timeoutCount = new AtomicLong();
+        totalWaitNanos = new AtomicLong();
+        maxWaitNanos = new AtomicLong();
+    }
+
+    @Override
+    public Connection reserveConnection() throws SQLException {
+        while (true) {
+            PoolState state = this.state;
+            Connection c = reserveConnection(state);
+            if (!state.destroyed) {
+                return c;
+            }
+            /*
+             * The pool was destroyed while reserving. Close the connection in
+             * case destroy() did not see it, and use the new pool state.
+             */
+            state.reservedConnections.remove(c);
+            close(c);
+        }
+    }
+
+    private Connection reserveConnection(PoolState state) throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = state.permits.tryAcquire(maxWaitTime,
+                    TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(
+                    "Interrupted while waiting for a connection.", e);
+        }
+        recordWaitTime(System.nanoTime() - start);
+        if (!acquired) {
+            timeoutCount.incrementAndGet();
+            throw new SQLException("Connection limit has been reached and "
+                    + "no connection was released within " + maxWaitTime
+                    + " ms.");
+        }
+
+        boolean reserved = false;
+        try {
+            Connection c = pollIdleConnection(state);
+            if (c == null) {
+                c = SimpleJDBCConnectionPool.createConnection(driverName,
+                        connectionUri, userName, password);
+            }
+            state.reservedConnections.put(c, Boolean.TRUE);
+            reservationCount.incrementAndGet();
+            reserved = true;
+            return c;
+        } finally {
+            if (!reserved) {
+                state.permits.release();
+            }
+        }
+    }
+
+    /**
+     * Takes a usable idle connection from the pool, closing expired and
+     * invalid connections.
+     *
+     * @return an idle connection, or null if there is none
+     */
+    private Connection pollIdleConnection(PoolState state) {
+        IdleConnection idle;
+        while ((idle = state.idleConnections.poll()) != null) {
+            state.idleCount.decrementAndGet();
+            long idleTime = System.currentTimeMillis() - idle.idleSince;
+            if (idleTime > maxIdleTime
+                    || (idleTime >= validationIdleTime && !isValid(idle
+                            .connection))) {
+                close(idle.connection);
+            } else {
+                return idle.connection;
+            }
+        }
+        return null;
+    }
+
+    private boolean isValid(Connection c) {
+        if (!isValidUnsupported) {
+            try {
+                return c.isValid(validationTimeout);
+            } catch (SQLException e) {
+                return false;
+            } catch (AbstractMethodError e) {
+                // Not implemented by a JDBC 3 driver
+                isValidUnsupported = true;
+            }
+        }
+        return executeValidationQuery(c);
+    }
+
+    private boolean executeValidationQuery(Connection c) {
+        Statement statement = null;
+        try {
+            statement = c.createStatement();
+            statement.setQueryTimeout(validationTimeout);
+            statement.execute(validationQuery);
+            if (!c.getAutoCommit()) {
+                c.rollback();
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        } finally {
+            if (statement != null) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    // No need to do anything
+                }
+            }
+        }
+    }
+
+    @Override
+    public void releaseConnection(Connection conn) {
+        PoolState state = this.state;
+        if (conn == null || state.reservedConnections.remove(conn) == null) {
+            // Not reserved from this pool or destroyed with the pool
+            return;
+        }
+
+        boolean reusable;
+        try {
+            /* Try to roll back if necessary */
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+            }
+            reusable = !conn.isClosed();
+        } catch (SQLException e) {
+            /* Roll back failed, close and discard connection */
+            reusable = false;
+        }
+
+        if (reusable) {
+            state.idleConnections.offer(new IdleConnection(conn));
+            state.idleCount.incrementAndGet();
+            if (state.destroyed) {
+                // Destroyed while releasing, destroy() may not have seen it
+                closeIdleConnections(state);
+            }
+        } else {
+            close(conn);
+        }
+        state.permits.release();
+
+        evictIdleConnections();
+    }
+
+    /**
+     * Closes the connections that have been idle for longer than
+     * {@link #getMaxIdleTime()}. This is done automatically when connections
+     * are reserved or released, but can also be called e.g. periodically.
+     */
+    public void evictIdleConnections() {
+        PoolState state = this.state;
+        long idleLimit = System.currentTimeMillis() - maxIdleTime;
+        IdleConnection idle;
+        // The longest idle connections are at the head of the queue
+        while ((idle = state.idleConnections.peek()) != null
+                && idle.idleSince < idleLimit) {
+            if (state.idleConnections.remove(idle)) {
+                state.idleCount.decrementAndGet();
+                close(idle.connection);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Connections reserved or released while the pool is being destroyed are
+     * also closed. The pool can still be used after it has been destroyed, in
+     * which case new connections are opened.
+     */
+    @Override
+    public void destroy() {
+        PoolState oldState = state;
+        state = new PoolState(maxConnections);
+        /*
+         * Threads reserving or releasing a connection of the old state check
+         * the flag after updating the connections, so each connection is
+         * closed either here or by those threads.
+         */
+        oldState.destroyed = true;
+
+        closeIdleConnections(oldState);
+        for (Connection c : oldState.reservedConnections.keySet()) {
+            oldState.reservedConnections.remove(c);
+            close(c);
+        }
+    }
+
+    private static void closeIdleConnections(PoolState state) {
+        IdleConnection idle;
+        while ((idle = state.idleConnections.poll()) != null) {
+            state.idleCount.decrementAndGet();
+            close(idle.connection);
+        }
+    }
+
+    private static void close(Connection c) {
+        try {
+            c.close();
+        } catch (SQLException e) {
+            // No need to do anything
+        }
+    }
+
+    private void recordWaitTime(long nanos) {
+        totalWaitNanos.addAndGet(nanos);
+        long max;
+        while (nanos > (max = maxWaitNanos.get())
+                && !maxWaitNanos.compareAndSet(max, nanos)) {
+            // Retry until updated or a longer wait has been recorded
+        }
+    }
+
+    /**
+     * Gets the maximum number of connections open at the same time.
+     *
+     * @return the maximum number of connections
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Sets how long to wait for a connection to be released when all
+     * connections are in use. The default is 10 seconds.
+     *
+     * @param maxWaitTime
+     *            the maximum wait time in milliseconds, 0 to fail immediately
+     */
+    public void setMaxWaitTime(long maxWaitTime) {
+        this.maxWaitTime = maxWaitTime;
+    }
+
+    /**
+     * Gets how long to wait for a connection to be released when all
+     * connections are in use.
+     *
+     * @return the maximum wait time in milliseconds
+     */
+    public long getMaxWaitTime() {
+        return maxWaitTime;
+    }
+
+    /**
+     * Sets how long a connection may stay unused in the pool before it is
+     * closed. The default is 10 minutes.
+     *
+     * @param maxIdleTime
+     *            the maximum idle time in milliseconds
+     */
+    public void setMaxIdleTime(long maxIdleTime) {
+        this.maxIdleTime = maxIdleTime;
+    }
+
+    /**
+     * Gets how long a connection may stay unused in the pool before it is
+     * closed.
+     *
+     * @return the maximum idle time in milliseconds
+     */
+    public long getMaxIdleTime() {
+        return maxIdleTime;
+    }
+
+    /**
+     * Sets how long a connection must have been unused in the pool to be
+     * validated before it is reserved again. The default is 5 seconds.
+     *
+     * @param validationIdleTime
+     *            the idle time in milliseconds after which connections are
+     *            validated, 0 to always validate connections
+     */
+    public void setValidationIdleTime(long validationIdleTime) {
+        this.validationIdleTime = validationIdleTime;
+    }
+
+    /**
+     * Gets how long a connection must have been unused in the pool to be
+     * validated before it is reserved again.
+     *
+     * @return the idle time in milliseconds after which connections are
+     *         validated
+     */
+    public long getValidationIdleTime() {
+        return validationIdleTime;
+    }
+
+    /**
+     * Sets the timeout for validating a connection. The default is 5 seconds.
+     *
+     * @param validationTimeout
+     *            the timeout in seconds, 0 for no timeout
+     */
+    public void setValidationTimeout(int validationTimeout) {
+        this.validationTimeout = validationTimeout;
+    }
+
+    /**
+     * Gets the timeout for validating a connection.
+     *
+     * @return the timeout in seconds
+     */
+    public int getValidationTimeout() {
+        return validationTimeout;
+    }
+
+    /**
+     * Sets the query used for validating connections if the JDBC driver does
+     * not implement {@link Connection#isValid(int)}, which was added in JDBC
+     * 4. A connection is considered valid if the query can be executed. The
+     * default is <code>SELECT 1</code>, which needs to be changed for
+     * databases requiring a FROM clause, e.g. to
+     * <code>SELECT 1 FROM DUAL</code> for Oracle.
+     *
+     * @param validationQuery
+     *            the SQL query to validate connections with, not null
+     */
+    public void setValidationQuery(String validationQuery) {
+        if (validationQuery == null) {
+            throw new IllegalArgumentException(
+                    "Validation query must be given.");
+        }
+        this.validationQuery = validationQuery;
+    }
+
+    /**
+     * Gets the query used for validating connections if the JDBC driver does
+     * not implement {@link Connection#isValid(int)}.
+     *
+     * @return the SQL query to validate connections with
+     */
+    public String getValidationQuery() {
+        return validationQuery;
+    }
+
+    /**
+     * Gets the number of connections currently reserved.
+     *
+     * @return the number of reserved connections
+     */
+    public int getActiveConnectionCount() {
+        return state.reservedConnections.size();
+    }
+
+    /**
+     * Gets the number of open connections currently not reserved.
+     *
+     * @return the number of idle connections
+     */
+    public int getIdleConnectionCount() {
+        return state.idleCount.get();
+    }
+
+    /**
+     * Gets the number of connections successfully reserved from this pool.
+     *
+     * @return the number of reservations
+     */
+    public long getReservationCount() {
+        return reservationCount.get();
+    }
+
+    /**
+     * Gets the number of reservations that failed because no connection was
+     * released in time.
+     *
+     * @return the number of timed out reservations
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    /**
+     * Gets the total time threads have waited for connections to become
+     * available.
+     *
+     * @return the total wait time in milliseconds
+     */
+    public long getTotalWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get());
+    }
+
+    /**
+     * Gets the longest time a thread has waited for a connection to become
+     * available.
+     *
+     * @return the longest wait time in milliseconds
+     */
+    public long getLongestWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException,
+            ClassNotFoundException {
+        in.defaultReadObject();
+        initialize();
+    }
+
+    /**
+     * The connections of the pool and the permits for opening or reserving
+     * them.
+     */
+    private static class PoolState implements Serializable {
+        private final Semaphore permits;
+        private final ConcurrentLinkedQueue<IdleConnection> idleConnections = new ConcurrentLinkedQueue<IdleConnection>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+        private final ConcurrentHashMap<Connection, Boolean> reservedConnections = new ConcurrentHashMap<Connection, Boolean>();
+        private volatile boolean destroyed = false;
+
+        private PoolState(int maxConnections) {
+            permits = new Semaphore(maxConnections, true);
+        }
+    }
+
+    /**
+     * A connection in the pool and the time it was released.
+     */
+    private static class IdleConnection implements Serializable {
+        private final Connection connection;
+        private final long idleSince = System.currentTimeMillis();
+
+        private IdleConnection(Connection connection) {
+            this.connection = connection;
+        }
+    }
+}
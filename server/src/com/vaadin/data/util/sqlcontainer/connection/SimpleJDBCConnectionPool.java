@@ -67,7 +67,18 @@ public class SimpleJDBCConnectionPool implements JDBCConnectionPool {
         this.userName = userName;
         this.password = password;
 
-        /* Initialize JDBC driver */
+        loadDriver(driverName);
+    }
+
+    /**
+     * Loads and initializes a JDBC driver.
+     * 
+     * @param driverName
+     *            the class name of the driver
+     * @throws RuntimeException
+     *             if the driver cannot be initialized
+     */
+    static void loadDriver(String driverName) {
         try {
             Class.forName(driverName).newInstance();
         } catch (Exception ex) {
@@ -138,6 +149,16 @@ public class SimpleJDBCConnectionPool implements JDBCConnectionPool {
     }
 
     private Connection createConnection() throws SQLException {
+        return createConnection(driverName, connectionUri, userName, password);
+    }
+
+    /**
+     * Opens a new connection with auto commit disabled. For MySQL, the
+     * session is also switched to ANSI mode.
+     */
+    static Connection createConnection(String driverName,
+            String connectionUri, String userName, String password)
+            throws SQLException {
         Connection c = DriverManager.getConnection(connectionUri, userName,
                 password);
         c.setAutoCommit(false);
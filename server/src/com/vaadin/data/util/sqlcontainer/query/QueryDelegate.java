@@ -236,4 +236,43 @@ public interface QueryDelegate extends Serializable {
         @Deprecated
         public void removeListener(QueryDelegate.RowIdChangeListener listener);
     }
+
+    /**
+     * The interface for counting rows independently of the state of the query
+     * delegate. By implementing this interface a query delegate allows
+     * {@link com.vaadin.data.util.sqlcontainer.SQLContainer SQLContainer} to
+     * update its size in a background thread, see
+     * {@link com.vaadin.data.util.sqlcontainer.SQLContainer#setCountExecutor(java.util.concurrent.Executor)
+     * SQLContainer.setCountExecutor(Executor)}.
+     * 
+     * @since 7.6
+     */
+    public interface RowCounter extends Serializable {
+        /**
+         * Counts the rows matching the given filters. Unlike
+         * {@link QueryDelegate#getCount()}, this method must not use the
+         * transaction or the filters of the query delegate, as it can be called
+         * from another thread while the query delegate is being used.
+         * 
+         * @param filters
+         *            the filters the rows must pass, not null
+         * @return row count
+         * @throws SQLException
+         *             if the database access fails.
+         */
+        public int countRows(List<Filter> filters) throws SQLException;
+
+        /**
+         * Quickly estimates the number of rows matching the given filters,
+         * e.g. using statistics collected by the database. The estimate is
+         * used as the size of the container until the rows have been counted.
+         * 
+         * @param filters
+         *            the filters the rows must pass, not null
+         * @return estimated row count, or -1 if no estimate is available
+         * @throws SQLException
+         *             if the database access fails.
+         */
+        public int estimateRowCount(List<Filter> filters) throws SQLException;
+    }
 }
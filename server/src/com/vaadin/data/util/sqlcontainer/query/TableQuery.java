@@ -16,24 +16,33 @@
 package com.vaadin.data.util.sqlcontainer.query;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EventObject;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.vaadin.data.Container.Filter;
+import com.vaadin.data.util.filter.And;
+import com.vaadin.data.util.filter.Compare;
 import com.vaadin.data.util.filter.Compare.Equal;
+import com.vaadin.data.util.filter.Or;
 import com.vaadin.data.util.sqlcontainer.ColumnProperty;
 import com.vaadin.data.util.sqlcontainer.OptimisticLockException;
 import com.vaadin.data.util.sqlcontainer.RowId;
@@ -48,7 +57,8 @@ import com.vaadin.data.util.sqlcontainer.query.generator.StatementHelper;
 
 @SuppressWarnings("serial")
 public class TableQuery extends AbstractTransactionalQuery implements
-        QueryDelegate, QueryDelegate.RowIdChangeNotifier {
+        QueryDelegate, QueryDelegate.RowIdChangeNotifier,
+        QueryDelegate.RowCounter {
 
     /**
      * Table name (without catalog or schema information).
@@ -84,6 +94,36 @@ public class TableQuery extends AbstractTransactionalQuery implements
     /** Set to true to output generated SQL Queries to System.out */
     private final boolean debug = false;
 
+    /**
+     * The maximum number of row keys remembered for keyset pagination.
+     */
+    private static final int KEYSET_LIMIT = 2000;
+
+    /**
+     * The maximum number of statements executed in one JDBC batch.
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * Set when the driver has not reported the number of rows affected by a
+     * batched statement, so that the statements are executed one by one when
+     * the counts are needed for checking the version column.
+     */
+    private boolean batchUpdateCountsUnknown = false;
+
+    private boolean keysetPaginationEnabled = false;
+    /** Names of columns that cannot contain nulls, in upper case */
+    private Set<String> notNullColumns;
+    /**
+     * The remembered rows for keyset pagination, or null if none. Replaced
+     * with null also from the threads counting rows in the background.
+     */
+    private transient volatile KeysetState keyset;
+    /**
+     * The number of rows when the remembered rows were fetched.
+     */
+    private transient volatile int keysetCount = -1;
+
     /**
      * Creates a new TableQuery using the given connection pool, SQL generator
      * and table name to fetch the data from. All parameters must be non-null.
@@ -210,6 +250,7 @@ public class TableQuery extends AbstractTransactionalQuery implements
             r = executeQuery(sh);
             r.next();
             count = r.getInt(1);
+            updateKeysetCount(filters, count);
         } finally {
             try {
                 if (r != null) {
@@ -225,6 +266,58 @@ public class TableQuery extends AbstractTransactionalQuery implements
         return count;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The rows are counted using a connection reserved from the connection
+     * pool for the duration of the count.
+     * 
+     * @since 7.6
+     */
+    @Override
+    public int countRows(List<Filter> filters) throws SQLException {
+        StatementHelper sh = sqlGenerator.generateSelectQuery(
+                getFullTableName(), filters, null, 0, 0, "COUNT(*)");
+        Connection connection = getConnectionPool().reserveConnection();
+        PreparedStatement pstmt = null;
+        ResultSet r = null;
+        try {
+            pstmt = connection.prepareStatement(sh.getQueryString());
+            sh.setParameterValuesToStatement(pstmt);
+            getLogger().log(Level.FINE, "DB -> {0}", sh.getQueryString());
+            r = pstmt.executeQuery();
+            r.next();
+            int count = r.getInt(1);
+            updateKeysetCount(filters, count);
+            return count;
+        } finally {
+            try {
+                if (r != null) {
+                    r.close();
+                }
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            } finally {
+                getConnectionPool().releaseConnection(connection);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The default implementation does not estimate the count and returns -1.
+     * This can be overridden to use e.g. the table statistics of the database
+     * when no filters are set.
+     * 
+     * @since 7.6
+     */
+    @Override
+    public int estimateRowCount(List<Filter> filters) throws SQLException {
+        return -1;
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -233,25 +326,225 @@ public class TableQuery extends AbstractTransactionalQuery implements
      */
     @Override
     public ResultSet getResults(int offset, int pagelength) throws SQLException {
-        StatementHelper sh;
         /*
          * If no ordering is explicitly set, results will be ordered by the
          * first primary key column.
          */
+        List<OrderBy> ob = orderBys;
         if (orderBys == null || orderBys.isEmpty()) {
-            List<OrderBy> ob = new ArrayList<OrderBy>();
+            ob = new ArrayList<OrderBy>();
             for (int i = 0; i < primaryKeyColumns.size(); i++) {
                 ob.add(new OrderBy(primaryKeyColumns.get(i), true));
             }
-            sh = sqlGenerator.generateSelectQuery(getFullTableName(), filters,
-                    ob, offset, pagelength, null);
-        } else {
-            sh = sqlGenerator.generateSelectQuery(getFullTableName(), filters,
-                    orderBys, offset, pagelength, null);
         }
+        if (keysetPaginationEnabled && pagelength > 0
+                && isKeysetPageable(ob)) {
+            return getKeysetResults(getUniqueOrderBys(ob), offset, pagelength);
+        }
+        KeysetState state = keyset;
+        if (state != null) {
+            // The rows of these results may be in a different order
+            state.recording = false;
+        }
+        StatementHelper sh = sqlGenerator.generateSelectQuery(
+                getFullTableName(), filters, ob, offset, pagelength, null);
         return executeQuery(sh);
     }
 
+    /**
+     * Enables or disables keyset pagination. By default, a page of rows is
+     * fetched by skipping all rows before it using the offset of the page,
+     * which gets slower the further the page is from the start of the table.
+     * With keyset pagination enabled, the values of the sort columns of
+     * fetched rows are remembered (see
+     * {@link #rowFetched(int, String[], Object[])}), and a page following a
+     * remembered row is fetched by only selecting the rows that come after it
+     * in the sort order. Pages further away from any remembered row are still fetched using
+     * offsets, counted from the closest remembered row before the page.
+     * <p>
+     * Keyset pagination is only used when all sort columns are primary key
+     * columns or declared not to contain nulls, preferably with an index
+     * matching the ordering. The primary key columns are appended to the
+     * ordering to make it unique. The remembered rows are discarded when the
+     * ordering, the filters or the number of rows change.
+     * 
+     * @param keysetPaginationEnabled
+     *            true to use keyset pagination when possible, false to always
+     *            use offsets
+     * @since 7.6
+     */
+    public void setKeysetPaginationEnabled(boolean keysetPaginationEnabled) {
+        if (keysetPaginationEnabled && notNullColumns == null) {
+            notNullColumns = fetchNotNullColumns();
+        }
+        this.keysetPaginationEnabled = keysetPaginationEnabled;
+        clearKeysetRows();
+    }
+
+    /**
+     * Returns whether keyset pagination is used when possible.
+     * 
+     * @see #setKeysetPaginationEnabled(boolean)
+     * @return true if keyset pagination is enabled, false otherwise
+     * @since 7.6
+     */
+    public boolean isKeysetPaginationEnabled() {
+        return keysetPaginationEnabled;
+    }
+
+    private boolean isKeysetPageable(List<OrderBy> ob) {
+        for (OrderBy o : ob) {
+            if (!primaryKeyColumns.contains(o.getColumn())
+                    && !notNullColumns.contains(o.getColumn().toUpperCase())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends the primary key columns missing from the given ordering to it,
+     * so that no two rows have the same values in the sort columns.
+     */
+    private List<OrderBy> getUniqueOrderBys(List<OrderBy> ob) {
+        List<OrderBy> unique = new ArrayList<OrderBy>(ob);
+        for (String column : primaryKeyColumns) {
+            boolean found = false;
+            for (OrderBy o : ob) {
+                found |= column.equals(o.getColumn());
+            }
+            if (!found) {
+                unique.add(new OrderBy(column, true));
+            }
+        }
+        return unique;
+    }
+
+    private ResultSet getKeysetResults(List<OrderBy> ob, int offset,
+            int pagelength) throws SQLException {
+        KeysetState state = keyset;
+        if (state == null || !isSameOrdering(ob, state.orderBys)
+                || !isSameFilters(filters, state.filters)) {
+            state = new KeysetState(ob, filters);
+            keyset = state;
+        }
+        TreeMap<Integer, Object[]> keysetRows = state.rows;
+        if (keysetRows.size() > KEYSET_LIMIT) {
+            // Forget the rows furthest away from the requested page
+            keysetRows.headMap(offset - KEYSET_LIMIT / 2).clear();
+            keysetRows.tailMap(offset + KEYSET_LIMIT / 2).clear();
+        }
+
+        List<Filter> seekFilters = new ArrayList<Filter>();
+        if (filters != null) {
+            seekFilters.addAll(filters);
+        }
+        int skip = offset;
+        Map.Entry<Integer, Object[]> previous = offset > 0 ? keysetRows
+                .floorEntry(offset - 1) : null;
+        if (previous != null) {
+            seekFilters.add(createSeekFilter(ob, previous.getValue()));
+            skip = offset - 1 - previous.getKey();
+        }
+        StatementHelper sh = sqlGenerator.generateSelectQuery(
+                getFullTableName(), seekFilters, ob, skip, pagelength, null);
+        state.recording = true;
+        return executeQuery(sh);
+    }
+
+    /**
+     * Remembers the sort column values of a row read from the results of
+     * {@link #getResults(int, int)}, so that the pages after it can be fetched
+     * without skipping all the rows before them. Has no effect unless keyset
+     * pagination is enabled and was used for the latest results.
+     * {@link com.vaadin.data.util.sqlcontainer.SQLContainer} calls this for
+     * every row it fetches.
+     * 
+     * @see #setKeysetPaginationEnabled(boolean)
+     * @param index
+     *            the index of the row in the ordered and filtered table
+     * @param columnLabels
+     *            the labels of the columns of the results
+     * @param values
+     *            the values of the row, in the same order as the labels
+     * @since 7.6
+     */
+    public void rowFetched(int index, String[] columnLabels, Object[] values) {
+        KeysetState state = keyset;
+        if (state == null || !state.recording) {
+            return;
+        }
+        if (state.columnLabels != columnLabels) {
+            state.setColumnLabels(columnLabels);
+        }
+        if (state.columnIndexes == null) {
+            return;
+        }
+        Object[] keys = new Object[state.columnIndexes.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = values[state.columnIndexes[i]];
+        }
+        state.rows.put(index, keys);
+    }
+
+    private void updateKeysetCount(List<Filter> countedFilters, int count) {
+        KeysetState state = keyset;
+        if (count != keysetCount
+                && (state == null || isSameFilters(countedFilters,
+                        state.filters))) {
+            // Rows have been added or removed, positions may have changed
+            clearKeysetRows();
+            keysetCount = count;
+        }
+    }
+
+    private static boolean isSameFilters(List<Filter> filters1,
+            List<Filter> filters2) {
+        return filters1 == null ? filters2 == null : filters1
+                .equals(filters2);
+    }
+
+    private static boolean isSameOrdering(List<OrderBy> ob1, List<OrderBy> ob2) {
+        if (ob2 == null || ob1.size() != ob2.size()) {
+            return false;
+        }
+        for (int i = 0; i < ob1.size(); i++) {
+            if (!ob1.get(i).getColumn().equals(ob2.get(i).getColumn())
+                    || ob1.get(i).isAscending() != ob2.get(i).isAscending()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a filter accepting the rows after the row with the given sort
+     * column values in the given ordering, i.e. (c1 > v1) OR (c1 = v1 AND c2 >
+     * v2) OR ... for ascending columns. The comparison of the first column is
+     * repeated on its own to let the database use an index on it.
+     */
+    private static Filter createSeekFilter(List<OrderBy> ob, Object[] values) {
+        Filter[] alternatives = new Filter[ob.size()];
+        for (int i = 0; i < ob.size(); i++) {
+            Filter[] conditions = new Filter[i + 1];
+            for (int j = 0; j < i; j++) {
+                conditions[j] = new Equal(ob.get(j).getColumn(), values[j]);
+            }
+            conditions[i] = ob.get(i).isAscending() ? new Compare.Greater(ob
+                    .get(i).getColumn(), values[i]) : new Compare.Less(ob
+                    .get(i).getColumn(), values[i]);
+            alternatives[i] = i == 0 ? conditions[0] : new And(conditions);
+        }
+        Filter first = ob.get(0).isAscending() ? new Compare.GreaterOrEqual(ob
+                .get(0).getColumn(), values[0]) : new Compare.LessOrEqual(ob
+                .get(0).getColumn(), values[0]);
+        return new And(first, new Or(alternatives));
+    }
+
+    private void clearKeysetRows() {
+        keyset = null;
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -278,6 +571,7 @@ public class TableQuery extends AbstractTransactionalQuery implements
         }
         StatementHelper sh;
         int result = 0;
+        clearKeysetRows();
         if (row.getId() instanceof TemporaryRowId) {
             setVersionColumnFlagInProperty(row);
             sh = sqlGenerator.generateInsertQuery(getFullTableName(), row);
@@ -295,6 +589,131 @@ public class TableQuery extends AbstractTransactionalQuery implements
         return result;
     }
 
+    /**
+     * Stores the given rows like {@link #storeRow(RowItem)}, but executes the
+     * statements in JDBC batches. The updates are executed before the inserts,
+     * and statements with the same SQL are executed in the same batch.
+     * 
+     * @param rows
+     *            the rows to insert or update
+     * @return the number of affected rows for each given row, in the same
+     *         order
+     * @throws OptimisticLockException
+     *             if a version column is set and a row was not stored
+     * @throws SQLException
+     *             if storing a row fails, or if a version column is set and
+     *             the JDBC driver does not report the number of rows affected
+     *             by batched statements. In the latter case, the statements
+     *             are executed one by one in the following calls, and the
+     *             transaction can be retried.
+     * @see #isBatchUpdateCountsUnknown()
+     * @since 7.6
+     */
+    public int[] storeRows(List<RowItem> rows) throws SQLException {
+        int[] results = new int[rows.size()];
+        List<Integer> updatedIndexes = new ArrayList<Integer>();
+        List<StatementHelper> updates = new ArrayList<StatementHelper>();
+        List<Integer> insertedIndexes = new ArrayList<Integer>();
+        List<StatementHelper> inserts = new ArrayList<StatementHelper>();
+        List<RowItem> insertedRows = new ArrayList<RowItem>();
+        for (int i = 0; i < rows.size(); i++) {
+            RowItem row = rows.get(i);
+            if (row == null) {
+                throw new IllegalArgumentException(
+                        "Row argument must be non-null.");
+            }
+            setVersionColumnFlagInProperty(row);
+            if (row.getId() instanceof TemporaryRowId) {
+                insertedIndexes.add(i);
+                inserts.add(sqlGenerator.generateInsertQuery(
+                        getFullTableName(), row));
+                insertedRows.add(row);
+            } else {
+                updatedIndexes.add(i);
+                updates.add(sqlGenerator.generateUpdateQuery(
+                        getFullTableName(), row));
+            }
+        }
+        clearKeysetRows();
+
+        int[] updated = executeBatches(updates, null);
+        for (int i = 0; i < updated.length; i++) {
+            results[updatedIndexes.get(i)] = updated[i];
+        }
+        int[] inserted = executeBatches(inserts, insertedRows);
+        for (int i = 0; i < inserted.length; i++) {
+            results[insertedIndexes.get(i)] = inserted[i];
+        }
+
+        if (versionColumn != null) {
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == 0) {
+                    throw new OptimisticLockException(
+                            "Someone else changed the row that was being updated.",
+                            rows.get(i).getId());
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Removes the given rows like {@link #removeRow(RowItem)}, but executes
+     * the statements in JDBC batches. Statements with the same SQL are
+     * executed in the same batch.
+     * 
+     * @param rows
+     *            the rows to remove
+     * @return the number of removed rows for each given row, in the same
+     *         order
+     * @throws OptimisticLockException
+     *             if a version column is set and a row was not removed
+     * @throws SQLException
+     *             if removing a row fails, or if a version column is set and
+     *             the JDBC driver does not report the number of rows affected
+     *             by batched statements. In the latter case, the statements
+     *             are executed one by one in the following calls, and the
+     *             transaction can be retried.
+     * @see #isBatchUpdateCountsUnknown()
+     * @since 7.6
+     */
+    public int[] removeRows(List<RowItem> rows) throws SQLException {
+        List<StatementHelper> deletes = new ArrayList<StatementHelper>(
+                rows.size());
+        for (RowItem row : rows) {
+            deletes.add(sqlGenerator.generateDeleteQuery(getFullTableName(),
+                    primaryKeyColumns, versionColumn, row));
+        }
+        clearKeysetRows();
+
+        int[] results = executeBatches(deletes, null);
+        if (versionColumn != null) {
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] != 1) {
+                    throw new OptimisticLockException(
+                            "Someone else changed the row that was being deleted.",
+                            rows.get(i).getId());
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns whether the JDBC driver has been found not to report the number
+     * of rows affected by batched statements. As the number is needed for
+     * checking the version column, {@link #storeRows(List)} and
+     * {@link #removeRows(List)} execute the statements one by one instead of
+     * in batches when this is true and a version column is set.
+     * 
+     * @return true if the driver does not report the number of affected rows
+     *         for batched statements, false if it does or it is not yet known
+     * @since 7.6
+     */
+    public boolean isBatchUpdateCountsUnknown() {
+        return batchUpdateCountsUnknown;
+    }
+
     private void setVersionColumnFlagInProperty(RowItem row) {
         ColumnProperty versionProperty = (ColumnProperty) row
                 .getItemProperty(versionColumn);
@@ -316,6 +735,7 @@ public class TableQuery extends AbstractTransactionalQuery implements
      * @throws SQLException
      */
     public RowId storeRowImmediately(RowItem row) throws SQLException {
+        clearKeysetRows();
         beginTransaction();
         /* Set version column, if one is provided */
         setVersionColumnFlagInProperty(row);
@@ -359,6 +779,10 @@ public class TableQuery extends AbstractTransactionalQuery implements
     @Override
     public void setFilters(List<Filter> filters)
             throws UnsupportedOperationException {
+        KeysetState state = keyset;
+        if (state != null && !isSameFilters(filters, state.filters)) {
+            clearKeysetRows();
+        }
         if (filters == null) {
             this.filters = null;
             return;
@@ -376,6 +800,15 @@ public class TableQuery extends AbstractTransactionalQuery implements
     @Override
     public void setOrderBy(List<OrderBy> orderBys)
             throws UnsupportedOperationException {
+        KeysetState state = keyset;
+        if (state != null) {
+            // Without an explicit ordering, rows are ordered by primary key
+            List<OrderBy> ob = getUniqueOrderBys(orderBys == null ? Collections
+                    .<OrderBy> emptyList() : orderBys);
+            if (!isSameOrdering(ob, state.orderBys)) {
+                clearKeysetRows();
+            }
+        }
         if (orderBys == null) {
             this.orderBys = null;
             return;
@@ -595,6 +1028,123 @@ public class TableQuery extends AbstractTransactionalQuery implements
         }
     }
 
+    /**
+     * Executes the given update statements in batches, using either the active
+     * connection if a transaction is already open, or a new connection from
+     * this query's connection pool. Statements with the same query string are
+     * executed using the same PreparedStatement.
+     * 
+     * Additionally adds a new RowIdChangeEvent to the event buffer for each
+     * inserted row.
+     * 
+     * If a version column is set, the number of affected rows is needed to
+     * detect concurrent modifications. If the driver does not report it for a
+     * batch, this fails and the statements are executed one by one from then
+     * on.
+     * 
+     * @param statements
+     *            the statements to execute
+     * @param insertedRows
+     *            the rows inserted by the statements, or null if the
+     *            statements do not insert rows
+     * @return the number of affected rows for each statement
+     * @throws SQLException
+     *             if a statement fails or the number of affected rows is
+     *             unknown although needed
+     */
+    private int[] executeBatches(List<StatementHelper> statements,
+            List<RowItem> insertedRows) throws SQLException {
+        int[] results = new int[statements.size()];
+        if (statements.isEmpty()) {
+            return results;
+        }
+        /* Group the statements by query string, keeping the original order */
+        Map<String, List<Integer>> groups = new LinkedHashMap<String, List<Integer>>();
+        for (int i = 0; i < statements.size(); i++) {
+            String queryString = statements.get(i).getQueryString();
+            List<Integer> group = groups.get(queryString);
+            if (group == null) {
+                group = new ArrayList<Integer>();
+                groups.put(queryString, group);
+            }
+            group.add(i);
+        }
+
+        boolean countsNeeded = versionColumn != null;
+        int batchSize = countsNeeded && batchUpdateCountsUnknown ? 1
+                : BATCH_SIZE;
+
+        Connection connection = null;
+        try {
+            connection = getConnection();
+            for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+                PreparedStatement pstmt = null;
+                ResultSet genKeys = null;
+                try {
+                    if (insertedRows != null) {
+                        pstmt = connection.prepareStatement(group.getKey(),
+                                primaryKeyColumns.toArray(new String[0]));
+                    } else {
+                        pstmt = connection.prepareStatement(group.getKey());
+                    }
+                    getLogger().log(Level.FINE, "DB -> {0} ({1} rows)",
+                            new Object[] { group.getKey(),
+                                    group.getValue().size() });
+                    List<Integer> indexes = group.getValue();
+                    for (int start = 0; start < indexes.size(); start += batchSize) {
+                        List<Integer> batch = indexes.subList(start,
+                                Math.min(start + batchSize, indexes.size()));
+                        int[] counts;
+                        if (batchSize == 1) {
+                            statements.get(batch.get(0))
+                                    .setParameterValuesToStatement(pstmt);
+                            counts = new int[] { pstmt.executeUpdate() };
+                        } else {
+                            for (int i : batch) {
+                                statements.get(i)
+                                        .setParameterValuesToStatement(pstmt);
+                                pstmt.addBatch();
+                            }
+                            counts = pstmt.executeBatch();
+                        }
+                        for (int i = 0; i < batch.size(); i++) {
+                            if (counts[i] == Statement.EXECUTE_FAILED) {
+                                throw new SQLException(
+                                        "Batched statement failed: "
+                                                + group.getKey());
+                            } else if (counts[i] != Statement.SUCCESS_NO_INFO) {
+                                results[batch.get(i)] = counts[i];
+                            } else if (countsNeeded) {
+                                batchUpdateCountsUnknown = true;
+                                throw new SQLException(
+                                        "The JDBC driver did not report the number of rows affected by a batched statement, "
+                                                + "which is needed to check the version column. "
+                                                + "The statements will be executed one by one in the following calls.");
+                            } else {
+                                results[batch.get(i)] = 1;
+                            }
+                        }
+                        if (insertedRows != null) {
+                            genKeys = pstmt.getGeneratedKeys();
+                            for (int i : batch) {
+                                RowItem row = insertedRows.get(i);
+                                bufferedEvents.add(new RowIdChangeEvent(row
+                                        .getId(), getNewRowId(row, genKeys)));
+                            }
+                            genKeys.close();
+                            genKeys = null;
+                        }
+                    }
+                } finally {
+                    releaseConnection(null, pstmt, genKeys);
+                }
+            }
+        } finally {
+            releaseConnection(connection, null, null);
+        }
+        return results;
+    }
+
     /**
      * Fetches name(s) of primary key column(s) from DB metadata.
      * 
@@ -672,6 +1222,34 @@ public class TableQuery extends AbstractTransactionalQuery implements
         }
     }
 
+    /**
+     * Fetches the names of the columns that cannot contain nulls from DB
+     * metadata.
+     */
+    private Set<String> fetchNotNullColumns() {
+        Set<String> names = new HashSet<String>();
+        Connection connection = null;
+        ResultSet rs = null;
+        try {
+            connection = getConnection();
+            rs = connection.getMetaData().getColumns(catalogName, schemaName,
+                    tableName, null);
+            while (rs.next()) {
+                if (rs.getInt("NULLABLE") == DatabaseMetaData.columnNoNulls) {
+                    names.add(rs.getString("COLUMN_NAME").toUpperCase());
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            try {
+                releaseConnection(connection, null, rs);
+            } catch (SQLException ignore) {
+            }
+        }
+        return names;
+    }
+
     private RowId getNewRowId(RowItem row, ResultSet genKeys) {
         try {
             /* Fetch primary key values and generate a map out of them. */
@@ -728,6 +1306,7 @@ public class TableQuery extends AbstractTransactionalQuery implements
             getLogger().log(Level.FINE, "Removing row with id: {0}",
                     row.getId().getId()[0]);
         }
+        clearKeysetRows();
         if (executeUpdate(sqlGenerator.generateDeleteQuery(getFullTableName(),
                 primaryKeyColumns, versionColumn, row)) == 1) {
             return true;
@@ -796,6 +1375,52 @@ public class TableQuery extends AbstractTransactionalQuery implements
         out.defaultWriteObject();
     }
 
+    /**
+     * The sort column values of rows by index for the ordering and filters the
+     * rows were fetched with.
+     */
+    private static class KeysetState implements Serializable {
+        private final List<OrderBy> orderBys;
+        private final List<Filter> filters;
+        private final TreeMap<Integer, Object[]> rows = new TreeMap<Integer, Object[]>();
+        /**
+         * Whether the latest results were fetched using this state.
+         */
+        private boolean recording;
+        private String[] columnLabels;
+        /**
+         * The positions of the sort columns in the column labels, or null if
+         * some sort column is not included.
+         */
+        private int[] columnIndexes;
+
+        private KeysetState(List<OrderBy> orderBys, List<Filter> filters) {
+            this.orderBys = orderBys;
+            // The list set by the container may later be modified in place
+            this.filters = filters == null ? null : new ArrayList<Filter>(
+                    filters);
+        }
+
+        private void setColumnLabels(String[] columnLabels) {
+            this.columnLabels = columnLabels;
+            columnIndexes = new int[orderBys.size()];
+            for (int i = 0; i < columnIndexes.length; i++) {
+                columnIndexes[i] = -1;
+                for (int j = 0; j < columnLabels.length; j++) {
+                    if (orderBys.get(i).getColumn()
+                            .equalsIgnoreCase(columnLabels[j])) {
+                        columnIndexes[i] = j;
+                        break;
+                    }
+                }
+                if (columnIndexes[i] < 0) {
+                    columnIndexes = null;
+                    return;
+                }
+            }
+        }
+    }
+
     /**
      * Simple RowIdChangeEvent implementation.
      */
@@ -20,9 +20,11 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EventObject;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 import com.vaadin.server.ErrorEvent;
@@ -44,6 +46,12 @@ public class EventRouter implements MethodEventSource {
      */
     private LinkedHashSet<ListenerMethod> listenerList = null;
 
+    /**
+     * The listeners triggered by each fired event class, in registration order.
+     * Cleared whenever listeners are added or removed.
+     */
+    private transient Map<Class<?>, ListenerMethod[]> dispatchCache = null;
+
     /*
      * Registers a new listener with the specified activation method to listen
      * events generated by this component. Don't add a JavaDoc comment here, we
@@ -55,6 +63,7 @@ public class EventRouter implements MethodEventSource {
             listenerList = new LinkedHashSet<ListenerMethod>();
         }
         listenerList.add(new ListenerMethod(eventType, object, method));
+        dispatchCache = null;
     }
 
     /*
@@ -68,6 +77,7 @@ public class EventRouter implements MethodEventSource {
             listenerList = new LinkedHashSet<ListenerMethod>();
         }
         listenerList.add(new ListenerMethod(eventType, object, methodName));
+        dispatchCache = null;
     }
 
     /*
@@ -83,6 +93,7 @@ public class EventRouter implements MethodEventSource {
                 final ListenerMethod lm = i.next();
                 if (lm.matches(eventType, target)) {
                     i.remove();
+                    dispatchCache = null;
                     return;
                 }
             }
@@ -102,6 +113,7 @@ public class EventRouter implements MethodEventSource {
                 final ListenerMethod lm = i.next();
                 if (lm.matches(eventType, target, method)) {
                     i.remove();
+                    dispatchCache = null;
                     return;
                 }
             }
@@ -136,6 +148,7 @@ public class EventRouter implements MethodEventSource {
                 final ListenerMethod lm = i.next();
                 if (lm.matches(eventType, target, method)) {
                     i.remove();
+                    dispatchCache = null;
                     return;
                 }
             }
@@ -148,6 +161,7 @@ public class EventRouter implements MethodEventSource {
      */
     public void removeAllListeners() {
         listenerList = null;
+        dispatchCache = null;
     }
 
     /**
@@ -180,28 +194,54 @@ public class EventRouter implements MethodEventSource {
         // It is not necessary to send any events if there are no listeners
         if (listenerList != null) {
 
-            // Make a copy of the listener list to allow listeners to be added
-            // inside listener methods. Fixes #3605.
-
-            // Send the event to all listeners. The listeners themselves
-            // will filter out unwanted events.
-            final Object[] listeners = listenerList.toArray();
+            // The cached array is never modified, which allows listeners to be
+            // added inside listener methods. Fixes #3605.
+            final ListenerMethod[] listeners = getListenerMethods(event
+                    .getClass());
             for (int i = 0; i < listeners.length; i++) {
-                ListenerMethod listenerMethod = (ListenerMethod) listeners[i];
+                ListenerMethod listenerMethod = listeners[i];
                 if (null != errorHandler) {
                     try {
-                        listenerMethod.receiveEvent(event);
+                        listenerMethod.invoke(event);
                     } catch (Exception e) {
                         errorHandler.error(new ErrorEvent(e));
                     }
                 } else {
-                    listenerMethod.receiveEvent(event);
+                    listenerMethod.invoke(event);
                 }
             }
 
         }
     }
 
+    /**
+     * Gets the listeners triggered by events of the given class. The listeners
+     * are looked up once for each event class and cached until listeners are
+     * added or removed.
+     * 
+     * @param eventClass
+     *            the class of a fired event
+     * @return the listeners accepting the event class in registration order,
+     *         not to be modified
+     */
+    private ListenerMethod[] getListenerMethods(Class<?> eventClass) {
+        if (dispatchCache == null) {
+            dispatchCache = new HashMap<Class<?>, ListenerMethod[]>();
+        }
+        ListenerMethod[] listeners = dispatchCache.get(eventClass);
+        if (listeners == null) {
+            List<ListenerMethod> accepting = new ArrayList<ListenerMethod>();
+            for (ListenerMethod lm : listenerList) {
+                if (lm.acceptsEventClass(eventClass)) {
+                    accepting.add(lm);
+                }
+            }
+            listeners = accepting.toArray(new ListenerMethod[accepting.size()]);
+            dispatchCache.put(eventClass, listeners);
+        }
+        return listeners;
+    }
+
     /**
      * Checks if the given Event type is listened by a listener registered to
      * this router.
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.event;
+
+import java.lang.reflect.Method;
+import java.util.EventObject;
+
+import com.vaadin.data.Property;
+import com.vaadin.event.FieldEvents.BlurEvent;
+import com.vaadin.event.FieldEvents.BlurListener;
+import com.vaadin.event.FieldEvents.FocusEvent;
+import com.vaadin.event.FieldEvents.FocusListener;
+import com.vaadin.event.FieldEvents.TextChangeEvent;
+import com.vaadin.event.FieldEvents.TextChangeListener;
+import com.vaadin.event.ItemClickEvent.ItemClickListener;
+import com.vaadin.event.LayoutEvents.LayoutClickEvent;
+import com.vaadin.event.LayoutEvents.LayoutClickListener;
+import com.vaadin.ui.Button;
+import com.vaadin.util.ReflectTools;
+
+/**
+ * Calls the listener methods of the most commonly used listener interfaces
+ * directly instead of through reflection. Used by {@link ListenerMethod} when
+ * the trigger method is one of these methods and the event is its only
+ * argument.
+ *
+ * @since 7.6
+ */
+enum ListenerInvoker {
+    BUTTON_CLICK(Button.ClickListener.BUTTON_CLICK_METHOD) {
+        @Override
+        void invoke(Object target, EventObject event) {
+            ((Button.ClickListener) target)
+                    .buttonClick((Button.ClickEvent) event);
+        }
+    },
+    VALUE_CHANGE(ReflectTools.findMethod(Property.ValueChangeListener.class,
+            "valueChange", Property.ValueChangeEvent.class)) {
+        @Override
+        void invoke(Object target, EventObject event) {
+            ((Property.ValueChangeListener) target)
+                    .valueChange((Property.ValueChangeEvent) event);
+        }
+    },
+    FOCUS(FocusListener.focusMethod) {
+        @Override
+        void invoke(Object target, EventObject event) {
+            ((FocusListener) target).focus((FocusEvent) event);
+        }
+    },
+    BLUR(BlurListener.blurMethod) {
+        @Override
+        void invoke(Object target, EventObject event) {
+            ((BlurListener) target).blur((BlurEvent) event);
+        }
+    },
+    TEXT_CHANGE(ReflectTools.findMethod(TextChangeListener.class,
+            "textChange", TextChangeEvent.class)) {
+        @Override
+        void invoke(Object target, EventObject event) {
+            ((TextChangeListener) target).textChange((TextChangeEvent) event);
+        }
+    },
+    LAYOUT_CLICK(LayoutClickListener.clickMethod) {
+        @Override
+        void invoke(Object target, EventObject event) {
+            ((LayoutClickListener) target)
+                    .layoutClick((LayoutClickEvent) event);
+        }
+    },
+    ITEM_CLICK(ItemClickEvent.ITEM_CLICK_METHOD) {
+        @Override
+        void invoke(Object target, EventObject event) {
+            ((ItemClickListener) target).itemClick((ItemClickEvent) event);
+        }
+    };
+
+    private final Method method;
+
+    private ListenerInvoker(Method method) {
+        this.method = method;
+    }
+
+    /**
+     * Calls the listener method of the target.
+     *
+     * @param target
+     *            the listener, implementing the interface of this invoker
+     * @param event
+     *            the event to pass to the listener method
+     */
+    abstract void invoke(Object target, EventObject event);
+
+    /**
+     * Finds the invoker calling the given method.
+     *
+     * @param method
+     *            the listener method
+     * @return the invoker, or null if the method must be called through
+     *         reflection
+     */
+    static ListenerInvoker forMethod(Method method) {
+        for (ListenerInvoker invoker : values()) {
+            if (invoker.method.equals(method)) {
+                return invoker;
+            }
+        }
+        return null;
+    }
+}
@@ -82,6 +82,13 @@ public class ListenerMethod implements EventListener, Serializable {
      */
     private int eventArgumentIndex;
 
+    /**
+     * Calls the trigger method without reflection if it is the method of a
+     * common listener interface, looked up on the first invocation.
+     */
+    private transient ListenerInvoker invoker;
+    private transient boolean invokerResolved = false;
+
     /* Special serialization to handle method references */
     private void writeObject(java.io.ObjectOutputStream out) throws IOException {
         try {
@@ -501,38 +508,83 @@ public class ListenerMethod implements EventListener, Serializable {
      */
     public void receiveEvent(EventObject event) {
         // Only send events supported by the method
-        if (eventType.isAssignableFrom(event.getClass())) {
+        if (acceptsEventClass(event.getClass())) {
+            invoke(event);
+        }
+    }
+
+    /**
+     * Checks if events of the given class trigger this listener.
+     * 
+     * @param eventClass
+     *            the class of an event
+     * @return <code>true</code> if the event type of this listener is the same
+     *         as or a superclass of <code>eventClass</code>
+     */
+    boolean acceptsEventClass(Class<?> eventClass) {
+        return eventType.isAssignableFrom(eventClass);
+    }
+
+    /**
+     * Calls the trigger method without checking the type of the event. Used by
+     * {@link EventRouter} for events it already knows to be accepted by this
+     * listener.
+     * 
+     * @param event
+     *            the fired event
+     */
+    void invoke(EventObject event) {
+        if (!invokerResolved) {
+            if (eventArgumentIndex == 0 && arguments.length == 1
+                    && method.getDeclaringClass().isInstance(target)) {
+                invoker = ListenerInvoker.forMethod(method);
+            }
+            invokerResolved = true;
+        }
+        if (invoker != null) {
+            // Wrap exceptions like Method.invoke() would
             try {
-                if (eventArgumentIndex >= 0) {
-                    if (eventArgumentIndex == 0 && arguments.length == 1) {
-                        method.invoke(target, new Object[] { event });
-                    } else {
-                        final Object[] arg = new Object[arguments.length];
-                        for (int i = 0; i < arg.length; i++) {
-                            arg[i] = arguments[i];
-                        }
-                        arg[eventArgumentIndex] = event;
-                        method.invoke(target, arg);
-                    }
+                invoker.invoke(target, event);
+            } catch (RuntimeException e) {
+                throw createInvocationException(e);
+            } catch (Error e) {
+                throw createInvocationException(e);
+            }
+            return;
+        }
+
+        try {
+            if (eventArgumentIndex >= 0) {
+                if (eventArgumentIndex == 0 && arguments.length == 1) {
+                    method.invoke(target, new Object[] { event });
                 } else {
-                    method.invoke(target, arguments);
+                    final Object[] arg = new Object[arguments.length];
+                    for (int i = 0; i < arg.length; i++) {
+                        arg[i] = arguments[i];
+                    }
+                    arg[eventArgumentIndex] = event;
+                    method.invoke(target, arg);
                 }
-
-            } catch (final java.lang.IllegalAccessException e) {
-                // This should never happen
-                throw new java.lang.RuntimeException(
-                        "Internal error - please report", e);
-            } catch (final java.lang.reflect.InvocationTargetException e) {
-                // An exception was thrown by the invocation target. Throw it
-                // forwards.
-                throw new MethodException("Invocation of method "
-                        + method.getName() + " in "
-                        + target.getClass().getName() + " failed.",
-                        e.getTargetException());
+            } else {
+                method.invoke(target, arguments);
             }
+
+        } catch (final java.lang.IllegalAccessException e) {
+            // This should never happen
+            throw new java.lang.RuntimeException(
+                    "Internal error - please report", e);
+        } catch (final java.lang.reflect.InvocationTargetException e) {
+            // An exception was thrown by the invocation target. Throw it
+            // forwards.
+            throw createInvocationException(e.getTargetException());
         }
     }
 
+    private MethodException createInvocationException(Throwable cause) {
+        return new MethodException("Invocation of method " + method.getName()
+                + " in " + target.getClass().getName() + " failed.", cause);
+    }
+
     /**
      * Checks if the given object and event match with the ones stored in this
      * listener.
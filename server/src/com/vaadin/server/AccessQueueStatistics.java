@@ -0,0 +1,139 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics about the tasks enqueued using
+ * {@link VaadinSession#access(Runnable)} for a session. The statistics can be
+ * read without holding the session lock, e.g. from a monitoring thread.
+ *
+ * @see VaadinSession#getAccessQueueStatistics()
+ * @see DeploymentConfiguration#getAccessCoalescingInterval()
+ *
+ * @since 7.6
+ * @author Vaadin Ltd
+ */
+public class AccessQueueStatistics implements Serializable {
+
+    private long taskCount;
+
+    private long batchCount;
+
+    private int maxBatchSize;
+
+    private long totalLatency;
+
+    private long maxLatency;
+
+    /**
+     * Records a task that has been run.
+     *
+     * @param latency
+     *            the time in nanoseconds the task waited in the queue before it
+     *            was run
+     */
+    synchronized void recordTask(long latency) {
+        taskCount++;
+        totalLatency += latency;
+        maxLatency = Math.max(maxLatency, latency);
+    }
+
+    /**
+     * Records a batch of tasks that were run when the access queue was purged.
+     *
+     * @param size
+     *            the number of tasks in the batch
+     */
+    synchronized void recordBatch(int size) {
+        if (size > 0) {
+            batchCount++;
+            maxBatchSize = Math.max(maxBatchSize, size);
+        }
+    }
+
+    /**
+     * Gets the number of tasks that have been run.
+     *
+     * @return the number of tasks
+     */
+    public synchronized long getTaskCount() {
+        return taskCount;
+    }
+
+    /**
+     * Gets the number of times one or more tasks have been run from the queue.
+     * With automatic push, a push message is sent for each batch.
+     *
+     * @return the number of batches
+     */
+    public synchronized long getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * Gets the highest number of tasks that have been run in one batch, i.e.
+     * the maximum depth of the queue.
+     *
+     * @return the maximum number of tasks in a batch
+     */
+    public synchronized int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Gets the average time tasks have waited in the queue before being run.
+     *
+     * @return the average latency in milliseconds
+     */
+    public synchronized double getAverageTaskLatency() {
+        if (taskCount == 0) {
+            return 0;
+        }
+        return (double) TimeUnit.NANOSECONDS.toMicros(totalLatency)
+                / taskCount / 1000;
+    }
+
+    /**
+     * Gets the longest time a task has waited in the queue before being run.
+     *
+     * @return the maximum latency in milliseconds
+     */
+    public synchronized long getMaxTaskLatency() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLatency);
+    }
+
+    /**
+     * Resets all statistics.
+     */
+    public synchronized void reset() {
+        taskCount = 0;
+        batchCount = 0;
+        maxBatchSize = 0;
+        totalLatency = 0;
+        maxLatency = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "tasks: " + taskCount + ", batches: " + batchCount
+                + ", max batch size: " + maxBatchSize
+                + ", average latency: " + getAverageTaskLatency()
+                + " ms, max latency: " + getMaxTaskLatency() + " ms";
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A {@link StreamVariable} that can receive the streamed content through a
+ * {@link WritableByteChannel} instead of an {@link OutputStream}. The content
+ * is read from the request into a heap buffer and written to the channel, so
+ * this is no faster than writing to a stream, but lets the receiver use an
+ * existing channel without wrapping it in a stream.
+ * 
+ * @since 7.6
+ * @see StreamVariable
+ */
+public interface ChannelStreamVariable extends StreamVariable {
+
+    /**
+     * Invoked by the terminal when a new upload arrives, after
+     * {@link #streamingStarted(StreamingStartEvent)} method has been called.
+     * The terminal implementation will write the streamed variable to the
+     * returned channel and close it when the streaming ends. If this method
+     * returns null, {@link #getOutputStream()} is used instead.
+     * 
+     * @return Channel to which the uploaded file should be written, or null to
+     *         write it to the output stream
+     */
+    public WritableByteChannel getChannel();
+
+}
@@ -49,6 +49,12 @@ public interface Constants {
             + "in web.xml. The default of 5min will be used.\n"
             + "===========================================================";
 
+    static final String WARNING_ACCESS_COALESCING_INTERVAL_NOT_NUMERIC = "\n"
+            + "===========================================================\n"
+            + "WARNING: accessCoalescingInterval has been set to a non integer\n"
+            + "value in web.xml. Coalescing of access tasks will be disabled.\n"
+            + "===========================================================";
+
     static final String WARNING_PUSH_MODE_NOT_RECOGNIZED = "\n"
             + "===========================================================\n"
             + "WARNING: pushMode has been set to an unrecognized value\n"
@@ -138,6 +144,9 @@ public interface Constants {
     static final String SERVLET_PARAMETER_SYNC_ID_CHECK = "syncIdCheck";
     static final String SERVLET_PARAMETER_SENDURLSASPARAMETERS = "sendUrlsAsParameters";
     static final String SERVLET_PARAMETER_PUSH_SUSPEND_TIMEOUT_LONGPOLLING = "pushLongPollingSuspendTimeout";
+    static final String SERVLET_PARAMETER_UIDL_IO_OUTSIDE_SESSION_LOCK = "uidlIoOutsideSessionLock";
+    static final String SERVLET_PARAMETER_ACCESS_COALESCING_INTERVAL = "accessCoalescingInterval";
+    static final String SERVLET_PARAMETER_STATIC_RESOURCE_CACHE_SIZE = "staticResourceCacheSize";
 
     // Configurable parameter names
     static final String PARAMETER_VAADIN_RESOURCES = "Resources";
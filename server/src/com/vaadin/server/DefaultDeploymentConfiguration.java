@@ -61,6 +61,20 @@ public class DefaultDeploymentConfiguration extends
 
     public static final boolean DEFAULT_SEND_URLS_AS_PARAMETERS = true;
 
+    /**
+     * Default value for {@link #isUidlIoOutsideSessionLock()} = {@value} .
+     * 
+     * @since 7.6
+     */
+    public static final boolean DEFAULT_UIDL_IO_OUTSIDE_SESSION_LOCK = false;
+
+    /**
+     * Default value for {@link #getAccessCoalescingInterval()} = {@value} .
+     * 
+     * @since 7.6
+     */
+    public static final int DEFAULT_ACCESS_COALESCING_INTERVAL = 0;
+
     private final Properties initParameters;
     private boolean productionMode;
     private boolean xsrfProtectionEnabled;
@@ -72,6 +86,8 @@ public class DefaultDeploymentConfiguration extends
     private LegacyProperyToStringMode legacyPropertyToStringMode;
     private boolean syncIdCheck;
     private boolean sendUrlsAsParameters;
+    private boolean uidlIoOutsideSessionLock;
+    private int accessCoalescingInterval;
 
     /**
      * Create a new deployment configuration instance.
@@ -97,6 +113,8 @@ public class DefaultDeploymentConfiguration extends
         checkLegacyPropertyToString();
         checkSyncIdCheck();
         checkSendUrlsAsParameters();
+        checkUidlIoOutsideSessionLock();
+        checkAccessCoalescingInterval();
     }
 
     private void checkLegacyPropertyToString() {
@@ -269,6 +287,26 @@ public class DefaultDeploymentConfiguration extends
         return sendUrlsAsParameters;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The default value is <code>false</code>.
+     */
+    @Override
+    public boolean isUidlIoOutsideSessionLock() {
+        return uidlIoOutsideSessionLock;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The default interval is 0, i.e. tasks are not collected.
+     */
+    @Override
+    public int getAccessCoalescingInterval() {
+        return accessCoalescingInterval;
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -368,6 +406,26 @@ public class DefaultDeploymentConfiguration extends
                 "true");
     }
 
+    private void checkUidlIoOutsideSessionLock() {
+        uidlIoOutsideSessionLock = getApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_UIDL_IO_OUTSIDE_SESSION_LOCK,
+                Boolean.toString(DEFAULT_UIDL_IO_OUTSIDE_SESSION_LOCK))
+                .equals("true");
+    }
+
+    private void checkAccessCoalescingInterval() {
+        try {
+            accessCoalescingInterval = Integer
+                    .parseInt(getApplicationOrSystemProperty(
+                            Constants.SERVLET_PARAMETER_ACCESS_COALESCING_INTERVAL,
+                            Integer.toString(DEFAULT_ACCESS_COALESCING_INTERVAL)));
+        } catch (NumberFormatException e) {
+            getLogger().warning(
+                    Constants.WARNING_ACCESS_COALESCING_INTERVAL_NOT_NUMERIC);
+            accessCoalescingInterval = DEFAULT_ACCESS_COALESCING_INTERVAL;
+        }
+    }
+
     private Logger getLogger() {
         return Logger.getLogger(getClass().getName());
     }
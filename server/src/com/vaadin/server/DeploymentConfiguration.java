@@ -119,6 +119,29 @@ public interface DeploymentConfiguration extends Serializable {
      */
     public boolean isSendUrlsAsParameters();
 
+    /**
+     * Returns whether UIDL requests should read the request body and write the
+     * response without holding the session lock. This prevents a slow client
+     * connection from blocking the other UIs of the same session.
+     * 
+     * @since 7.6
+     * @return <code>true</code> if the request and response are transferred
+     *         outside the session lock, otherwise <code>false</code>
+     */
+    public boolean isUidlIoOutsideSessionLock();
+
+    /**
+     * Returns the number of milliseconds that tasks enqueued using
+     * {@link VaadinSession#access(Runnable)} from threads not holding the
+     * session lock are collected before they are run as one batch, or a
+     * non-positive number if tasks are run as soon as possible. UIs with
+     * automatic push send all the changes of a batch in one push message.
+     * 
+     * @since 7.6
+     * @return The time to collect access tasks, in milliseconds.
+     */
+    public int getAccessCoalescingInterval();
+
     /**
      * Returns whether a session should be closed when all its open UIs have
      * been idle for longer than its configured maximum inactivity time.
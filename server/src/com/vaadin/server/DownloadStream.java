@@ -22,8 +22,10 @@ import java.io.OutputStream;
 import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletResponse;
@@ -54,6 +56,14 @@ public class DownloadStream implements Serializable {
      */
     public static final long DEFAULT_CACHETIME = 1000 * 60 * 60 * 24;
 
+    /**
+     * The maximum number of ranges served for a request. Requests for more
+     * ranges are answered with the whole content.
+     */
+    private static final int MAX_RANGES = 32;
+
+    private static final String MULTIPART_BOUNDARY = "VAADIN_BYTE_RANGES";
+
     private InputStream stream;
 
     private String contentType;
@@ -66,6 +76,10 @@ public class DownloadStream implements Serializable {
 
     private int bufferSize = 0;
 
+    private long contentLength = -1;
+
+    private String eTag;
+
     /**
      * Creates a new instance of DownloadStream.
      */
@@ -228,6 +242,55 @@ public class DownloadStream implements Serializable {
         this.bufferSize = bufferSize;
     }
 
+    /**
+     * Gets the length of the content of the stream.
+     * 
+     * @since 7.6
+     * @return the length in bytes, or -1 if not known
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * Sets the length of the content of the stream. If the length is known,
+     * the Content-Length header is set and clients may request parts of the
+     * content using the Range header, e.g. to seek in a video. The stream
+     * must then support skipping bytes, e.g. by being a
+     * {@link java.io.FileInputStream}.
+     * 
+     * @since 7.6
+     * @param contentLength
+     *            the length in bytes, or -1 if not known
+     */
+    public void setContentLength(long contentLength) {
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * Gets the entity tag identifying the version of the content.
+     * 
+     * @since 7.6
+     * @return the entity tag including the quotes, or null if not set
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Sets the entity tag identifying the version of the content. If set, the
+     * ETag header is sent and a 304 Not Modified response is sent instead of
+     * the content if the client already has the same version.
+     * 
+     * @since 7.6
+     * @param eTag
+     *            the entity tag including the quotes, e.g.
+     *            <code>"1a2b-3c4d"</code>, or null to not use an entity tag
+     */
+    public void setETag(String eTag) {
+        this.eTag = eTag;
+    }
+
     /**
      * Writes this download stream to a Vaadin response. This takes care of
      * setting response headers according to what is defined in this download
@@ -238,6 +301,11 @@ public class DownloadStream implements Serializable {
      * response. If there's is a parameter named <code>Location</code>, a
      * redirect (302 Moved temporarily) is sent instead of the contents of this
      * stream.
+     * <p>
+     * If an entity tag has been set ({@link #getETag()}), a 304 Not Modified
+     * response is sent to clients that already have the content. If the
+     * content length is known ({@link #getContentLength()}), byte ranges
+     * requested using the Range header are sent instead of the whole content.
      * 
      * @param request
      *            the request for which the response should be written
@@ -264,58 +332,259 @@ public class DownloadStream implements Serializable {
             return;
         }
 
-        if (data != null) {
+        OutputStream out = null;
+        try {
+            // Sets cache headers
+            response.setCacheTime(getCacheTime());
+
+            String eTag = getETag();
+            if (eTag != null) {
+                response.setHeader("ETag", eTag);
+                if (matchesETag(request.getHeader("If-None-Match"), eTag)) {
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+            }
 
-            OutputStream out = null;
-            try {
-                // Sets content type
-                response.setContentType(getContentType());
+            // Copy download stream parameters directly
+            // to HTTP headers.
+            final Iterator<String> i = getParameterNames();
+            if (i != null) {
+                while (i.hasNext()) {
+                    final String param = i.next();
+                    response.setHeader(param, getParameter(param));
+                }
+            }
 
-                // Sets cache headers
-                response.setCacheTime(getCacheTime());
+            // Content-Disposition: attachment generally forces download
+            String contentDisposition = getParameter(CONTENT_DISPOSITION);
+            if (contentDisposition == null) {
+                contentDisposition = getContentDispositionFilename(getFileName());
+            }
+
+            response.setHeader(CONTENT_DISPOSITION, contentDisposition);
+
+            long length = getContentLength();
+            List<long[]> ranges = null;
+            if (length >= 0) {
+                response.setHeader("Accept-Ranges", "bytes");
+                String range = request.getHeader("Range");
+                if (range != null
+                        && isIfRangeSatisfied(request.getHeader("If-Range"),
+                                eTag)) {
+                    ranges = parseRanges(range, length);
+                }
+            }
+
+            if (ranges != null && ranges.isEmpty()) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader("Content-Range", "bytes */" + length);
+                return;
+            }
 
-                // Copy download stream parameters directly
-                // to HTTP headers.
-                final Iterator<String> i = getParameterNames();
-                if (i != null) {
-                    while (i.hasNext()) {
-                        final String param = i.next();
-                        response.setHeader(param, getParameter(param));
+            int bufferSize = getBufferSize();
+            if (bufferSize <= 0 || bufferSize > Constants.MAX_BUFFER_SIZE) {
+                bufferSize = Constants.DEFAULT_BUFFER_SIZE;
+            }
+            final byte[] buffer = new byte[bufferSize];
+
+            if (ranges == null) {
+                // Sets content type
+                response.setContentType(getContentType());
+                if (length >= 0) {
+                    response.setHeader("Content-Length", String.valueOf(length));
+                }
+                out = response.getOutputStream();
+                copy(data, out, buffer, -1);
+            } else if (ranges.size() == 1) {
+                long[] range = ranges.get(0);
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setContentType(getContentType());
+                response.setHeader("Content-Range", "bytes " + range[0] + "-"
+                        + range[1] + "/" + length);
+                response.setHeader("Content-Length",
+                        String.valueOf(range[1] - range[0] + 1));
+                out = response.getOutputStream();
+                skip(data, range[0]);
+                copy(data, out, buffer, range[1] - range[0] + 1);
+            } else {
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setContentType("multipart/byteranges; boundary="
+                        + MULTIPART_BOUNDARY);
+                out = response.getOutputStream();
+                long position = 0;
+                for (long[] range : ranges) {
+                    StringBuilder partHeader = new StringBuilder();
+                    partHeader.append("\r\n--").append(MULTIPART_BOUNDARY)
+                            .append("\r\n");
+                    if (getContentType() != null) {
+                        partHeader.append("Content-Type: ")
+                                .append(getContentType()).append("\r\n");
                     }
+                    partHeader.append("Content-Range: bytes ")
+                            .append(range[0]).append("-").append(range[1])
+                            .append("/").append(length).append("\r\n\r\n");
+                    out.write(partHeader.toString().getBytes("ISO-8859-1"));
+                    skip(data, range[0] - position);
+                    copy(data, out, buffer, range[1] - range[0] + 1);
+                    position = range[1] + 1;
                 }
+                out.write(("\r\n--" + MULTIPART_BOUNDARY + "--\r\n")
+                        .getBytes("ISO-8859-1"));
+            }
+        } finally {
+            tryToCloseStream(out);
+            tryToCloseStream(data);
+        }
+    }
 
-                // Content-Disposition: attachment generally forces download
-                String contentDisposition = getParameter(CONTENT_DISPOSITION);
-                if (contentDisposition == null) {
-                    contentDisposition = getContentDispositionFilename(getFileName());
+    /**
+     * Copies bytes from a stream to another.
+     * 
+     * @param count
+     *            the number of bytes to copy, or -1 to copy until the end of
+     *            the input
+     */
+    private static void copy(InputStream data, OutputStream out,
+            byte[] buffer, long count) throws IOException {
+        long totalWritten = 0;
+        while (count < 0 || totalWritten < count) {
+            int toRead = buffer.length;
+            if (count >= 0 && count - totalWritten < toRead) {
+                toRead = (int) (count - totalWritten);
+            }
+            int bytesRead = data.read(buffer, 0, toRead);
+            if (bytesRead <= 0) {
+                if (count >= 0) {
+                    throw new IOException("The stream ended before "
+                            + count + " bytes");
                 }
+                return;
+            }
+            out.write(buffer, 0, bytesRead);
 
-                response.setHeader(CONTENT_DISPOSITION, contentDisposition);
+            totalWritten += bytesRead;
+            if (totalWritten >= buffer.length) {
+                // Avoid chunked encoding for small resources
+                out.flush();
+            }
+        }
+    }
 
-                int bufferSize = getBufferSize();
-                if (bufferSize <= 0 || bufferSize > Constants.MAX_BUFFER_SIZE) {
-                    bufferSize = Constants.DEFAULT_BUFFER_SIZE;
+    private static void skip(InputStream data, long count) throws IOException {
+        while (count > 0) {
+            long skipped = data.skip(count);
+            if (skipped <= 0) {
+                if (data.read() == -1) {
+                    throw new IOException("The stream ended before the range");
                 }
-                final byte[] buffer = new byte[bufferSize];
-                int bytesRead = 0;
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
 
-                out = response.getOutputStream();
+    /**
+     * Checks if an If-None-Match header matches the entity tag, using the weak
+     * comparison.
+     */
+    private static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*") || stripWeak(tag).equals(stripWeak(eTag))) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-                long totalWritten = 0;
-                while ((bytesRead = data.read(buffer)) > 0) {
-                    out.write(buffer, 0, bytesRead);
+    private static String stripWeak(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
 
-                    totalWritten += bytesRead;
-                    if (totalWritten >= buffer.length) {
-                        // Avoid chunked encoding for small resources
-                        out.flush();
+    /**
+     * Checks if a Range header should be used based on the If-Range header,
+     * which contains either an entity tag or a date. Dates are not supported,
+     * so the whole content is sent for them.
+     */
+    private static boolean isIfRangeSatisfied(String ifRange, String eTag) {
+        if (ifRange == null) {
+            return true;
+        }
+        // Strong comparison
+        return eTag != null && !eTag.startsWith("W/")
+                && ifRange.trim().equals(eTag);
+    }
+
+    /**
+     * Parses a Range header such as <code>bytes=0-99,200-,-50</code>.
+     * 
+     * @param rangeHeader
+     *            the value of the header
+     * @param length
+     *            the length of the content
+     * @return the first and last byte of each satisfiable range, an empty list
+     *         if no range is satisfiable, or null if the header should be
+     *         ignored because it is invalid or the ranges are not in ascending
+     *         order
+     */
+    static List<long[]> parseRanges(String rangeHeader, long length) {
+        if (!rangeHeader.startsWith("bytes=")) {
+            return null;
+        }
+        String[] specs = rangeHeader.substring("bytes=".length()).split(",");
+        if (specs.length > MAX_RANGES) {
+            return null;
+        }
+        List<long[]> ranges = new ArrayList<long[]>(specs.length);
+        try {
+            for (String spec : specs) {
+                spec = spec.trim();
+                int dash = spec.indexOf('-');
+                if (dash < 0) {
+                    return null;
+                }
+                String first = spec.substring(0, dash).trim();
+                String last = spec.substring(dash + 1).trim();
+                long start;
+                long end;
+                if (first.isEmpty()) {
+                    // Suffix range, e.g. the last 500 bytes
+                    long suffixLength = Long.parseLong(last);
+                    if (suffixLength < 0) {
+                        return null;
+                    } else if (suffixLength == 0) {
+                        continue;
+                    }
+                    start = Math.max(0, length - suffixLength);
+                    end = length - 1;
+                } else {
+                    start = Long.parseLong(first);
+                    end = last.isEmpty() ? length - 1 : Math.min(
+                            Long.parseLong(last), length - 1);
+                    if (start < 0 || !last.isEmpty()
+                            && Long.parseLong(last) < start) {
+                        return null;
                     }
                 }
-            } finally {
-                tryToCloseStream(out);
-                tryToCloseStream(data);
+                if (start >= length) {
+                    // Not satisfiable
+                    continue;
+                }
+                if (!ranges.isEmpty()
+                        && start <= ranges.get(ranges.size() - 1)[1]) {
+                    // The stream can only be read forwards
+                    return null;
+                }
+                ranges.add(new long[] { start, end });
             }
+        } catch (NumberFormatException e) {
+            return null;
         }
+        return ranges;
     }
 
     /**
@@ -68,8 +68,10 @@ public class FileResource implements ConnectorResource {
         try {
             final DownloadStream ds = new DownloadStream(new FileInputStream(
                     sourceFile), getMIMEType(), getFilename());
-            ds.setParameter("Content-Length",
-                    String.valueOf(sourceFile.length()));
+            long length = sourceFile.length();
+            ds.setContentLength(length);
+            ds.setETag("\"" + Long.toHexString(sourceFile.lastModified())
+                    + "-" + Long.toHexString(length) + "\"");
 
             ds.setCacheTime(cacheTime);
             return ds;
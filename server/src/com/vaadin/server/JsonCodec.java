@@ -20,6 +20,7 @@ import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.io.Serializable;
+import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.GenericArrayType;
@@ -109,9 +110,18 @@ public class JsonCodec implements Serializable {
 
     private static class FieldProperty implements BeanProperty {
         private final Field field;
+        /*
+         * The name and generic type are resolved once as they are needed for
+         * every field of every encoded or decoded object.
+         */
+        private final String name;
+        private final Type type;
 
         public FieldProperty(Field field) {
             this.field = field;
+            name = field.getName();
+            type = field.getGenericType();
+            makeAccessible(field);
         }
 
         @Override
@@ -126,12 +136,12 @@ public class JsonCodec implements Serializable {
 
         @Override
         public String getName() {
-            return field.getName();
+            return name;
         }
 
         @Override
         public Type getType() {
-            return field.getGenericType();
+            return type;
         }
 
         public static Collection<FieldProperty> find(Class<?> type)
@@ -151,29 +161,41 @@ public class JsonCodec implements Serializable {
     }
 
     private static class MethodProperty implements BeanProperty {
-        private final PropertyDescriptor pd;
+        /*
+         * PropertyDescriptor looks up the methods again on each call, so the
+         * methods, the name and the generic type are resolved once.
+         */
+        private final Method readMethod;
+        private final Method writeMethod;
+        private final String name;
+        private final Type type;
 
         public MethodProperty(PropertyDescriptor pd) {
-            this.pd = pd;
+            readMethod = pd.getReadMethod();
+            writeMethod = pd.getWriteMethod();
+
+            String fieldName = writeMethod.getName().substring(3);
+            name = Character.toLowerCase(fieldName.charAt(0))
+                    + fieldName.substring(1);
+            type = readMethod.getGenericReturnType();
+
+            makeAccessible(readMethod);
+            makeAccessible(writeMethod);
         }
 
         @Override
         public Object getValue(Object bean) throws Exception {
-            Method readMethod = pd.getReadMethod();
             return readMethod.invoke(bean);
         }
 
         @Override
         public void setValue(Object bean, Object value) throws Exception {
-            pd.getWriteMethod().invoke(bean, value);
+            writeMethod.invoke(bean, value);
         }
 
         @Override
         public String getName() {
-            String fieldName = pd.getWriteMethod().getName().substring(3);
-            fieldName = Character.toLowerCase(fieldName.charAt(0))
-                    + fieldName.substring(1);
-            return fieldName;
+            return name;
         }
 
         public static Collection<MethodProperty> find(Class<?> type)
@@ -193,11 +215,24 @@ public class JsonCodec implements Serializable {
 
         @Override
         public Type getType() {
-            return pd.getReadMethod().getGenericReturnType();
+            return type;
         }
 
     }
 
+    /**
+     * Disables the Java language access checks for the given public member to
+     * make reflective access cheaper. Access checks are still done if a
+     * security manager prevents this.
+     */
+    private static void makeAccessible(AccessibleObject member) {
+        try {
+            member.setAccessible(true);
+        } catch (SecurityException e) {
+            // Use the member with access checks
+        }
+    }
+
     /**
      * Cache the collection of bean properties for a given type to avoid doing a
      * quite expensive lookup multiple times. Will be used from any thread that
@@ -206,6 +241,41 @@ public class JsonCodec implements Serializable {
      */
     private static ConcurrentMap<Class<?>, Collection<BeanProperty>> typePropertyCache = new ConcurrentHashMap<Class<?>, Collection<BeanProperty>>();
 
+    /**
+     * How values of a type are decoded. Simple types are decoded directly,
+     * other internal types by {@link JsonCodec#decodeInternalType} and all
+     * other types by {@link JsonCodec#decodeCustomType}.
+     */
+    private enum DecodeStrategy {
+        STRING, INTEGER, LONG, FLOAT, DOUBLE, BOOLEAN, INTERNAL, CUSTOM;
+
+        private static DecodeStrategy forTransportType(String transportType) {
+            if (JsonConstants.VTYPE_STRING.equals(transportType)) {
+                return STRING;
+            } else if (JsonConstants.VTYPE_INTEGER.equals(transportType)) {
+                return INTEGER;
+            } else if (JsonConstants.VTYPE_LONG.equals(transportType)) {
+                return LONG;
+            } else if (JsonConstants.VTYPE_FLOAT.equals(transportType)) {
+                return FLOAT;
+            } else if (JsonConstants.VTYPE_DOUBLE.equals(transportType)) {
+                return DOUBLE;
+            } else if (JsonConstants.VTYPE_BOOLEAN.equals(transportType)) {
+                return BOOLEAN;
+            } else {
+                return INTERNAL;
+            }
+        }
+    }
+
+    /**
+     * Cache the decode strategy for each decoded type, as every RPC parameter
+     * and every property of a decoded bean is decoded by type. Like
+     * {@link #typePropertyCache}, this is used from any thread processing
+     * Vaadin requests.
+     */
+    private static ConcurrentMap<Type, DecodeStrategy> decodeStrategyCache = new ConcurrentHashMap<Type, DecodeStrategy>();
+
     private static Map<Class<?>, String> typeToTransportType = new HashMap<Class<?>, String>();
 
     /**
@@ -282,14 +352,79 @@ public class JsonCodec implements Serializable {
         return transportTypeToType.get(transportType);
     }
 
+    /**
+     * Decodes the parameters of a server RPC invocation according to the
+     * generic parameter types of the invoked method.
+     * 
+     * @since 7.6
+     * @param invocation
+     *            the invocation to decode the parameters for
+     * @param parametersJson
+     *            the JSON encoded parameters
+     * @param connectorTracker
+     *            the connector tracker used for decoding connectors
+     * @return the decoded parameters
+     */
+    public static Object[] decodeParameters(
+            ServerRpcMethodInvocation invocation, JsonArray parametersJson,
+            ConnectorTracker connectorTracker) {
+        Type[] parameterTypes = invocation.getCachedGenericParameterTypes();
+        Object[] parameters = new Object[parametersJson.length()];
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = decodeInternalOrCustomType(parameterTypes[i],
+                    parametersJson.get(i), connectorTracker);
+        }
+        return parameters;
+    }
+
     public static Object decodeInternalOrCustomType(Type targetType,
             JsonValue value, ConnectorTracker connectorTracker) {
-        if (isInternalType(targetType)) {
+        DecodeStrategy strategy = getDecodeStrategy(targetType);
+        if (strategy == DecodeStrategy.CUSTOM) {
+            return decodeCustomType(targetType, value, connectorTracker);
+        } else if (strategy == DecodeStrategy.INTERNAL
+                || value.getType() == JsonType.NULL) {
             return decodeInternalType(targetType, false, value,
                     connectorTracker);
-        } else {
-            return decodeCustomType(targetType, value, connectorTracker);
         }
+
+        // Most parameters and bean properties are of these types
+        switch (strategy) {
+        case STRING:
+            return value.asString();
+        case INTEGER:
+            return (int) value.asNumber();
+        case LONG:
+            return (long) value.asNumber();
+        case FLOAT:
+            return (float) value.asNumber();
+        case DOUBLE:
+            return value.asNumber();
+        case BOOLEAN:
+            return value.asBoolean();
+        default:
+            throw new IllegalStateException("Unknown strategy " + strategy);
+        }
+    }
+
+    /**
+     * Gets how values of the given type are decoded, resolving it the first
+     * time the type is decoded.
+     */
+    private static DecodeStrategy getDecodeStrategy(Type targetType) {
+        DecodeStrategy strategy = decodeStrategyCache.get(targetType);
+        if (strategy == null) {
+            if (!isInternalType(targetType)) {
+                strategy = DecodeStrategy.CUSTOM;
+            } else if (targetType instanceof Class<?>) {
+                strategy = DecodeStrategy
+                        .forTransportType(getInternalTransportType(targetType));
+            } else {
+                strategy = DecodeStrategy.INTERNAL;
+            }
+            decodeStrategyCache.put(targetType, strategy);
+        }
+        return strategy;
     }
 
     public static Object decodeCustomType(Type targetType, JsonValue value,
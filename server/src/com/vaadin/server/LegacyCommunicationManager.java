@@ -99,11 +99,7 @@ public class LegacyCommunicationManager implements Serializable {
         if (diffState == null && supportsDiffState) {
             // Use an empty state object as reference for full
             // repaints
-            diffState = referenceDiffStates.get(stateType);
-            if (diffState == null) {
-                diffState = createReferenceDiffStateState(stateType);
-                referenceDiffStates.put(stateType, diffState);
-            }
+            diffState = getReferenceDiffState(stateType);
         }
         EncodeResult encodeResult = JsonCodec.encode(state, diffState,
                 stateType, uI.getConnectorTracker());
@@ -114,6 +110,30 @@ public class LegacyCommunicationManager implements Serializable {
         return (JsonObject) encodeResult.getDiff();
     }
 
+    /**
+     * Gets the encoded form of a default instance of the given state type. The
+     * reference is created on first use and shared by all sessions. It is used
+     * as the diff state for full repaints and as the base when diff states are
+     * serialized.
+     * 
+     * @since 7.6
+     * @param stateType
+     *            the shared state type, not <code>null</code>
+     * @return the encoded reference state, or <code>null</code> if no
+     *         reference could be created for the type
+     */
+    public static JsonValue getReferenceDiffState(
+            Class<? extends SharedState> stateType) {
+        JsonValue diffState = referenceDiffStates.get(stateType);
+        if (diffState == null) {
+            diffState = createReferenceDiffStateState(stateType);
+            if (diffState != null) {
+                referenceDiffStates.put(stateType, diffState);
+            }
+        }
+        return diffState;
+    }
+
     private static JsonValue createReferenceDiffStateState(
             Class<? extends SharedState> stateType) {
         try {
@@ -15,7 +15,12 @@
  */
 package com.vaadin.server;
 
+import java.io.Serializable;
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -24,10 +29,28 @@ import com.vaadin.shared.communication.ServerRpc;
 
 public class ServerRpcMethodInvocation extends MethodInvocation {
 
-    private static final Map<String, Method> invocationMethodCache = new ConcurrentHashMap<String, Method>(
+    /**
+     * A method of an RPC interface together with its parameter types, which
+     * are needed for decoding the parameters of every invocation.
+     */
+    private static final class InvocationMethod implements Serializable {
+        private final Method method;
+        private final Type[] genericParameterTypes;
+
+        private InvocationMethod(Method method) {
+            this.method = method;
+            genericParameterTypes = method.getGenericParameterTypes();
+        }
+    }
+
+    /**
+     * The methods of each RPC interface by method name. Methods with the same
+     * name are in the order returned by {@link Class#getMethods()}.
+     */
+    private static final Map<Class<?>, Map<String, List<InvocationMethod>>> invocationMethodCache = new ConcurrentHashMap<Class<?>, Map<String, List<InvocationMethod>>>(
             128, 0.75f, 1);
 
-    private final Method method;
+    private final InvocationMethod invocationMethod;
 
     private final Class<? extends ServerRpc> interfaceClass;
 
@@ -39,7 +62,7 @@ public class ServerRpcMethodInvocation extends MethodInvocation {
         assert ServerRpc.class.isAssignableFrom(interfaceClass);
         this.interfaceClass = interfaceClass;
 
-        method = findInvocationMethod(interfaceClass, methodName,
+        invocationMethod = findInvocationMethod(interfaceClass, methodName,
                 parameterCount);
     }
 
@@ -48,65 +71,81 @@ public class ServerRpcMethodInvocation extends MethodInvocation {
     }
 
     public Method getMethod() {
-        return method;
+        return invocationMethod.method;
+    }
+
+    /**
+     * Gets the generic parameter types of the invoked method.
+     * 
+     * @since 7.6
+     * @return a new array with the parameter types of the method, as returned
+     *         by {@link Method#getGenericParameterTypes()}
+     */
+    public Type[] getGenericParameterTypes() {
+        return invocationMethod.genericParameterTypes.clone();
     }
 
     /**
-     * Tries to find the method from the cache or alternatively by invoking
-     * {@link #doFindInvocationMethod(Class, String, int)} and updating the
-     * cache.
+     * Gets the cached generic parameter types of the invoked method without
+     * copying them. The returned array must not be modified.
+     */
+    Type[] getCachedGenericParameterTypes() {
+        return invocationMethod.genericParameterTypes;
+    }
+
+    /**
+     * Tries to find the method from the methods of the interface, which are
+     * looked up using {@link #getInvocationMethods(Class)} the first time an
+     * interface is used.
      * 
      * @param targetType
      * @param methodName
      * @param parameterCount
      * @return
      */
-    private Method findInvocationMethod(Class<?> targetType, String methodName,
-            int parameterCount) {
+    private InvocationMethod findInvocationMethod(Class<?> targetType,
+            String methodName, int parameterCount) {
         // TODO currently only using method name and number of parameters as the
         // signature
-        String signature = targetType.getName() + "." + methodName + "("
-                + parameterCount;
-        Method invocationMethod = invocationMethodCache.get(signature);
-
-        if (invocationMethod == null) {
-            invocationMethod = doFindInvocationMethod(targetType, methodName,
-                    parameterCount);
-
-            if (invocationMethod != null) {
-                invocationMethodCache.put(signature, invocationMethod);
-            }
+        Map<String, List<InvocationMethod>> methods = invocationMethodCache
+                .get(targetType);
+        if (methods == null) {
+            methods = getInvocationMethods(targetType);
+            invocationMethodCache.put(targetType, methods);
         }
 
-        if (invocationMethod == null) {
-            throw new IllegalStateException("Can't find method " + methodName
-                    + " with " + parameterCount + " parameters in "
-                    + targetType.getName());
+        List<InvocationMethod> candidates = methods.get(methodName);
+        if (candidates != null) {
+            for (InvocationMethod candidate : candidates) {
+                if (candidate.genericParameterTypes.length == parameterCount) {
+                    return candidate;
+                }
+            }
         }
 
-        return invocationMethod;
+        throw new IllegalStateException("Can't find method " + methodName
+                + " with " + parameterCount + " parameters in "
+                + targetType.getName());
     }
 
     /**
-     * Tries to find the method from the class by looping through available
-     * methods.
+     * Groups the available methods of the class by name.
      * 
      * @param targetType
-     * @param methodName
-     * @param parameterCount
      * @return
      */
-    private Method doFindInvocationMethod(Class<?> targetType,
-            String methodName, int parameterCount) {
-        Method[] methods = targetType.getMethods();
-        for (Method method : methods) {
-            Class<?>[] parameterTypes = method.getParameterTypes();
-            if (method.getName().equals(methodName)
-                    && parameterTypes.length == parameterCount) {
-                return method;
+    private static Map<String, List<InvocationMethod>> getInvocationMethods(
+            Class<?> targetType) {
+        Map<String, List<InvocationMethod>> methods = new HashMap<String, List<InvocationMethod>>();
+        for (Method method : targetType.getMethods()) {
+            List<InvocationMethod> list = methods.get(method.getName());
+            if (list == null) {
+                list = new ArrayList<InvocationMethod>(1);
+                methods.put(method.getName(), list);
             }
+            list.add(new InvocationMethod(method));
         }
-        return null;
+        return methods;
     }
 
 }
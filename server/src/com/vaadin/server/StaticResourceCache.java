@@ -0,0 +1,274 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A bounded in-memory cache of the static resources served by
+ * {@link VaadinServlet}. The content of a resource is read on first access
+ * together with its modification time. A gzip compressed version is read from
+ * the precompressed <code>.gz</code> file next to the resource, if any, or
+ * compressed from the content the first time it is requested. The least
+ * recently used resources are discarded when the cache is full.
+ * <p>
+ * Changes to the resources are not seen while they are cached, so the cache
+ * is only intended for production mode.
+ * 
+ * @since 7.6
+ */
+class StaticResourceCache implements Serializable {
+
+    /**
+     * A cached resource. If the resource is too large to be cached, only the
+     * modification time is stored.
+     */
+    static final class Entry implements Serializable {
+        private final long lastModified;
+        private final byte[] content;
+        private final String eTag;
+        private byte[] gzipped;
+        private boolean gzipLoaded = false;
+
+        private Entry(long lastModified, byte[] content, String eTag) {
+            this.lastModified = lastModified;
+            this.content = content;
+            this.eTag = eTag;
+        }
+
+        /**
+         * Gets the modification time of the resource with seconds precision.
+         * 
+         * @return the modification time, 0 if not known
+         */
+        long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Gets the content of the resource.
+         * 
+         * @return the content or null if the resource is too large to be
+         *         cached
+         */
+        byte[] getContent() {
+            return content;
+        }
+
+        /**
+         * Gets the entity tag of the content or the gzip compressed content.
+         * 
+         * @param gzip
+         *            true for the tag of the compressed content
+         * @return the entity tag including the quotes
+         */
+        String getETag(boolean gzip) {
+            return gzip ? '"' + eTag + "-gzip\"" : '"' + eTag + '"';
+        }
+    }
+
+    private final long maxSize;
+
+    private final int maxEntrySize;
+
+    private long size = 0;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(
+            16, 0.75f, true);
+
+    /**
+     * Creates a new cache.
+     * 
+     * @param maxSize
+     *            the maximum total size of the cached content in bytes
+     */
+    StaticResourceCache(long maxSize) {
+        this.maxSize = maxSize;
+        maxEntrySize = (int) Math.min(Integer.MAX_VALUE, maxSize / 4);
+    }
+
+    /**
+     * Gets the cached resource for an URL, reading it if it is not in the
+     * cache.
+     * 
+     * @param url
+     *            the URL of the resource
+     * @return the cached resource
+     * @throws IOException
+     *             if the resource cannot be read
+     */
+    Entry getEntry(URL url) throws IOException {
+        String key = url.toExternalForm();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            // Read without holding the lock, the resource may be read twice
+            entry = readEntry(url);
+            synchronized (entries) {
+                Entry previous = entries.put(key, entry);
+                size += getSize(entry) - getSize(previous);
+                evict();
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Gets the gzip compressed content of a cached resource, reading the
+     * precompressed file or compressing the content the first time.
+     * 
+     * @param entry
+     *            a cached resource with content
+     * @param url
+     *            the URL of the resource
+     * @return the compressed content
+     * @throws IOException
+     *             if the precompressed file exists but cannot be read
+     */
+    byte[] getGzipped(Entry entry, URL url) throws IOException {
+        synchronized (entries) {
+            if (entry.gzipLoaded) {
+                return entry.gzipped;
+            }
+        }
+        byte[] gzipped = readPrecompressed(url);
+        if (gzipped == null) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+                    entry.content.length / 4 + 64);
+            GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+            gzip.write(entry.content);
+            gzip.close();
+            gzipped = bytes.toByteArray();
+        }
+        synchronized (entries) {
+            if (!entry.gzipLoaded) {
+                entry.gzipped = gzipped;
+                entry.gzipLoaded = true;
+                if (entries.get(url.toExternalForm()) == entry) {
+                    size += gzipped.length;
+                    evict();
+                }
+            }
+            return entry.gzipped;
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry> i = entries.values().iterator();
+        while (size > maxSize && i.hasNext()) {
+            size -= getSize(i.next());
+            i.remove();
+        }
+    }
+
+    private static long getSize(Entry entry) {
+        if (entry == null || entry.content == null) {
+            return 0;
+        }
+        return entry.content.length
+                + (entry.gzipped == null ? 0 : entry.gzipped.length);
+    }
+
+    private Entry readEntry(URL url) throws IOException {
+        URLConnection connection = url.openConnection();
+        InputStream is = connection.getInputStream();
+        try {
+            long lastModified = connection.getLastModified();
+            // Remove milliseconds to avoid comparison problems (milliseconds
+            // are not returned by the browser in the "If-Modified-Since"
+            // header).
+            lastModified = lastModified - lastModified % 1000;
+
+            int length = connection.getContentLength();
+            if (length > maxEntrySize) {
+                return new Entry(lastModified, null, null);
+            }
+            byte[] content = read(is, maxEntrySize);
+            if (content == null) {
+                return new Entry(lastModified, null, null);
+            }
+            return new Entry(lastModified, content, getETag(content));
+        } finally {
+            is.close();
+        }
+    }
+
+    private byte[] readPrecompressed(URL url) {
+        try {
+            URLConnection connection = new URL(url.toExternalForm() + ".gz")
+                    .openConnection();
+            InputStream is = connection.getInputStream();
+            try {
+                return read(is, Integer.MAX_VALUE);
+            } finally {
+                is.close();
+            }
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            // Same as when serving without the cache
+            return null;
+        }
+    }
+
+    /**
+     * Reads a stream fully.
+     * 
+     * @return the bytes read, or null if there are more than the given
+     *         maximum number of bytes
+     */
+    private static byte[] read(InputStream is, int maxLength)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[Constants.DEFAULT_BUFFER_SIZE];
+        int read;
+        while ((read = is.read(buffer)) >= 0) {
+            if (bytes.size() + read > maxLength) {
+                return null;
+            }
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String getETag(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(content);
+            StringBuilder eTag = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                eTag.append(Character.forDigit((b >> 4) & 0xf, 16));
+                eTag.append(Character.forDigit(b & 0xf, 16));
+            }
+            return eTag.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -20,6 +20,7 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.ObjectInputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
@@ -35,8 +36,14 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -145,6 +152,14 @@ public abstract class VaadinService implements Serializable {
      */
     private boolean initialized = false;
 
+    /**
+     * Sessions for which a delayed purge of the access queue has been
+     * scheduled.
+     */
+    private transient Set<VaadinSession> accessQueuePurgesScheduled = createAccessQueuePurgesScheduled();
+
+    private transient ScheduledExecutorService accessQueuePurgeExecutor;
+
     /**
      * Creates a new vaadin service based on a deployment configuration
      *
@@ -1331,7 +1346,9 @@ public abstract class VaadinService implements Serializable {
 
     /**
      * Called after the framework has handled a request and the response has
-     * been written.
+     * been written. Runs the tasks submitted using
+     * {@link VaadinSession#accessAfterResponse(Runnable)} while handling the
+     * request.
      *
      * @param request
      *            The request object
@@ -1351,6 +1368,15 @@ public abstract class VaadinService implements Serializable {
                 final long duration = (System.nanoTime() - (Long) request
                         .getAttribute(REQUEST_START_TIME_ATTRIBUTE)) / 1000000;
                 session.setLastRequestDuration(duration);
+
+                // Run when the lock is released below
+                @SuppressWarnings("unchecked")
+                List<FutureAccess> afterResponseTasks = (List<FutureAccess>) request
+                        .getAttribute(VaadinSession.AFTER_RESPONSE_ACCESS_ATTRIBUTE);
+                if (afterResponseTasks != null) {
+                    request.removeAttribute(VaadinSession.AFTER_RESPONSE_ACCESS_ATTRIBUTE);
+                    session.getPendingAccessQueue().addAll(afterResponseTasks);
+                }
             } finally {
                 session.unlock();
             }
@@ -1742,12 +1768,107 @@ public abstract class VaadinService implements Serializable {
      * thread, the queue will be purged when the session is unlocked. If the
      * lock is not held by any thread, it is acquired and the queue is purged
      * right away.
+     * <p>
+     * If {@link DeploymentConfiguration#getAccessCoalescingInterval()} is
+     * positive, the queue is instead purged once the interval has passed so
+     * that all tasks enqueued in the meantime are run as one batch.
      *
      * @since 7.1.2
      * @param session
      *            the session for which the access queue should be purged
      */
     public void ensureAccessQueuePurged(VaadinSession session) {
+        int coalescingInterval = getDeploymentConfiguration()
+                .getAccessCoalescingInterval();
+        if (coalescingInterval > 0) {
+            scheduleAccessQueuePurge(session, coalescingInterval);
+        } else {
+            purgeAccessQueueIfUnlocked(session);
+        }
+    }
+
+    /**
+     * Purges the access queue of the session after the given delay so that all
+     * tasks enqueued until then are run as one batch. Only one purge is
+     * scheduled at a time for each session.
+     */
+    private void scheduleAccessQueuePurge(final VaadinSession session,
+            int delay) {
+        if (session.hasLock()) {
+            // The queue is purged when the current thread releases the lock
+            return;
+        }
+        final Set<VaadinSession> purgesScheduled = accessQueuePurgesScheduled;
+        if (!purgesScheduled.add(session)) {
+            return;
+        }
+        try {
+            getAccessQueuePurgeExecutor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    purgesScheduled.remove(session);
+                    purgeAccessQueueIfUnlocked(session);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // The service has been destroyed
+            purgesScheduled.remove(session);
+            purgeAccessQueueIfUnlocked(session);
+        }
+    }
+
+    private static Set<VaadinSession> createAccessQueuePurgesScheduled() {
+        return Collections
+                .newSetFromMap(new ConcurrentHashMap<VaadinSession, Boolean>());
+    }
+
+    private synchronized ScheduledExecutorService getAccessQueuePurgeExecutor() {
+        if (accessQueuePurgeExecutor == null) {
+            accessQueuePurgeExecutor = createAccessQueuePurgeExecutor();
+        }
+        return accessQueuePurgeExecutor;
+    }
+
+    /**
+     * Creates the executor used for purging the access queues of sessions
+     * once the access coalescing interval has passed. The executor is created
+     * when the first purge is scheduled and shut down when this service is
+     * destroyed.
+     * <p>
+     * The default implementation uses a single daemon thread that is stopped
+     * when there is nothing to purge.
+     *
+     * @since 7.6
+     * @return the executor to schedule access queue purges with
+     */
+    protected ScheduledExecutorService createAccessQueuePurgeExecutor() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                1, new AccessQueuePurgeThreadFactory());
+        // Don't keep a thread around when there is nothing to purge
+        executor.setKeepAliveTime(1, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Creates named daemon threads so that purging access queues does not
+     * prevent the JVM from shutting down.
+     */
+    private static class AccessQueuePurgeThreadFactory implements
+            ThreadFactory, Serializable {
+        private static final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable,
+                    "VaadinService access queue purge "
+                            + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    private void purgeAccessQueueIfUnlocked(VaadinSession session) {
         /*
          * If no thread is currently holding the lock, pending changes for UIs
          * with automatic push would not be processed and pushed until the next
@@ -1793,10 +1914,17 @@ public abstract class VaadinService implements Serializable {
         Map<Class<?>, CurrentInstance> oldInstances = CurrentInstance
                 .getInstances(false);
 
+        AccessQueueStatistics statistics = session.getAccessQueueStatistics();
+        int batchSize = 0;
+
         FutureAccess pendingAccess;
         try {
             while ((pendingAccess = session.getPendingAccessQueue().poll()) != null) {
                 if (!pendingAccess.isCancelled()) {
+                    statistics.recordTask(System.nanoTime()
+                            - pendingAccess.getCreationTime());
+                    batchSize++;
+
                     CurrentInstance.clearAll();
                     CurrentInstance.restoreInstances(pendingAccess
                             .getCurrentInstances());
@@ -1812,6 +1940,7 @@ public abstract class VaadinService implements Serializable {
                 }
             }
         } finally {
+            statistics.recordBatch(batchSize);
             CurrentInstance.clearAll();
             CurrentInstance.restoreInstances(oldInstances);
         }
@@ -1860,6 +1989,12 @@ public abstract class VaadinService implements Serializable {
      */
     public void destroy() {
         eventRouter.fireEvent(new ServiceDestroyEvent(this));
+
+        synchronized (this) {
+            if (accessQueuePurgeExecutor != null) {
+                accessQueuePurgeExecutor.shutdown();
+            }
+        }
     }
 
     /**
@@ -1883,4 +2018,14 @@ public abstract class VaadinService implements Serializable {
             throw e;
         }
     }
+
+    /**
+     * Override default deserialization logic to account for transient
+     * {@link #accessQueuePurgesScheduled}.
+     */
+    private void readObject(ObjectInputStream stream) throws IOException,
+            ClassNotFoundException {
+        stream.defaultReadObject();
+        accessQueuePurgesScheduled = createAccessQueuePurgesScheduled();
+    }
 }
@@ -20,6 +20,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
@@ -33,11 +34,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -48,6 +51,9 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import com.google.gwt.thirdparty.guava.common.base.Charsets;
+import com.google.gwt.thirdparty.guava.common.hash.Hasher;
+import com.google.gwt.thirdparty.guava.common.hash.Hashing;
+import com.google.gwt.thirdparty.guava.common.io.ByteStreams;
 import com.google.gwt.thirdparty.guava.common.io.Files;
 import com.vaadin.annotations.VaadinServletConfiguration;
 import com.vaadin.annotations.VaadinServletConfiguration.InitParameterName;
@@ -69,21 +75,20 @@ public class VaadinServlet extends HttpServlet implements Constants {
 
         private final String css;
         private final List<String> sourceUris;
-        private final long timestamp;
-        private final String scssFileName;
+        private final String contentHash;
+        private volatile long timestamp;
 
-        public ScssCacheEntry(String scssFileName, String css,
-                List<String> sourceUris) {
-            this.scssFileName = scssFileName;
+        public ScssCacheEntry(String css, List<String> sourceUris) {
             this.css = css;
             this.sourceUris = sourceUris;
 
             timestamp = getLastModified();
+            contentHash = getContentHash();
         }
 
         public ScssCacheEntry(JsonObject json) {
             css = json.getString("css");
-            timestamp = Long.parseLong(json.getString("timestamp"));
+            contentHash = json.hasKey("hash") ? json.getString("hash") : null;
 
             sourceUris = new ArrayList<String>();
 
@@ -92,8 +97,12 @@ public class VaadinServlet extends HttpServlet implements Constants {
                 sourceUris.add(uris.getString(i));
             }
 
-            // Not set for cache entries read from disk
-            scssFileName = null;
+            /*
+             * The timestamps of the files may differ between servers, so
+             * entries read from disk are validated by their content hash, see
+             * isContentUnchanged()
+             */
+            timestamp = getLastModified();
         }
 
         public String asJson() {
@@ -104,7 +113,7 @@ public class VaadinServlet extends HttpServlet implements Constants {
 
             JsonObject object = Json.createObject();
             object.put("version", Version.getFullVersion());
-            object.put("timestamp", Long.toString(timestamp));
+            object.put("hash", contentHash);
             object.put("uris", uris);
             object.put("css", css);
 
@@ -139,6 +148,53 @@ public class VaadinServlet extends HttpServlet implements Constants {
             return newest;
         }
 
+        /**
+         * Computes a hash of the contents of all the files used in the
+         * compilation, including the files fetched from the classpath.
+         * 
+         * @return the hash as a hex string, or null if some file could not be
+         *         read
+         */
+        private String getContentHash() {
+            Hasher hasher = Hashing.sha1().newHasher();
+            for (String uri : sourceUris) {
+                try {
+                    hasher.putString(uri, Charsets.UTF_8);
+                    File file = new File(uri);
+                    if (file.exists()) {
+                        hasher.putBytes(Files.toByteArray(file));
+                        continue;
+                    }
+                    // Resolved the same way as by ScssStylesheet
+                    InputStream stream = ScssStylesheet.class.getClassLoader()
+                            .getResourceAsStream(uri);
+                    if (stream == null) {
+                        return null;
+                    }
+                    try {
+                        hasher.putBytes(ByteStreams.toByteArray(stream));
+                    } finally {
+                        stream.close();
+                    }
+                } catch (IOException e) {
+                    getLogger().log(Level.FINE,
+                            "Could not read " + uri + " for hashing", e);
+                    return null;
+                }
+            }
+            return hasher.hash().toString();
+        }
+
+        /**
+         * Checks whether the files used in the compilation still have the same
+         * contents as when this entry was created.
+         * 
+         * @return true if the contents are unchanged, false otherwise
+         */
+        public boolean isContentUnchanged() {
+            return contentHash != null && contentHash.equals(getContentHash());
+        }
+
         public boolean isStillValid() {
             if (timestamp == -1) {
                 /*
@@ -146,27 +202,37 @@ public class VaadinServlet extends HttpServlet implements Constants {
                  * compilation were gone before the cache entry was created.
                  */
                 return false;
-            } else if (timestamp != getLastModified()) {
+            }
+            long lastModified = getLastModified();
+            if (timestamp == lastModified) {
+                return true;
+            } else if (lastModified != -1 && isContentUnchanged()) {
                 /*
-                 * Would in theory still be valid if the last modification is
-                 * before the recorded timestamp, but that would still mean that
-                 * something has changed since we last checked, so let's
-                 * invalidate in that case as well to be on the safe side.
+                 * Files have been touched without changing their contents,
+                 * e.g. when switching between version control branches. Hash
+                 * the contents only once for the new timestamp.
                  */
-                return false;
-            } else {
+                timestamp = lastModified;
                 return true;
+            } else {
+                return false;
             }
         }
 
-        public String getScssFileName() {
-            return scssFileName;
-        }
-
     }
 
     private VaadinServletService servletService;
 
+    /**
+     * Default maximum size of the static resource cache in production mode =
+     * {@value} bytes. See {@link #createStaticResourceCache()}.
+     * 
+     * @since 7.6
+     */
+    public static final int DEFAULT_STATIC_RESOURCE_CACHE_SIZE = 16 * 1024 * 1024;
+
+    private StaticResourceCache staticResourceCache;
+
     /**
      * Called by the servlet container to indicate to a servlet that the servlet
      * is being placed into service.
@@ -214,6 +280,8 @@ public class VaadinServlet extends HttpServlet implements Constants {
         // Sets current service even though there are no request and response
         servletService.setCurrentInstances(null, null);
 
+        staticResourceCache = createStaticResourceCache();
+
         servletInitialized();
 
         CurrentInstance.clearAll();
@@ -265,6 +333,51 @@ public class VaadinServlet extends HttpServlet implements Constants {
         // Empty by default
     }
 
+    /**
+     * Creates the in-memory cache of the static resources in the VAADIN
+     * directory, such as widgetset and theme files. The maximum size of the
+     * cache in bytes is defined by the
+     * {@value Constants#SERVLET_PARAMETER_STATIC_RESOURCE_CACHE_SIZE}
+     * parameter and defaults to {@link #DEFAULT_STATIC_RESOURCE_CACHE_SIZE} in
+     * production mode. Resources are not cached in debug mode by default so
+     * that changes to them are seen. Resources are also not cached if
+     * {@link #writeStaticResourceResponse(HttpServletRequest, HttpServletResponse, URL)}
+     * has been overridden.
+     * 
+     * @return the cache or null to not cache resources
+     */
+    private StaticResourceCache createStaticResourceCache() {
+        for (Class<?> c = getClass(); c != VaadinServlet.class; c = c
+                .getSuperclass()) {
+            try {
+                c.getDeclaredMethod("writeStaticResourceResponse",
+                        HttpServletRequest.class, HttpServletResponse.class,
+                        URL.class);
+                return null;
+            } catch (NoSuchMethodException e) {
+                // Not overridden in this class
+            }
+        }
+        DeploymentConfiguration configuration = getService()
+                .getDeploymentConfiguration();
+        long defaultSize = configuration.isProductionMode() ? DEFAULT_STATIC_RESOURCE_CACHE_SIZE
+                : 0;
+        long size;
+        try {
+            size = Long.parseLong(configuration
+                    .getApplicationOrSystemProperty(
+                            Constants.SERVLET_PARAMETER_STATIC_RESOURCE_CACHE_SIZE,
+                            Long.toString(defaultSize)));
+        } catch (NumberFormatException e) {
+            getLogger().warning(
+                    Constants.SERVLET_PARAMETER_STATIC_RESOURCE_CACHE_SIZE
+                            + " has been set to a non integer value. Using "
+                            + defaultSize + " instead.");
+            size = defaultSize;
+        }
+        return size > 0 ? new StaticResourceCache(size) : null;
+    }
+
     /**
      * Gets the currently used Vaadin servlet. The current servlet is
      * automatically defined when initializing the servlet and when processing
@@ -649,23 +762,22 @@ public class VaadinServlet extends HttpServlet implements Constants {
      * Mutex for preventing to scss compilations to take place simultaneously.
      * This is a workaround needed as the scss compiler currently is not thread
      * safe (#10292).
-     * <p>
-     * In addition, this is also used to protect the cached compilation results.
      */
     private static final Object SCSS_MUTEX = new Object();
 
     /**
-     * Global cache of scss compilation results. This map is protected from
-     * concurrent access by {@link #SCSS_MUTEX}.
+     * Global cache of scss compilation results. Requests for a file that is
+     * being compiled wait for the same compilation to complete. Reading and
+     * validating persisted results of different files is done in parallel,
+     * but the actual compilation is protected by {@link #SCSS_MUTEX}.
      */
-    private final Map<String, ScssCacheEntry> scssCache = new HashMap<String, ScssCacheEntry>();
+    private final ConcurrentHashMap<String, FutureTask<ScssCacheEntry>> scssCache = new ConcurrentHashMap<String, FutureTask<ScssCacheEntry>>();
 
     /**
      * Keeps track of whether a warning about not being able to persist cache
-     * files has already been printed. The flag is protected from concurrent
-     * access by {@link #SCSS_MUTEX}.
+     * files has already been printed.
      */
-    private static boolean scssCompileWarWarningEmitted = false;
+    private static volatile boolean scssCompileWarWarningEmitted = false;
 
     /**
      * Returns the default theme. Must never return null.
@@ -769,6 +881,12 @@ public class VaadinServlet extends HttpServlet implements Constants {
         response.setDateHeader("Expires", System.currentTimeMillis()
                 + (resourceCacheTime * 1000));
 
+        if (staticResourceCache != null
+                && serveCachedStaticResource(filename, request, response,
+                        resourceUrl)) {
+            return;
+        }
+
         // Find the modification timestamp
         long lastModifiedTime = 0;
         URLConnection connection = null;
@@ -817,6 +935,110 @@ public class VaadinServlet extends HttpServlet implements Constants {
         writeStaticResourceResponse(request, response, resourceUrl);
     }
 
+    /**
+     * Serves a static resource using the static resource cache.
+     * 
+     * @return true if the resource was served, false if the resource is too
+     *         large to be cached
+     */
+    private boolean serveCachedStaticResource(String filename,
+            HttpServletRequest request, HttpServletResponse response,
+            URL resourceUrl) throws IOException {
+        StaticResourceCache.Entry entry;
+        try {
+            entry = staticResourceCache.getEntry(resourceUrl);
+        } catch (FileNotFoundException e) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return true;
+        }
+        if (entry.getContent() == null) {
+            return false;
+        }
+
+        long lastModifiedTime = entry.getLastModified();
+        if (lastModifiedTime > 0) {
+            response.setDateHeader("Last-Modified", lastModifiedTime);
+        }
+        String urlStr = resourceUrl.toExternalForm();
+        boolean gzip = allowServePrecompressedResource(request, urlStr);
+        if (gzip || isCompressibleResource(urlStr)) {
+            /*
+             * The encoding depends on the request, also when this request does
+             * not accept gzip, so that caches do not serve an uncompressed
+             * response to clients accepting gzip or vice versa
+             */
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+        String eTag = entry.getETag(gzip);
+        response.setHeader("ETag", eTag);
+
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null ? matchesETag(ifNoneMatch, eTag)
+                : browserHasNewestVersion(request, lastModifiedTime)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+
+        // Set type mime type if we can determine it based on the filename
+        final String mimetype = getServletContext().getMimeType(filename);
+        if (mimetype != null) {
+            response.setContentType(mimetype);
+        }
+
+        byte[] content = entry.getContent();
+        if (gzip) {
+            content = staticResourceCache.getGzipped(entry, resourceUrl);
+            response.setHeader("Content-Encoding", "gzip");
+        }
+        response.setContentLength(content.length);
+        response.getOutputStream().write(content);
+        return true;
+    }
+
+    /**
+     * Checks whether the value of an If-None-Match header matches an entity
+     * tag, i.e. it is <code>*</code> or one of the comma separated tags is
+     * equal to the given tag. Weak tags are compared by their opaque part, as
+     * If-None-Match uses the weak comparison.
+     * 
+     * @param ifNoneMatch
+     *            the value of the If-None-Match header
+     * @param eTag
+     *            the entity tag of the resource, including the quotes
+     * @return true if the header matches the tag, false otherwise
+     */
+    static boolean matchesETag(String ifNoneMatch, String eTag) {
+        String opaqueTag = stripWeakPrefix(eTag);
+        int start = 0;
+        boolean quoted = false;
+        for (int i = 0; i <= ifNoneMatch.length(); i++) {
+            char c = i < ifNoneMatch.length() ? ifNoneMatch.charAt(i) : ',';
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                String tag = ifNoneMatch.substring(start, i).trim();
+                if (tag.equals("*") || stripWeakPrefix(tag).equals(opaqueTag)) {
+                    return true;
+                }
+                start = i + 1;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
+    /**
+     * Checks whether the given static resource is of a type that may be
+     * served gzip compressed by {@link #allowServePrecompressedResource}.
+     */
+    private static boolean isCompressibleResource(String url) {
+        return url.endsWith(".js") || url.endsWith(".css")
+                || url.endsWith(".html");
+    }
+
     /**
      * Calculates the cache lifetime for the given filename in seconds. By
      * default filenames containing ".nocache." return 0, filenames containing
@@ -943,10 +1165,8 @@ public class VaadinServlet extends HttpServlet implements Constants {
     protected boolean allowServePrecompressedResource(
             HttpServletRequest request, String url) {
         String accept = request.getHeader("Accept-Encoding");
-        return accept != null
-                && accept.contains("gzip")
-                && (url.endsWith(".js") || url.endsWith(".css") || url
-                        .endsWith(".html"));
+        return accept != null && accept.contains("gzip")
+                && isCompressibleResource(url);
     }
 
     private void streamContent(HttpServletResponse response, InputStream is)
@@ -1012,44 +1232,129 @@ public class VaadinServlet extends HttpServlet implements Constants {
             return true;
         }
 
-        synchronized (SCSS_MUTEX) {
-            ScssCacheEntry cacheEntry = scssCache.get(scssFilename);
+        ScssCacheEntry cacheEntry = getScssCacheEntry(filename, scssFilename,
+                sc);
+        if (cacheEntry == null) {
+            // compilation did not produce any result, but logged a message
+            return false;
+        }
 
-            if (cacheEntry == null) {
-                try {
-                    cacheEntry = loadPersistedScssCache(scssFilename, sc);
-                } catch (Exception e) {
-                    getLogger().log(Level.WARNING,
-                            "Could not read persisted scss cache", e);
-                }
-            }
+        // This is for development mode only so instruct the browser to
+        // never cache it
+        response.setHeader("Cache-Control", "no-cache");
+        final String mimetype = getService().getMimeType(filename);
+        writeResponse(response, mimetype, cacheEntry.getCss());
+
+        return true;
+    }
 
-            if (cacheEntry == null || !cacheEntry.isStillValid()) {
-                cacheEntry = compileScssOnTheFly(filename, scssFilename, sc);
-                persistCacheEntry(cacheEntry);
+    /**
+     * Gets the compiled css of a scss file, compiling the file if it has not
+     * been compiled or has changed since. Concurrent requests for the same
+     * file share the same compilation.
+     * 
+     * @return the cache entry, or null if the file could not be compiled
+     */
+    private ScssCacheEntry getScssCacheEntry(String filename,
+            String scssFilename, ServletContext sc) throws IOException {
+        FutureTask<ScssCacheEntry> task = scssCache.get(scssFilename);
+        if (task != null && task.isDone()) {
+            ScssCacheEntry cacheEntry = getScssCompilationResult(scssFilename,
+                    task);
+            if (cacheEntry != null && cacheEntry.isStillValid()) {
+                return cacheEntry;
             }
-            scssCache.put(scssFilename, cacheEntry);
+            scssCache.remove(scssFilename, task);
+            task = null;
+        }
 
-            if (cacheEntry == null) {
-                // compilation did not produce any result, but logged a message
-                return false;
+        if (task == null) {
+            FutureTask<ScssCacheEntry> newTask = new FutureTask<ScssCacheEntry>(
+                    new ScssCompilation(filename, scssFilename, sc));
+            task = scssCache.putIfAbsent(scssFilename, newTask);
+            if (task == null) {
+                task = newTask;
+                task.run();
             }
+        }
+        return getScssCompilationResult(scssFilename, task);
+    }
 
-            // This is for development mode only so instruct the browser to
-            // never cache it
-            response.setHeader("Cache-Control", "no-cache");
-            final String mimetype = getService().getMimeType(filename);
-            writeResponse(response, mimetype, cacheEntry.getCss());
+    /**
+     * Loads the persisted css of a scss file, or compiles the file if there is
+     * no up to date css.
+     */
+    private class ScssCompilation implements Callable<ScssCacheEntry>,
+            Serializable {
+        private final String filename;
+        private final String scssFilename;
+        private final ServletContext sc;
+
+        public ScssCompilation(String filename, String scssFilename,
+                ServletContext sc) {
+            this.filename = filename;
+            this.scssFilename = scssFilename;
+            this.sc = sc;
+        }
 
-            return true;
+        @Override
+        public ScssCacheEntry call() throws IOException {
+            return loadOrCompileScss(filename, scssFilename, sc);
         }
     }
 
-    private ScssCacheEntry loadPersistedScssCache(String scssFilename,
-            ServletContext sc) throws IOException {
-        String realFilename = sc.getRealPath(scssFilename);
+    /**
+     * Waits for the compilation of a scss file. A failed compilation is removed
+     * from the cache so that the file is compiled again on the next request,
+     * as the problem may have been fixed by then.
+     */
+    private ScssCacheEntry getScssCompilationResult(String scssFilename,
+            FutureTask<ScssCacheEntry> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                    "Interrupted while waiting for scss compilation");
+        } catch (ExecutionException e) {
+            scssCache.remove(scssFilename, task);
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private ScssCacheEntry loadOrCompileScss(String filename,
+            String scssFilename, ServletContext sc) throws IOException {
+        File cacheFile = getScssCacheFile(scssFilename, sc);
+
+        ScssCacheEntry cacheEntry = null;
+        if (cacheFile != null) {
+            try {
+                cacheEntry = loadPersistedScssCache(cacheFile);
+            } catch (Exception e) {
+                getLogger().log(Level.WARNING,
+                        "Could not read persisted scss cache", e);
+            }
+        }
+
+        if (cacheEntry == null) {
+            cacheEntry = compileScssOnTheFly(filename, scssFilename, sc);
+            if (cacheEntry != null) {
+                persistCacheEntry(cacheEntry, cacheFile);
+            }
+        }
+        return cacheEntry;
+    }
 
-        File scssCacheFile = getScssCacheFile(new File(realFilename));
+    private ScssCacheEntry loadPersistedScssCache(File scssCacheFile)
+            throws IOException {
         if (!scssCacheFile.exists()) {
             return null;
         }
@@ -1065,42 +1370,52 @@ public class VaadinServlet extends HttpServlet implements Constants {
             return null;
         }
 
-        return new ScssCacheEntry(entryJson);
+        ScssCacheEntry cacheEntry = new ScssCacheEntry(entryJson);
+        if (!cacheEntry.isContentUnchanged()) {
+            // Some imported file has changed, the cache is overwritten
+            return null;
+        }
+        return cacheEntry;
     }
 
     private ScssCacheEntry compileScssOnTheFly(String filename,
             String scssFilename, ServletContext sc) throws IOException {
         String realFilename = sc.getRealPath(scssFilename);
-        ScssStylesheet scss = ScssStylesheet.get(realFilename);
-        if (scss == null) {
-            // Not a file in the file system (WebContent directory). Use the
-            // identifier directly (VAADIN/themes/.../styles.css) so
-            // ScssStylesheet will try using the class loader.
-            if (scssFilename.startsWith("/")) {
-                scssFilename = scssFilename.substring(1);
-            }
+        String css;
+        List<String> sourceUris;
+        synchronized (SCSS_MUTEX) {
+            ScssStylesheet scss = ScssStylesheet.get(realFilename);
+            if (scss == null) {
+                // Not a file in the file system (WebContent directory). Use
+                // the identifier directly (VAADIN/themes/.../styles.css) so
+                // ScssStylesheet will try using the class loader.
+                if (scssFilename.startsWith("/")) {
+                    scssFilename = scssFilename.substring(1);
+                }
 
-            scss = ScssStylesheet.get(scssFilename);
-        }
+                scss = ScssStylesheet.get(scssFilename);
+            }
 
-        if (scss == null) {
-            getLogger()
-                    .log(Level.WARNING,
-                            "Scss file {0} exists but ScssStylesheet was not able to find it",
-                            scssFilename);
-            return null;
-        }
-        try {
-            getLogger().log(Level.FINE, "Compiling {0} for request to {1}",
-                    new Object[] { realFilename, filename });
-            scss.compile();
-        } catch (Exception e) {
-            getLogger().log(Level.WARNING, "Scss compilation failed", e);
-            return null;
+            if (scss == null) {
+                getLogger()
+                        .log(Level.WARNING,
+                                "Scss file {0} exists but ScssStylesheet was not able to find it",
+                                scssFilename);
+                return null;
+            }
+            try {
+                getLogger().log(Level.FINE,
+                        "Compiling {0} for request to {1}",
+                        new Object[] { realFilename, filename });
+                scss.compile();
+            } catch (Exception e) {
+                getLogger().log(Level.WARNING, "Scss compilation failed", e);
+                return null;
+            }
+            css = scss.printState();
+            sourceUris = scss.getSourceUris();
         }
-
-        return new ScssCacheEntry(realFilename, scss.printState(),
-                scss.getSourceUris());
+        return new ScssCacheEntry(css, sourceUris);
     }
 
     /**
@@ -1345,25 +1660,23 @@ public class VaadinServlet extends HttpServlet implements Constants {
         getService().destroy();
     }
 
-    private static void persistCacheEntry(ScssCacheEntry cacheEntry) {
-        String scssFileName = cacheEntry.getScssFileName();
-        if (scssFileName == null) {
+    private static void persistCacheEntry(ScssCacheEntry cacheEntry,
+            File cacheFile) {
+        if (cacheFile == null) {
             if (!scssCompileWarWarningEmitted) {
                 getLogger()
                         .warning(
-                                "Could not persist scss cache because no real file was found for the compiled scss file. "
+                                "Could not persist scss cache because no real file or temporary directory was found for the compiled scss file. "
                                         + "This might happen e.g. if serving the scss file directly from a .war file.");
                 scssCompileWarWarningEmitted = true;
             }
             return;
         }
 
-        File scssFile = new File(scssFileName);
-        File cacheFile = getScssCacheFile(scssFile);
-
         String cacheEntryJsonString = cacheEntry.asJson();
 
         try {
+            Files.createParentDirs(cacheFile);
             Files.write(cacheEntryJsonString, cacheFile, Charsets.UTF_8);
         } catch (IOException e) {
             getLogger().log(Level.WARNING,
@@ -1371,8 +1684,24 @@ public class VaadinServlet extends HttpServlet implements Constants {
         }
     }
 
-    private static File getScssCacheFile(File scssFile) {
-        return new File(scssFile.getParentFile(), scssFile.getName() + ".cache");
+    /**
+     * Gets the file where the compiled css of a scss file is persisted. The
+     * file is next to the scss file if it is in the file system, otherwise in
+     * the temporary directory of the servlet context.
+     * 
+     * @return the cache file, or null if there is no place for it
+     */
+    private static File getScssCacheFile(String scssFilename, ServletContext sc) {
+        String realFilename = sc.getRealPath(scssFilename);
+        if (realFilename != null && new File(realFilename).exists()) {
+            return new File(realFilename + ".cache");
+        }
+        Object tempDir = sc.getAttribute("javax.servlet.context.tempdir");
+        if (tempDir instanceof File) {
+            return new File(new File((File) tempDir, "scss-cache"),
+                    scssFilename + ".cache");
+        }
+        return null;
     }
 
     /**
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
@@ -90,6 +91,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
                 .getInstances(true);
         private final VaadinSession session;
         private Runnable runnable;
+        private final long creationTime = System.nanoTime();
 
         /**
          * Creates an instance for the given runnable
@@ -135,6 +137,16 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
             return instances;
         }
 
+        /**
+         * Gets the value of {@link System#nanoTime()} when this task was
+         * created.
+         * 
+         * @return the creation time in nanoseconds
+         */
+        long getCreationTime() {
+            return creationTime;
+        }
+
         /**
          * Handles exceptions thrown during the execution of this task.
          *
@@ -200,6 +212,13 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
     // javadoc in UI should be updated if this value is changed
     public static final String UI_PARAMETER = "UI";
 
+    /**
+     * The name of the request attribute holding the tasks submitted using
+     * {@link #accessAfterResponse(Runnable)} while handling the request.
+     */
+    static final String AFTER_RESPONSE_ACCESS_ATTRIBUTE = VaadinSession.class
+            .getName() + ".afterResponseAccess";
+
     private static final Method BOOTSTRAP_FRAGMENT_METHOD = ReflectTools
             .findMethod(BootstrapListener.class, "modifyBootstrapFragment",
                     BootstrapFragmentResponse.class);
@@ -271,6 +290,8 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      */
     private transient ConcurrentLinkedQueue<FutureAccess> pendingAccessQueue = new ConcurrentLinkedQueue<FutureAccess>();
 
+    private final AccessQueueStatistics accessQueueStatistics = new AccessQueueStatistics();
+
     /**
      * Creates a new VaadinSession tied to a VaadinService.
      *
@@ -1409,6 +1430,50 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         return getService().accessSession(this, runnable);
     }
 
+    /**
+     * Provides exclusive access to this session once the response to the
+     * current request has been written. This is useful for work that the
+     * current response does not depend on, e.g. fetching data that the client
+     * is likely to request next, so that the work does not delay the response.
+     * <p>
+     * The runnable is run with the session locked at the end of the current
+     * request, after all request handlers have written the response, including
+     * when the response is written outside the session lock. If this method is
+     * not called while handling a request for this session, the runnable is
+     * run as if submitted using {@link #access(Runnable)}.
+     * </p>
+     * <p>
+     * The runnable is still run by the request handling thread, so the session
+     * remains locked and the thread is not returned to the servlet container
+     * until the runnable has completed.
+     * </p>
+     *
+     * @see #access(Runnable)
+     *
+     * @since 7.6
+     *
+     * @param runnable
+     *            the runnable which accesses the session
+     * @return a future that can be used to check for task completion and to
+     *         cancel the task
+     */
+    public Future<Void> accessAfterResponse(Runnable runnable) {
+        VaadinRequest request = VaadinService.getCurrentRequest();
+        if (request == null || getCurrent() != this) {
+            return access(runnable);
+        }
+        @SuppressWarnings("unchecked")
+        List<FutureAccess> tasks = (List<FutureAccess>) request
+                .getAttribute(AFTER_RESPONSE_ACCESS_ATTRIBUTE);
+        if (tasks == null) {
+            tasks = new ArrayList<FutureAccess>();
+            request.setAttribute(AFTER_RESPONSE_ACCESS_ATTRIBUTE, tasks);
+        }
+        FutureAccess future = new FutureAccess(this, runnable);
+        tasks.add(future);
+        return future;
+    }
+
     /**
      * Gets the queue of tasks submitted using {@link #access(Runnable)}. It is
      * safe to call this method and access the returned queue without holding
@@ -1422,6 +1487,17 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         return pendingAccessQueue;
     }
 
+    /**
+     * Gets statistics about the tasks run from the queue of pending access
+     * tasks. The statistics can be read without locking the session.
+     * 
+     * @since 7.6
+     * @return the access queue statistics of this session
+     */
+    public AccessQueueStatistics getAccessQueueStatistics() {
+        return accessQueueStatistics;
+    }
+
     /**
      * Gets the CSRF token (aka double submit cookie) that is used to protect
      * against Cross Site Request Forgery attacks.
@@ -62,7 +62,8 @@ public class ClientRpcWriter implements Serializable {
         Collection<ClientMethodInvocation> pendingInvocations = collectPendingRpcCalls(ui
                 .getConnectorTracker().getDirtyVisibleConnectors());
 
-        JsonArray rpcCalls = Json.createArray();
+        boolean first = true;
+        writer.write("[");
         for (ClientMethodInvocation invocation : pendingInvocations) {
             // add invocation to rpcCalls
             try {
@@ -91,7 +92,13 @@ public class ClientRpcWriter implements Serializable {
                     paramJson.set(i, encodeResult.getEncodedValue());
                 }
                 invocationJson.set(3, paramJson);
-                rpcCalls.set(rpcCalls.length(), invocationJson);
+
+                String invocationString = JsonUtil.stringify(invocationJson);
+                if (!first) {
+                    writer.write(",");
+                }
+                first = false;
+                writer.write(invocationString);
             } catch (JsonException e) {
                 throw new PaintException(
                         "Failed to serialize RPC method call parameters for connector "
@@ -101,7 +108,7 @@ public class ClientRpcWriter implements Serializable {
                                 + e.getMessage(), e);
             }
         }
-        writer.write(JsonUtil.stringify(rpcCalls));
+        writer.write("]");
     }
 
     /**
@@ -30,7 +30,6 @@ import com.vaadin.ui.UI;
 import elemental.json.Json;
 import elemental.json.JsonArray;
 import elemental.json.JsonException;
-import elemental.json.JsonObject;
 import elemental.json.impl.JsonUtil;
 
 /**
@@ -57,7 +56,8 @@ public class ConnectorHierarchyWriter implements Serializable {
         Collection<ClientConnector> dirtyVisibleConnectors = ui
                 .getConnectorTracker().getDirtyVisibleConnectors();
 
-        JsonObject hierarchyInfo = Json.createObject();
+        boolean first = true;
+        writer.write("{");
         for (ClientConnector connector : dirtyVisibleConnectors) {
             String connectorId = connector.getConnectorId();
             JsonArray children = Json.createArray();
@@ -70,7 +70,14 @@ public class ConnectorHierarchyWriter implements Serializable {
                 }
             }
             try {
-                hierarchyInfo.put(connectorId, children);
+                String childrenJson = JsonUtil.stringify(children);
+                if (!first) {
+                    writer.write(",");
+                }
+                first = false;
+                writer.write(JsonUtil.quote(connectorId));
+                writer.write(":");
+                writer.write(childrenJson);
             } catch (JsonException e) {
                 throw new PaintException(
                         "Failed to send hierarchy information about "
@@ -78,6 +85,6 @@ public class ConnectorHierarchyWriter implements Serializable {
                                 + e.getMessage(), e);
             }
         }
-        writer.write(JsonUtil.stringify(hierarchyInfo));
+        writer.write("}");
     }
 }
@@ -22,13 +22,9 @@ import java.io.Writer;
 import java.util.Collection;
 
 import com.vaadin.server.ClientConnector;
-import com.vaadin.server.PaintException;
 import com.vaadin.server.PaintTarget;
 import com.vaadin.ui.UI;
 
-import elemental.json.Json;
-import elemental.json.JsonException;
-import elemental.json.JsonObject;
 import elemental.json.impl.JsonUtil;
 
 /**
@@ -58,18 +54,18 @@ public class ConnectorTypeWriter implements Serializable {
         Collection<ClientConnector> dirtyVisibleConnectors = ui
                 .getConnectorTracker().getDirtyVisibleConnectors();
 
-        JsonObject connectorTypes = Json.createObject();
+        boolean first = true;
+        writer.write("{");
         for (ClientConnector connector : dirtyVisibleConnectors) {
             String connectorType = target.getTag(connector);
-            try {
-                connectorTypes.put(connector.getConnectorId(), connectorType);
-            } catch (JsonException e) {
-                throw new PaintException(
-                        "Failed to send connector type for connector "
-                                + connector.getConnectorId() + ": "
-                                + e.getMessage(), e);
+            if (!first) {
+                writer.write(",");
             }
+            first = false;
+            writer.write(JsonUtil.quote(connector.getConnectorId()));
+            writer.write(":");
+            writer.write(JsonUtil.quote(connectorType));
         }
-        writer.write(JsonUtil.stringify(connectorTypes));
+        writer.write("}");
     }
 }
@@ -18,12 +18,18 @@ package com.vaadin.server.communication;
 
 import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
 
+import com.vaadin.server.ChannelStreamVariable;
 import com.vaadin.server.ClientConnector;
 import com.vaadin.server.NoInputStreamException;
 import com.vaadin.server.NoOutputStreamException;
@@ -58,144 +64,187 @@ public class FileUploadHandler implements RequestHandler {
     public static class SimpleMultiPartInputStream extends InputStream {
 
         /**
-         * Counter of how many characters have been matched to boundary string
-         * from the stream
+         * The bytes of the boundary string including the preceding line break
          */
-        int matchedCount = -1;
+        private final byte[] boundary;
 
         /**
-         * Used as pointer when returning bytes after partly matched boundary
-         * string.
+         * How far the search for the boundary may skip ahead based on the last
+         * byte of the compared block (Boyer-Moore-Horspool)
          */
-        int curBoundaryIndex = 0;
+        private final int[] skip = new int[256];
+
         /**
-         * The byte found after a "promising start for boundary"
+         * Bytes read from the underlying stream. The bytes from
+         * <code>position</code> to <code>limit</code> have not been returned
+         * yet.
          */
-        private int bufferedByte = -1;
+        private final byte[] buffer;
+        private int position = 0;
+        private int limit = 0;
+
+        /**
+         * Index of the boundary in the buffer, or -1 if it has not been found
+         * yet
+         */
+        private int boundaryIndex = -1;
+
+        /**
+         * Index in the buffer from which the boundary may start, as the
+         * preceding bytes have already been searched
+         */
+        private int searchFrom = 0;
+
+        private boolean endOfRealStream = false;
         private boolean atTheEnd = false;
 
-        private final char[] boundary;
+        private final byte[] singleByte = new byte[1];
 
         private final InputStream realInputStream;
 
         public SimpleMultiPartInputStream(InputStream realInputStream,
                 String boundaryString) {
-            boundary = (CRLF + DASHDASH + boundaryString).toCharArray();
+            this(realInputStream, boundaryString, DEFAULT_UPLOAD_BUFFER_SIZE);
+        }
+
+        /**
+         * Creates a stream reading from another stream until the boundary
+         * string, reading the other stream in blocks of the given size.
+         * 
+         * @since 7.6
+         * @param realInputStream
+         *            the stream to read from
+         * @param boundaryString
+         *            the multipart boundary string
+         * @param bufferSize
+         *            the size of the read buffer in bytes
+         */
+        public SimpleMultiPartInputStream(InputStream realInputStream,
+                String boundaryString, int bufferSize) {
+            try {
+                boundary = (CRLF + DASHDASH + boundaryString)
+                        .getBytes("ISO-8859-1");
+            } catch (UnsupportedEncodingException e) {
+                throw new RuntimeException(e);
+            }
             this.realInputStream = realInputStream;
+            buffer = new byte[Math.max(bufferSize, 2 * boundary.length)];
+
+            int last = boundary.length - 1;
+            Arrays.fill(skip, boundary.length);
+            for (int i = 0; i < last; i++) {
+                skip[boundary[i] & 0xff] = last - i;
+            }
         }
 
         @Override
         public int read() throws IOException {
+            if (read(singleByte, 0, 1) == -1) {
+                return -1;
+            }
+            return singleByte[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
             if (atTheEnd) {
                 // End boundary reached, nothing more to read
                 return -1;
-            } else if (bufferedByte >= 0) {
-                /* Purge partially matched boundary if there was such */
-                return getBuffered();
-            } else if (matchedCount != -1) {
-                /*
-                 * Special case where last "failed" matching ended with first
-                 * character from boundary string
-                 */
-                return matchForBoundary();
-            } else {
-                int fromActualStream = realInputStream.read();
-                if (fromActualStream == -1) {
+            } else if (len == 0) {
+                return 0;
+            }
+            int available = getAvailableBeforeBoundary();
+            if (available == 0) {
+                atTheEnd = true;
+                return -1;
+            }
+            int count = Math.min(len, available);
+            System.arraycopy(buffer, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        /**
+         * Returns the number of buffered bytes that can be returned. More is
+         * read from the underlying stream only when the unread bytes could all
+         * be the start of the boundary. Bytes that might be the start of the
+         * boundary are not counted until more bytes have been read.
+         * 
+         * @return the number of bytes that precede the boundary, 0 if the
+         *         boundary has been reached
+         * @throws IOException
+         *             if the underlying stream ends before the boundary
+         */
+        private int getAvailableBeforeBoundary() throws IOException {
+            if (boundaryIndex == -1 && limit - position < boundary.length) {
+                if (endOfRealStream) {
                     // unexpected end of stream
                     throw new IOException(
                             "The multipart stream ended unexpectedly");
                 }
-                if (boundary[0] == fromActualStream) {
-                    /*
-                     * If matches the first character in boundary string, start
-                     * checking if the boundary is fetched.
-                     */
-                    return matchForBoundary();
+                fill();
+                // Only the newly read bytes can complete the boundary
+                boundaryIndex = indexOfBoundary(searchFrom, limit);
+                searchFrom = Math.max(0, limit - (boundary.length - 1));
+                if (boundaryIndex == -1 && limit - position < boundary.length) {
+                    // unexpected end of stream
+                    throw new IOException(
+                            "The multipart stream ended unexpectedly");
                 }
-                return fromActualStream;
             }
+            if (boundaryIndex != -1) {
+                return boundaryIndex - position;
+            }
+            // the last bytes may be a partial boundary
+            return limit - position - (boundary.length - 1);
         }
 
         /**
-         * Reads the input to expect a boundary string. Expects that the first
-         * character has already been matched.
-         * 
-         * @return -1 if the boundary was matched, else returns the first byte
-         *         from boundary
-         * @throws IOException
+         * Moves the unread bytes, fewer than the length of the boundary, to the
+         * start of the buffer and reads as much from the underlying stream as
+         * fits, at least enough to contain a boundary unless the underlying
+         * stream ends.
          */
-        private int matchForBoundary() throws IOException {
-            matchedCount = 0;
-            /*
-             * Going to "buffered mode". Read until full boundary match or a
-             * different character.
-             */
-            while (true) {
-                matchedCount++;
-                if (matchedCount == boundary.length) {
-                    /*
-                     * The whole boundary matched so we have reached the end of
-                     * file
-                     */
-                    atTheEnd = true;
-                    return -1;
-                }
-                int fromActualStream = realInputStream.read();
-                if (fromActualStream != boundary[matchedCount]) {
-                    /*
-                     * Did not find full boundary, cache the mismatching byte
-                     * and start returning the partially matched boundary.
-                     */
-                    bufferedByte = fromActualStream;
-                    return getBuffered();
-                }
+        private void fill() throws IOException {
+            if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, limit - position);
+                limit -= position;
+                searchFrom = Math.max(0, searchFrom - position);
+                position = 0;
             }
+            do {
+                int read = realInputStream.read(buffer, limit, buffer.length
+                        - limit);
+                if (read == -1) {
+                    endOfRealStream = true;
+                } else {
+                    limit += read;
+                }
+            } while (!endOfRealStream && limit < boundary.length);
         }
 
         /**
-         * Returns the partly matched boundary string and the byte following
-         * that.
+         * Finds the boundary in the buffer using the Boyer-Moore-Horspool
+         * algorithm.
          * 
-         * @return
-         * @throws IOException
+         * @return the index of the boundary or -1 if not found
          */
-        private int getBuffered() throws IOException {
-            int b;
-            if (matchedCount == 0) {
-                // The boundary has been returned, return the buffered byte.
-                b = bufferedByte;
-                bufferedByte = -1;
-                matchedCount = -1;
-            } else {
-                b = boundary[curBoundaryIndex++];
-                if (curBoundaryIndex == matchedCount) {
-                    // The full boundary has been returned, remaining is the
-                    // char that did not match the boundary.
-
-                    curBoundaryIndex = 0;
-                    if (bufferedByte != boundary[0]) {
-                        /*
-                         * next call for getBuffered will return the
-                         * bufferedByte that came after the partial boundary
-                         * match
-                         */
-                        matchedCount = 0;
-                    } else {
-                        /*
-                         * Special case where buffered byte again matches the
-                         * boundaryString. This could be the start of the real
-                         * end boundary.
-                         */
-                        matchedCount = 0;
-                        bufferedByte = -1;
+        private int indexOfBoundary(int from, int to) {
+            int last = boundary.length - 1;
+            int i = from;
+            while (i + last < to) {
+                int j = last;
+                while (buffer[i + j] == boundary[j]) {
+                    if (j == 0) {
+                        return i;
                     }
+                    j--;
                 }
+                i += skip[buffer[i + last] & 0xff];
             }
-            if (b == -1) {
-                throw new IOException("The multipart stream ended unexpectedly");
-            }
-            return b;
+            return -1;
         }
+
     }
 
     /**
@@ -227,8 +276,13 @@ public class FileUploadHandler implements RequestHandler {
 
     private static final String DASHDASH = "--";
 
-    /* Same as in apache commons file upload library that was previously used. */
-    private static final int MAX_UPLOAD_BUFFER_SIZE = 4 * 1024;
+    /**
+     * Default size of the buffers used for reading uploads, see
+     * {@link #getUploadBufferSize()}.
+     * 
+     * @since 7.6
+     */
+    public static final int DEFAULT_UPLOAD_BUFFER_SIZE = 64 * 1024;
 
     /* Minimum interval which will be used for streaming progress events. */
     public static final int DEFAULT_STREAMING_PROGRESS_EVENT_INTERVAL_MS = 500;
@@ -378,20 +432,17 @@ public class FileUploadHandler implements RequestHandler {
                 * DASHDASH.length() + CRLF.length());
 
         /*
-         * Reads bytes from the underlying stream. Compares the read bytes to
+         * Reads blocks from the underlying stream. Searches the read bytes for
          * the boundary string and returns -1 if met.
          * 
-         * The matching happens so that if the read byte equals to the first
-         * char of boundary string, the stream goes to "buffering mode". In
-         * buffering mode bytes are read until the character does not match the
-         * corresponding from boundary string or the full boundary string is
-         * found.
+         * Bytes at the end of a block that could be the start of the boundary
+         * string are kept in the buffer until the next block has been read.
          * 
          * Note, if this is someday needed elsewhere, don't shoot yourself to
          * foot and split to a top level helper class.
          */
         InputStream simpleMultiPartReader = new SimpleMultiPartInputStream(
-                inputStream, boundary);
+                inputStream, boundary, getUploadBufferSize());
 
         /*
          * Should report only the filename even if the browser sends the path
@@ -533,6 +584,7 @@ public class FileUploadHandler implements RequestHandler {
         }
 
         OutputStream out = null;
+        WritableByteChannel channel = null;
         long totalBytes = 0;
         StreamingStartEventImpl startedEvent = new StreamingStartEventImpl(
                 filename, type, contentLength);
@@ -541,14 +593,20 @@ public class FileUploadHandler implements RequestHandler {
             session.lock();
             try {
                 streamVariable.streamingStarted(startedEvent);
-                out = streamVariable.getOutputStream();
+                if (streamVariable instanceof ChannelStreamVariable) {
+                    channel = ((ChannelStreamVariable) streamVariable)
+                            .getChannel();
+                }
+                if (channel == null) {
+                    out = streamVariable.getOutputStream();
+                }
                 listenProgress = streamVariable.listenProgress();
             } finally {
                 session.unlock();
             }
 
             // Gets the output target stream
-            if (out == null) {
+            if (out == null && channel == null) {
                 throw new NoOutputStreamException();
             }
 
@@ -557,22 +615,35 @@ public class FileUploadHandler implements RequestHandler {
                 throw new NoInputStreamException();
             }
 
-            final byte buffer[] = new byte[MAX_UPLOAD_BUFFER_SIZE];
+            final byte buffer[] = new byte[getUploadBufferSize()];
+            final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
             long lastStreamingEvent = 0;
+            long lastStreamingEventBytes = 0;
             int bytesReadToBuffer = 0;
             do {
                 bytesReadToBuffer = in.read(buffer);
                 if (bytesReadToBuffer > 0) {
-                    out.write(buffer, 0, bytesReadToBuffer);
+                    if (channel != null) {
+                        byteBuffer.clear().limit(bytesReadToBuffer);
+                        while (byteBuffer.hasRemaining()) {
+                            channel.write(byteBuffer);
+                        }
+                    } else {
+                        out.write(buffer, 0, bytesReadToBuffer);
+                    }
                     totalBytes += bytesReadToBuffer;
                 }
                 if (listenProgress) {
                     long now = System.currentTimeMillis();
                     // to avoid excessive session locking and event storms,
                     // events are sent in intervals, or at the end of the file.
-                    if (lastStreamingEvent + getProgressEventInterval() <= now
-                            || bytesReadToBuffer <= 0) {
+                    boolean intervalPassed = lastStreamingEvent
+                            + getProgressEventInterval() <= now
+                            && lastStreamingEventBytes
+                                    + getProgressEventByteInterval() <= totalBytes;
+                    if (intervalPassed || bytesReadToBuffer <= 0) {
                         lastStreamingEvent = now;
+                        lastStreamingEventBytes = totalBytes;
                         session.lock();
                         try {
                             StreamingProgressEventImpl progressEvent = new StreamingProgressEventImpl(
@@ -589,7 +660,11 @@ public class FileUploadHandler implements RequestHandler {
             } while (bytesReadToBuffer > 0);
 
             // upload successful
-            out.close();
+            if (channel != null) {
+                channel.close();
+            } else {
+                out.close();
+            }
             StreamingEndEvent event = new StreamingEndEventImpl(filename, type,
                     totalBytes);
             session.lock();
@@ -602,6 +677,7 @@ public class FileUploadHandler implements RequestHandler {
         } catch (UploadInterruptedException e) {
             // Download interrupted by application code
             tryToCloseStream(out);
+            tryToCloseStream(channel);
             StreamingErrorEvent event = new StreamingErrorEventImpl(filename,
                     type, contentLength, totalBytes, e);
             session.lock();
@@ -614,6 +690,7 @@ public class FileUploadHandler implements RequestHandler {
             // not a terminal level error like all other exception.
         } catch (final Exception e) {
             tryToCloseStream(out);
+            tryToCloseStream(channel);
             session.lock();
             try {
                 StreamingErrorEvent event = new StreamingErrorEventImpl(
@@ -640,7 +717,37 @@ public class FileUploadHandler implements RequestHandler {
         return DEFAULT_STREAMING_PROGRESS_EVENT_INTERVAL_MS;
     }
 
-    static void tryToCloseStream(OutputStream out) {
+    /**
+     * Returns the size of the buffers used for reading an upload and writing
+     * it to the receiver. Larger buffers need fewer reads and writes for large
+     * files but use more memory for each upload in progress. To adjust this
+     * value override the method, and register your own handler in
+     * VaadinService.createRequestHandlers(). The default is
+     * {@value #DEFAULT_UPLOAD_BUFFER_SIZE} bytes.
+     * 
+     * @since 7.6
+     * @return the buffer size in bytes
+     */
+    protected int getUploadBufferSize() {
+        return DEFAULT_UPLOAD_BUFFER_SIZE;
+    }
+
+    /**
+     * Returns the minimum number of bytes that are received between streaming
+     * progress events, in addition to the interval returned by
+     * {@link #getProgressEventInterval()}. To adjust this value override the
+     * method, and register your own handler in
+     * VaadinService.createRequestHandlers(). The default is 0, so only the
+     * time interval is used.
+     * 
+     * @since 7.6
+     * @return the number of bytes between progress events
+     */
+    protected long getProgressEventByteInterval() {
+        return 0;
+    }
+
+    static void tryToCloseStream(Closeable out) {
         try {
             // try to close output stream (e.g. file handle)
             if (out != null) {
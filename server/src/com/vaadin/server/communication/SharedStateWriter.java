@@ -26,7 +26,6 @@ import com.vaadin.server.PaintException;
 import com.vaadin.shared.communication.SharedState;
 import com.vaadin.ui.UI;
 
-import elemental.json.Json;
 import elemental.json.JsonException;
 import elemental.json.JsonObject;
 import elemental.json.impl.JsonUtil;
@@ -55,14 +54,23 @@ public class SharedStateWriter implements Serializable {
         Collection<ClientConnector> dirtyVisibleConnectors = ui
                 .getConnectorTracker().getDirtyVisibleConnectors();
 
-        JsonObject sharedStates = Json.createObject();
+        // Write the state of each connector as soon as it has been encoded
+        // instead of collecting all states into one JSON object first
+        boolean first = true;
+        writer.write("{");
         for (ClientConnector connector : dirtyVisibleConnectors) {
             // encode and send shared state
             try {
                 JsonObject stateJson = connector.encodeState();
 
                 if (stateJson != null && stateJson.keys().length != 0) {
-                    sharedStates.put(connector.getConnectorId(), stateJson);
+                    if (!first) {
+                        writer.write(",");
+                    }
+                    first = false;
+                    writer.write(JsonUtil.quote(connector.getConnectorId()));
+                    writer.write(":");
+                    writer.write(JsonUtil.stringify(stateJson));
                 }
             } catch (JsonException e) {
                 throw new PaintException(
@@ -72,6 +80,6 @@ public class SharedStateWriter implements Serializable {
                                 + e.getMessage(), e);
             }
         }
-        writer.write(JsonUtil.stringify(sharedStates));
+        writer.write("}");
     }
 }
@@ -16,6 +16,7 @@
 
 package com.vaadin.server.communication;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.StringWriter;
@@ -105,14 +106,8 @@ public abstract class UIInitHandler extends SynchronizedRequestHandler {
     static boolean commitJsonResponse(VaadinRequest request,
             VaadinResponse response, String json) throws IOException {
         // The response was produced without errors so write it to the client
-        response.setContentType(JsonConstants.JSON_CONTENT_TYPE);
-
-        // Ensure that the browser does not cache UIDL responses.
-        // iOS 6 Safari requires this (#9732)
-        response.setHeader("Cache-Control", "no-cache");
-
         byte[] b = json.getBytes("UTF-8");
-        response.setContentLength(b.length);
+        prepareJsonResponse(response, b.length);
 
         OutputStream outputStream = response.getOutputStream();
         outputStream.write(b);
@@ -122,6 +117,47 @@ public abstract class UIInitHandler extends SynchronizedRequestHandler {
         return true;
     }
 
+    /**
+     * Commit a JSON response that has already been encoded as UTF-8 into a
+     * buffer.
+     * 
+     * @see #commitJsonResponse(VaadinRequest, VaadinResponse, String)
+     * 
+     * @param request
+     *            The request that resulted in this response
+     * @param response
+     *            The response to write to
+     * @param json
+     *            The UTF-8 encoded JSON to write
+     * @return true if the JSON was written successfully, false otherwise
+     * @throws IOException
+     *             If there was an exception while writing to the output
+     */
+    static boolean commitJsonResponse(VaadinRequest request,
+            VaadinResponse response, ByteArrayOutputStream json)
+            throws IOException {
+        // The response was produced without errors so write it to the client
+        prepareJsonResponse(response, json.size());
+
+        OutputStream outputStream = response.getOutputStream();
+        json.writeTo(outputStream);
+        // NOTE GateIn requires the buffers to be flushed to work
+        outputStream.flush();
+
+        return true;
+    }
+
+    private static void prepareJsonResponse(VaadinResponse response,
+            int contentLength) {
+        response.setContentType(JsonConstants.JSON_CONTENT_TYPE);
+
+        // Ensure that the browser does not cache UIDL responses.
+        // iOS 6 Safari requires this (#9732)
+        response.setHeader("Cache-Control", "no-cache");
+
+        response.setContentLength(contentLength);
+    }
+
     private UI getBrowserDetailsUI(VaadinRequest request, VaadinSession session) {
         VaadinService vaadinService = request.getService();
 
@@ -16,13 +16,18 @@
 
 package com.vaadin.server.communication;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
 import java.io.Writer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.vaadin.server.Constants;
+import com.vaadin.server.DeploymentConfiguration;
 import com.vaadin.server.LegacyCommunicationManager.InvalidUIDLSecurityKeyException;
 import com.vaadin.server.ServletPortletHelper;
 import com.vaadin.server.SessionExpiredHandler;
@@ -64,16 +69,99 @@ public class UidlRequestHandler extends SynchronizedRequestHandler implements
         return ServletPortletHelper.isUIDLRequest(request);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If {@link DeploymentConfiguration#isUidlIoOutsideSessionLock()} is
+     * enabled, the request body is read before the session is locked and the
+     * response is written after the session has been unlocked. A slow
+     * connection to one browser tab then does not block the requests of the
+     * other tabs in the same session. The response of a UI using server push
+     * is still written while the session is locked to keep it in order with
+     * the pushed messages.
+     */
+    @Override
+    public boolean handleRequest(VaadinSession session, VaadinRequest request,
+            VaadinResponse response) throws IOException {
+        if (!session.getService().getDeploymentConfiguration()
+                .isUidlIoOutsideSessionLock()) {
+            return super.handleRequest(session, request, response);
+        }
+        if (!canHandleRequest(request)) {
+            return false;
+        }
+
+        Reader reader = new StringReader(rpcHandler.getMessage(request
+                .getReader()));
+
+        /*
+         * Only the I/O is moved outside the lock. Handling the RPC calls still
+         * locks the whole session rather than only the UI, because:
+         * 
+         * - AbstractClientConnector.markAsDirty() and getState() assert that
+         * the session lock is held, as do UI.access() and the session getters
+         * used while writing the response, e.g. getCommunicationManager() and
+         * getBrowser().
+         * 
+         * - The LegacyCommunicationManager, the session attributes and the
+         * request timestamps are shared by all UIs of the session.
+         * 
+         * - Releasing the session lock runs the pending access tasks of all
+         * UIs of the session, which may touch any UI.
+         */
+        ByteArrayOutputStream buffer;
+        session.lock();
+        try {
+            buffer = handleUidlRequest(session, request, response, reader);
+            if (buffer != null && isPushEnabled(session, request)) {
+                UIInitHandler.commitJsonResponse(request, response, buffer);
+                return true;
+            }
+        } finally {
+            session.unlock();
+        }
+
+        if (buffer != null) {
+            UIInitHandler.commitJsonResponse(request, response, buffer);
+        }
+        return true;
+    }
+
+    private static boolean isPushEnabled(VaadinSession session,
+            VaadinRequest request) {
+        UI ui = session.getService().findUI(request);
+        return ui != null
+                && ui.getPushConfiguration().getPushMode().isEnabled();
+    }
+
     @Override
     public boolean synchronizedHandleRequest(VaadinSession session,
             VaadinRequest request, VaadinResponse response) throws IOException {
+        ByteArrayOutputStream buffer = handleUidlRequest(session, request,
+                response, request.getReader());
+        if (buffer != null) {
+            return UIInitHandler.commitJsonResponse(request, response, buffer);
+        }
+        return true;
+    }
+
+    /**
+     * Handles the RPC invocations of a UIDL request and encodes the response.
+     * Must be called with the session locked.
+     * 
+     * @return the UTF-8 encoded response to write, or <code>null</code> if a
+     *         response has already been written
+     */
+    private ByteArrayOutputStream handleUidlRequest(VaadinSession session,
+            VaadinRequest request, VaadinResponse response, Reader reader)
+            throws IOException {
         UI uI = session.getService().findUI(request);
         if (uI == null) {
             // This should not happen but it will if the UI has been closed. We
             // really don't want to see it in the server logs though
             UIInitHandler.commitJsonResponse(request, response,
                     getUINotFoundErrorJSON(session.getService(), request));
-            return true;
+            return null;
         }
 
         checkWidgetsetVersion(request);
@@ -89,34 +177,39 @@ public class UidlRequestHandler extends SynchronizedRequestHandler implements
         repaintAll = (request
                 .getParameter(ApplicationConstants.URL_PARAMETER_REPAINT_ALL) != null);
 
-        StringWriter stringWriter = new StringWriter();
+        // Encode the response directly as UTF-8 into a buffer instead of
+        // collecting it into a String that would then be copied into bytes.
+        // The response is still buffered so that a critical notification can
+        // be written instead if something goes wrong.
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(buffer,
+                "UTF-8"));
 
         try {
-            rpcHandler.handleRpc(uI, request.getReader(), request);
+            rpcHandler.handleRpc(uI, reader, request);
 
             if (repaintAll) {
                 session.getCommunicationManager().repaintAll(uI);
             }
 
-            writeUidl(request, response, uI, stringWriter, repaintAll);
+            writeUidl(request, response, uI, writer, repaintAll);
         } catch (JsonException e) {
             getLogger().log(Level.SEVERE, "Error writing JSON to response", e);
             // Refresh on client side
             writeRefresh(request, response);
-            return true;
+            return null;
         } catch (InvalidUIDLSecurityKeyException e) {
             getLogger().log(Level.WARNING,
                     "Invalid security key received from {0}",
                     request.getRemoteHost());
             // Refresh on client side
             writeRefresh(request, response);
-            return true;
+            return null;
         } finally {
-            stringWriter.close();
+            writer.close();
         }
 
-        return UIInitHandler.commitJsonResponse(request, response,
-                stringWriter.toString());
+        return buffer;
     }
 
     /**
@@ -24,6 +24,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.NavigableMap;
 import java.util.Set;
 import java.util.TreeMap;
@@ -35,12 +36,15 @@ import com.vaadin.server.AbstractClientConnector;
 import com.vaadin.server.ClientConnector;
 import com.vaadin.server.DragAndDropService;
 import com.vaadin.server.GlobalResourceHandler;
+import com.vaadin.server.JsonCodec;
 import com.vaadin.server.LegacyCommunicationManager;
 import com.vaadin.server.StreamVariable;
+import com.vaadin.shared.communication.SharedState;
 
 import elemental.json.Json;
 import elemental.json.JsonException;
 import elemental.json.JsonObject;
+import elemental.json.JsonValue;
 
 /**
  * A class which takes care of book keeping of {@link ClientConnector}s for a
@@ -79,6 +83,7 @@ public class ConnectorTracker implements Serializable {
 
     private UI uI;
     private transient Map<ClientConnector, JsonObject> diffStates = new HashMap<ClientConnector, JsonObject>();
+    private transient DiffStateValueInterner diffStateValueInterner = new DiffStateValueInterner();
 
     /** Maps connectorIds to a map of named StreamVariables */
     private Map<String, Map<String, StreamVariable>> pidToNameToStreamVariable;
@@ -565,6 +570,13 @@ public class ConnectorTracker implements Serializable {
 
     public void setDiffState(ClientConnector connector, JsonObject diffState) {
         assert getConnector(connector.getConnectorId()) == connector;
+        // Only store the values that differ from the reference state, which is
+        // shared by all connectors with the same state type
+        JsonObject reference = getReferenceDiffState(connector.getStateType());
+        if (reference != null) {
+            diffState = SparseDiffState.create(reference, diffState,
+                    diffStateValueInterner);
+        }
         diffStates.put(connector, diffState);
     }
 
@@ -629,13 +641,29 @@ public class ConnectorTracker implements Serializable {
     private void writeObject(java.io.ObjectOutputStream out) throws IOException {
         out.defaultWriteObject();
         // Convert JsonObjects in diff state to String representation as
-        // JsonObject is not serializable
+        // JsonObject is not serializable. Values that are equal to the
+        // reference state of the state type are left out and restored from
+        // the reference when reading, which keeps the serialized session small
+        // while still allowing diffs to be sent after deserialization.
         HashMap<ClientConnector, String> stringDiffStates = new HashMap<ClientConnector, String>(
                 diffStates.size() * 2);
-        for (ClientConnector key : diffStates.keySet()) {
-            stringDiffStates.put(key, diffStates.get(key).toString());
+        HashMap<ClientConnector, Class<? extends SharedState>> diffStateTypes = new HashMap<ClientConnector, Class<? extends SharedState>>(
+                diffStates.size() * 2);
+        for (Entry<ClientConnector, JsonObject> entry : diffStates.entrySet()) {
+            ClientConnector connector = entry.getKey();
+            JsonObject diffState = entry.getValue();
+
+            Class<? extends SharedState> stateType = connector.getStateType();
+            JsonObject sparseDiffState = createSparseDiffState(diffState,
+                    getReferenceDiffState(stateType));
+            if (sparseDiffState != null) {
+                diffStateTypes.put(connector, stateType);
+                diffState = sparseDiffState;
+            }
+            stringDiffStates.put(connector, diffState.toJson());
         }
         out.writeObject(stringDiffStates);
+        out.writeObject(diffStateTypes);
     }
 
     /* Special serialization to JsonObjects which are not serializable */
@@ -645,20 +673,90 @@ public class ConnectorTracker implements Serializable {
 
         // Read String versions of JsonObjects and parse into JsonObjects as
         // JsonObject is not serializable
-        diffStates = new HashMap<ClientConnector, JsonObject>();
         @SuppressWarnings("unchecked")
         HashMap<ClientConnector, String> stringDiffStates = (HashMap<ClientConnector, String>) in
                 .readObject();
+        @SuppressWarnings("unchecked")
+        HashMap<ClientConnector, Class<? extends SharedState>> diffStateTypes = (HashMap<ClientConnector, Class<? extends SharedState>>) in
+                .readObject();
         diffStates = new HashMap<ClientConnector, JsonObject>(
                 stringDiffStates.size() * 2);
-        for (ClientConnector key : stringDiffStates.keySet()) {
+        diffStateValueInterner = new DiffStateValueInterner();
+        for (Entry<ClientConnector, String> entry : stringDiffStates
+                .entrySet()) {
+            ClientConnector connector = entry.getKey();
+            JsonObject diffState;
             try {
-                diffStates.put(key, Json.parse(stringDiffStates.get(key)));
+                diffState = Json.parse(entry.getValue());
             } catch (JsonException e) {
                 throw new IOException(e);
             }
+
+            Class<? extends SharedState> stateType = diffStateTypes
+                    .get(connector);
+            if (stateType != null) {
+                JsonObject reference = getReferenceDiffState(stateType);
+                if (reference == null) {
+                    // Diff state can't be restored, the full state will be
+                    // sent on the next response
+                    continue;
+                }
+                diffState = new SparseDiffState(reference, diffState);
+            }
+            diffStates.put(connector, diffState);
+        }
+    }
+
+    private static JsonObject getReferenceDiffState(
+            Class<? extends SharedState> stateType) {
+        JsonValue reference = LegacyCommunicationManager
+                .getReferenceDiffState(stateType);
+        if (reference instanceof JsonObject) {
+            return (JsonObject) reference;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Creates a diff state object containing only the values that differ from
+     * the given reference.
+     * 
+     * @param diffState
+     *            the full diff state
+     * @param reference
+     *            the reference diff state of the state type, or
+     *            <code>null</code> if there is none
+     * @return a sparse diff state, or <code>null</code> if the diff state can
+     *         not be represented relative to the reference
+     */
+    private static JsonObject createSparseDiffState(JsonObject diffState,
+            JsonObject reference) {
+        if (reference == null) {
+            return null;
+        }
+        if (diffState instanceof SparseDiffState) {
+            SparseDiffState sparseDiffState = (SparseDiffState) diffState;
+            if (sparseDiffState.getReference() == reference
+                    && !sparseDiffState.hasRemovedKeys()) {
+                return sparseDiffState.getOverlay();
+            }
+        }
+        for (String key : reference.keys()) {
+            if (!diffState.hasKey(key)) {
+                return null;
+            }
         }
 
+        JsonObject sparseDiffState = Json.createObject();
+        for (String key : diffState.keys()) {
+            JsonValue value = diffState.get(key);
+            if (!reference.hasKey(key)
+                    || !JsonCodec.jsonEquals(value, reference.get(key))) {
+                sparseDiffState.put(key, value);
+            }
+        }
+        return sparseDiffState;
     }
 
     /**
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.ui;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import elemental.json.JsonArray;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
+
+/**
+ * Shares equal string values and string arrays, such as captions and style
+ * names, between the diff states of the connectors in a UI. The interned values
+ * must not be modified.
+ * <p>
+ * The number of remembered values is bounded. When the limit is reached, the
+ * remembered values are forgotten and interning starts over, values that have
+ * already been interned remain shared.
+ *
+ * @since 7.6
+ * @author Vaadin Ltd
+ */
+class DiffStateValueInterner implements Serializable {
+
+    static final int MAX_SIZE = 1000;
+
+    /**
+     * Arrays longer than this are not interned as they are unlikely to be
+     * repeated and creating the key would be expensive.
+     */
+    private static final int MAX_ARRAY_LENGTH = 16;
+
+    private final Map<String, JsonValue> strings = new HashMap<String, JsonValue>();
+
+    private final Map<String, JsonValue> arrays = new HashMap<String, JsonValue>();
+
+    /**
+     * Returns a value equal to the given value, shared with earlier values
+     * equal to it if possible.
+     *
+     * @param value
+     *            the value to intern, not <code>null</code>
+     * @return an interned value equal to the given value, or the value itself
+     */
+    JsonValue intern(JsonValue value) {
+        JsonType type = value.getType();
+        if (type == JsonType.STRING) {
+            return intern(strings, value.asString(), value);
+        } else if (type == JsonType.ARRAY && isStringArray((JsonArray) value)) {
+            return intern(arrays, value.toJson(), value);
+        } else {
+            return value;
+        }
+    }
+
+    private static JsonValue intern(Map<String, JsonValue> values, String key,
+            JsonValue value) {
+        JsonValue interned = values.get(key);
+        if (interned != null) {
+            return interned;
+        }
+        if (values.size() >= MAX_SIZE) {
+            values.clear();
+        }
+        values.put(key, value);
+        return value;
+    }
+
+    private static boolean isStringArray(JsonArray array) {
+        int length = array.length();
+        if (length > MAX_ARRAY_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (array.get(i).getType() != JsonType.STRING) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -3989,6 +3989,8 @@ public class Grid extends AbstractFocusable implements SelectionNotifier,
 
     private RpcDataProviderExtension datasourceExtension;
 
+    private boolean readAheadEnabled = false;
+
     /**
      * The selection model that is currently in use. Never <code>null</code>
      * after the constructor has been run.
@@ -4413,6 +4415,7 @@ public class Grid extends AbstractFocusable implements SelectionNotifier,
         }
 
         datasourceExtension = new RpcDataProviderExtension(container);
+        datasourceExtension.setReadAheadEnabled(readAheadEnabled);
         datasourceExtension.extend(this);
         datasourceExtension.addDataGenerator(new RowDataGenerator());
 
@@ -4486,6 +4489,40 @@ public class Grid extends AbstractFocusable implements SelectionNotifier,
         return datasource;
     }
 
+    /**
+     * Sets whether rows should be read from the container data source ahead of
+     * the requests from the client. When enabled, the grid learns the scroll
+     * direction and speed of the user and fetches the rows that are likely to
+     * be needed next after each response, so that most scroll requests can be
+     * served from memory. This is useful with containers that are slow to
+     * fetch rows from, such as
+     * {@link com.vaadin.data.util.sqlcontainer.SQLContainer}.
+     * <p>
+     * Read ahead is disabled by default.
+     * 
+     * @since 7.6
+     * @param readAheadEnabled
+     *            <code>true</code> to enable read ahead, <code>false</code>
+     *            to disable it
+     */
+    public void setReadAheadEnabled(boolean readAheadEnabled) {
+        this.readAheadEnabled = readAheadEnabled;
+        datasourceExtension.setReadAheadEnabled(readAheadEnabled);
+    }
+
+    /**
+     * Checks whether rows are read from the container data source ahead of the
+     * requests from the client.
+     * 
+     * @since 7.6
+     * @see #setReadAheadEnabled(boolean)
+     * @return <code>true</code> if read ahead is enabled, otherwise
+     *         <code>false</code>
+     */
+    public boolean isReadAheadEnabled() {
+        return readAheadEnabled;
+    }
+
     /**
      * Returns a column based on the property id
      * 
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.ui;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.vaadin.server.JsonCodec;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonBoolean;
+import elemental.json.JsonNumber;
+import elemental.json.JsonObject;
+import elemental.json.JsonString;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
+
+/**
+ * A diff state that only stores the values that differ from the reference
+ * state of the state type. All other values are read from the reference, which
+ * is shared by all connectors with the same state type.
+ * <p>
+ * Values put into the diff state are stored in the overlay and removed values
+ * are remembered so that they are not read from the reference. Values returned
+ * from the diff state may be shared with other diff states and must not be
+ * modified; use {@link #put(String, JsonValue)} to replace a value instead.
+ *
+ * @since 7.6
+ * @author Vaadin Ltd
+ */
+class SparseDiffState implements JsonObject, Serializable {
+
+    private final JsonObject reference;
+
+    private final JsonObject overlay;
+
+    /**
+     * Keys of the reference that have been removed from this diff state, or
+     * <code>null</code> if no keys have been removed.
+     */
+    private Set<String> removedKeys;
+
+    /**
+     * Creates a new diff state based on the given reference.
+     *
+     * @param reference
+     *            the shared reference state, not <code>null</code>
+     * @param overlay
+     *            the values that differ from the reference, not
+     *            <code>null</code>
+     */
+    SparseDiffState(JsonObject reference, JsonObject overlay) {
+        this.reference = reference;
+        this.overlay = overlay;
+    }
+
+    /**
+     * Creates a sparse diff state containing the values of the given diff
+     * state that differ from the reference.
+     *
+     * @param reference
+     *            the shared reference state, not <code>null</code>
+     * @param diffState
+     *            the full diff state, not <code>null</code>
+     * @param interner
+     *            the interner used for the values that differ from the
+     *            reference, or <code>null</code> to store the values as is
+     * @return a sparse diff state
+     */
+    static SparseDiffState create(JsonObject reference, JsonObject diffState,
+            DiffStateValueInterner interner) {
+        JsonObject overlay = Json.createObject();
+        SparseDiffState sparseDiffState = new SparseDiffState(reference,
+                overlay);
+        for (String key : reference.keys()) {
+            if (!diffState.hasKey(key)) {
+                sparseDiffState.remove(key);
+            }
+        }
+        for (String key : diffState.keys()) {
+            JsonValue value = diffState.get(key);
+            if (!reference.hasKey(key)
+                    || !JsonCodec.jsonEquals(value, reference.get(key))) {
+                if (interner != null) {
+                    value = interner.intern(value);
+                }
+                overlay.put(key, value);
+            }
+        }
+        return sparseDiffState;
+    }
+
+    /**
+     * Gets the reference state this diff state is based on.
+     *
+     * @return the reference state
+     */
+    JsonObject getReference() {
+        return reference;
+    }
+
+    /**
+     * Gets the values that differ from the reference state.
+     *
+     * @return the overlay values
+     */
+    JsonObject getOverlay() {
+        return overlay;
+    }
+
+    /**
+     * Checks whether keys of the reference have been removed from this diff
+     * state.
+     *
+     * @return <code>true</code> if keys have been removed, otherwise
+     *         <code>false</code>
+     */
+    boolean hasRemovedKeys() {
+        return removedKeys != null && !removedKeys.isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T extends JsonValue> T get(String key) {
+        if (overlay.hasKey(key)) {
+            return (T) overlay.get(key);
+        } else if (removedKeys != null && removedKeys.contains(key)) {
+            return null;
+        } else {
+            return (T) reference.get(key);
+        }
+    }
+
+    @Override
+    public JsonArray getArray(String key) {
+        return (JsonArray) get(key);
+    }
+
+    @Override
+    public boolean getBoolean(String key) {
+        return ((JsonBoolean) get(key)).getBoolean();
+    }
+
+    @Override
+    public double getNumber(String key) {
+        return ((JsonNumber) get(key)).getNumber();
+    }
+
+    @Override
+    public JsonObject getObject(String key) {
+        return (JsonObject) get(key);
+    }
+
+    @Override
+    public String getString(String key) {
+        return ((JsonString) get(key)).getString();
+    }
+
+    @Override
+    public String[] keys() {
+        List<String> keys = new ArrayList<String>();
+        for (String key : reference.keys()) {
+            if (removedKeys == null || !removedKeys.contains(key)) {
+                keys.add(key);
+            }
+        }
+        for (String key : overlay.keys()) {
+            if (!reference.hasKey(key)) {
+                keys.add(key);
+            }
+        }
+        return keys.toArray(new String[keys.size()]);
+    }
+
+    @Override
+    public void put(String key, JsonValue value) {
+        overlay.put(key, value);
+        if (removedKeys != null) {
+            removedKeys.remove(key);
+        }
+    }
+
+    @Override
+    public void put(String key, String value) {
+        put(key, Json.create(value));
+    }
+
+    @Override
+    public void put(String key, double value) {
+        put(key, Json.create(value));
+    }
+
+    @Override
+    public void put(String key, boolean value) {
+        put(key, Json.create(value));
+    }
+
+    @Override
+    public boolean hasKey(String key) {
+        if (overlay.hasKey(key)) {
+            return true;
+        } else if (removedKeys != null && removedKeys.contains(key)) {
+            return false;
+        } else {
+            return reference.hasKey(key);
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        overlay.remove(key);
+        if (reference.hasKey(key)) {
+            if (removedKeys == null) {
+                removedKeys = new HashSet<String>();
+            }
+            removedKeys.add(key);
+        }
+    }
+
+    /**
+     * Creates a regular JSON object containing all the values of this diff
+     * state.
+     *
+     * @return a new JSON object
+     */
+    JsonObject toJsonObject() {
+        JsonObject object = Json.createObject();
+        for (String key : keys()) {
+            object.put(key, get(key));
+        }
+        return object;
+    }
+
+    @Override
+    public boolean asBoolean() {
+        return true;
+    }
+
+    @Override
+    public double asNumber() {
+        return toJsonObject().asNumber();
+    }
+
+    @Override
+    public String asString() {
+        return toJsonObject().asString();
+    }
+
+    @Override
+    public JsonType getType() {
+        return JsonType.OBJECT;
+    }
+
+    @Override
+    public String toJson() {
+        return toJsonObject().toJson();
+    }
+
+    @Override
+    public boolean jsEquals(JsonValue value) {
+        return toJsonObject().jsEquals(value);
+    }
+
+    @Override
+    public Object toNative() {
+        return toJsonObject().toNative();
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
@@ -18,11 +18,13 @@ package com.vaadin.ui;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.lang.reflect.Method;
+import java.nio.channels.WritableByteChannel;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Map;
 
+import com.vaadin.server.ChannelStreamVariable;
 import com.vaadin.server.NoInputStreamException;
 import com.vaadin.server.NoOutputStreamException;
 import com.vaadin.server.PaintException;
@@ -209,6 +211,35 @@ public class Upload extends AbstractComponent implements Component.Focusable,
 
     }
 
+    /**
+     * A receiver that can provide a {@link WritableByteChannel} to write the
+     * uploaded data to. The upload is written to the channel returned by
+     * {@link #receiveUploadChannel(String, String)} instead of the stream
+     * returned by {@link #receiveUpload(String, String)}, unless the channel is
+     * null. To store the upload in a file, return the channel of a
+     * {@link java.io.FileOutputStream} for the file.
+     *
+     * @since 7.6
+     */
+    public interface ChannelReceiver extends Receiver {
+
+        /**
+         * Invoked when a new upload arrives.
+         *
+         * @param filename
+         *            the desired filename of the upload, usually as specified
+         *            by the client.
+         * @param mimeType
+         *            the MIME type of the uploaded file.
+         * @return Channel to which the uploaded file should be written, or
+         *         null to write it to the stream returned by
+         *         {@link #receiveUpload(String, String)}.
+         */
+        public WritableByteChannel receiveUploadChannel(String filename,
+                String mimeType);
+
+    }
+
     /* Upload events */
 
     private static final Method UPLOAD_FINISHED_METHOD;
@@ -1104,7 +1135,7 @@ public class Upload extends AbstractComponent implements Component.Focusable,
 
     protected com.vaadin.server.StreamVariable getStreamVariable() {
         if (streamVariable == null) {
-            streamVariable = new com.vaadin.server.StreamVariable() {
+            streamVariable = new ChannelStreamVariable() {
                 private StreamingStartEvent lastStartedEvent;
 
                 @Override
@@ -1137,6 +1168,21 @@ public class Upload extends AbstractComponent implements Component.Focusable,
                     return receiveUpload;
                 }
 
+                @Override
+                public WritableByteChannel getChannel() {
+                    if (!(getReceiver() instanceof ChannelReceiver)) {
+                        return null;
+                    }
+                    WritableByteChannel channel = ((ChannelReceiver) getReceiver())
+                            .receiveUploadChannel(
+                                    lastStartedEvent.getFileName(),
+                                    lastStartedEvent.getMimeType());
+                    if (channel != null) {
+                        lastStartedEvent = null;
+                    }
+                    return channel;
+                }
+
                 @Override
                 public void streamingStarted(StreamingStartEvent event) {
                     startUpload();
@@ -22,6 +22,10 @@ import java.io.OutputStream;
 import java.io.Serializable;
 import java.lang.annotation.Annotation;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
@@ -33,6 +37,7 @@ import org.jsoup.parser.Parser;
 import org.jsoup.select.Elements;
 
 import com.vaadin.annotations.DesignRoot;
+import com.vaadin.server.VaadinService;
 import com.vaadin.shared.util.SharedUtil;
 import com.vaadin.ui.Component;
 import com.vaadin.ui.declarative.DesignContext.ComponentCreatedEvent;
@@ -139,6 +144,14 @@ public class Design implements Serializable {
      * @since 7.4.1
      */
     public static class DefaultComponentFactory implements ComponentFactory {
+
+        /**
+         * Component classes by fully qualified name. All classes are loaded
+         * using the class loader of this class, so they can be shared by all
+         * factories.
+         */
+        private static final Map<String, Class<? extends Component>> componentClasses = new ConcurrentHashMap<String, Class<? extends Component>>();
+
         @Override
         public Component createComponent(String fullyQualifiedClassName,
                 DesignContext context) {
@@ -168,9 +181,16 @@ public class Design implements Serializable {
          */
         protected Class<? extends Component> resolveComponentClass(
                 String qualifiedClassName, DesignContext context) {
+            Class<? extends Component> cached = componentClasses
+                    .get(qualifiedClassName);
+            if (cached != null) {
+                return cached;
+            }
             try {
-                Class<?> componentClass = Class.forName(qualifiedClassName);
-                return componentClass.asSubclass(Component.class);
+                Class<? extends Component> componentClass = Class.forName(
+                        qualifiedClassName).asSubclass(Component.class);
+                componentClasses.put(qualifiedClassName, componentClass);
+                return componentClass;
             } catch (ClassNotFoundException e) {
                 throw new DesignException(
                         "Unable to load component for design", e);
@@ -274,6 +294,14 @@ public class Design implements Serializable {
     private static volatile ComponentFactory componentFactory = new DefaultComponentFactory();
     private static volatile ComponentMapper componentMapper = new DefaultComponentMapper();
 
+    /**
+     * Parsed designs of {@link DesignRoot} classes in production mode. The
+     * cached documents are never read directly but cloned for each read. Weak
+     * keys allow the classes to be unloaded.
+     */
+    private static final Map<Class<?>, Document> designRootTemplates = Collections
+            .synchronizedMap(new WeakHashMap<Class<?>, Document>());
+
     /**
      * Sets the component factory that is used for creating component instances
      * based on fully qualified class names derived from a design file.
@@ -595,13 +623,26 @@ public class Design implements Serializable {
             filename = annotatedClass.getSimpleName() + ".html";
         }
 
-        InputStream stream = annotatedClass.getResourceAsStream(filename);
-        if (stream == null) {
-            throw new DesignException("Unable to find design file " + filename
-                    + " in " + annotatedClass.getPackage().getName());
-        }
+        Document doc;
+        boolean productionMode = isProductionMode();
+        Document template = productionMode ? designRootTemplates
+                .get(annotatedClass) : null;
+        if (template == null) {
+            InputStream stream = annotatedClass.getResourceAsStream(filename);
+            if (stream == null) {
+                throw new DesignException("Unable to find design file "
+                        + filename + " in "
+                        + annotatedClass.getPackage().getName());
+            }
 
-        Document doc = parse(stream);
+            doc = parse(stream);
+            if (productionMode) {
+                designRootTemplates.put(annotatedClass, doc.clone());
+            }
+        } else {
+            // Cloning the parsed tree is much faster than parsing the design
+            doc = template.clone();
+        }
         DesignContext context = designToComponentTree(doc, rootComponent,
                 annotatedClass);
 
@@ -609,6 +650,19 @@ public class Design implements Serializable {
 
     }
 
+    /**
+     * Checks if the current service, if any, is in production mode. The
+     * designs of {@link DesignRoot} classes are only cached in production mode
+     * so that changes to the design files are seen during development.
+     * 
+     * @return true if there is a current service in production mode
+     */
+    private static boolean isProductionMode() {
+        VaadinService service = VaadinService.getCurrent();
+        return service != null
+                && service.getDeploymentConfiguration().isProductionMode();
+    }
+
     /**
      * Find the first class with the given annotation, starting the search from
      * the given class and moving upwards in the class hierarchy.
@@ -0,0 +1,142 @@
+package com.vaadin.benchmarks;
+
+import com.vaadin.data.util.BeanItem;
+
+/*
+ * Measures the throughput of creating BeanItems for a bean with six
+ * properties, with and without a nested property, e.g. to compare different
+ * ways of introspecting the bean class.
+ *
+ * Please run with -server.
+ */
+public class PerformanceTesterBeanItemCreation {
+
+    private static final int ITEMS = 2000000;
+
+    public static class Address {
+        private String street = "Ruukinkatu 2-4";
+        private int postalCode = 20540;
+
+        public String getStreet() {
+            return street;
+        }
+
+        public void setStreet(String street) {
+            this.street = street;
+        }
+
+        public int getPostalCode() {
+            return postalCode;
+        }
+
+        public void setPostalCode(int postalCode) {
+            this.postalCode = postalCode;
+        }
+    }
+
+    public static class Person {
+        private String firstName = "Joonas";
+        private String lastName = "Lehtinen";
+        private String email = "joonas@example.com";
+        private int age = 40;
+        private boolean active = true;
+        private Address address = new Address();
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public void setFirstName(String firstName) {
+            this.firstName = firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+
+        public void setLastName(String lastName) {
+            this.lastName = lastName;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public void setEmail(String email) {
+            this.email = email;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public void setAddress(Address address) {
+            this.address = address;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        warmup();
+
+        Person person = new Person();
+        long start = System.currentTimeMillis();
+        runBeanItemBenchmark(person, ITEMS);
+        long end = System.currentTimeMillis();
+        printResult("bean item creation", end - start);
+
+        start = System.currentTimeMillis();
+        runNestedBeanItemBenchmark(person, ITEMS);
+        end = System.currentTimeMillis();
+        printResult("nested bean item creation", end - start);
+    }
+
+    private static void warmup() throws InterruptedException {
+        Person person = new Person();
+        runBeanItemBenchmark(person, ITEMS / 10);
+        runNestedBeanItemBenchmark(person, ITEMS / 10);
+        System.gc();
+        System.out.println("warmup and gc complete. sleeping 5 seconds.");
+        Thread.sleep(5000l);
+        System.out.println("woke up - go.");
+    }
+
+    private static void printResult(String name, long time) {
+        System.out.println(name + " took " + time + " ms ("
+                + (ITEMS * 1000l / Math.max(time, 1)) + " items/s)");
+    }
+
+    private static int runBeanItemBenchmark(Person person, int items) {
+        int properties = 0;
+        for (int i = 0; i < items; i++) {
+            BeanItem<Person> item = new BeanItem<Person>(person);
+            properties += item.getItemPropertyIds().size();
+        }
+        return properties;
+    }
+
+    private static int runNestedBeanItemBenchmark(Person person, int items) {
+        int properties = 0;
+        for (int i = 0; i < items; i++) {
+            BeanItem<Person> item = new BeanItem<Person>(person, "firstName",
+                    "lastName", "address.street", "address.postalCode");
+            properties += item.getItemPropertyIds().size();
+        }
+        return properties;
+    }
+}
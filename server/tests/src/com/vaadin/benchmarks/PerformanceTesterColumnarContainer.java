@@ -0,0 +1,126 @@
+package com.vaadin.benchmarks;
+
+import com.vaadin.data.Container;
+import com.vaadin.data.Item;
+import com.vaadin.data.util.ColumnarContainer;
+import com.vaadin.data.util.IndexedContainer;
+import com.vaadin.data.util.filter.Compare;
+import com.vaadin.data.util.filter.SimpleStringFilter;
+
+/*
+ * Compares the memory use and the sorting and filtering times of
+ * IndexedContainer and ColumnarContainer with the same data.
+ *
+ * Please run with -server.
+ */
+public class PerformanceTesterColumnarContainer {
+
+    private static final int ITEMS = 200000;
+    private static final int CATEGORIES = 20;
+    private static final int REPEATS = 10;
+
+    public static void main(String[] args) throws InterruptedException {
+        warmup();
+
+        long before = usedMemory();
+        IndexedContainer indexed = new IndexedContainer();
+        fillContainer(indexed, ITEMS);
+        long after = usedMemory();
+        System.out.println("IndexedContainer uses " + ((after - before) / 1024)
+                + " KB for " + indexed.size() + " items");
+
+        before = usedMemory();
+        ColumnarContainer columnar = new ColumnarContainer();
+        fillContainer(columnar, ITEMS);
+        after = usedMemory();
+        System.out.println("ColumnarContainer uses "
+                + ((after - before) / 1024) + " KB for " + columnar.size()
+                + " items");
+
+        long start = System.currentTimeMillis();
+        runSortBenchmark(indexed);
+        long end = System.currentTimeMillis();
+        System.out.println("sorting IndexedContainer " + REPEATS
+                + " times took " + (end - start) + " ms");
+
+        start = System.currentTimeMillis();
+        runSortBenchmark(columnar);
+        end = System.currentTimeMillis();
+        System.out.println("sorting ColumnarContainer " + REPEATS
+                + " times took " + (end - start) + " ms");
+
+        start = System.currentTimeMillis();
+        int matches = runFilterBenchmark(indexed);
+        end = System.currentTimeMillis();
+        System.out.println("filtering IndexedContainer " + REPEATS
+                + " times took " + (end - start) + " ms (" + matches
+                + " matches)");
+
+        start = System.currentTimeMillis();
+        matches = runFilterBenchmark(columnar);
+        end = System.currentTimeMillis();
+        System.out.println("filtering ColumnarContainer " + REPEATS
+                + " times took " + (end - start) + " ms (" + matches
+                + " matches)");
+    }
+
+    private static void warmup() throws InterruptedException {
+        IndexedContainer indexed = new IndexedContainer();
+        fillContainer(indexed, ITEMS / 10);
+        runSortBenchmark(indexed);
+        runFilterBenchmark(indexed);
+        ColumnarContainer columnar = new ColumnarContainer();
+        fillContainer(columnar, ITEMS / 10);
+        runSortBenchmark(columnar);
+        runFilterBenchmark(columnar);
+        System.gc();
+        System.out.println("warmup and gc complete. sleeping 5 seconds.");
+        Thread.sleep(5000l);
+        System.out.println("woke up - go.");
+    }
+
+    private static void fillContainer(Container c, int items) {
+        c.addContainerProperty("name", String.class, null);
+        c.addContainerProperty("category", String.class, null);
+        c.addContainerProperty("price", Double.class, null);
+        c.addContainerProperty("quantity", Integer.class, null);
+        c.addContainerProperty("available", Boolean.class, null);
+        for (int i = 0; i < items; i++) {
+            Item item = c.addItem(Integer.valueOf(i));
+            item.getItemProperty("name").setValue("Product " + i);
+            item.getItemProperty("category").setValue(
+                    "Category " + (i % CATEGORIES));
+            item.getItemProperty("price").setValue((i * 31 % 1000) / 10.0);
+            item.getItemProperty("quantity").setValue(i % 100);
+            item.getItemProperty("available").setValue(i % 3 != 0);
+        }
+    }
+
+    private static void runSortBenchmark(Container.Sortable c) {
+        for (int j = 0; j < REPEATS; ++j) {
+            c.sort(new Object[] { "category", "price" }, new boolean[] {
+                    j % 2 == 0, true });
+        }
+    }
+
+    private static int runFilterBenchmark(Container.Filterable c) {
+        int matches = 0;
+        for (int j = 0; j < REPEATS; ++j) {
+            c.addContainerFilter(new SimpleStringFilter("category",
+                    "Category " + j, true, false));
+            c.addContainerFilter(new Compare.Greater("price", 10.0));
+            matches += c.size();
+            c.removeAllContainerFilters();
+        }
+        return matches;
+    }
+
+    private static long usedMemory() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
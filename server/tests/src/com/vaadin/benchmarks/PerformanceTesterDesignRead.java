@@ -0,0 +1,98 @@
+package com.vaadin.benchmarks;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.mockito.Mockito;
+
+import com.vaadin.annotations.DesignRoot;
+import com.vaadin.server.DeploymentConfiguration;
+import com.vaadin.server.VaadinService;
+import com.vaadin.ui.VerticalLayout;
+import com.vaadin.ui.declarative.Design;
+import com.vaadin.ui.declarative.DesignAttributeHandler;
+import com.vaadin.util.CurrentInstance;
+
+/*
+ * Measures the time needed to create a view from a @DesignRoot template with
+ * all supported components. Without a service in production mode the design
+ * file is parsed for every view; in production mode the parsed template is
+ * cached and cloned for every view.
+ *
+ * Please run with -server.
+ */
+public class PerformanceTesterDesignRead {
+
+    private static final int VIEWS = 2000;
+
+    /*
+     * The design has an icon with an unsupported protocol, logged for every
+     * view.
+     */
+    private static final Logger ATTRIBUTE_HANDLER_LOGGER = Logger
+            .getLogger(DesignAttributeHandler.class.getName());
+
+    @DesignRoot("/com/vaadin/tests/design/all-components.html")
+    public static class AllComponentsView extends VerticalLayout {
+        public AllComponentsView() {
+            Design.read(this);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        ATTRIBUTE_HANDLER_LOGGER.setLevel(Level.OFF);
+        VaadinService productionService = createProductionService();
+        warmup(productionService);
+
+        long start = System.currentTimeMillis();
+        runBenchmark(VIEWS);
+        long end = System.currentTimeMillis();
+        System.out.println("creating " + VIEWS + " views by parsing took "
+                + (end - start) + " ms");
+
+        CurrentInstance.set(VaadinService.class, productionService);
+        try {
+            start = System.currentTimeMillis();
+            runBenchmark(VIEWS);
+            end = System.currentTimeMillis();
+            System.out.println("creating " + VIEWS
+                    + " views from the cached template took " + (end - start)
+                    + " ms");
+        } finally {
+            CurrentInstance.set(VaadinService.class, null);
+        }
+    }
+
+    private static void warmup(VaadinService productionService)
+            throws InterruptedException {
+        runBenchmark(VIEWS / 10);
+        CurrentInstance.set(VaadinService.class, productionService);
+        try {
+            runBenchmark(VIEWS / 10);
+        } finally {
+            CurrentInstance.set(VaadinService.class, null);
+        }
+        System.gc();
+        System.out.println("warmup and gc complete. sleeping 5 seconds.");
+        Thread.sleep(5000l);
+        System.out.println("woke up - go.");
+    }
+
+    private static VaadinService createProductionService() {
+        DeploymentConfiguration configuration = Mockito
+                .mock(DeploymentConfiguration.class);
+        Mockito.when(configuration.isProductionMode()).thenReturn(true);
+        VaadinService service = Mockito.mock(VaadinService.class);
+        Mockito.when(service.getDeploymentConfiguration()).thenReturn(
+                configuration);
+        return service;
+    }
+
+    private static int runBenchmark(int views) {
+        int components = 0;
+        for (int i = 0; i < views; i++) {
+            components += new AllComponentsView().getComponentCount();
+        }
+        return components;
+    }
+}
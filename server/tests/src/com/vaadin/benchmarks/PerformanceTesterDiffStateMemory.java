@@ -0,0 +1,73 @@
+package com.vaadin.benchmarks;
+
+import com.vaadin.server.VaadinSession;
+import com.vaadin.tests.util.AlwaysLockedVaadinSession;
+import com.vaadin.tests.util.MockUI;
+import com.vaadin.ui.Button;
+import com.vaadin.ui.Component;
+import com.vaadin.ui.CssLayout;
+import com.vaadin.ui.Label;
+
+/*
+ * Measures the heap used by the diff states that ConnectorTracker keeps for
+ * every connector after the first response has been written.
+ *
+ * Please run with a fixed heap, e.g. -Xms512m -Xmx512m.
+ */
+public class PerformanceTesterDiffStateMemory {
+
+    private static final int CONNECTORS = 1000;
+
+    private static final int UIS = 20;
+
+    public static void main(String[] args) throws InterruptedException {
+        VaadinSession session = new AlwaysLockedVaadinSession(null);
+        VaadinSession.setCurrent(session);
+
+        MockUI[] uis = new MockUI[UIS];
+        for (int i = 0; i < UIS; i++) {
+            uis[i] = createUI(session);
+        }
+
+        long before = usedMemory();
+        for (MockUI ui : uis) {
+            encodeStates(ui);
+        }
+        long after = usedMemory();
+
+        System.out.println("Diff states use "
+                + ((after - before) / UIS / 1024) + " KB per "
+                + CONNECTORS + " connectors");
+    }
+
+    private static MockUI createUI(VaadinSession session) {
+        MockUI ui = new MockUI(session);
+        CssLayout layout = new CssLayout();
+        for (int i = 0; i < CONNECTORS / 2; i++) {
+            Label label = new Label("Label " + i);
+            label.addStyleName("dashboard-label");
+            layout.addComponent(label);
+
+            Button button = new Button("Edit");
+            button.addStyleName("small");
+            layout.addComponent(button);
+        }
+        ui.setContent(layout);
+        return ui;
+    }
+
+    private static void encodeStates(MockUI ui) {
+        for (Component component : (CssLayout) ui.getContent()) {
+            component.encodeState();
+        }
+    }
+
+    private static long usedMemory() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
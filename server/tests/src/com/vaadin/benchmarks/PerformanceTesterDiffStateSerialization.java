@@ -0,0 +1,70 @@
+package com.vaadin.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import com.vaadin.server.VaadinSession;
+import com.vaadin.tests.util.AlwaysLockedVaadinSession;
+import com.vaadin.tests.util.MockUI;
+import com.vaadin.ui.Component;
+import com.vaadin.ui.CssLayout;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.UI;
+
+/*
+ * Measures the size of the serialized UI and of the shared state written in the
+ * first response after the UI has been serialized and deserialized, e.g. after
+ * a failover in a clustered deployment.
+ *
+ * Without diff states surviving serialization, the full state of every
+ * connector is sent again after the round-trip.
+ */
+public class PerformanceTesterDiffStateSerialization {
+
+    private static final int CONNECTORS = 3000;
+
+    public static void main(String[] args) throws Exception {
+        VaadinSession session = new AlwaysLockedVaadinSession(null);
+        VaadinSession.setCurrent(session);
+        MockUI ui = new MockUI(session);
+        CssLayout layout = new CssLayout();
+        for (int i = 0; i < CONNECTORS; i++) {
+            Label label = new Label("Label " + i);
+            label.setCaption("Caption " + i);
+            label.addStyleName("dashboard-label");
+            layout.addComponent(label);
+        }
+        ui.setContent(layout);
+
+        System.out.println("Initial response: " + writeStates(ui)
+                + " bytes of state");
+        System.out.println("Response before round-trip: " + writeStates(ui)
+                + " bytes of state");
+
+        ByteArrayOutputStream bs = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bs);
+        out.writeObject(ui);
+        out.close();
+        System.out.println("Serialized UI: " + bs.size() + " bytes");
+
+        UI ui2 = (UI) new ObjectInputStream(new ByteArrayInputStream(
+                bs.toByteArray())).readObject();
+        ui2.getSession().lock();
+        VaadinSession.setCurrent(ui2.getSession());
+        UI.setCurrent(ui2);
+
+        System.out.println("Response after round-trip: " + writeStates(ui2)
+                + " bytes of state");
+    }
+
+    private static int writeStates(UI ui) {
+        int size = 0;
+        CssLayout layout = (CssLayout) ui.getContent();
+        for (Component component : layout) {
+            size += component.encodeState().toJson().length();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,88 @@
+package com.vaadin.benchmarks;
+
+import java.lang.reflect.Method;
+
+import com.vaadin.event.EventRouter;
+import com.vaadin.ui.Button;
+import com.vaadin.ui.Button.ClickEvent;
+import com.vaadin.ui.Button.ClickListener;
+
+/*
+ * Measures the time needed to fire events through an EventRouter to listeners
+ * implementing a common listener interface, which are called directly, and to
+ * listeners with a custom listener method, which are called through
+ * reflection.
+ *
+ * Please run with -server.
+ */
+public class PerformanceTesterEventRouter {
+
+    private static final int LISTENERS = 10;
+    private static final int CALLS = 5000000;
+
+    public static class CountingListener implements ClickListener {
+        private int calls = 0;
+
+        @Override
+        public void buttonClick(ClickEvent event) {
+            calls++;
+        }
+
+        public void customClick(ClickEvent event) {
+            calls++;
+        }
+    }
+
+    private static final Method CUSTOM_CLICK_METHOD;
+    static {
+        try {
+            CUSTOM_CLICK_METHOD = CountingListener.class.getMethod(
+                    "customClick", ClickEvent.class);
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        warmup();
+
+        long start = System.currentTimeMillis();
+        runBenchmark(ClickListener.BUTTON_CLICK_METHOD, CALLS);
+        long end = System.currentTimeMillis();
+        System.out.println(CALLS + " interface listener calls took "
+                + (end - start) + " ms");
+
+        start = System.currentTimeMillis();
+        runBenchmark(CUSTOM_CLICK_METHOD, CALLS);
+        end = System.currentTimeMillis();
+        System.out.println(CALLS + " custom method listener calls took "
+                + (end - start) + " ms");
+    }
+
+    private static void warmup() throws InterruptedException {
+        runBenchmark(ClickListener.BUTTON_CLICK_METHOD, CALLS / 10);
+        runBenchmark(CUSTOM_CLICK_METHOD, CALLS / 10);
+        System.gc();
+        System.out.println("warmup and gc complete. sleeping 5 seconds.");
+        Thread.sleep(5000l);
+        System.out.println("woke up - go.");
+    }
+
+    private static int runBenchmark(Method method, int calls) {
+        EventRouter router = new EventRouter();
+        CountingListener[] listeners = new CountingListener[LISTENERS];
+        for (int i = 0; i < LISTENERS; i++) {
+            listeners[i] = new CountingListener();
+            router.addListener(ClickEvent.class, listeners[i], method);
+        }
+        ClickEvent event = new ClickEvent(new Button());
+        for (int i = 0; i < calls / LISTENERS; i++) {
+            router.fireEvent(event);
+        }
+        int total = 0;
+        for (CountingListener listener : listeners) {
+            total += listener.calls;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,205 @@
+package com.vaadin.benchmarks;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import com.vaadin.server.ClientConnector;
+import com.vaadin.server.ServletPortletHelper;
+import com.vaadin.server.StreamVariable;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinResponse;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.server.communication.FileUploadHandler;
+import com.vaadin.ui.ConnectorTracker;
+import com.vaadin.ui.UI;
+
+/*
+ * Measures the throughput of FileUploadHandler for a synthetic multipart
+ * upload of several gigabytes, read in blocks of at most 8 kB like from a
+ * servlet input stream and written to a stream variable that discards the
+ * data.
+ *
+ * Please run with -server.
+ */
+public class PerformanceTesterFileUpload {
+
+    private static final long UPLOAD_SIZE = 4l * 1024 * 1024 * 1024;
+    private static final String BOUNDARY = "----WebKitFormBoundary7MA4YWxkTrZu0gW";
+    private static final int READ_SIZE = 8192;
+
+    /*
+     * Produces the multipart request body without keeping it in memory.
+     */
+    private static class SyntheticUploadInputStream extends InputStream {
+        private final byte[] header;
+        private final byte[] block = new byte[64 * 1024];
+        private final byte[] trailer;
+        private final long contentLength;
+        private long position = 0;
+
+        public SyntheticUploadInputStream(long size) throws IOException {
+            header = ("--" + BOUNDARY + "\r\n"
+                    + "Content-Disposition: form-data; name=\"upload\"; "
+                    + "filename=\"synthetic.bin\"\r\n"
+                    + "Content-Type: application/octet-stream\r\n\r\n")
+                    .getBytes("ISO-8859-1");
+            trailer = ("\r\n--" + BOUNDARY + "--\r\n").getBytes("ISO-8859-1");
+            new Random(42).nextBytes(block);
+            contentLength = header.length + size + trailer.length;
+        }
+
+        public long getContentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= contentLength) {
+                return -1;
+            }
+            int count = (int) Math.min(Math.min(len, READ_SIZE),
+                    contentLength - position);
+            long contentEnd = contentLength - trailer.length;
+            for (int i = 0; i < count;) {
+                long p = position + i;
+                int n;
+                if (p < header.length) {
+                    n = (int) Math.min(count - i, header.length - p);
+                    System.arraycopy(header, (int) p, b, off + i, n);
+                } else if (p < contentEnd) {
+                    int blockPosition = (int) ((p - header.length) % block.length);
+                    n = (int) Math.min(Math.min(count - i, block.length
+                            - blockPosition), contentEnd - p);
+                    System.arraycopy(block, blockPosition, b, off + i, n);
+                } else {
+                    n = count - i;
+                    System.arraycopy(trailer, (int) (p - contentEnd), b, off
+                            + i, n);
+                }
+                i += n;
+            }
+            position += count;
+            return count;
+        }
+    }
+
+    /*
+     * Discards the uploaded data, only counting the bytes.
+     */
+    private static class CountingStreamVariable implements StreamVariable {
+        private long bytes = 0;
+
+        @Override
+        public OutputStream getOutputStream() {
+            return new OutputStream() {
+                @Override
+                public void write(int b) {
+                    bytes++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    bytes += len;
+                }
+            };
+        }
+
+        @Override
+        public boolean listenProgress() {
+            return false;
+        }
+
+        @Override
+        public void onProgress(StreamingProgressEvent event) {
+        }
+
+        @Override
+        public void streamingStarted(StreamingStartEvent event) {
+        }
+
+        @Override
+        public void streamingFinished(StreamingEndEvent event) {
+        }
+
+        @Override
+        public void streamingFailed(StreamingErrorEvent event) {
+            throw new RuntimeException(event.getException());
+        }
+
+        @Override
+        public boolean isInterrupted() {
+            return false;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        warmup();
+
+        long start = System.currentTimeMillis();
+        long bytes = upload(UPLOAD_SIZE);
+        long end = System.currentTimeMillis();
+        System.out.println("uploading " + (bytes >> 20) + " MB took "
+                + (end - start) + " ms ("
+                + ((bytes >> 20) * 1000 / Math.max(end - start, 1))
+                + " MB/s)");
+    }
+
+    private static void warmup() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            upload(UPLOAD_SIZE / 100);
+        }
+        System.gc();
+        System.out.println("warmup and gc complete. sleeping 5 seconds.");
+        Thread.sleep(5000l);
+        System.out.println("woke up - go.");
+    }
+
+    private static long upload(long size) throws Exception {
+        CountingStreamVariable streamVariable = new CountingStreamVariable();
+        SyntheticUploadInputStream input = new SyntheticUploadInputStream(
+                size);
+
+        ConnectorTracker connectorTracker = mock(ConnectorTracker.class);
+        ClientConnector connector = mock(ClientConnector.class);
+        when(connector.isConnectorEnabled()).thenReturn(true);
+        when(connectorTracker.getStreamVariable("1", "upload")).thenReturn(
+                streamVariable);
+        when(connectorTracker.getSeckey(streamVariable)).thenReturn("key");
+        when(connectorTracker.getConnector("1")).thenReturn(connector);
+        UI ui = mock(UI.class);
+        when(ui.getConnectorTracker()).thenReturn(connectorTracker);
+        VaadinSession session = mock(VaadinSession.class);
+        when(session.getUIById(0)).thenReturn(ui);
+
+        VaadinRequest request = mock(VaadinRequest.class);
+        when(request.getPathInfo()).thenReturn(
+                "/" + ServletPortletHelper.UPLOAD_URL_PREFIX + "0/1/upload/key");
+        when(request.getContentType()).thenReturn(
+                "multipart/form-data; boundary=" + BOUNDARY);
+        when(request.getHeader("Content-Length")).thenReturn(
+                String.valueOf(input.getContentLength()));
+        when(request.getInputStream()).thenReturn(input);
+        VaadinResponse response = mock(VaadinResponse.class);
+        when(response.getOutputStream()).thenReturn(
+                new ByteArrayOutputStream());
+
+        new FileUploadHandler().handleRequest(session, request, response);
+        if (streamVariable.bytes != size) {
+            throw new IllegalStateException("Uploaded " + streamVariable.bytes
+                    + " bytes instead of " + size);
+        }
+        return streamVariable.bytes;
+    }
+}
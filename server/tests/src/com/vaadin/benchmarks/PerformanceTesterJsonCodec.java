@@ -0,0 +1,84 @@
+package com.vaadin.benchmarks;
+
+import com.vaadin.server.EncodeResult;
+import com.vaadin.server.JsonCodec;
+import com.vaadin.shared.communication.SharedState;
+import com.vaadin.shared.ui.button.ButtonState;
+import com.vaadin.shared.ui.label.LabelState;
+import com.vaadin.shared.ui.textfield.AbstractTextFieldState;
+
+import elemental.json.JsonValue;
+
+/*
+ * Measures the time needed to encode and decode typical component states with
+ * JsonCodec, e.g. to compare different ways of accessing the state properties.
+ *
+ * Please run with -server.
+ */
+public class PerformanceTesterJsonCodec {
+
+    private static final SharedState[] STATES = createStates();
+
+    public static void main(String[] args) throws InterruptedException {
+        warmup();
+
+        long start = System.currentTimeMillis();
+        runEncodeBenchmark(200000);
+        long end = System.currentTimeMillis();
+        System.out.println("encode took " + (end - start) + " ms");
+
+        start = System.currentTimeMillis();
+        runDecodeBenchmark(200000);
+        end = System.currentTimeMillis();
+        System.out.println("decode took " + (end - start) + " ms");
+    }
+
+    private static void warmup() throws InterruptedException {
+        runEncodeBenchmark(20000);
+        runDecodeBenchmark(20000);
+        System.gc();
+        System.out.println("warmup and gc complete. sleeping 5 seconds.");
+        Thread.sleep(5000l);
+        System.out.println("woke up - go.");
+    }
+
+    private static SharedState[] createStates() {
+        LabelState label = new LabelState();
+        label.text = "Label text";
+        label.caption = "Caption";
+
+        ButtonState button = new ButtonState();
+        button.caption = "Click me";
+        button.clickShortcutKeyCode = 13;
+
+        AbstractTextFieldState textField = new AbstractTextFieldState();
+        textField.text = "Some value";
+        textField.maxLength = 20;
+        textField.inputPrompt = "Type here";
+
+        return new SharedState[] { label, button, textField };
+    }
+
+    private static void runEncodeBenchmark(int loops) {
+        for (int i = 0; i < loops; i++) {
+            for (SharedState state : STATES) {
+                JsonCodec.encode(state, null, state.getClass(), null);
+            }
+        }
+    }
+
+    private static void runDecodeBenchmark(int loops) {
+        JsonValue[] encoded = new JsonValue[STATES.length];
+        for (int i = 0; i < STATES.length; i++) {
+            EncodeResult result = JsonCodec.encode(STATES[i], null,
+                    STATES[i].getClass(), null);
+            encoded[i] = result.getEncodedValue();
+        }
+        for (int i = 0; i < loops; i++) {
+            for (int j = 0; j < STATES.length; j++) {
+                JsonCodec.decodeInternalOrCustomType(STATES[j].getClass(),
+                        encoded[j], null);
+            }
+        }
+    }
+}
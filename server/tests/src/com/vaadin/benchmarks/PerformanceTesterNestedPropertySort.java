@@ -0,0 +1,106 @@
+package com.vaadin.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.vaadin.data.Property;
+import com.vaadin.data.util.BeanItemContainer;
+import com.vaadin.data.util.NestedMethodProperty;
+
+/*
+ * Measures the time needed to read a nested bean property and to sort a
+ * BeanItemContainer by a nested property, e.g. to compare different ways of
+ * invoking the getter chain.
+ *
+ * Please run with -server.
+ */
+public class PerformanceTesterNestedPropertySort {
+
+    private static final int ITEMS = 300000;
+    private static final int READS = 20000000;
+
+    public static class Address {
+        private final String city;
+
+        public Address(String city) {
+            this.city = city;
+        }
+
+        public String getCity() {
+            return city;
+        }
+    }
+
+    public static class Person {
+        private final String name;
+        private final Address address;
+
+        public Person(String name, Address address) {
+            this.name = name;
+            this.address = address;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        warmup();
+
+        long start = System.currentTimeMillis();
+        runReadBenchmark(READS);
+        long end = System.currentTimeMillis();
+        System.out.println(READS + " nested reads took " + (end - start)
+                + " ms");
+
+        BeanItemContainer<Person> container = createContainer(ITEMS);
+        start = System.currentTimeMillis();
+        runSortBenchmark(container);
+        end = System.currentTimeMillis();
+        System.out.println("sorting " + ITEMS + " items took " + (end - start)
+                + " ms");
+    }
+
+    private static void warmup() throws InterruptedException {
+        runReadBenchmark(READS / 10);
+        runSortBenchmark(createContainer(ITEMS / 10));
+        System.gc();
+        System.out.println("warmup and gc complete. sleeping 5 seconds.");
+        Thread.sleep(5000l);
+        System.out.println("woke up - go.");
+    }
+
+    private static BeanItemContainer<Person> createContainer(int items) {
+        Random random = new Random(1234);
+        List<Person> persons = new ArrayList<Person>(items);
+        for (int i = 0; i < items; i++) {
+            persons.add(new Person("Person " + i, new Address("City "
+                    + random.nextInt(items))));
+        }
+        BeanItemContainer<Person> container = new BeanItemContainer<Person>(
+                Person.class, persons);
+        container.addNestedContainerProperty("address.city");
+        return container;
+    }
+
+    private static int runReadBenchmark(int reads) {
+        Property<?> property = new NestedMethodProperty<String>(new Person(
+                "Person", new Address("City")), "address.city");
+        int length = 0;
+        for (int i = 0; i < reads; i++) {
+            length += ((String) property.getValue()).length();
+        }
+        return length;
+    }
+
+    private static void runSortBenchmark(BeanItemContainer<Person> container) {
+        container.sort(new Object[] { "address.city" }, new boolean[] { true });
+        container.sort(new Object[] { "address.city" }, new boolean[] { false });
+    }
+}
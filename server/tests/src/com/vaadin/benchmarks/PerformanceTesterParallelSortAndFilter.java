@@ -0,0 +1,96 @@
+package com.vaadin.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.vaadin.data.util.BeanItemContainer;
+import com.vaadin.data.util.BeanItemContainerGenerator.PortableRandom;
+import com.vaadin.data.util.BeanItemContainerGenerator.TestBean;
+import com.vaadin.data.util.filter.Compare;
+import com.vaadin.data.util.filter.SimpleStringFilter;
+
+/*
+ * Measures the time needed to sort and filter a BeanItemContainer with one
+ * million items in the calling thread and using a parallel executor with one
+ * thread per processor.
+ *
+ * Please run with -server and enough heap, e.g. -Xmx2g.
+ */
+public class PerformanceTesterParallelSortAndFilter {
+
+    private static final int SIZE = 1000000;
+
+    public static void main(String[] args) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime
+                .getRuntime().availableProcessors());
+        try {
+            warmup(executor);
+
+            BeanItemContainer<TestBean> container = createContainer(SIZE, 1234);
+            runBenchmark("sequential", container);
+
+            container = createContainer(SIZE, 1234);
+            container.setParallelExecutor(executor);
+            runBenchmark("parallel", container);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void warmup(ExecutorService executor)
+            throws InterruptedException {
+        BeanItemContainer<TestBean> container = createContainer(SIZE / 10,
+                1);
+        runSortAndFilter(container);
+        container.setParallelExecutor(executor);
+        runSortAndFilter(container);
+        System.gc();
+        System.out.println("warmup and gc complete. sleeping 5 seconds.");
+        Thread.sleep(5000l);
+        System.out.println("woke up - go.");
+    }
+
+    private static BeanItemContainer<TestBean> createContainer(int size,
+            long seed) {
+        // Adding the beans one by one would take quadratic time
+        PortableRandom random = new PortableRandom(seed);
+        List<TestBean> beans = new ArrayList<TestBean>(size);
+        for (int i = 0; i < size; i++) {
+            beans.add(new TestBean(random));
+        }
+        return new BeanItemContainer<TestBean>(TestBean.class, beans);
+    }
+
+    private static void runBenchmark(String name,
+            BeanItemContainer<TestBean> container) {
+        long start = System.currentTimeMillis();
+        container.sort(new Object[] { "country", "shoesize", "age" },
+                new boolean[] { true, false, true });
+        long end = System.currentTimeMillis();
+        System.out.println(name + " sort took " + (end - start) + " ms");
+
+        start = System.currentTimeMillis();
+        container.addContainerFilter(new SimpleStringFilter("name", "a", true,
+                false));
+        container.addContainerFilter(new Compare.Greater("age", 50));
+        end = System.currentTimeMillis();
+        System.out.println(name + " filter took " + (end - start) + " ms ("
+                + container.size() + " items)");
+
+        start = System.currentTimeMillis();
+        container.sort(new Object[] { "name" }, new boolean[] { true });
+        end = System.currentTimeMillis();
+        System.out.println(name + " filtered sort took " + (end - start)
+                + " ms");
+    }
+
+    private static void runSortAndFilter(BeanItemContainer<TestBean> container) {
+        container.sort(new Object[] { "country", "shoesize", "age" },
+                new boolean[] { true, false, true });
+        container.addContainerFilter(new Compare.Greater("age", 50));
+        container.sort(new Object[] { "name" }, new boolean[] { true });
+        container.removeAllContainerFilters();
+    }
+}
@@ -0,0 +1,92 @@
+package com.vaadin.benchmarks;
+
+import java.sql.SQLException;
+
+import com.vaadin.data.util.sqlcontainer.DataGenerator;
+import com.vaadin.data.util.sqlcontainer.SQLContainer;
+import com.vaadin.data.util.sqlcontainer.SQLTestsConstants;
+import com.vaadin.data.util.sqlcontainer.connection.JDBCConnectionPool;
+import com.vaadin.data.util.sqlcontainer.connection.SimpleJDBCConnectionPool;
+import com.vaadin.data.util.sqlcontainer.query.TableQuery;
+
+/*
+ * Measures the time needed to commit modified and added rows of an
+ * SQLContainer to an in-memory HSQLDB database, executing a statement per row
+ * and using JDBC batches.
+ *
+ * Please run with -server.
+ */
+public class PerformanceTesterSQLContainerBatchCommit {
+
+    private static final int MODIFIED_ROWS = 5000;
+    private static final int ADDED_ROWS = 1000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        JDBCConnectionPool connectionPool = new SimpleJDBCConnectionPool(
+                SQLTestsConstants.dbDriver, SQLTestsConstants.dbURL,
+                SQLTestsConstants.dbUser, SQLTestsConstants.dbPwd, 2, 2);
+        try {
+            DataGenerator.addPeopleToDatabase(connectionPool);
+            DataGenerator.addFiveThousandPeople(connectionPool);
+            warmup(connectionPool);
+
+            for (int round = 1; round <= ROUNDS; round++) {
+                SQLContainer container = createChanges(connectionPool, false,
+                        MODIFIED_ROWS, ADDED_ROWS, round);
+                long start = System.currentTimeMillis();
+                container.commit();
+                long end = System.currentTimeMillis();
+                System.out.println("per-row commit took " + (end - start)
+                        + " ms");
+
+                container = createChanges(connectionPool, true, MODIFIED_ROWS,
+                        ADDED_ROWS, round);
+                start = System.currentTimeMillis();
+                container.commit();
+                end = System.currentTimeMillis();
+                System.out.println("batched commit took " + (end - start)
+                        + " ms");
+            }
+        } finally {
+            connectionPool.destroy();
+        }
+    }
+
+    private static void warmup(JDBCConnectionPool connectionPool)
+            throws Exception {
+        for (int i = 0; i < 3; i++) {
+            createChanges(connectionPool, false, MODIFIED_ROWS / 10,
+                    ADDED_ROWS / 10, -i).commit();
+            createChanges(connectionPool, true, MODIFIED_ROWS / 10,
+                    ADDED_ROWS / 10, -i).commit();
+        }
+        System.gc();
+        System.out.println("warmup and gc complete. sleeping 5 seconds.");
+        Thread.sleep(5000l);
+        System.out.println("woke up - go.");
+    }
+
+    /*
+     * Modifies and adds rows in a new container, to be committed.
+     */
+    private static SQLContainer createChanges(
+            JDBCConnectionPool connectionPool, boolean batched,
+            int modifiedRows, int addedRows, int round) throws SQLException {
+        SQLContainer container = new SQLContainer(new TableQuery("people",
+                connectionPool, SQLTestsConstants.sqlGen));
+        container.setBatchCommitEnabled(batched);
+        container.setPageLength(modifiedRows);
+        for (int i = 0; i < modifiedRows; i++) {
+            Object id = container.getIdByIndex(i);
+            container.getContainerProperty(id, "AGE").setValue(
+                    round * 10000 + i);
+        }
+        for (int i = 0; i < addedRows; i++) {
+            Object id = container.addItem();
+            container.getContainerProperty(id, "NAME").setValue("Added " + i);
+            container.getContainerProperty(id, "AGE").setValue(i);
+        }
+        return container;
+    }
+}
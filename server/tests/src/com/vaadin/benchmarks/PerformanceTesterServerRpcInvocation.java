@@ -0,0 +1,170 @@
+package com.vaadin.benchmarks;
+
+import java.io.StringReader;
+import java.lang.reflect.Type;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.easymock.EasyMock;
+
+import com.vaadin.server.JsonCodec;
+import com.vaadin.server.MockServletConfig;
+import com.vaadin.server.ServerRpcMethodInvocation;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinServlet;
+import com.vaadin.server.VaadinServletRequest;
+import com.vaadin.server.VaadinServletService;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.server.communication.ServerRpcHandler;
+import com.vaadin.shared.communication.ServerRpc;
+import com.vaadin.shared.ui.button.ButtonServerRpc;
+import com.vaadin.shared.ui.ui.UIServerRpc;
+import com.vaadin.tests.util.AlwaysLockedVaadinSession;
+import com.vaadin.tests.util.MockDeploymentConfiguration;
+import com.vaadin.tests.util.MockUI;
+import com.vaadin.ui.Button;
+import com.vaadin.ui.Button.ClickEvent;
+import com.vaadin.ui.Button.ClickListener;
+import com.vaadin.ui.UI;
+
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.impl.JsonUtil;
+
+/*
+ * Measures the time needed by ServerRpcHandler to decode and invoke typical
+ * high-frequency RPC calls: button clicks with mouse event details, UI resize
+ * and scroll events and polls. The time needed only for decoding the
+ * parameters of the same calls is measured separately.
+ *
+ * Please run with -server.
+ */
+public class PerformanceTesterServerRpcInvocation {
+
+    private static final int INVOCATIONS_PER_REQUEST = 100;
+    private static final int REQUESTS = 20000;
+
+    private static final String BUTTON_RPC = ButtonServerRpc.class.getName();
+    private static final String UI_RPC = UIServerRpc.class.getName();
+
+    private static int clicks = 0;
+
+    public static void main(String[] args) throws Exception {
+        MockDeploymentConfiguration deploymentConfiguration = new MockDeploymentConfiguration();
+        deploymentConfiguration.setXsrfProtectionEnabled(false);
+        deploymentConfiguration.setSyncIdCheckEnabled(false);
+
+        VaadinServlet servlet = new VaadinServlet();
+        servlet.init(new MockServletConfig());
+        VaadinServletService service = new VaadinServletService(servlet,
+                deploymentConfiguration);
+        VaadinSession session = new AlwaysLockedVaadinSession(service);
+        VaadinRequest request = new VaadinServletRequest(
+                EasyMock.createMock(HttpServletRequest.class), service);
+
+        UI ui = new MockUI(session);
+        Button button = new Button();
+        button.addClickListener(new ClickListener() {
+            @Override
+            public void buttonClick(ClickEvent event) {
+                clicks++;
+            }
+        });
+        ui.setContent(button);
+
+        String message = createMessage(ui.getConnectorId(),
+                button.getConnectorId());
+        ServerRpcHandler handler = new ServerRpcHandler();
+
+        warmup(handler, ui, message, request);
+
+        long start = System.currentTimeMillis();
+        runBenchmark(handler, ui, message, request, REQUESTS);
+        long end = System.currentTimeMillis();
+        long invocations = (long) REQUESTS * INVOCATIONS_PER_REQUEST;
+        System.out.println(invocations + " invocations took " + (end - start)
+                + " ms (" + ((end - start) * 1000000l / invocations)
+                + " ns per invocation)");
+
+        JsonArray rpc = JsonUtil.<JsonObject> parse(message).getArray("rpc");
+        start = System.currentTimeMillis();
+        runDecodeBenchmark(rpc, REQUESTS);
+        end = System.currentTimeMillis();
+        System.out.println("decoding the parameters of " + invocations
+                + " invocations took " + (end - start) + " ms ("
+                + ((end - start) * 1000000l / invocations)
+                + " ns per invocation)");
+        System.out.println(clicks + " clicks handled");
+    }
+
+    private static void warmup(ServerRpcHandler handler, UI ui,
+            String message, VaadinRequest request) throws Exception {
+        runBenchmark(handler, ui, message, request, REQUESTS / 10);
+        runDecodeBenchmark(JsonUtil.<JsonObject> parse(message)
+                .getArray("rpc"), REQUESTS / 10);
+        System.gc();
+        System.out.println("warmup and gc complete. sleeping 5 seconds.");
+        Thread.sleep(5000l);
+        System.out.println("woke up - go.");
+    }
+
+    private static String createMessage(String uiId, String buttonId) {
+        StringBuilder rpc = new StringBuilder();
+        for (int i = 0; i < INVOCATIONS_PER_REQUEST; i += 4) {
+            if (i > 0) {
+                rpc.append(",");
+            }
+            rpc.append("[\"" + buttonId + "\",\"" + BUTTON_RPC
+                    + "\",\"click\",[{\"clientY\":53,\"clientX\":79,"
+                    + "\"shiftKey\":false,\"button\":\"LEFT\","
+                    + "\"ctrlKey\":false,\"type\":1,\"metaKey\":false,"
+                    + "\"altKey\":false,\"relativeY\":17,\"relativeX\":" + i
+                    + "}]],");
+            rpc.append("[\"" + uiId + "\",\"" + UI_RPC
+                    + "\",\"resize\",[449,1155,1155," + i + "]],");
+            rpc.append("[\"" + uiId + "\",\"" + UI_RPC + "\",\"scroll\",[" + i
+                    + ",0]],");
+            rpc.append("[\"" + uiId + "\",\"" + UI_RPC + "\",\"poll\",[]]");
+        }
+        return "{\"rpc\":[" + rpc + "],\"syncId\":1}";
+    }
+
+    private static int runBenchmark(ServerRpcHandler handler, UI ui,
+            String message, VaadinRequest request, int requests)
+            throws Exception {
+        for (int i = 0; i < requests; i++) {
+            handler.handleRpc(ui, new StringReader(message), request);
+        }
+        return clicks;
+    }
+
+    /*
+     * Decodes the parameters like ServerRpcHandler does, without invoking the
+     * methods.
+     */
+    private static int runDecodeBenchmark(JsonArray rpc, int requests) {
+        int decoded = 0;
+        for (int i = 0; i < requests; i++) {
+            for (int j = 0; j < rpc.length(); j++) {
+                JsonArray invocationJson = rpc.getArray(j);
+                Class<? extends ServerRpc> rpcInterface = ButtonServerRpc.class;
+                if (UI_RPC.equals(invocationJson.getString(1))) {
+                    rpcInterface = UIServerRpc.class;
+                }
+                JsonArray parametersJson = invocationJson.getArray(3);
+                ServerRpcMethodInvocation invocation = new ServerRpcMethodInvocation(
+                        invocationJson.getString(0), rpcInterface,
+                        invocationJson.getString(2), parametersJson.length());
+                Type[] parameterTypes = invocation.getGenericParameterTypes();
+                Object[] parameters = new Object[parametersJson.length()];
+                for (int k = 0; k < parameters.length; k++) {
+                    parameters[k] = JsonCodec.decodeInternalOrCustomType(
+                            parameterTypes[k], parametersJson.get(k), null);
+                }
+                invocation.setParameters(parameters);
+                decoded += parameters.length;
+            }
+        }
+        return decoded;
+    }
+}
@@ -0,0 +1,151 @@
+package com.vaadin.benchmarks;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.vaadin.server.LegacyCommunicationManager;
+import com.vaadin.server.MockVaadinSession;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinResponse;
+import com.vaadin.server.VaadinService;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.server.communication.UidlRequestHandler;
+import com.vaadin.tests.util.MockDeploymentConfiguration;
+import com.vaadin.tests.util.MockUI;
+import com.vaadin.ui.UI;
+
+/*
+ * Measures how long it takes to handle concurrent UIDL requests from several
+ * UIs of the same session when the clients are slow to send their requests and
+ * to receive the responses.
+ */
+public class PerformanceTesterSessionLockContention {
+
+    private static final int UIS = 8;
+
+    private static final int REQUESTS_PER_UI = 10;
+
+    private static final long IO_DELAY_MS = 20;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("I/O inside session lock took "
+                + runBenchmark(false) + " ms");
+        System.out.println("I/O outside session lock took "
+                + runBenchmark(true) + " ms");
+    }
+
+    private static long runBenchmark(boolean ioOutsideSessionLock)
+            throws Exception {
+        MockDeploymentConfiguration configuration = new MockDeploymentConfiguration();
+        configuration.setUidlIoOutsideSessionLock(ioOutsideSessionLock);
+
+        final VaadinService service = mock(VaadinService.class);
+        when(service.getDeploymentConfiguration()).thenReturn(configuration);
+        final VaadinSession session = new MockVaadinSession(service);
+        session.lock();
+        try {
+            session.setCommunicationManager(new LegacyCommunicationManager(
+                    session));
+        } finally {
+            session.unlock();
+        }
+
+        final UidlRequestHandler handler = new UidlRequestHandler();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < UIS; i++) {
+            final VaadinRequest request = createRequest(service, session, i);
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < REQUESTS_PER_UI; j++) {
+                            handler.handleRequest(session, request,
+                                    createResponse());
+                        }
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+        }
+
+        long start = System.currentTimeMillis();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+    private static VaadinRequest createRequest(VaadinService service,
+            VaadinSession session, int uiId) throws IOException {
+        VaadinRequest request = mock(VaadinRequest.class);
+        when(request.getPathInfo()).thenReturn("/UIDL/");
+        when(request.getReader()).thenAnswer(new Answer<BufferedReader>() {
+            @Override
+            public BufferedReader answer(InvocationOnMock invocation) {
+                return new BufferedReader(new SlowReader());
+            }
+        });
+
+        session.lock();
+        try {
+            UI ui = new MockUI(session);
+            ui.doInit(request, uiId, "");
+            session.addUI(ui);
+            when(service.findUI(request)).thenReturn(ui);
+        } finally {
+            session.unlock();
+        }
+        return request;
+    }
+
+    private static VaadinResponse createResponse() throws IOException {
+        VaadinResponse response = mock(VaadinResponse.class);
+        when(response.getOutputStream()).thenReturn(new SlowOutputStream());
+        return response;
+    }
+
+    private static void delay() {
+        try {
+            Thread.sleep(IO_DELAY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class SlowReader extends Reader {
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            delay();
+            return -1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class SlowOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void flush() {
+            delay();
+        }
+    }
+}
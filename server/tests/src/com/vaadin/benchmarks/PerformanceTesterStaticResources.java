@@ -0,0 +1,230 @@
+package com.vaadin.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Properties;
+import java.util.Random;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.FileUtils;
+
+import com.vaadin.server.MockServletConfig;
+import com.vaadin.server.MockServletContext;
+import com.vaadin.server.VaadinServlet;
+
+/*
+ * Measures how many requests per second VaadinServlet serves for the static
+ * files of a theme in VAADIN/themes, in debug mode where every request reads
+ * the file and in production mode where the files are cached in memory. Half
+ * of the requests accept gzip.
+ *
+ * Please run with -server.
+ */
+public class PerformanceTesterStaticResources {
+
+    private static final int REQUESTS = 100000;
+
+    private static final String[] PATHS = new String[] {
+            "/VAADIN/themes/benchmark/styles.css",
+            "/VAADIN/themes/benchmark/favicon.ico",
+            "/VAADIN/themes/benchmark/img/button.png",
+            "/VAADIN/themes/benchmark/img/background.png",
+            "/VAADIN/themes/benchmark/fonts/icons.woff" };
+
+    private static final int[] SIZES = new int[] { 200000, 1000, 3000, 20000,
+            60000 };
+
+    private static long bytesWritten = 0;
+
+    /*
+     * Serves the files of the given directory as the web application.
+     */
+    private static class FileSystemServlet extends VaadinServlet {
+        private final ServletContext context;
+
+        public FileSystemServlet(final File root) {
+            context = new MockServletContext() {
+                @Override
+                public URL getResource(String path)
+                        throws MalformedURLException {
+                    File file = new File(root, path);
+                    return file.exists() ? file.toURI().toURL() : null;
+                }
+
+                @Override
+                public String getRealPath(String path) {
+                    return new File(root, path).getAbsolutePath();
+                }
+            };
+        }
+
+        @Override
+        public ServletContext getServletContext() {
+            return context;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        File root = createTheme();
+        try {
+            VaadinServlet debugServlet = createServlet(root, false);
+            VaadinServlet productionServlet = createServlet(root, true);
+            HttpServletRequest[] requests = createRequests();
+            HttpServletResponse response = createResponse();
+            warmup(debugServlet, productionServlet, requests, response);
+
+            runBenchmark("debug mode", debugServlet, requests, response);
+            runBenchmark("production mode", productionServlet, requests,
+                    response);
+        } finally {
+            FileUtils.deleteDirectory(root);
+        }
+    }
+
+    private static void warmup(VaadinServlet debugServlet,
+            VaadinServlet productionServlet, HttpServletRequest[] requests,
+            HttpServletResponse response) throws Exception {
+        serve(debugServlet, requests, response, REQUESTS / 10);
+        serve(productionServlet, requests, response, REQUESTS / 10);
+        System.gc();
+        System.out.println("warmup and gc complete. sleeping 5 seconds.");
+        Thread.sleep(5000l);
+        System.out.println("woke up - go.");
+    }
+
+    private static void runBenchmark(String name, VaadinServlet servlet,
+            HttpServletRequest[] requests, HttpServletResponse response)
+            throws Exception {
+        long bytesBefore = bytesWritten;
+        long start = System.currentTimeMillis();
+        serve(servlet, requests, response, REQUESTS);
+        long end = System.currentTimeMillis();
+        long time = Math.max(end - start, 1);
+        System.out.println(name + ": " + REQUESTS + " requests took " + time
+                + " ms (" + (REQUESTS * 1000l / time) + " requests/s, "
+                + ((bytesWritten - bytesBefore) >> 20) + " MB)");
+    }
+
+    private static void serve(VaadinServlet servlet,
+            HttpServletRequest[] requests, HttpServletResponse response,
+            int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            servlet.service(requests[i % requests.length], response);
+        }
+    }
+
+    private static File createTheme() throws IOException {
+        File root = File.createTempFile("static", "");
+        root.delete();
+        Random random = new Random(42);
+        for (int i = 0; i < PATHS.length; i++) {
+            byte[] content = new byte[SIZES[i]];
+            if (PATHS[i].endsWith(".css")) {
+                // Text compresses like a real style sheet
+                for (int j = 0; j < content.length; j++) {
+                    content[j] = (byte) ".v-button { color: #1a2b3c; }\n"
+                            .charAt(random.nextInt(30));
+                }
+            } else {
+                random.nextBytes(content);
+            }
+            FileUtils.writeByteArrayToFile(new File(root, PATHS[i]), content);
+        }
+        return root;
+    }
+
+    private static VaadinServlet createServlet(File root, boolean production)
+            throws Exception {
+        Properties initParameters = new Properties();
+        initParameters.setProperty("productionMode",
+                Boolean.toString(production));
+        VaadinServlet servlet = new FileSystemServlet(root);
+        servlet.init(new MockServletConfig(initParameters));
+        return servlet;
+    }
+
+    /*
+     * Creates requests for each path, with and without accepting gzip.
+     */
+    private static HttpServletRequest[] createRequests() {
+        HttpServletRequest[] requests = new HttpServletRequest[PATHS.length * 2];
+        for (int i = 0; i < requests.length; i++) {
+            final String path = PATHS[i / 2];
+            final String acceptEncoding = i % 2 == 0 ? "gzip, deflate" : null;
+            requests[i] = (HttpServletRequest) Proxy.newProxyInstance(
+                    HttpServletRequest.class.getClassLoader(),
+                    new Class<?>[] { HttpServletRequest.class },
+                    new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method,
+                                Object[] args) {
+                            String name = method.getName();
+                            if (name.equals("getPathInfo")
+                                    || name.equals("getRequestURI")) {
+                                return path;
+                            } else if (name.equals("getContextPath")
+                                    || name.equals("getServletPath")) {
+                                return "";
+                            } else if (name.equals("getMethod")) {
+                                return "GET";
+                            } else if (name.equals("getHeader")
+                                    && "Accept-Encoding".equals(args[0])) {
+                                return acceptEncoding;
+                            }
+                            return getDefaultValue(method.getReturnType());
+                        }
+                    });
+        }
+        return requests;
+    }
+
+    /*
+     * Creates a response that only counts the written bytes.
+     */
+    private static HttpServletResponse createResponse() {
+        final ServletOutputStream out = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                bytesWritten++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                bytesWritten += len;
+            }
+        };
+        return (HttpServletResponse) Proxy.newProxyInstance(
+                HttpServletResponse.class.getClassLoader(),
+                new Class<?>[] { HttpServletResponse.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method,
+                            Object[] args) {
+                        if (method.getName().equals("getOutputStream")) {
+                            return out;
+                        }
+                        return getDefaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    private static Object getDefaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return -1;
+        } else if (type == long.class) {
+            return -1l;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.data.util.IndexedContainer;
+import com.vaadin.shared.ui.grid.Range;
+
+public class DataProviderReadAheadTest {
+
+    private static final int SIZE = 1000;
+
+    private DataProviderReadAhead readAhead;
+    private CountingContainer container;
+
+    private static class CountingContainer extends IndexedContainer {
+        private int fetchedRows = 0;
+
+        @Override
+        public List<Object> getItemIds(int startIndex, int numberOfIds) {
+            fetchedRows += numberOfIds;
+            return super.getItemIds(startIndex, numberOfIds);
+        }
+    }
+
+    @Before
+    public void setup() {
+        readAhead = new DataProviderReadAhead();
+        container = new CountingContainer();
+        for (int i = 0; i < SIZE; i++) {
+            container.addItem(Integer.valueOf(i));
+        }
+    }
+
+    @Test
+    public void readAheadInScrollDirection() {
+        readAhead.rowsRequested(Range.withLength(100, 20));
+        readAhead.rowsRequested(Range.withLength(120, 20));
+
+        Assert.assertEquals(Range.withLength(140, 60),
+                readAhead.getReadAheadRange(Range.withLength(120, 20), SIZE));
+
+        readAhead.rowsRequested(Range.withLength(100, 20));
+        Assert.assertEquals(Range.between(40, 100),
+                readAhead.getReadAheadRange(Range.withLength(100, 20), SIZE));
+    }
+
+    @Test
+    public void readAheadRestrictedToContainer() {
+        Assert.assertEquals(Range.withLength(990, 10),
+                readAhead.getReadAheadRange(Range.withLength(970, 20), SIZE));
+        Assert.assertTrue(readAhead.getReadAheadRange(
+                Range.withLength(980, 20), SIZE).isEmpty());
+    }
+
+    @Test
+    public void readAheadLengthLimited() {
+        readAhead.rowsRequested(Range.withLength(0, 20));
+        readAhead.rowsRequested(Range.withLength(400, 20));
+
+        Assert.assertEquals(DataProviderReadAhead.MAX_READ_AHEAD_LENGTH,
+                readAhead.getReadAheadRange(Range.withLength(400, 20), SIZE)
+                        .length());
+    }
+
+    @Test
+    public void rowsServedFromReadAhead() {
+        readAhead.readAhead(container, Range.withLength(0, 20),
+                Range.withLength(20, 40));
+        Assert.assertEquals(60, container.fetchedRows);
+
+        List<?> itemIds = readAhead.getItemIds(Range.withLength(30, 20));
+        Assert.assertEquals(20, itemIds.size());
+        Assert.assertEquals(Integer.valueOf(30), itemIds.get(0));
+        Assert.assertNotNull(readAhead.getItem(Integer.valueOf(30)));
+
+        Assert.assertNull(readAhead.getItemIds(Range.withLength(50, 20)));
+        Assert.assertNull(readAhead.getItem(Integer.valueOf(70)));
+    }
+
+    @Test
+    public void cachedRowsNotFetchedAgain() {
+        readAhead.readAhead(container, Range.withLength(0, 20),
+                Range.withLength(20, 40));
+        container.fetchedRows = 0;
+
+        readAhead.readAhead(container, Range.withLength(40, 20),
+                Range.withLength(60, 40));
+        Assert.assertEquals(40, container.fetchedRows);
+
+        Assert.assertNull(readAhead.getItemIds(Range.withLength(0, 20)));
+        Assert.assertEquals(60,
+                readAhead.getItemIds(Range.withLength(40, 60)).size());
+        Assert.assertTrue(readAhead.getReadAheadRange(
+                Range.withLength(40, 20), SIZE).isEmpty());
+    }
+
+    @Test
+    public void clearDiscardsRows() {
+        readAhead.readAhead(container, Range.withLength(0, 20),
+                Range.withLength(20, 40));
+        readAhead.clear();
+
+        Assert.assertNull(readAhead.getItemIds(Range.withLength(0, 20)));
+        Assert.assertNull(readAhead.getItem(Integer.valueOf(0)));
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.vaadin.data.util.IndexedContainer;
+import com.vaadin.server.MockServletConfig;
+import com.vaadin.server.MockVaadinSession;
+import com.vaadin.server.ServerRpcManager;
+import com.vaadin.server.ServerRpcMethodInvocation;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinResponse;
+import com.vaadin.server.VaadinService;
+import com.vaadin.server.VaadinServlet;
+import com.vaadin.server.VaadinServletService;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.shared.data.DataRequestRpc;
+import com.vaadin.shared.ui.grid.Range;
+import com.vaadin.tests.util.MockDeploymentConfiguration;
+import com.vaadin.tests.util.MockUI;
+import com.vaadin.ui.Grid;
+import com.vaadin.ui.UI;
+import com.vaadin.util.CurrentInstance;
+
+public class RpcDataProviderExtensionReadAheadTest {
+
+    private static final int SIZE = 1000;
+
+    private static class CountingContainer extends IndexedContainer {
+        private final List<String> fetches = new ArrayList<String>();
+
+        @Override
+        public List<Object> getItemIds(int startIndex, int numberOfIds) {
+            fetches.add(startIndex + "+" + numberOfIds);
+            return super.getItemIds(startIndex, numberOfIds);
+        }
+    }
+
+    private VaadinService service;
+    private VaadinSession session;
+    private CountingContainer container;
+    private Grid grid;
+
+    @Before
+    public void setUp() throws Exception {
+        CurrentInstance.clearAll();
+        VaadinServlet servlet = new VaadinServlet();
+        servlet.init(new MockServletConfig());
+        service = new VaadinServletService(servlet,
+                new MockDeploymentConfiguration());
+        service.init();
+        session = new MockVaadinSession(service);
+
+        container = new CountingContainer();
+        container.addContainerProperty("value", Integer.class, null);
+        for (int i = 0; i < SIZE; i++) {
+            container.addItem(Integer.valueOf(i)).getItemProperty("value")
+                    .setValue(Integer.valueOf(i));
+        }
+
+        session.lock();
+        try {
+            UI ui = new MockUI(session);
+            grid = new Grid(container);
+            grid.setReadAheadEnabled(true);
+            ui.setContent(grid);
+        } finally {
+            session.unlock();
+        }
+        container.fetches.clear();
+    }
+
+    @After
+    public void tearDown() {
+        service.destroy();
+        CurrentInstance.clearAll();
+    }
+
+    @Test
+    public void rowsReadAfterResponse() throws Exception {
+        VaadinRequest request = startRequest();
+        session.lock();
+        try {
+            requestRows(0, 20, 0, 0);
+        } finally {
+            session.unlock();
+        }
+        // Not read while the response might still be written
+        Assert.assertEquals("[0+20]", container.fetches.toString());
+
+        service.requestEnd(request, null, session);
+        // The rows of the client are read again along with the next rows
+        Assert.assertEquals("[0+20, 0+40]", container.fetches.toString());
+
+        request = startRequest();
+        session.lock();
+        try {
+            requestRows(20, 20, 0, 20);
+        } finally {
+            session.unlock();
+        }
+        // Served from the rows read ahead
+        Assert.assertEquals("[0+20, 0+40]", container.fetches.toString());
+        service.requestEnd(request, null, session);
+    }
+
+    @Test
+    public void updatedItemRemovedFromReadAhead() throws Exception {
+        VaadinRequest request = startRequest();
+        session.lock();
+        try {
+            requestRows(0, 20, 0, 0);
+        } finally {
+            session.unlock();
+        }
+        service.requestEnd(request, null, session);
+
+        DataProviderReadAhead readAhead = getReadAhead();
+        Assert.assertNotNull(readAhead.getItem(25));
+
+        request = startRequest();
+        session.lock();
+        try {
+            getExtension().updateRowData(25);
+        } finally {
+            session.unlock();
+        }
+        service.requestEnd(request, null, session);
+
+        Assert.assertNull(readAhead.getItem(25));
+        Assert.assertNotNull(readAhead.getItem(24));
+        Assert.assertNotNull(readAhead.getItemIds(Range.withLength(20, 20)));
+    }
+
+    private void requestRows(int firstRow, int numberOfRows,
+            int firstCachedRowIndex, int cacheSize) throws Exception {
+        RpcDataProviderExtension extension = getExtension();
+        ServerRpcMethodInvocation invocation = new ServerRpcMethodInvocation(
+                extension.getConnectorId(), DataRequestRpc.class,
+                "requestRows", 4);
+        invocation.setParameters(new Object[] { firstRow, numberOfRows,
+                firstCachedRowIndex, cacheSize });
+        ServerRpcManager.applyInvocation(extension, invocation);
+    }
+
+    private DataProviderReadAhead getReadAhead() throws Exception {
+        Field field = RpcDataProviderExtension.class
+                .getDeclaredField("readAhead");
+        field.setAccessible(true);
+        return (DataProviderReadAhead) field.get(getExtension());
+    }
+
+    private RpcDataProviderExtension getExtension() throws Exception {
+        Field field = Grid.class.getDeclaredField("datasourceExtension");
+        field.setAccessible(true);
+        return (RpcDataProviderExtension) field.get(grid);
+    }
+
+    private VaadinRequest startRequest() {
+        VaadinRequest request = Mockito.mock(VaadinRequest.class);
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+        Mockito.doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                Object[] arguments = invocation.getArguments();
+                attributes.put((String) arguments[0], arguments[1]);
+                return null;
+            }
+        }).when(request).setAttribute(Mockito.anyString(), Mockito.any());
+        Mockito.doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return attributes.remove(invocation.getArguments()[0]);
+            }
+        }).when(request).removeAttribute(Mockito.anyString());
+        Mockito.when(request.getAttribute(Mockito.anyString())).thenAnswer(
+                new Answer<Object>() {
+                    @Override
+                    public Object answer(InvocationOnMock invocation) {
+                        return attributes.get(invocation.getArguments()[0]);
+                    }
+                });
+
+        service.requestStart(request, Mockito.mock(VaadinResponse.class));
+        VaadinSession.setCurrent(session);
+        return request;
+    }
+}
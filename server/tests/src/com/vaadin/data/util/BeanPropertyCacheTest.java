@@ -0,0 +1,116 @@
+package com.vaadin.data.util;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BeanPropertyCacheTest {
+
+    public static class Person {
+        private String name;
+        private Address address = new Address();
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+    }
+
+    public static class Address {
+        private String street = "Ruukinkatu";
+
+        public String getStreet() {
+            return street;
+        }
+
+        public void setStreet(String street) {
+            this.street = street;
+        }
+    }
+
+    @Test
+    public void propertyDescriptorsCached() {
+        Map<String, VaadinPropertyDescriptor<Person>> descriptors = BeanPropertyCache
+                .getPropertyDescriptors(Person.class);
+        Assert.assertSame(descriptors,
+                BeanPropertyCache.getPropertyDescriptors(Person.class));
+        Assert.assertEquals(2, descriptors.size());
+        Assert.assertTrue(descriptors.containsKey("name"));
+        Assert.assertTrue(descriptors.containsKey("address"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void cachedDescriptorsUnmodifiable() {
+        BeanPropertyCache.getPropertyDescriptors(Person.class).remove("name");
+    }
+
+    @Test
+    public void beanItemDescriptorsCopied() {
+        Map<String, VaadinPropertyDescriptor<Person>> descriptors = BeanItem
+                .getPropertyDescriptors(Person.class);
+        descriptors.remove("name");
+
+        BeanItem<Person> item = new BeanItem<Person>(new Person());
+        Assert.assertNotNull(item.getItemProperty("name"));
+        Assert.assertEquals(2, BeanPropertyCache
+                .getPropertyDescriptors(Person.class).size());
+    }
+
+    @Test
+    public void nestedPropertyAccessorsCached() {
+        Assert.assertSame(BeanPropertyCache.getNestedPropertyAccessors(
+                Person.class, "address.street"), BeanPropertyCache
+                .getNestedPropertyAccessors(Person.class, "address.street"));
+
+        Person person = new Person();
+        NestedMethodProperty<String> property = new NestedMethodProperty<String>(
+                person, "address.street");
+        Assert.assertEquals("Ruukinkatu", property.getValue());
+        property.setValue("Ruukinkatu 2");
+        Assert.assertEquals("Ruukinkatu 2", person.getAddress()
+                .getStreet());
+        Assert.assertEquals(String.class, new NestedPropertyDescriptor<Person>(
+                "address.street", Person.class).getPropertyType());
+    }
+
+    @Test
+    public void invalidNestedPropertyNotCached() {
+        for (int i = 0; i < 2; i++) {
+            try {
+                BeanPropertyCache.getNestedPropertyAccessors(Person.class,
+                        "address.city");
+                Assert.fail("Should not find a missing property");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void classesOfOtherClassLoadersNotStronglyCached() throws Exception {
+        Assert.assertTrue(BeanPropertyCache.isCacheSafe(Person.class));
+        Assert.assertTrue(BeanPropertyCache.isCacheSafe(String.class));
+
+        URL classes = Person.class.getProtectionDomain().getCodeSource()
+                .getLocation();
+        URLClassLoader loader = new URLClassLoader(new URL[] { classes }, null);
+        Class<?> otherPerson = loader.loadClass(Person.class.getName());
+        Assert.assertNotSame(Person.class, otherPerson);
+        Assert.assertFalse(BeanPropertyCache.isCacheSafe(otherPerson));
+
+        BeanItem<Object> item = new BeanItem<Object>(otherPerson.newInstance());
+        item.getItemProperty("name").setValue("foo");
+        Assert.assertEquals("foo", item.getItemProperty("name").getValue());
+        Assert.assertEquals(2, item.getItemPropertyIds().size());
+    }
+}
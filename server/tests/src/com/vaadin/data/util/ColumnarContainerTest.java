@@ -0,0 +1,323 @@
+package com.vaadin.data.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Assert;
+
+import com.vaadin.data.Item;
+import com.vaadin.data.Property;
+import com.vaadin.data.util.filter.Between;
+import com.vaadin.data.util.filter.Compare;
+import com.vaadin.data.util.filter.Like;
+
+public class ColumnarContainerTest extends AbstractInMemoryContainerTestBase {
+
+    private enum Size {
+        SMALL, MEDIUM, LARGE
+    }
+
+    public void testBasicOperations() {
+        testBasicContainerOperations(new ColumnarContainer());
+    }
+
+    public void testFiltering() {
+        testContainerFiltering(new ColumnarContainer());
+    }
+
+    public void testSorting() {
+        testContainerSorting(new ColumnarContainer());
+    }
+
+    public void testSortingAndFiltering() {
+        testContainerSortingAndFiltering(new ColumnarContainer());
+    }
+
+    public void testContainerOrdered() {
+        testContainerOrdered(new ColumnarContainer());
+    }
+
+    public void testContainerIndexed() {
+        testContainerIndexed(new ColumnarContainer(), sampleData[2], 2, true,
+                "newItemId", true);
+    }
+
+    public void testValuesOfAllColumnTypes() {
+        ColumnarContainer container = createTypedContainer();
+        Item item = container.addItem("a");
+        item.getItemProperty("int").setValue(42);
+        item.getItemProperty("long").setValue(1L << 40);
+        item.getItemProperty("double").setValue(0.5);
+        item.getItemProperty("boolean").setValue(Boolean.TRUE);
+        item.getItemProperty("string").setValue("foo");
+        item.getItemProperty("enum").setValue(Size.LARGE);
+        item.getItemProperty("object").setValue(new StringBuilder("bar"));
+
+        Item other = container.addItem("b");
+
+        Assert.assertEquals(42, item.getItemProperty("int").getValue());
+        Assert.assertEquals(1L << 40, item.getItemProperty("long").getValue());
+        Assert.assertEquals(0.5, item.getItemProperty("double").getValue());
+        Assert.assertEquals(Boolean.TRUE, item.getItemProperty("boolean")
+                .getValue());
+        Assert.assertEquals("foo", item.getItemProperty("string").getValue());
+        Assert.assertEquals(Size.LARGE, item.getItemProperty("enum")
+                .getValue());
+        Assert.assertEquals("bar", item.getItemProperty("object").getValue()
+                .toString());
+
+        for (Object propertyId : container.getContainerPropertyIds()) {
+            Assert.assertNull(other.getItemProperty(propertyId).getValue());
+        }
+
+        item.getItemProperty("int").setValue(null);
+        item.getItemProperty("string").setValue(null);
+        Assert.assertNull(item.getItemProperty("int").getValue());
+        Assert.assertNull(item.getItemProperty("string").getValue());
+    }
+
+    public void testInvalidValueType() {
+        ColumnarContainer container = createTypedContainer();
+        Item item = container.addItem("a");
+        try {
+            item.getItemProperty("int").setValue("foo");
+            Assert.fail("Should not accept a value of the wrong type");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testDefaultValues() {
+        ColumnarContainer container = new ColumnarContainer();
+        container.addItem("a");
+        container.addContainerProperty("int", Integer.class, 7);
+        container.addItem("b");
+
+        Assert.assertEquals(7,
+                container.getContainerProperty("a", "int").getValue());
+        Assert.assertEquals(7,
+                container.getContainerProperty("b", "int").getValue());
+    }
+
+    public void testRowsOfRemovedItemsReused() {
+        ColumnarContainer container = new ColumnarContainer();
+        container.addContainerProperty("string", String.class, null);
+        for (int i = 0; i < 100; i++) {
+            container.addItem(i).getItemProperty("string")
+                    .setValue("value" + i);
+        }
+        for (int i = 0; i < 100; i += 2) {
+            container.removeItem(i);
+        }
+        for (int i = 100; i < 150; i++) {
+            Assert.assertNull(container.addItem(i).getItemProperty("string")
+                    .getValue());
+        }
+
+        Assert.assertEquals(100, container.size());
+        Assert.assertEquals("value1",
+                container.getContainerProperty(1, "string").getValue());
+        Assert.assertEquals("value99",
+                container.getContainerProperty(99, "string").getValue());
+    }
+
+    public void testSortNullsAndDirections() {
+        ColumnarContainer container = new ColumnarContainer();
+        container.addContainerProperty("size", Size.class, null);
+        container.addContainerProperty("double", Double.class, null);
+        addItem(container, "a", Size.LARGE, 1.0);
+        addItem(container, "b", null, 2.0);
+        addItem(container, "c", Size.SMALL, null);
+        addItem(container, "d", Size.LARGE, -1.0);
+        addItem(container, "e", Size.SMALL, 3.0);
+
+        container.sort(new Object[] { "size", "double" }, new boolean[] {
+                true, false });
+        Assert.assertEquals(Arrays.asList("b", "e", "c", "a", "d"),
+                container.getItemIds());
+
+        container.sort(new Object[] { "size", "double" }, new boolean[] {
+                false, true });
+        Assert.assertEquals(Arrays.asList("d", "a", "c", "e", "b"),
+                container.getItemIds());
+    }
+
+    public void testSortSameAsIndexedContainer() {
+        ColumnarContainer columnar = new ColumnarContainer();
+        IndexedContainer indexed = new IndexedContainer();
+        for (AbstractInMemoryContainer<Object, Object, Item> container : Arrays
+                .<AbstractInMemoryContainer<Object, Object, Item>> asList(
+                        columnar, indexed)) {
+            container.addContainerProperty("string", String.class, null);
+            container.addContainerProperty("boolean", Boolean.class, null);
+            container.addContainerProperty("long", Long.class, null);
+            for (int i = 0; i < 200; i++) {
+                Item item = container.addItem(i);
+                if (i % 7 != 0) {
+                    item.getItemProperty("string").setValue("s" + (i % 13));
+                }
+                if (i % 5 != 0) {
+                    item.getItemProperty("boolean").setValue(i % 3 == 0);
+                }
+                item.getItemProperty("long").setValue((long) (i % 11));
+            }
+        }
+
+        Object[] sortProperties = { "boolean", "string", "long" };
+        boolean[] ascending = { false, true, false };
+        columnar.sort(sortProperties, ascending);
+        indexed.sort(sortProperties, ascending);
+
+        Assert.assertEquals(indexed.getItemIds(), columnar.getItemIds());
+    }
+
+    public void testCustomItemSorter() {
+        ColumnarContainer container = new ColumnarContainer();
+        container.addContainerProperty("string", String.class, null);
+        addItem(container, "a", "y");
+        addItem(container, "b", "X");
+        addItem(container, "c", "z");
+
+        container.sort(new Object[] { "string" }, new boolean[] { true });
+        Assert.assertEquals(Arrays.asList("b", "a", "c"),
+                container.getItemIds());
+
+        DefaultItemSorter sorter = new DefaultItemSorter(
+                new Comparator<Object>() {
+                    @Override
+                    public int compare(Object o1, Object o2) {
+                        return ((String) o1).compareToIgnoreCase((String) o2);
+                    }
+                });
+        container.setItemSorter(sorter);
+        container.sort(new Object[] { "string" }, new boolean[] { false });
+        Assert.assertEquals(Arrays.asList("c", "a", "b"),
+                container.getItemIds());
+    }
+
+    public void testDictionaryFilterResultsPerValue() {
+        ColumnarContainer container = new ColumnarContainer();
+        container.addContainerProperty("string", String.class, null);
+        for (int i = 0; i < 100; i++) {
+            addItem(container, i, i % 3 == 0 ? null : "value" + (i % 4));
+        }
+
+        CountingValue value = new CountingValue("value1");
+        container.addContainerFilter(new Compare.Equal("string", value));
+
+        // evaluated once for each of the 4 distinct values
+        Assert.assertEquals(4, value.count);
+        int expected = 0;
+        for (int i = 0; i < 100; i++) {
+            if (i % 3 != 0 && i % 4 == 1) {
+                expected++;
+            }
+        }
+        Assert.assertEquals(expected, container.size());
+
+        container.getContainerProperty(1, "string").setValue("value2");
+        Assert.assertEquals(expected - 1, container.size());
+    }
+
+    public void testFilterOnPrimitiveColumn() {
+        ColumnarContainer container = new ColumnarContainer();
+        container.addContainerProperty("int", Integer.class, null);
+        for (int i = 0; i < 10; i++) {
+            addItem(container, i, i);
+        }
+        container.addContainerFilter(new Compare.GreaterOrEqual("int", 7));
+        Assert.assertEquals(Arrays.asList(7, 8, 9), container.getItemIds());
+
+        container.removeAllContainerFilters();
+        container.addContainerFilter("int", "3", false, false);
+        Assert.assertEquals(Arrays.asList(3), container.getItemIds());
+    }
+
+    public void testFilterSubclassEvaluatedPerItem() {
+        ColumnarContainer container = new ColumnarContainer();
+        container.addContainerProperty("string", String.class, null);
+        for (int i = 0; i < 10; i++) {
+            addItem(container, i, "value");
+        }
+
+        container.addContainerFilter(new Like("string", "value") {
+            @Override
+            public boolean passesFilter(Object itemId, Item item) {
+                return super.passesFilter(itemId, item)
+                        && ((Integer) itemId) % 2 == 0;
+            }
+        });
+        Assert.assertEquals(Arrays.asList(0, 2, 4, 6, 8),
+                container.getItemIds());
+    }
+
+    public void testFilterInParallel() throws Exception {
+        ColumnarContainer container = new ColumnarContainer();
+        container.addContainerProperty("int", Integer.class, null);
+        int size = 4 * ParallelTasks.MIN_CHUNK_SIZE;
+        for (int i = 0; i < size; i++) {
+            addItem(container, i, i);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            container.setParallelExecutor(executor);
+            // Each item must be given a view of its own row
+            container.addContainerFilter(new Between("int", null, null) {
+                @Override
+                public boolean passesFilter(Object itemId, Item item) {
+                    Property<?> property = item.getItemProperty("int");
+                    Thread.yield();
+                    return itemId.equals(property.getValue());
+                }
+            });
+            Assert.assertEquals(size, container.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static ColumnarContainer createTypedContainer() {
+        ColumnarContainer container = new ColumnarContainer();
+        container.addContainerProperty("int", Integer.class, null);
+        container.addContainerProperty("long", Long.class, null);
+        container.addContainerProperty("double", Double.class, null);
+        container.addContainerProperty("boolean", Boolean.class, null);
+        container.addContainerProperty("string", String.class, null);
+        container.addContainerProperty("enum", Size.class, null);
+        container.addContainerProperty("object", StringBuilder.class, null);
+        return container;
+    }
+
+    private static void addItem(ColumnarContainer container, Object itemId,
+            Object... values) {
+        Item item = container.addItem(itemId);
+        int i = 0;
+        for (Object propertyId : container.getContainerPropertyIds()) {
+            item.getItemProperty(propertyId).setValue(values[i++]);
+        }
+    }
+
+    private static class CountingValue {
+
+        private final String value;
+
+        private int count = 0;
+
+        public CountingValue(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            count++;
+            return value.equals(obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return value.hashCode();
+        }
+    }
+}
@@ -341,4 +341,30 @@ public class NestedMethodPropertyTest extends TestCase {
         Assert.assertTrue(booleanProperty.isReadOnly());
     }
 
+    public void testNonPublicBeanClass() {
+        NonPublicBean bean = new NonPublicBean();
+        NestedMethodProperty<String> property = new NestedMethodProperty<String>(
+                bean, "self.value");
+
+        Assert.assertEquals("foo", property.getValue());
+        property.setValue("bar");
+        Assert.assertEquals("bar", bean.getValue());
+    }
+
+    private static class NonPublicBean implements Serializable {
+        private String value = "foo";
+
+        public NonPublicBean getSelf() {
+            return this;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+    }
+
 }
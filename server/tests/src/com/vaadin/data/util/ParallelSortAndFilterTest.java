@@ -0,0 +1,148 @@
+package com.vaadin.data.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.data.Container.Filter;
+import com.vaadin.data.Item;
+import com.vaadin.data.util.BeanItemContainerGenerator.TestBean;
+import com.vaadin.data.util.filter.Compare;
+import com.vaadin.data.util.filter.SimpleStringFilter;
+import com.vaadin.util.CurrentInstance;
+
+public class ParallelSortAndFilterTest {
+
+    private static final int SIZE = 10 * ParallelTasks.MIN_CHUNK_SIZE + 17;
+    private static final long SEED = 1234;
+
+    private ExecutorService executor;
+    private BeanItemContainer<TestBean> parallel;
+    private BeanItemContainer<TestBean> sequential;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(3);
+        parallel = BeanItemContainerGenerator.createContainer(SIZE, SEED);
+        parallel.setParallelExecutor(executor);
+        sequential = BeanItemContainerGenerator.createContainer(SIZE, SEED);
+        // a subclass is sorted using the sorter as a comparator
+        sequential.setItemSorter(new DefaultItemSorter() {
+        });
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void sortSameAsSequential() {
+        Object[] propertyIds = { "country", "shoesize", "age" };
+        boolean[] ascending = { true, false, true };
+        parallel.sort(propertyIds, ascending);
+        sequential.sort(propertyIds, ascending);
+        assertSameBeans();
+
+        propertyIds = new Object[] { "city" };
+        ascending = new boolean[] { false };
+        parallel.sort(propertyIds, ascending);
+        sequential.sort(propertyIds, ascending);
+        assertSameBeans();
+    }
+
+    @Test
+    public void sortWithoutExecutor() {
+        parallel.setParallelExecutor(null);
+        Object[] propertyIds = { "shoesize", "name" };
+        boolean[] ascending = { true, true };
+        parallel.sort(propertyIds, ascending);
+        sequential.sort(propertyIds, ascending);
+        assertSameBeans();
+    }
+
+    @Test
+    public void filterSameAsSequential() {
+        Filter[] filters = { new SimpleStringFilter("name", "a", true, false),
+                new Compare.Greater("age", 50) };
+        for (Filter filter : filters) {
+            parallel.addContainerFilter(filter);
+            sequential.addContainerFilter(filter);
+            Assert.assertTrue(sequential.size() > 0);
+            assertSameBeans();
+        }
+
+        parallel.sort(new Object[] { "name" }, new boolean[] { true });
+        sequential.sort(new Object[] { "name" }, new boolean[] { true });
+        assertSameBeans();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void filterExceptionPropagated() {
+        parallel.addContainerFilter(new Filter() {
+            @Override
+            public boolean passesFilter(Object itemId, Item item) {
+                throw new IllegalStateException();
+            }
+
+            @Override
+            public boolean appliesToProperty(Object propertyId) {
+                return false;
+            }
+        });
+    }
+
+    @Test
+    public void filterRunWithCurrentInstances() throws Exception {
+        CurrentInstance.set(String.class, "current");
+        try {
+            parallel.addContainerFilter(new Filter() {
+                @Override
+                public boolean passesFilter(Object itemId, Item item) {
+                    return "current".equals(CurrentInstance
+                            .get(String.class));
+                }
+
+                @Override
+                public boolean appliesToProperty(Object propertyId) {
+                    return false;
+                }
+            });
+        } finally {
+            CurrentInstance.clearAll();
+        }
+        Assert.assertEquals(SIZE, parallel.size());
+
+        // not left behind in the threads of the executor
+        Assert.assertNull(executor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return CurrentInstance.get(String.class);
+            }
+        }).get());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void cloneKeepsExecutor() throws Exception {
+        IndexedContainer container = new IndexedContainer();
+        container.setParallelExecutor(executor);
+        IndexedContainer clone = (IndexedContainer) container.clone();
+        Assert.assertSame(executor, clone.getParallelExecutor());
+    }
+
+    private void assertSameBeans() {
+        Assert.assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            TestBean expected = sequential.getIdByIndex(i);
+            TestBean actual = parallel.getIdByIndex(i);
+            Assert.assertEquals(expected.getName(), actual.getName());
+            Assert.assertEquals(expected.getAddress(), actual.getAddress());
+        }
+    }
+}
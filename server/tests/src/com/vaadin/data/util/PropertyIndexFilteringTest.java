@@ -0,0 +1,235 @@
+package com.vaadin.data.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.data.Container.Filter;
+import com.vaadin.data.Item;
+import com.vaadin.data.util.filter.Between;
+import com.vaadin.data.util.filter.Compare;
+import com.vaadin.data.util.filter.IsNull;
+import com.vaadin.data.util.filter.SimpleStringFilter;
+
+public class PropertyIndexFilteringTest {
+
+    private static final String[] NAMES = { "Anna", "anton", "Bertil",
+            "berit", "Cecilia", "Ann", null };
+
+    private IndexedContainer indexed;
+    // does not support incremental filtering
+    private HierarchicalContainer plain;
+    private ColumnarContainer columnar;
+
+    @Before
+    public void setUp() {
+        indexed = new IndexedContainer();
+        plain = new HierarchicalContainer();
+        columnar = new ColumnarContainer();
+        for (AbstractInMemoryContainer<Object, Object, Item> container : containers()) {
+            container.addContainerProperty("name", String.class, null);
+            container.addContainerProperty("age", Integer.class, null);
+            for (int i = 0; i < 200; i++) {
+                Item item = container.addItem(i);
+                item.getItemProperty("name").setValue(NAMES[i % NAMES.length]);
+                item.getItemProperty("age").setValue(
+                        i % 11 == 0 ? null : Integer.valueOf(i % 50));
+            }
+        }
+        indexed.setIncrementalFilteringEnabled(true);
+        indexed.setPropertyIndexed("name", true);
+        indexed.setPropertyIndexed("age", true);
+        columnar.setIncrementalFilteringEnabled(true);
+        columnar.setPropertyIndexed("name", true);
+        columnar.setPropertyIndexed("age", true);
+    }
+
+    @Test
+    public void setPropertyIndexed() {
+        Assert.assertTrue(indexed.isPropertyIndexed("age"));
+        Assert.assertFalse(plain.isPropertyIndexed("age"));
+
+        indexed.setPropertyIndexed("age", false);
+        Assert.assertFalse(indexed.isPropertyIndexed("age"));
+    }
+
+    @Test
+    public void indexedFiltersMatchScanning() {
+        Filter[] filters = { new Compare.Equal("age", 7),
+                new Compare.Equal("name", "Ann"),
+                new Compare.Greater("age", 40),
+                new Compare.GreaterOrEqual("age", 40),
+                new Compare.Less("age", 3), new Compare.LessOrEqual("age", 3),
+                new Between("age", 10, 20), new Between("age", null, 5),
+                new IsNull("age"),
+                new SimpleStringFilter("name", "an", true, true),
+                new SimpleStringFilter("name", "An", false, true),
+                new SimpleStringFilter("name", "nn", false, false) };
+        for (Filter filter : filters) {
+            for (AbstractInMemoryContainer<Object, Object, Item> container : containers()) {
+                container.removeAllFilters();
+                container.addFilter(filter);
+            }
+            assertSameItems(filter.toString());
+        }
+    }
+
+    @Test
+    public void subclassedFilterNotAnsweredFromIndex() {
+        // Also looks at the item id, so the index alone can not answer it
+        Filter filter = new Between("age", 10, 20) {
+            @Override
+            public boolean passesFilter(Object itemId, Item item) {
+                return ((Integer) itemId) % 2 == 0
+                        || super.passesFilter(itemId, item);
+            }
+        };
+        for (AbstractInMemoryContainer<Object, Object, Item> container : containers()) {
+            container.addFilter(filter);
+        }
+        assertSameItems(filter.toString());
+        Assert.assertTrue(indexed.containsId(0));
+    }
+
+    @Test
+    public void combinedFilters() {
+        for (AbstractInMemoryContainer<Object, Object, Item> container : containers()) {
+            container.addFilter(new Compare.Greater("age", 10));
+            container.addFilter(new SimpleStringFilter("name", "b",
+                    true, true));
+        }
+        assertSameItems("combined");
+        Assert.assertFalse(plain.getItemIds().isEmpty());
+    }
+
+    @Test
+    public void narrowedPrefixFilter() {
+        for (AbstractInMemoryContainer<Object, Object, Item> container : containers()) {
+            container.addFilter(new SimpleStringFilter("name", "a", true, true));
+            container.removeFilters("name");
+            container.addFilter(new SimpleStringFilter("name", "ann", true,
+                    true));
+        }
+        assertSameItems("narrowed");
+
+        for (AbstractInMemoryContainer<Object, Object, Item> container : containers()) {
+            container.removeFilters("name");
+            container.addFilter(new SimpleStringFilter("name", "b", true, true));
+        }
+        assertSameItems("replaced");
+    }
+
+    @Test
+    public void valueChangeInvalidatesIndex() {
+        for (AbstractInMemoryContainer<Object, Object, Item> container : containers()) {
+            container.addFilter(new Compare.Equal("age", 7));
+            container.removeAllFilters();
+            container.getContainerProperty(8, "age").setValue(7);
+            container.addFilter(new Compare.Equal("age", 7));
+        }
+        assertSameItems("changed value");
+        Assert.assertTrue(indexed.containsId(8));
+    }
+
+    @Test
+    public void addedItemInvalidatesIndex() {
+        for (AbstractInMemoryContainer<Object, Object, Item> container : containers()) {
+            container.addFilter(new Compare.Equal("age", 7));
+            container.removeAllFilters();
+            container.addItem(1000).getItemProperty("age").setValue(7);
+            container.addFilter(new Compare.Equal("age", 7));
+        }
+        assertSameItems("added item");
+        Assert.assertTrue(indexed.containsId(1000));
+    }
+
+    @Test
+    public void sortFilteredContainer() {
+        for (AbstractInMemoryContainer<Object, Object, Item> container : containers()) {
+            container.addFilter(new Between("age", 5, 30));
+            container.sortContainer(new Object[] { "name", "age" },
+                    new boolean[] { true, false });
+            container.addFilter(new Compare.Less("age", 20));
+        }
+        assertSameItems("sorted");
+    }
+
+    @Test
+    public void onlyIndexedCandidatesEvaluated() {
+        CountingContainer container = new CountingContainer();
+        container.addContainerProperty("age", Integer.class, null);
+        for (int i = 0; i < 100; i++) {
+            container.addItem(i).getItemProperty("age").setValue(i);
+        }
+        container.setIncrementalFilteringEnabled(true);
+        container.setPropertyIndexed("age", true);
+
+        container.passesFiltersCalls = 0;
+        container.addContainerFilter(new Between("age", 10, 19));
+        Assert.assertEquals(10, container.size());
+        Assert.assertEquals(10, container.passesFiltersCalls);
+
+        // only the visible items are evaluated for an added filter
+        container.passesFiltersCalls = 0;
+        container.addContainerFilter(new Compare.Less("age", 15));
+        Assert.assertEquals(5, container.size());
+        Assert.assertEquals(5, container.passesFiltersCalls);
+    }
+
+    @Test
+    public void incrementalFilteringDisabledByDefault() {
+        CountingContainer container = new CountingContainer();
+        container.addContainerProperty("age", Integer.class, null);
+        for (int i = 0; i < 100; i++) {
+            container.addItem(i).getItemProperty("age").setValue(i);
+        }
+        container.setPropertyIndexed("age", true);
+        Assert.assertFalse(container.isIncrementalFilteringEnabled());
+
+        container.addContainerFilter(new Between("age", 10, 19));
+        container.passesFiltersCalls = 0;
+        container.addContainerFilter(new Compare.Less("age", 15));
+        Assert.assertEquals(5, container.size());
+        Assert.assertEquals(100, container.passesFiltersCalls);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void cloneKeepsIndexConfiguration() throws Exception {
+        IndexedContainer clone = (IndexedContainer) indexed.clone();
+        Assert.assertTrue(clone.isIncrementalFilteringEnabled());
+        Assert.assertTrue(clone.isPropertyIndexed("name"));
+        Assert.assertTrue(clone.isPropertyIndexed("age"));
+
+        clone.addContainerFilter(new Compare.Equal("age", 7));
+        indexed.addContainerFilter(new Compare.Equal("age", 7));
+        Assert.assertEquals(indexed.getItemIds(), clone.getItemIds());
+    }
+
+    private void assertSameItems(String message) {
+        List<?> expected = plain.getItemIds();
+        Assert.assertEquals(message, expected, indexed.getItemIds());
+        Assert.assertEquals(message, expected, columnar.getItemIds());
+    }
+
+    private static class CountingContainer extends IndexedContainer {
+        private int passesFiltersCalls = 0;
+
+        @Override
+        protected boolean passesFilters(Object itemId) {
+            passesFiltersCalls++;
+            return super.passesFilters(itemId);
+        }
+    }
+
+    private List<AbstractInMemoryContainer<Object, Object, Item>> containers() {
+        List<AbstractInMemoryContainer<Object, Object, Item>> containers = new ArrayList<AbstractInMemoryContainer<Object, Object, Item>>();
+        containers.add(indexed);
+        containers.add(plain);
+        containers.add(columnar);
+        return containers;
+    }
+}
@@ -0,0 +1,166 @@
+package com.vaadin.data.util.sqlcontainer;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.data.Container.Filter;
+import com.vaadin.data.Container.ItemSetChangeEvent;
+import com.vaadin.data.Container.ItemSetChangeListener;
+import com.vaadin.data.util.filter.Compare;
+import com.vaadin.data.util.sqlcontainer.connection.JDBCConnectionPool;
+import com.vaadin.data.util.sqlcontainer.query.TableQuery;
+import com.vaadin.data.util.sqlcontainer.query.ValidatingSimpleJDBCConnectionPool;
+import com.vaadin.util.CurrentInstance;
+
+public class SQLContainerBackgroundCountTest {
+
+    private static class QueueExecutor implements Executor {
+        private final LinkedList<Runnable> tasks = new LinkedList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        private void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.removeFirst().run();
+            }
+        }
+    }
+
+    private static class EstimatingTableQuery extends TableQuery {
+        private int estimate = -1;
+
+        public EstimatingTableQuery(String tableName,
+                JDBCConnectionPool connectionPool) {
+            super(tableName, connectionPool, SQLTestsConstants.sqlGen);
+        }
+
+        @Override
+        public int estimateRowCount(List<Filter> filters) throws SQLException {
+            return estimate;
+        }
+    }
+
+    private JDBCConnectionPool connectionPool;
+    private EstimatingTableQuery query;
+    private SQLContainer container;
+    private QueueExecutor executor;
+    private int itemSetChanges;
+
+    @Before
+    public void setUp() throws SQLException {
+        // Updated directly without a current session
+        CurrentInstance.clearAll();
+        connectionPool = new ValidatingSimpleJDBCConnectionPool(
+                SQLTestsConstants.dbDriver, SQLTestsConstants.dbURL,
+                SQLTestsConstants.dbUser, SQLTestsConstants.dbPwd, 2, 2);
+        DataGenerator.addPeopleToDatabase(connectionPool);
+
+        query = new EstimatingTableQuery("people", connectionPool);
+        container = new SQLContainer(query);
+        executor = new QueueExecutor();
+        container.addItemSetChangeListener(new ItemSetChangeListener() {
+            @Override
+            public void containerItemSetChange(ItemSetChangeEvent event) {
+                itemSetChanges++;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        connectionPool.destroy();
+    }
+
+    @Test
+    public void sizeValidity() throws SQLException {
+        Assert.assertEquals(4, container.size());
+        addPerson();
+        Assert.assertEquals(4, container.size());
+
+        container.setSizeValidMilliSeconds(0);
+        Assert.assertEquals(0, container.getSizeValidMilliSeconds());
+        Assert.assertEquals(5, container.size());
+    }
+
+    @Test
+    public void countInBackground() throws SQLException {
+        container.setCountExecutor(executor);
+        Assert.assertSame(executor, container.getCountExecutor());
+        // Counted directly as there is no previous count or estimate
+        Assert.assertEquals(4, container.size());
+        Assert.assertTrue(executor.tasks.isEmpty());
+
+        addPerson();
+        container.refresh();
+        itemSetChanges = 0;
+        Assert.assertEquals(4, container.size());
+        Assert.assertEquals(4, container.size());
+        Assert.assertEquals(1, executor.tasks.size());
+
+        executor.runAll();
+        Assert.assertEquals(1, itemSetChanges);
+        Assert.assertEquals(5, container.size());
+        Assert.assertTrue(executor.tasks.isEmpty());
+    }
+
+    @Test
+    public void estimateUsedUntilCounted() throws SQLException {
+        container.setCountExecutor(executor);
+        query.estimate = 100;
+        Assert.assertEquals(100, container.size());
+
+        executor.runAll();
+        Assert.assertEquals(4, container.size());
+
+        container.addContainerFilter(new Compare.Greater("AGE", 18));
+        Assert.assertEquals(100, container.size());
+        executor.runAll();
+        Assert.assertEquals(2, container.size());
+    }
+
+    @Test
+    public void countWithChangedFiltersIgnored() throws SQLException {
+        container.setCountExecutor(executor);
+        query.estimate = 100;
+        Assert.assertEquals(100, container.size());
+        Runnable oldCount = executor.tasks.removeFirst();
+
+        query.estimate = 50;
+        container.addContainerFilter(new Compare.Greater("AGE", 18));
+        Assert.assertEquals(50, container.size());
+
+        oldCount.run();
+        Assert.assertEquals(50, container.size());
+        executor.runAll();
+        Assert.assertEquals(2, container.size());
+    }
+
+    @Test
+    public void noEstimateCountsDirectly() throws SQLException {
+        container.setCountExecutor(executor);
+        container.addContainerFilter(new Compare.Greater("AGE", 18));
+        Assert.assertEquals(2, container.size());
+        Assert.assertTrue(executor.tasks.isEmpty());
+    }
+
+    private void addPerson() throws SQLException {
+        Connection conn = connectionPool.reserveConnection();
+        Statement statement = conn.createStatement();
+        statement.executeUpdate("insert into people values(default, 'Olli', '42')");
+        statement.close();
+        conn.commit();
+        connectionPool.releaseConnection(conn);
+    }
+}
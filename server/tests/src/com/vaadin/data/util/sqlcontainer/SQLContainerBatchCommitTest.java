@@ -0,0 +1,259 @@
+package com.vaadin.data.util.sqlcontainer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.data.util.sqlcontainer.connection.JDBCConnectionPool;
+import com.vaadin.data.util.sqlcontainer.query.QueryDelegate.RowIdChangeEvent;
+import com.vaadin.data.util.sqlcontainer.query.QueryDelegate.RowIdChangeListener;
+import com.vaadin.data.util.sqlcontainer.query.TableQuery;
+import com.vaadin.data.util.sqlcontainer.query.ValidatingSimpleJDBCConnectionPool;
+
+public class SQLContainerBatchCommitTest {
+
+    private JDBCConnectionPool connectionPool;
+    private SQLContainer container;
+
+    @Before
+    public void setUp() throws SQLException {
+        connectionPool = new ValidatingSimpleJDBCConnectionPool(
+                SQLTestsConstants.dbDriver, SQLTestsConstants.dbURL,
+                SQLTestsConstants.dbUser, SQLTestsConstants.dbPwd, 2, 2);
+        DataGenerator.addPeopleToDatabase(connectionPool);
+        DataGenerator.addFiveThousandPeople(connectionPool);
+        container = new SQLContainer(new TableQuery("people", connectionPool,
+                SQLTestsConstants.sqlGen));
+        container.setBatchCommitEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        connectionPool.destroy();
+    }
+
+    @Test
+    public void modificationsRemovalsAndAdditionsCommitted()
+            throws SQLException {
+        Assert.assertTrue(container.isBatchCommitEnabled());
+        Assert.assertEquals(5000, container.size());
+
+        for (int i = 0; i < 500; i++) {
+            Object id = container.getIdByIndex(i);
+            container.getContainerProperty(id, "AGE").setValue(1000 + i);
+        }
+        List<Object> removed = new ArrayList<Object>();
+        for (int i = 0; i < 100; i++) {
+            Object id = container.getIdByIndex(1000);
+            removed.add(id);
+            container.removeItem(id);
+        }
+        final List<RowIdChangeEvent> events = new ArrayList<RowIdChangeEvent>();
+        container.addRowIdChangeListener(new RowIdChangeListener() {
+            @Override
+            public void rowIdChange(RowIdChangeEvent event) {
+                events.add(event);
+            }
+        });
+        for (int i = 0; i < 100; i++) {
+            Object id = container.addItem();
+            container.getContainerProperty(id, "NAME").setValue("New " + i);
+            container.getContainerProperty(id, "AGE").setValue(i);
+        }
+
+        container.commit();
+
+        Assert.assertFalse(container.isModified());
+        Assert.assertEquals(5000, container.size());
+        Assert.assertEquals(500, count("AGE >= 1000"));
+        Assert.assertEquals(100, count("NAME LIKE 'New %'"));
+        for (Object id : removed) {
+            Assert.assertFalse(container.containsId(id));
+        }
+
+        Assert.assertEquals(100, events.size());
+        for (RowIdChangeEvent event : events) {
+            Assert.assertTrue(event.getOldRowId() instanceof TemporaryRowId);
+            Assert.assertNotNull(event.getNewRowId());
+            Assert.assertTrue(container.containsId(event.getNewRowId()));
+        }
+    }
+
+    @Test
+    public void versionChecksPreserved() throws SQLException {
+        DataGenerator.addVersionedData(connectionPool);
+        TableQuery query = new TableQuery("versioned", connectionPool,
+                SQLTestsConstants.sqlGen);
+        query.setVersionColumn("VERSION");
+        SQLContainer versioned = new SQLContainer(query);
+        versioned.setBatchCommitEnabled(true);
+        versioned.getContainerProperty(versioned.firstItemId(), "TEXT")
+                .setValue("asdf");
+
+        // Change the version using another connection
+        execute("UPDATE VERSIONED SET VERSION = 1");
+
+        try {
+            versioned.commit();
+            Assert.fail("Commit should have failed");
+        } catch (OptimisticLockException e) {
+            Assert.assertEquals(versioned.firstItemId(), e.getRowId());
+        }
+        Assert.assertEquals(0, count("VERSIONED", "\"TEXT\" = 'asdf'"));
+    }
+
+    @Test
+    public void unknownUpdateCountsWithVersionColumn() throws SQLException {
+        DataGenerator.addVersionedData(connectionPool);
+        TableQuery query = new TableQuery("versioned",
+                new NoInfoConnectionPool(connectionPool),
+                SQLTestsConstants.sqlGen);
+        query.setVersionColumn("VERSION");
+        SQLContainer versioned = new SQLContainer(query);
+        versioned.setBatchCommitEnabled(true);
+        versioned.getContainerProperty(versioned.firstItemId(), "TEXT")
+                .setValue("asdf");
+
+        // The version can not be checked from the batch, so the commit is
+        // retried executing the statements one by one
+        versioned.commit();
+        Assert.assertEquals(1, count("VERSIONED", "\"TEXT\" = 'asdf'"));
+        Assert.assertTrue(query.isBatchUpdateCountsUnknown());
+
+        versioned.getContainerProperty(versioned.firstItemId(), "TEXT")
+                .setValue("foo");
+        execute("UPDATE VERSIONED SET VERSION = 2");
+        try {
+            versioned.commit();
+            Assert.fail("Commit should have failed");
+        } catch (OptimisticLockException e) {
+            Assert.assertEquals(versioned.firstItemId(), e.getRowId());
+        }
+    }
+
+    @Test
+    public void unknownUpdateCountsWithoutVersionColumn() throws SQLException {
+        SQLContainer people = new SQLContainer(new TableQuery("people",
+                new NoInfoConnectionPool(connectionPool),
+                SQLTestsConstants.sqlGen));
+        people.setBatchCommitEnabled(true);
+        for (int i = 0; i < 10; i++) {
+            Object id = people.getIdByIndex(i);
+            people.getContainerProperty(id, "AGE").setValue(1000 + i);
+        }
+        people.commit();
+        Assert.assertEquals(10, count("AGE >= 1000"));
+    }
+
+    private int count(String condition) throws SQLException {
+        return count("PEOPLE", condition);
+    }
+
+    private int count(String table, String condition) throws SQLException {
+        Connection conn = connectionPool.reserveConnection();
+        Statement statement = conn.createStatement();
+        ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM " + table
+                + " WHERE " + condition);
+        rs.next();
+        int count = rs.getInt(1);
+        statement.close();
+        connectionPool.releaseConnection(conn);
+        return count;
+    }
+
+    /**
+     * A connection pool whose connections, like those of some JDBC drivers,
+     * do not report the number of rows affected by batched statements.
+     */
+    private static class NoInfoConnectionPool implements JDBCConnectionPool {
+        private final JDBCConnectionPool realPool;
+        private final Map<Connection, Connection> realConnections = new HashMap<Connection, Connection>();
+
+        public NoInfoConnectionPool(JDBCConnectionPool realPool) {
+            this.realPool = realPool;
+        }
+
+        @Override
+        public Connection reserveConnection() throws SQLException {
+            final Connection real = realPool.reserveConnection();
+            Connection connection = (Connection) Proxy.newProxyInstance(
+                    getClass().getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method,
+                                Object[] args) throws Throwable {
+                            Object result = invokeReal(real, method, args);
+                            if (result instanceof PreparedStatement) {
+                                return wrap((PreparedStatement) result);
+                            }
+                            return result;
+                        }
+                    });
+            realConnections.put(connection, real);
+            return connection;
+        }
+
+        private static PreparedStatement wrap(final PreparedStatement real) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    NoInfoConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class },
+                    new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method,
+                                Object[] args) throws Throwable {
+                            Object result = invokeReal(real, method, args);
+                            if (method.getName().equals("executeBatch")) {
+                                int[] counts = (int[]) result;
+                                Arrays.fill(counts, Statement.SUCCESS_NO_INFO);
+                            }
+                            return result;
+                        }
+                    });
+        }
+
+        private static Object invokeReal(Object real, Method method,
+                Object[] args) throws Throwable {
+            try {
+                return method.invoke(real, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        @Override
+        public void releaseConnection(Connection conn) {
+            realPool.releaseConnection(realConnections.remove(conn));
+        }
+
+        @Override
+        public void destroy() {
+            // The real pool is destroyed by the test
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        Connection conn = connectionPool.reserveConnection();
+        Statement statement = conn.createStatement();
+        statement.executeUpdate(sql);
+        statement.close();
+        conn.commit();
+        connectionPool.releaseConnection(conn);
+    }
+}
@@ -0,0 +1,183 @@
+package com.vaadin.data.util.sqlcontainer;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.data.util.filter.Compare;
+import com.vaadin.data.util.sqlcontainer.connection.JDBCConnectionPool;
+import com.vaadin.data.util.sqlcontainer.query.TableQuery;
+import com.vaadin.data.util.sqlcontainer.query.ValidatingSimpleJDBCConnectionPool;
+
+public class SharedRowCacheTest {
+
+    private JDBCConnectionPool connectionPool;
+    private SharedRowCache cache;
+
+    @Before
+    public void setUp() throws SQLException {
+        connectionPool = new ValidatingSimpleJDBCConnectionPool(
+                SQLTestsConstants.dbDriver, SQLTestsConstants.dbURL,
+                SQLTestsConstants.dbUser, SQLTestsConstants.dbPwd, 2, 2);
+        DataGenerator.addPeopleToDatabase(connectionPool);
+        cache = new SharedRowCache(10);
+    }
+
+    @After
+    public void tearDown() {
+        connectionPool.destroy();
+    }
+
+    @Test
+    public void rowsSharedBetweenContainers() throws SQLException {
+        SQLContainer first = createContainer();
+        Assert.assertEquals("Ville", getFirstName(first));
+        Assert.assertEquals(0, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(1, cache.getPageCount());
+
+        execute("update PEOPLE set NAME = 'Olli' where NAME = 'Ville'");
+
+        SQLContainer second = createContainer();
+        Assert.assertEquals("Ville", getFirstName(second));
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(0.5, cache.getHitRate(), 0);
+
+        cache.invalidate(SharedRowCache.getTableName((TableQuery) second
+                .getQueryDelegate()));
+        second.refresh();
+        Assert.assertEquals("Olli", getFirstName(second));
+    }
+
+    @Test
+    public void filtersAndOrderingIdentifyPages() throws SQLException {
+        SQLContainer first = createContainer();
+        first.addContainerFilter(new Compare.Greater("AGE", 7));
+        SQLContainer second = createContainer();
+        second.addContainerFilter(new Compare.Greater("AGE", 7));
+        second.sort(new Object[] { "AGE" }, new boolean[] { true });
+
+        Assert.assertEquals("Ville", getFirstName(first));
+        Assert.assertEquals("Pelle", getFirstName(second));
+        Assert.assertEquals(0, cache.getHitCount());
+        Assert.assertEquals(2, cache.getPageCount());
+
+        SQLContainer third = createContainer();
+        third.sort(new Object[] { "AGE" }, new boolean[] { true });
+        third.addContainerFilter(new Compare.Greater("AGE", 7));
+        Assert.assertEquals("Pelle", getFirstName(third));
+        Assert.assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void writesInvalidateTable() throws SQLException {
+        SQLContainer first = createContainer();
+        SQLContainer second = createContainer();
+        Assert.assertEquals("Ville", getFirstName(first));
+        Assert.assertEquals("Ville", getFirstName(second));
+
+        first.setAutoCommit(true);
+        first.getContainerProperty(first.firstItemId(), "NAME").setValue(
+                "Olli");
+        Assert.assertEquals(0, cache.getPageCount());
+
+        second.refresh();
+        Assert.assertEquals("Olli", getFirstName(second));
+    }
+
+    @Test
+    public void cacheFlushNotificationInvalidatesTable() throws SQLException {
+        SQLContainer cached = createContainer();
+        cached.enableCacheFlushNotifications();
+        Assert.assertEquals("Ville", getFirstName(cached));
+
+        SQLContainer uncached = new SQLContainer(new TableQuery("people",
+                connectionPool, SQLTestsConstants.sqlGen));
+        uncached.enableCacheFlushNotifications();
+        uncached.getContainerProperty(uncached.firstItemId(), "NAME")
+                .setValue("Olli");
+        uncached.commit();
+
+        Assert.assertEquals(0, cache.getPageCount());
+        Assert.assertEquals("Olli", getFirstName(cached));
+    }
+
+    @Test
+    public void leastRecentlyUsedPagesEvicted() throws SQLException {
+        cache = new SharedRowCache(2);
+        for (int age = 0; age < 3; age++) {
+            SQLContainer container = createContainer();
+            container.addContainerFilter(new Compare.Greater("AGE", age));
+            container.firstItemId();
+        }
+        Assert.assertEquals(2, cache.getPageCount());
+        Assert.assertEquals(2, cache.getMaxPages());
+    }
+
+    @Test
+    public void expiredPagesRefetched() throws Exception {
+        cache.setTimeToLive(10);
+        Assert.assertEquals("Ville", getFirstName(createContainer()));
+        execute("update PEOPLE set NAME = 'Olli' where NAME = 'Ville'");
+        Thread.sleep(20);
+        Assert.assertEquals("Olli", getFirstName(createContainer()));
+        Assert.assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void pageFetchedBeforeWriteNotCached() throws SQLException {
+        TableQuery query = new TableQuery("people", connectionPool,
+                SQLTestsConstants.sqlGen) {
+            private boolean written = false;
+
+            @Override
+            public ResultSet getResults(int offset, int pagelength)
+                    throws SQLException {
+                ResultSet results = super.getResults(offset, pagelength);
+                // Not when reading the column names, but the first page
+                if (pagelength > 1 && !written) {
+                    // Another container writes the table after the rows of
+                    // this one have been read
+                    written = true;
+                    execute("update PEOPLE set NAME = 'Olli' where NAME = 'Ville'");
+                    cache.invalidate(SharedRowCache.getTableName(this));
+                }
+                return results;
+            }
+        };
+        SQLContainer container = new SQLContainer(query);
+        container.setSharedRowCache(cache);
+        Assert.assertEquals("Ville", getFirstName(container));
+        Assert.assertEquals(0, cache.getPageCount());
+
+        Assert.assertEquals("Olli", getFirstName(createContainer()));
+        Assert.assertEquals(1, cache.getPageCount());
+    }
+
+    private SQLContainer createContainer() throws SQLException {
+        SQLContainer container = new SQLContainer(new TableQuery("people",
+                connectionPool, SQLTestsConstants.sqlGen));
+        container.setSharedRowCache(cache);
+        return container;
+    }
+
+    private static Object getFirstName(SQLContainer container) {
+        return container.getContainerProperty(container.firstItemId(), "NAME")
+                .getValue();
+    }
+
+    private void execute(String sql) throws SQLException {
+        Connection conn = connectionPool.reserveConnection();
+        Statement statement = conn.createStatement();
+        statement.executeUpdate(sql);
+        statement.close();
+        conn.commit();
+        connectionPool.releaseConnection(conn);
+    }
+}
@@ -0,0 +1,267 @@
+package com.vaadin.data.util.sqlcontainer.connection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.data.util.sqlcontainer.SQLTestsConstants;
+
+public class ConcurrentJDBCConnectionPoolTest {
+    private ConcurrentJDBCConnectionPool connectionPool;
+
+    @Before
+    public void setUp() {
+        connectionPool = new ConcurrentJDBCConnectionPool(
+                SQLTestsConstants.dbDriver, SQLTestsConstants.dbURL,
+                SQLTestsConstants.dbUser, SQLTestsConstants.dbPwd, 2);
+        connectionPool.setMaxWaitTime(100);
+    }
+
+    @After
+    public void tearDown() {
+        connectionPool.destroy();
+    }
+
+    @Test
+    public void releasedConnectionReused() throws SQLException {
+        Connection conn = connectionPool.reserveConnection();
+        Assert.assertEquals(1, connectionPool.getActiveConnectionCount());
+        connectionPool.releaseConnection(conn);
+        Assert.assertFalse(conn.isClosed());
+        Assert.assertEquals(0, connectionPool.getActiveConnectionCount());
+        Assert.assertEquals(1, connectionPool.getIdleConnectionCount());
+
+        Assert.assertSame(conn, connectionPool.reserveConnection());
+        Assert.assertEquals(0, connectionPool.getIdleConnectionCount());
+        Assert.assertEquals(2, connectionPool.getReservationCount());
+    }
+
+    @Test
+    public void reserveConnection_noConnectionsLeft_timesOut()
+            throws SQLException {
+        connectionPool.reserveConnection();
+        connectionPool.reserveConnection();
+        long start = System.currentTimeMillis();
+        try {
+            connectionPool.reserveConnection();
+            Assert.fail("Reserving connection didn't fail even though no connections are available!");
+        } catch (SQLException e) {
+            // expected
+        }
+        Assert.assertTrue(System.currentTimeMillis() - start >= 90);
+        Assert.assertEquals(1, connectionPool.getTimeoutCount());
+        Assert.assertEquals(2, connectionPool.getReservationCount());
+        Assert.assertTrue(connectionPool.getLongestWaitTime() >= 90);
+        Assert.assertTrue(connectionPool.getTotalWaitTime() >= connectionPool
+                .getLongestWaitTime());
+    }
+
+    @Test
+    public void waitingThreadGetsReleasedConnection() throws Exception {
+        connectionPool.setMaxWaitTime(10000);
+        final Connection first = connectionPool.reserveConnection();
+        connectionPool.reserveConnection();
+
+        final AtomicReference<Connection> reserved = new AtomicReference<Connection>();
+        final AtomicReference<SQLException> failure = new AtomicReference<SQLException>();
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread waiter = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    reserved.set(connectionPool.reserveConnection());
+                } catch (SQLException e) {
+                    failure.set(e);
+                }
+                done.countDown();
+            }
+        };
+        waiter.start();
+
+        Assert.assertFalse(done.await(50, TimeUnit.MILLISECONDS));
+        connectionPool.releaseConnection(first);
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertNull(failure.get());
+        Assert.assertSame(first, reserved.get());
+        Assert.assertEquals(0, connectionPool.getTimeoutCount());
+    }
+
+    @Test
+    public void idleConnectionsEvicted() throws Exception {
+        Connection conn = connectionPool.reserveConnection();
+        connectionPool.releaseConnection(conn);
+        connectionPool.setMaxIdleTime(10);
+        Thread.sleep(20);
+
+        connectionPool.evictIdleConnections();
+        Assert.assertTrue(conn.isClosed());
+        Assert.assertEquals(0, connectionPool.getIdleConnectionCount());
+        Assert.assertNotSame(conn, connectionPool.reserveConnection());
+    }
+
+    @Test
+    public void invalidConnectionDiscarded() throws SQLException {
+        connectionPool.setValidationIdleTime(0);
+        Connection conn = connectionPool.reserveConnection();
+        connectionPool.releaseConnection(conn);
+        conn.close();
+
+        Connection other = connectionPool.reserveConnection();
+        Assert.assertNotSame(conn, other);
+        Assert.assertFalse(other.isClosed());
+        Assert.assertEquals(0, connectionPool.getIdleConnectionCount());
+    }
+
+    @Test
+    public void connectionWithoutIsValidValidatedWithQuery()
+            throws SQLException {
+        connectionPool.destroy();
+        connectionPool = new ConcurrentJDBCConnectionPool(
+                Jdbc3Driver.class.getName(), Jdbc3Driver.URL_PREFIX
+                        + SQLTestsConstants.dbURL, SQLTestsConstants.dbUser,
+                SQLTestsConstants.dbPwd, 2);
+        connectionPool.setValidationIdleTime(0);
+        connectionPool.setValidationQuery("SELECT COUNT(*) FROM "
+                + "INFORMATION_SCHEMA.SYSTEM_USERS");
+
+        Connection conn = connectionPool.reserveConnection();
+        connectionPool.releaseConnection(conn);
+        Assert.assertSame(conn, connectionPool.reserveConnection());
+
+        connectionPool.releaseConnection(conn);
+        conn.close();
+        Connection other = connectionPool.reserveConnection();
+        Assert.assertNotSame(conn, other);
+        Assert.assertFalse(other.isClosed());
+    }
+
+    @Test
+    public void closedConnectionNotReturnedToPool() throws SQLException {
+        Connection conn = connectionPool.reserveConnection();
+        conn.close();
+        connectionPool.releaseConnection(conn);
+        Assert.assertEquals(0, connectionPool.getIdleConnectionCount());
+
+        // The permit of the closed connection is available again
+        connectionPool.reserveConnection();
+        connectionPool.reserveConnection();
+    }
+
+    @Test
+    public void releaseConnection_rollsBackTransaction() throws SQLException {
+        Connection conn = connectionPool.reserveConnection();
+        conn.createStatement().execute(
+                "CREATE TABLE POOLTEST (ID INTEGER)");
+        conn.commit();
+        conn.createStatement().execute("INSERT INTO POOLTEST VALUES (1)");
+        connectionPool.releaseConnection(conn);
+
+        conn = connectionPool.reserveConnection();
+        try {
+            Assert.assertFalse(conn.createStatement()
+                    .executeQuery("SELECT * FROM POOLTEST").next());
+        } finally {
+            conn.createStatement().execute("DROP TABLE POOLTEST");
+            conn.commit();
+        }
+    }
+
+    @Test
+    public void destroyClosesConnections() throws SQLException {
+        Connection reserved = connectionPool.reserveConnection();
+        Connection idle = connectionPool.reserveConnection();
+        connectionPool.releaseConnection(idle);
+
+        connectionPool.destroy();
+        Assert.assertTrue(reserved.isClosed());
+        Assert.assertTrue(idle.isClosed());
+        Assert.assertEquals(0, connectionPool.getActiveConnectionCount());
+        Assert.assertEquals(0, connectionPool.getIdleConnectionCount());
+
+        // Releasing a connection of the destroyed pool is ignored
+        connectionPool.releaseConnection(reserved);
+        connectionPool.reserveConnection();
+        connectionPool.reserveConnection();
+    }
+
+    /**
+     * Driver wrapping the connections of the test database so that they behave
+     * like those of a JDBC 3 driver, throwing {@link AbstractMethodError} from
+     * {@link Connection#isValid(int)}.
+     */
+    public static class Jdbc3Driver {
+        public static final String URL_PREFIX = "jdbc:jdbc3:";
+
+        static {
+            Driver driver = (Driver) Proxy.newProxyInstance(
+                    Jdbc3Driver.class.getClassLoader(),
+                    new Class<?>[] { Driver.class }, new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method,
+                                Object[] args) throws Throwable {
+                            String name = method.getName();
+                            if (method.getDeclaringClass() == Object.class) {
+                                return method.invoke(this, args);
+                            } else if ("acceptsURL".equals(name)) {
+                                return ((String) args[0])
+                                        .startsWith(URL_PREFIX);
+                            } else if ("connect".equals(name)) {
+                                String url = (String) args[0];
+                                if (!url.startsWith(URL_PREFIX)) {
+                                    return null;
+                                }
+                                return wrap(DriverManager.getConnection(
+                                        url.substring(URL_PREFIX.length()),
+                                        (Properties) args[1]));
+                            } else if ("jdbcCompliant".equals(name)) {
+                                return false;
+                            } else if ("getMajorVersion".equals(name)
+                                    || "getMinorVersion".equals(name)) {
+                                return 1;
+                            }
+                            throw new UnsupportedOperationException(name);
+                        }
+                    });
+            try {
+                Class.forName(SQLTestsConstants.dbDriver);
+                DriverManager.registerDriver(driver);
+            } catch (Exception e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private static Connection wrap(final Connection connection) {
+            return (Connection) Proxy.newProxyInstance(
+                    Jdbc3Driver.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method,
+                                Object[] args) throws Throwable {
+                            if ("isValid".equals(method.getName())) {
+                                throw new AbstractMethodError();
+                            }
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.vaadin.data.util.sqlcontainer.query;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.data.Container.Filter;
+import com.vaadin.data.util.filter.Compare;
+import com.vaadin.data.util.sqlcontainer.SQLContainer;
+import com.vaadin.data.util.sqlcontainer.SQLTestsConstants;
+import com.vaadin.data.util.sqlcontainer.connection.JDBCConnectionPool;
+import com.vaadin.data.util.sqlcontainer.query.generator.DefaultSQLGenerator;
+import com.vaadin.data.util.sqlcontainer.query.generator.StatementHelper;
+
+public class TableQueryKeysetPaginationTest {
+
+    private static final int ROWS = 500;
+
+    private static class RecordingGenerator extends DefaultSQLGenerator {
+        private List<Filter> lastFilters;
+        private int lastOffset;
+
+        @Override
+        public StatementHelper generateSelectQuery(String tableName,
+                List<Filter> filters, List<OrderBy> orderBys, int offset,
+                int pagelength, String toSelect) {
+            lastFilters = filters;
+            lastOffset = offset;
+            return super.generateSelectQuery(tableName, filters, orderBys,
+                    offset, pagelength, toSelect);
+        }
+    }
+
+    private JDBCConnectionPool connectionPool;
+    private RecordingGenerator generator;
+    private TableQuery keysetQuery;
+    private TableQuery offsetQuery;
+
+    @Before
+    public void setUp() throws SQLException {
+        connectionPool = new ValidatingSimpleJDBCConnectionPool(
+                SQLTestsConstants.dbDriver, SQLTestsConstants.dbURL,
+                SQLTestsConstants.dbUser, SQLTestsConstants.dbPwd, 2, 2);
+        Connection conn = connectionPool.reserveConnection();
+        Statement statement = conn.createStatement();
+        try {
+            statement.execute("drop table KEYSET");
+        } catch (SQLException e) {
+            // Will fail if table doesn't exist, which is OK.
+            conn.rollback();
+        }
+        statement.execute("create table KEYSET (ID integer, "
+                + "NAME varchar(32) not null, AGE integer not null, "
+                + "NICKNAME varchar(32), primary key (ID))");
+        for (int i = 0; i < ROWS; i++) {
+            statement.executeUpdate("insert into KEYSET values(" + i
+                    + ", 'Person " + (i * 7 % 13) + "', " + (i % 10)
+                    + ", null)");
+        }
+        statement.close();
+        conn.commit();
+        connectionPool.releaseConnection(conn);
+
+        generator = new RecordingGenerator();
+        keysetQuery = new TableQuery("KEYSET", connectionPool, generator);
+        keysetQuery.setKeysetPaginationEnabled(true);
+        offsetQuery = new TableQuery("KEYSET", connectionPool,
+                new DefaultSQLGenerator());
+    }
+
+    @After
+    public void tearDown() {
+        connectionPool.destroy();
+    }
+
+    @Test
+    public void pagesSameAsWithOffsets() throws SQLException {
+        // ID is appended to the ordering, so use it in the reference query
+        setOrderBy(new OrderBy("AGE", false), new OrderBy("NAME", true),
+                new OrderBy("ID", true));
+
+        Assert.assertEquals(ids(offsetQuery, 0, 100),
+                ids(keysetQuery, 0, 100));
+        Assert.assertEquals(0, generator.lastOffset);
+
+        // The following pages continue from the last row of a previous page
+        for (int offset = 50; offset < ROWS; offset += 50) {
+            Assert.assertEquals(ids(offsetQuery, offset, 100),
+                    ids(keysetQuery, offset, 100));
+            Assert.assertEquals(0, generator.lastOffset);
+            Assert.assertEquals(1, generator.lastFilters.size());
+        }
+
+        // Scrolling back is seeked from the remembered rows
+        Assert.assertEquals(ids(offsetQuery, 120, 30),
+                ids(keysetQuery, 120, 30));
+        Assert.assertEquals(0, generator.lastOffset);
+    }
+
+    @Test
+    public void jumpUsesOffsetFromClosestRow() throws SQLException {
+        setOrderBy(new OrderBy("NAME", true), new OrderBy("ID", true));
+
+        Assert.assertEquals(ids(offsetQuery, 0, 50), ids(keysetQuery, 0, 50));
+        Assert.assertEquals(ids(offsetQuery, 300, 50),
+                ids(keysetQuery, 300, 50));
+        Assert.assertEquals(300 - 50, generator.lastOffset);
+        Assert.assertEquals(1, generator.lastFilters.size());
+    }
+
+    @Test
+    public void filtersAndOrderingChangesForgetRows() throws SQLException {
+        setOrderBy(new OrderBy("AGE", true), new OrderBy("ID", true));
+        ids(keysetQuery, 0, 100);
+
+        List<Filter> filters = new ArrayList<Filter>();
+        filters.add(new Compare.Greater("AGE", 4));
+        keysetQuery.setFilters(filters);
+        offsetQuery.setFilters(filters);
+        Assert.assertEquals(ids(offsetQuery, 50, 50), ids(keysetQuery, 50, 50));
+        Assert.assertEquals(50, generator.lastOffset);
+        Assert.assertEquals(ids(offsetQuery, 80, 50), ids(keysetQuery, 80, 50));
+        Assert.assertEquals(0, generator.lastOffset);
+        Assert.assertEquals(2, generator.lastFilters.size());
+
+        setOrderBy(new OrderBy("AGE", false), new OrderBy("ID", true));
+        Assert.assertEquals(ids(offsetQuery, 80, 50), ids(keysetQuery, 80, 50));
+        Assert.assertEquals(80, generator.lastOffset);
+    }
+
+    @Test
+    public void filtersModifiedInPlaceForgetRows() throws SQLException {
+        setOrderBy(new OrderBy("AGE", true), new OrderBy("ID", true));
+
+        // SQLContainer modifies its filter list and sets it again
+        List<Filter> filters = new ArrayList<Filter>();
+        filters.add(new Compare.Greater("AGE", 4));
+        keysetQuery.setFilters(filters);
+        ids(keysetQuery, 0, 100);
+
+        filters.add(new Compare.Less("AGE", 8));
+        keysetQuery.setFilters(filters);
+        offsetQuery.setFilters(filters);
+        Assert.assertEquals(ids(offsetQuery, 80, 50), ids(keysetQuery, 80, 50));
+        Assert.assertEquals(80, generator.lastOffset);
+    }
+
+    @Test
+    public void changedCountInBackgroundForgetsRows() throws SQLException {
+        setOrderBy(new OrderBy("AGE", true), new OrderBy("ID", true));
+        Assert.assertEquals(ROWS, keysetQuery.countRows(null));
+        ids(keysetQuery, 0, 100);
+
+        Connection conn = connectionPool.reserveConnection();
+        Statement statement = conn.createStatement();
+        statement.executeUpdate("insert into KEYSET values(" + ROWS
+                + ", 'Person', 0, null)");
+        statement.close();
+        conn.commit();
+        connectionPool.releaseConnection(conn);
+
+        Assert.assertEquals(ROWS + 1, keysetQuery.countRows(null));
+        Assert.assertEquals(ids(offsetQuery, 50, 50), ids(keysetQuery, 50, 50));
+        Assert.assertEquals(50, generator.lastOffset);
+    }
+
+    @Test
+    public void nullableSortColumnUsesOffsets() throws SQLException {
+        setOrderBy(new OrderBy("NICKNAME", true), new OrderBy("ID", true));
+        ids(keysetQuery, 0, 100);
+        ids(keysetQuery, 50, 100);
+        Assert.assertEquals(50, generator.lastOffset);
+        Assert.assertNull(generator.lastFilters);
+    }
+
+    @Test
+    public void containerWithKeysetPagination() throws SQLException {
+        keysetQuery.setOrderBy(null);
+        SQLContainer container = new SQLContainer(keysetQuery);
+        container.sort(new Object[] { "AGE", "NAME" }, new boolean[] {
+                false, true });
+        SQLContainer reference = new SQLContainer(offsetQuery);
+        reference.sort(new Object[] { "AGE", "NAME", "ID" }, new boolean[] {
+                false, true, true });
+
+        Assert.assertEquals(ROWS, container.size());
+        for (int i = 0; i < ROWS; i++) {
+            Assert.assertEquals(reference.getIdByIndex(i),
+                    container.getIdByIndex(i));
+        }
+        Assert.assertEquals(1, generator.lastFilters.size());
+    }
+
+    private void setOrderBy(OrderBy... orderBys) {
+        keysetQuery.setOrderBy(Arrays.asList(orderBys));
+        offsetQuery.setOrderBy(Arrays.asList(orderBys));
+    }
+
+    private static List<Object> ids(TableQuery query, int offset,
+            int pagelength) throws SQLException {
+        List<Object> ids = new ArrayList<Object>();
+        query.beginTransaction();
+        ResultSet rs = query.getResults(offset, pagelength);
+        String[] columnLabels = { "ID", "NAME", "AGE" };
+        int index = offset;
+        while (rs.next()) {
+            Object[] values = { rs.getObject("ID"), rs.getObject("NAME"),
+                    rs.getObject("AGE") };
+            query.rowFetched(index++, columnLabels, values);
+            ids.add(values[0]);
+        }
+        rs.getStatement().close();
+        rs.close();
+        query.commit();
+        return ids;
+    }
+}
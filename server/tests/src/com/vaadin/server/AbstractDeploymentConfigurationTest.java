@@ -158,5 +158,15 @@ public class AbstractDeploymentConfigurationTest {
             return DefaultDeploymentConfiguration.DEFAULT_SEND_URLS_AS_PARAMETERS;
         }
 
+        @Override
+        public boolean isUidlIoOutsideSessionLock() {
+            return DefaultDeploymentConfiguration.DEFAULT_UIDL_IO_OUTSIDE_SESSION_LOCK;
+        }
+
+        @Override
+        public int getAccessCoalescingInterval() {
+            return DefaultDeploymentConfiguration.DEFAULT_ACCESS_COALESCING_INTERVAL;
+        }
+
     }
 }
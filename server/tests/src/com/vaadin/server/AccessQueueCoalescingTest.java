@@ -0,0 +1,145 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import com.vaadin.tests.util.MockDeploymentConfiguration;
+
+public class AccessQueueCoalescingTest {
+
+    private static final int TASKS = 10;
+
+    private MockDeploymentConfiguration configuration;
+    private ScheduledExecutorService purgeExecutor;
+    private VaadinServletService service;
+    private VaadinSession session;
+    private AtomicInteger runCount;
+
+    @Before
+    public void setup() throws ServletException, ServiceException {
+        VaadinServlet servlet = new VaadinServlet();
+        servlet.init(new MockServletConfig());
+        configuration = new MockDeploymentConfiguration();
+        // Purges are run explicitly by the tests
+        purgeExecutor = Mockito.mock(ScheduledExecutorService.class);
+        service = new VaadinServletService(servlet, configuration) {
+            @Override
+            protected ScheduledExecutorService createAccessQueuePurgeExecutor() {
+                return purgeExecutor;
+            }
+        };
+        session = new MockVaadinSession(service);
+        runCount = new AtomicInteger();
+    }
+
+    @After
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    public void tasksRunImmediatelyByDefault() throws Exception {
+        for (int i = 0; i < TASKS; i++) {
+            session.access(new CountingTask());
+            Assert.assertEquals(i + 1, runCount.get());
+        }
+
+        AccessQueueStatistics statistics = session.getAccessQueueStatistics();
+        Assert.assertEquals(TASKS, statistics.getTaskCount());
+        Assert.assertEquals(TASKS, statistics.getBatchCount());
+        Assert.assertEquals(1, statistics.getMaxBatchSize());
+    }
+
+    @Test
+    public void tasksCoalescedIntoOneBatch() throws Exception {
+        configuration.setAccessCoalescingInterval(200);
+
+        Future<Void> lastTask = null;
+        for (int i = 0; i < TASKS; i++) {
+            lastTask = session.access(new CountingTask());
+        }
+        Assert.assertEquals(0, runCount.get());
+
+        Runnable purge = getScheduledPurge(200);
+        // Tasks wait in the queue until the purge runs
+        Thread.sleep(20);
+        purge.run();
+        Assert.assertTrue(lastTask.isDone());
+        Assert.assertEquals(TASKS, runCount.get());
+
+        AccessQueueStatistics statistics = session.getAccessQueueStatistics();
+        Assert.assertEquals(TASKS, statistics.getTaskCount());
+        Assert.assertEquals(1, statistics.getBatchCount());
+        Assert.assertEquals(TASKS, statistics.getMaxBatchSize());
+        Assert.assertTrue(statistics.getMaxTaskLatency() >= 20);
+    }
+
+    @Test
+    public void newPurgeScheduledAfterPurge() throws Exception {
+        configuration.setAccessCoalescingInterval(200);
+
+        session.access(new CountingTask());
+        getScheduledPurge(200).run();
+        session.access(new CountingTask());
+        Assert.assertEquals(1, runCount.get());
+
+        Mockito.verify(purgeExecutor, Mockito.times(2)).schedule(
+                Mockito.any(Runnable.class), Mockito.eq(200L),
+                Mockito.eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void tasksRunOnUnlockWhenCoalescing() {
+        configuration.setAccessCoalescingInterval(60000);
+
+        session.lock();
+        try {
+            session.access(new CountingTask());
+            Assert.assertEquals(0, runCount.get());
+        } finally {
+            session.unlock();
+        }
+        Assert.assertEquals(1, runCount.get());
+    }
+
+    private Runnable getScheduledPurge(long delay) {
+        ArgumentCaptor<Runnable> purge = ArgumentCaptor
+                .forClass(Runnable.class);
+        Mockito.verify(purgeExecutor).schedule(purge.capture(),
+                Mockito.eq(delay), Mockito.eq(TimeUnit.MILLISECONDS));
+        return purge.getValue();
+    }
+
+    private class CountingTask implements Runnable {
+        @Override
+        public void run() {
+            runCount.incrementAndGet();
+        }
+    }
+}
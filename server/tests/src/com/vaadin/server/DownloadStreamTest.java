@@ -3,12 +3,19 @@ package com.vaadin.server;
 import static org.mockito.Matchers.contains;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URLEncoder;
 
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -36,4 +43,97 @@ public class DownloadStreamTest {
                         contains(String.format("filename*=utf-8''%s",
                                 encodedFileName)));
     }
+
+    @Test
+    public void singleRange() throws IOException {
+        VaadinResponse response = mock(VaadinResponse.class);
+        ByteArrayOutputStream out = writeRange("bytes=2-5", response);
+
+        Assert.assertEquals("2345", out.toString());
+        verify(response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        verify(response).setHeader("Content-Range", "bytes 2-5/10");
+        verify(response).setHeader("Content-Length", "4");
+        verify(response).setHeader("ETag", "\"v1\"");
+    }
+
+    @Test
+    public void multipleRanges() throws IOException {
+        VaadinResponse response = mock(VaadinResponse.class);
+        ByteArrayOutputStream out = writeRange("bytes=0-1, 5-, -2",
+                response);
+        // The last 2 bytes overlap 5-9, so the whole content is sent
+        Assert.assertEquals("0123456789", out.toString());
+        verify(response, never()).setStatus(
+                HttpServletResponse.SC_PARTIAL_CONTENT);
+
+        response = mock(VaadinResponse.class);
+        out = writeRange("bytes=0-1,4-5,-2", response);
+        Assert.assertEquals("\r\n--VAADIN_BYTE_RANGES\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Range: bytes 0-1/10\r\n\r\n01"
+                + "\r\n--VAADIN_BYTE_RANGES\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Range: bytes 4-5/10\r\n\r\n45"
+                + "\r\n--VAADIN_BYTE_RANGES\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Range: bytes 8-9/10\r\n\r\n89"
+                + "\r\n--VAADIN_BYTE_RANGES--\r\n", out.toString());
+        verify(response).setContentType(
+                "multipart/byteranges; boundary=VAADIN_BYTE_RANGES");
+    }
+
+    @Test
+    public void unsatisfiableRange() throws IOException {
+        VaadinResponse response = mock(VaadinResponse.class);
+        ByteArrayOutputStream out = writeRange("bytes=10-", response);
+        Assert.assertEquals(0, out.size());
+        verify(response).setStatus(
+                HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        verify(response).setHeader("Content-Range", "bytes */10");
+    }
+
+    @Test
+    public void notModified() throws IOException {
+        VaadinRequest request = mock(VaadinRequest.class);
+        when(request.getHeader("If-None-Match")).thenReturn(
+                "\"v0\", W/\"v1\"");
+        VaadinResponse response = mock(VaadinResponse.class);
+        createTextStream().writeResponse(request, response);
+
+        verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(response, never()).getOutputStream();
+    }
+
+    @Test
+    public void rangeIgnoredForChangedContent() throws IOException {
+        VaadinRequest request = mock(VaadinRequest.class);
+        when(request.getHeader("Range")).thenReturn("bytes=2-5");
+        when(request.getHeader("If-Range")).thenReturn("\"v0\"");
+        VaadinResponse response = mock(VaadinResponse.class);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(out);
+        createTextStream().writeResponse(request, response);
+
+        Assert.assertEquals("0123456789", out.toString());
+        verify(response).setHeader("Content-Length", "10");
+    }
+
+    private ByteArrayOutputStream writeRange(String range,
+            VaadinResponse response) throws IOException {
+        VaadinRequest request = mock(VaadinRequest.class);
+        when(request.getHeader("Range")).thenReturn(range);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(out);
+        createTextStream().writeResponse(request, response);
+        return out;
+    }
+
+    private static DownloadStream createTextStream() {
+        DownloadStream textStream = new DownloadStream(
+                new ByteArrayInputStream("0123456789".getBytes()),
+                "text/plain", "digits.txt");
+        textStream.setContentLength(10);
+        textStream.setETag("\"v1\"");
+        return textStream;
+    }
 }
@@ -39,10 +39,20 @@ import com.vaadin.ui.AbstractComponent;
  */
 public class DragAndDropServiceTest {
 
+    /*
+     * Keeps the logger with the added handlers from being garbage collected.
+     * LogManager only references loggers weakly, so a garbage collection
+     * between adding a handler and the logging, e.g. caused by the allocations
+     * of other tests run in the same JVM, would lose the handler and make the
+     * tests fail randomly.
+     */
+    private final Logger logger = Logger.getLogger(DragAndDropService.class
+            .getName());
+
     @Test
     public void changeVariables_isSourceConnectorEnabledCalled() {
         final List<Level> levels = new ArrayList<Level>();
-        Logger.getLogger(DragAndDropService.class.getName()).addHandler(
+        logger.addHandler(
                 new StreamHandler() {
                     @Override
                     public synchronized void publish(LogRecord record) {
@@ -74,7 +84,7 @@ public class DragAndDropServiceTest {
     @Test
     public void changeVariables_isTargetConnectorEnabledCalled() {
         final List<Level> levels = new ArrayList<Level>();
-        Logger.getLogger(DragAndDropService.class.getName()).addHandler(
+        logger.addHandler(
                 new StreamHandler() {
                     @Override
                     public void publish(LogRecord record) {
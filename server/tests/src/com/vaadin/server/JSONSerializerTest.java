@@ -103,6 +103,26 @@ public class JSONSerializerTest extends TestCase {
         }
     }
 
+    public void testSimpleTypesDecoded() {
+        assertEquals(Integer.valueOf(42), JsonCodec.decodeInternalOrCustomType(
+                int.class, Json.create(42), null));
+        assertEquals(Long.valueOf(42), JsonCodec.decodeInternalOrCustomType(
+                Long.class, Json.create(42), null));
+        assertEquals(Float.valueOf(1.5f), JsonCodec.decodeInternalOrCustomType(
+                float.class, Json.create(1.5), null));
+        assertEquals(Double.valueOf(1.5), JsonCodec.decodeInternalOrCustomType(
+                Double.class, Json.create(1.5), null));
+        assertEquals(Boolean.TRUE, JsonCodec.decodeInternalOrCustomType(
+                boolean.class, Json.create(true), null));
+        assertEquals("foo", JsonCodec.decodeInternalOrCustomType(
+                String.class, Json.create("foo"), null));
+
+        assertNull(JsonCodec.decodeInternalOrCustomType(Integer.class,
+                Json.createNull(), null));
+        assertNull(JsonCodec.decodeInternalOrCustomType(String.class,
+                Json.createNull(), null));
+    }
+
     private void ensureDecodedCorrectly(Object original, JsonValue encoded,
             Type type) throws Exception {
         Object serverSideDecoded = JsonCodec.decodeInternalOrCustomType(type,
@@ -0,0 +1,68 @@
+package com.vaadin.server;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.shared.communication.ServerRpc;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+
+public class ServerRpcMethodInvocationTest {
+
+    public interface TestRpc extends ServerRpc {
+        public void select(int row);
+
+        public void select(int first, int last);
+
+        public void setRows(List<String> rows);
+    }
+
+    @Test
+    public void methodFoundByNameAndParameterCount() throws Exception {
+        ServerRpcMethodInvocation invocation = new ServerRpcMethodInvocation(
+                "1", TestRpc.class, "select", 2);
+        Assert.assertEquals(
+                TestRpc.class.getMethod("select", int.class, int.class),
+                invocation.getMethod());
+        Assert.assertArrayEquals(new Type[] { int.class, int.class },
+                invocation.getGenericParameterTypes());
+
+        invocation = new ServerRpcMethodInvocation("1", TestRpc.class,
+                "select", 1);
+        Assert.assertEquals(TestRpc.class.getMethod("select", int.class),
+                invocation.getMethod());
+    }
+
+    @Test
+    public void genericParameterTypesCopied() throws Exception {
+        ServerRpcMethodInvocation first = new ServerRpcMethodInvocation("1",
+                TestRpc.class, "setRows", 1);
+        first.getGenericParameterTypes()[0] = String.class;
+
+        ServerRpcMethodInvocation second = new ServerRpcMethodInvocation("2",
+                TestRpc.class, "setRows", 1);
+        Assert.assertEquals(TestRpc.class.getMethod("setRows", List.class)
+                .getGenericParameterTypes()[0],
+                second.getGenericParameterTypes()[0]);
+    }
+
+    @Test
+    public void parametersDecodedWithMethodTypes() {
+        ServerRpcMethodInvocation invocation = new ServerRpcMethodInvocation(
+                "1", TestRpc.class, "select", 2);
+        JsonArray parametersJson = Json.createArray();
+        parametersJson.set(0, 3);
+        parametersJson.set(1, 7);
+        Assert.assertArrayEquals(new Object[] { 3, 7 },
+                JsonCodec.decodeParameters(invocation, parametersJson, null));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unknownMethod() {
+        new ServerRpcMethodInvocation("1", TestRpc.class, "select", 3);
+    }
+}
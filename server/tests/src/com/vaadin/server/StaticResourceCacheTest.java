@@ -0,0 +1,109 @@
+package com.vaadin.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StaticResourceCacheTest {
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("resources", "");
+        directory.delete();
+        directory.mkdir();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void contentCached() throws IOException {
+        StaticResourceCache cache = new StaticResourceCache(1000);
+        URL url = createFile("styles.css", "body { color: red; }");
+        StaticResourceCache.Entry entry = cache.getEntry(url);
+        Assert.assertEquals("body { color: red; }",
+                new String(entry.getContent(), "UTF-8"));
+        Assert.assertTrue(entry.getLastModified() > 0);
+        Assert.assertEquals(0, entry.getLastModified() % 1000);
+
+        createFile("styles.css", "body { color: blue; }");
+        Assert.assertSame(entry, cache.getEntry(url));
+    }
+
+    @Test
+    public void gzipCompressedOnce() throws IOException {
+        StaticResourceCache cache = new StaticResourceCache(1000);
+        URL url = createFile("app.js", "alert('hello');");
+        StaticResourceCache.Entry entry = cache.getEntry(url);
+        byte[] gzipped = cache.getGzipped(entry, url);
+        Assert.assertEquals("alert('hello');", gunzip(gzipped));
+        Assert.assertSame(gzipped, cache.getGzipped(entry, url));
+        Assert.assertFalse(entry.getETag(true).equals(entry.getETag(false)));
+    }
+
+    @Test
+    public void precompressedFileUsed() throws IOException {
+        StaticResourceCache cache = new StaticResourceCache(1000);
+        URL url = createFile("app.js", "alert('hello');");
+        createFile("app.js.gz", "not really gzipped");
+        StaticResourceCache.Entry entry = cache.getEntry(url);
+        Assert.assertEquals("not really gzipped",
+                new String(cache.getGzipped(entry, url), "UTF-8"));
+    }
+
+    @Test
+    public void leastRecentlyUsedEvicted() throws IOException {
+        StaticResourceCache cache = new StaticResourceCache(100);
+        URL first = createFile("first.png", repeat('a', 20));
+        URL second = createFile("second.png", repeat('b', 20));
+        URL large = createFile("large.png", repeat('c', 30));
+        StaticResourceCache.Entry firstEntry = cache.getEntry(first);
+        StaticResourceCache.Entry secondEntry = cache.getEntry(second);
+        // Too large to be cached
+        Assert.assertNull(cache.getEntry(large).getContent());
+
+        cache.getEntry(first);
+        cache.getEntry(createFile("third.png", repeat('d', 20)));
+        cache.getEntry(createFile("fourth.png", repeat('e', 20)));
+        cache.getEntry(createFile("fifth.png", repeat('f', 20)));
+        cache.getEntry(createFile("sixth.png", repeat('g', 20)));
+        Assert.assertSame(firstEntry, cache.getEntry(first));
+        Assert.assertNotSame(secondEntry, cache.getEntry(second));
+    }
+
+    private URL createFile(String name, String content) throws IOException {
+        File file = new File(directory, name);
+        FileOutputStream out = new FileOutputStream(file);
+        IOUtils.copy(new ByteArrayInputStream(content.getBytes("UTF-8")), out);
+        out.close();
+        return file.toURI().toURL();
+    }
+
+    private static String gunzip(byte[] gzipped) throws IOException {
+        InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped));
+        return IOUtils.toString(in, "UTF-8");
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
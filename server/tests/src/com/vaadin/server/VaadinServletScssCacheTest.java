@@ -0,0 +1,197 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class VaadinServletScssCacheTest {
+
+    private static final String CSS_PATH = "/VAADIN/themes/test/styles.css";
+
+    private File root;
+    private File scssFile;
+    private File cacheFile;
+    private VaadinServlet servlet;
+    private volatile boolean fileSystemFailing = false;
+
+    private final ServletContext context = new MockServletContext() {
+        @Override
+        public URL getResource(String path) throws MalformedURLException {
+            File file = new File(root, path);
+            return file.exists() ? file.toURI().toURL() : null;
+        }
+
+        @Override
+        public String getRealPath(String path) {
+            if (fileSystemFailing) {
+                throw new IllegalStateException("File system not available");
+            }
+            return new File(root, path).getAbsolutePath();
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        root = File.createTempFile("scss", "");
+        root.delete();
+        scssFile = new File(root, "VAADIN/themes/test/styles.scss");
+        cacheFile = new File(root, "VAADIN/themes/test/styles.scss.cache");
+        writeScss("$color: red;\n.test { color: $color; }\n");
+        servlet = createServlet();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(root);
+    }
+
+    @Test
+    public void compiledCssPersisted() throws Exception {
+        Assert.assertTrue(getCss().contains("color: red"));
+        Assert.assertTrue(cacheFile.exists());
+    }
+
+    @Test
+    public void persistedCssUsedWhenContentUnchanged() throws Exception {
+        getCss();
+        markPersistedCss();
+        scssFile.setLastModified(scssFile.lastModified() - 10000);
+
+        Assert.assertTrue(getCss(createServlet()).contains("color: blue"));
+    }
+
+    @Test
+    public void changedContentRecompiled() throws Exception {
+        getCss();
+        markPersistedCss();
+        writeScss("$color: green;\n.test { color: $color; }\n");
+
+        Assert.assertTrue(getCss().contains("color: green"));
+        Assert.assertTrue(getCss(createServlet()).contains("color: green"));
+        Assert.assertFalse(FileUtils.readFileToString(cacheFile, "UTF-8")
+                .contains("blue"));
+    }
+
+    @Test
+    public void failedCompilationRetried() throws Exception {
+        fileSystemFailing = true;
+        try {
+            getCss();
+            Assert.fail("Compilation did not fail");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+
+        fileSystemFailing = false;
+        Assert.assertTrue(getCss().contains("color: red"));
+    }
+
+    @Test
+    public void concurrentRequestsServed() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return getCss();
+                    }
+                }));
+            }
+            for (Future<String> result : results) {
+                Assert.assertTrue(result.get().contains("color: red"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private VaadinServlet createServlet() throws Exception {
+        VaadinServlet servlet = new VaadinServlet() {
+            @Override
+            public ServletContext getServletContext() {
+                return context;
+            }
+        };
+        servlet.init(new MockServletConfig());
+        return servlet;
+    }
+
+    private String getCss() throws Exception {
+        return getCss(servlet);
+    }
+
+    private static String getCss(VaadinServlet servlet) throws Exception {
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(request.getContextPath()).thenReturn("");
+        Mockito.when(request.getPathInfo()).thenReturn(CSS_PATH);
+        Mockito.when(request.getRequestURI()).thenReturn(CSS_PATH);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HttpServletResponse response = Mockito
+                .mock(HttpServletResponse.class);
+        Mockito.when(response.getOutputStream()).thenReturn(
+                new ServletOutputStream() {
+                    @Override
+                    public void write(int b) {
+                        out.write(b);
+                    }
+                });
+
+        servlet.service(request, response);
+        return out.toString("UTF-8");
+    }
+
+    private void writeScss(String scss) throws IOException {
+        long lastModified = scssFile.exists() ? scssFile.lastModified() : 0;
+        FileUtils.writeStringToFile(scssFile, scss, "UTF-8");
+        // File systems may only have a resolution of one second
+        scssFile.setLastModified(Math.max(System.currentTimeMillis(),
+                lastModified + 2000));
+    }
+
+    /**
+     * Changes the persisted css to detect whether it is used.
+     */
+    private void markPersistedCss() throws IOException {
+        String json = FileUtils.readFileToString(cacheFile, "UTF-8");
+        FileUtils.writeStringToFile(cacheFile,
+                json.replace("color: red", "color: blue"), "UTF-8");
+    }
+}
@@ -57,4 +57,25 @@ public class VaadinServletTest {
         Assert.assertEquals("", VaadinServlet
                 .getLastPathParameter("http://myhost.com/a;hello/;b=1,c=2/"));
     }
+
+    @Test
+    public void testMatchesETag() {
+        Assert.assertTrue(VaadinServlet.matchesETag("\"abc\"", "\"abc\""));
+        Assert.assertTrue(VaadinServlet.matchesETag("*", "\"abc\""));
+        Assert.assertTrue(VaadinServlet.matchesETag("\"x\", \"abc\"",
+                "\"abc\""));
+        Assert.assertTrue(VaadinServlet.matchesETag("\"x\",W/\"abc\" ",
+                "\"abc\""));
+        Assert.assertTrue(VaadinServlet.matchesETag("\"a,b\", \"c\"",
+                "\"a,b\""));
+
+        // Only whole tags match
+        Assert.assertFalse(VaadinServlet.matchesETag("\"abc-gzip\"",
+                "\"abc\""));
+        Assert.assertFalse(VaadinServlet.matchesETag("\"abc\"",
+                "\"abc-gzip\""));
+        Assert.assertFalse(VaadinServlet.matchesETag("\"x\", \"*\"",
+                "\"abc\""));
+        Assert.assertFalse(VaadinServlet.matchesETag("", "\"abc\""));
+    }
 }
@@ -15,23 +15,32 @@
  */
 package com.vaadin.server.communication;
 
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
 
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.vaadin.server.ChannelStreamVariable;
 import com.vaadin.server.ClientConnector;
 import com.vaadin.server.ServletPortletHelper;
 import com.vaadin.server.StreamVariable;
+import com.vaadin.server.StreamVariable.StreamingProgressEvent;
 import com.vaadin.server.VaadinRequest;
 import com.vaadin.server.VaadinResponse;
 import com.vaadin.server.VaadinSession;
@@ -147,4 +156,45 @@ public class FileUploadHandlerTest {
 
         verifyZeroInteractions(responseOutput);
     }
+
+    @Test
+    public void uploadWrittenToChannel() throws Exception {
+        FileUploadHandler handler = new FileUploadHandler() {
+            @Override
+            protected int getUploadBufferSize() {
+                return 100;
+            }
+
+            @Override
+            protected int getProgressEventInterval() {
+                return 0;
+            }
+
+            @Override
+            protected long getProgressEventByteInterval() {
+                return 300;
+            }
+        };
+        byte[] content = new byte[1000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        ChannelStreamVariable channelVariable = mock(ChannelStreamVariable.class);
+        when(channelVariable.getChannel()).thenReturn(
+                Channels.newChannel(target));
+        when(channelVariable.listenProgress()).thenReturn(true);
+
+        handler.streamToReceiver(session, new ByteArrayInputStream(content),
+                channelVariable, "file", "application/octet-stream",
+                content.length);
+
+        Assert.assertArrayEquals(content, target.toByteArray());
+        verify(channelVariable, never()).getOutputStream();
+        // After 300, 600 and 900 bytes and at the end
+        verify(channelVariable, times(4)).onProgress(
+                any(StreamingProgressEvent.class));
+        verify(channelVariable).streamingFinished(
+                any(StreamVariable.StreamingEndEvent.class));
+    }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.StringWriter;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.server.VaadinSession;
+import com.vaadin.tests.util.AlwaysLockedVaadinSession;
+import com.vaadin.tests.util.MockUI;
+import com.vaadin.ui.CssLayout;
+import com.vaadin.ui.Label;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
+public class SharedStateWriterTest {
+
+    private MockUI ui;
+    private CssLayout layout;
+    private Label label1;
+    private Label label2;
+    private StringWriter writer;
+
+    @Before
+    public void setup() {
+        VaadinSession session = new AlwaysLockedVaadinSession(null);
+        VaadinSession.setCurrent(session);
+        ui = new MockUI(session);
+
+        layout = new CssLayout();
+        label1 = new Label("First");
+        label2 = new Label("Second");
+        layout.addComponents(label1, label2);
+        ui.setContent(layout);
+
+        writer = new StringWriter();
+    }
+
+    @Test
+    public void writeStates() throws Exception {
+        new SharedStateWriter().write(ui, writer);
+
+        JsonObject states = Json.parse(writer.toString());
+        Assert.assertEquals("First",
+                states.getObject(label1.getConnectorId()).getString("text"));
+        Assert.assertEquals("Second",
+                states.getObject(label2.getConnectorId()).getString("text"));
+    }
+
+    @Test
+    public void writeStatesSkipsUnchangedConnectors() throws Exception {
+        new SharedStateWriter().write(ui, new StringWriter());
+
+        label2.setValue("Changed");
+        new SharedStateWriter().write(ui, writer);
+
+        JsonObject states = Json.parse(writer.toString());
+        Assert.assertArrayEquals(new String[] { label2.getConnectorId() },
+                states.keys());
+        Assert.assertEquals("Changed",
+                states.getObject(label2.getConnectorId()).getString("text"));
+    }
+
+    @Test
+    public void writeHierarchy() throws Exception {
+        new ConnectorHierarchyWriter().write(ui, writer);
+
+        JsonObject hierarchy = Json.parse(writer.toString());
+        JsonArray children = hierarchy.getArray(layout.getConnectorId());
+        Assert.assertEquals(2, children.length());
+        Assert.assertEquals(label1.getConnectorId(), children.getString(0));
+        Assert.assertEquals(label2.getConnectorId(), children.getString(1));
+        Assert.assertEquals(0,
+                hierarchy.getArray(label1.getConnectorId()).length());
+    }
+
+    @Test
+    public void writeNoPendingRpc() throws Exception {
+        new ClientRpcWriter().write(ui, writer);
+
+        Assert.assertEquals("[]", writer.toString());
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.vaadin.server.LegacyCommunicationManager;
+import com.vaadin.server.MockVaadinSession;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinResponse;
+import com.vaadin.server.VaadinService;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.tests.util.MockDeploymentConfiguration;
+import com.vaadin.tests.util.MockUI;
+import com.vaadin.ui.UI;
+
+public class UidlRequestHandlerTest {
+
+    private MockDeploymentConfiguration configuration;
+    private VaadinSession session;
+    private VaadinRequest request;
+    private VaadinResponse response;
+    private ByteArrayOutputStream output;
+
+    private Boolean lockedWhileReading;
+    private Boolean lockedWhileWriting;
+
+    @Before
+    public void setup() throws IOException {
+        configuration = new MockDeploymentConfiguration();
+
+        VaadinService service = mock(VaadinService.class);
+        when(service.getDeploymentConfiguration()).thenReturn(configuration);
+        session = new MockVaadinSession(service);
+
+        request = mock(VaadinRequest.class);
+        session.lock();
+        try {
+            session.setCommunicationManager(new LegacyCommunicationManager(
+                    session));
+            UI ui = new MockUI(session);
+            ui.doInit(request, 1, "");
+            session.addUI(ui);
+            when(service.findUI(request)).thenReturn(ui);
+        } finally {
+            session.unlock();
+        }
+
+        when(request.getPathInfo()).thenReturn("/UIDL/");
+        when(request.getReader()).thenAnswer(new Answer<BufferedReader>() {
+            @Override
+            public BufferedReader answer(InvocationOnMock invocation) {
+                lockedWhileReading = session.hasLock();
+                return new BufferedReader(new StringReader(""));
+            }
+        });
+
+        output = new ByteArrayOutputStream();
+        response = mock(VaadinResponse.class);
+        when(response.getOutputStream()).thenAnswer(
+                new Answer<ByteArrayOutputStream>() {
+                    @Override
+                    public ByteArrayOutputStream answer(
+                            InvocationOnMock invocation) {
+                        lockedWhileWriting = session.hasLock();
+                        return output;
+                    }
+                });
+    }
+
+    @Test
+    public void ioInsideSessionLockByDefault() throws IOException {
+        Assert.assertTrue(new UidlRequestHandler().handleRequest(session,
+                request, response));
+
+        Assert.assertTrue(lockedWhileWriting);
+        Assert.assertTrue(output.size() > 0);
+    }
+
+    @Test
+    public void ioOutsideSessionLock() throws IOException {
+        configuration.setUidlIoOutsideSessionLock(true);
+
+        Assert.assertTrue(new TestUidlRequestHandler().handleRequest(session,
+                request, response));
+
+        Assert.assertFalse(lockedWhileReading);
+        Assert.assertFalse(lockedWhileWriting);
+        Assert.assertTrue(output.size() > 0);
+    }
+
+    @Test
+    public void otherRequestsIgnored() throws IOException {
+        configuration.setUidlIoOutsideSessionLock(true);
+        when(request.getPathInfo()).thenReturn("/APP/");
+
+        Assert.assertFalse(new UidlRequestHandler().handleRequest(session,
+                request, response));
+        Assert.assertNull(lockedWhileReading);
+    }
+
+    /*
+     * Fails if the request is handled in the same way as when the setting is
+     * disabled.
+     */
+    private class TestUidlRequestHandler extends UidlRequestHandler {
+        @Override
+        public boolean synchronizedHandleRequest(VaadinSession session,
+                VaadinRequest request, VaadinResponse response)
+                throws IOException {
+            throw new AssertionError("Request should not be handled by "
+                    + "synchronizedHandleRequest");
+        }
+    }
+
+}
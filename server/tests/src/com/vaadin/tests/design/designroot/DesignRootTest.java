@@ -17,6 +17,11 @@ package com.vaadin.tests.design.designroot;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.server.DeploymentConfiguration;
+import com.vaadin.server.VaadinService;
+import com.vaadin.util.CurrentInstance;
 
 public class DesignRootTest {
     @Test
@@ -51,4 +56,27 @@ public class DesignRootTest {
         Assert.assertEquals("original", d.preInitializedField.getValue());
     }
 
+    @Test
+    public void designReadRepeatedlyInProductionMode() {
+        DeploymentConfiguration configuration = Mockito
+                .mock(DeploymentConfiguration.class);
+        Mockito.when(configuration.isProductionMode()).thenReturn(true);
+        VaadinService service = Mockito.mock(VaadinService.class);
+        Mockito.when(service.getDeploymentConfiguration()).thenReturn(
+                configuration);
+        CurrentInstance.set(VaadinService.class, service);
+        try {
+            DesignWithAnnotation first = new DesignWithAnnotation();
+            first.ok.setCaption("changed");
+            DesignWithAnnotation second = new DesignWithAnnotation();
+            Assert.assertNotSame(first.ok, second.ok);
+            Assert.assertEquals("OK", second.ok.getCaption());
+            Assert.assertNotNull(second.cancel);
+            Assert.assertEquals(first.getComponentCount(),
+                    second.getComponentCount());
+        } finally {
+            CurrentInstance.set(VaadinService.class, null);
+        }
+    }
+
 }
@@ -1,15 +1,61 @@
 package com.vaadin.tests.server;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.EventObject;
+import java.util.List;
+
 import junit.framework.TestCase;
 
 import com.vaadin.data.Property.ValueChangeEvent;
 import com.vaadin.data.Property.ValueChangeListener;
+import com.vaadin.event.EventRouter;
+import com.vaadin.event.ListenerMethod;
+import com.vaadin.ui.Button;
+import com.vaadin.ui.Button.ClickEvent;
+import com.vaadin.ui.Button.ClickListener;
 import com.vaadin.ui.TextField;
 
 public class EventRouterTest extends TestCase {
 
+    public static class BaseEvent extends EventObject {
+        public BaseEvent(Object source) {
+            super(source);
+        }
+    }
+
+    public static class SubEvent extends BaseEvent {
+        public SubEvent(Object source) {
+            super(source);
+        }
+    }
+
+    public class RecordingListener {
+        private final String name;
+
+        public RecordingListener(String name) {
+            this.name = name;
+        }
+
+        public void receive(EventObject event) {
+            calls.add(name + ":" + event.getClass().getSimpleName());
+        }
+    }
+
+    private static final Method RECEIVE_METHOD;
+    static {
+        try {
+            RECEIVE_METHOD = RecordingListener.class.getMethod("receive",
+                    EventObject.class);
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     int innerListenerCalls = 0;
 
+    private final List<String> calls = new ArrayList<String>();
+
     public void testAddInEventListener() {
         final TextField tf = new TextField();
 
@@ -36,4 +82,73 @@ public class EventRouterTest extends TestCase {
         tf.setValue("ghi"); // Two inner listener calls, adds one inner
         assert (innerListenerCalls == 3);
     }
+
+    public void testListenersByEventClass() {
+        EventRouter router = new EventRouter();
+        router.addListener(BaseEvent.class, new RecordingListener("base"),
+                RECEIVE_METHOD);
+        router.addListener(SubEvent.class, new RecordingListener("sub"),
+                RECEIVE_METHOD);
+        router.addListener(EventObject.class, new RecordingListener("any"),
+                RECEIVE_METHOD);
+
+        router.fireEvent(new BaseEvent(this));
+        router.fireEvent(new SubEvent(this));
+        router.fireEvent(new BaseEvent(this));
+        assertEquals("[base:BaseEvent, any:BaseEvent, base:SubEvent, "
+                + "sub:SubEvent, any:SubEvent, base:BaseEvent, any:BaseEvent]",
+                calls.toString());
+    }
+
+    public void testListenerChangesSeenByNextEvent() {
+        EventRouter router = new EventRouter();
+        RecordingListener first = new RecordingListener("first");
+        router.addListener(BaseEvent.class, first, RECEIVE_METHOD);
+        router.fireEvent(new SubEvent(this));
+
+        router.addListener(SubEvent.class, new RecordingListener("second"),
+                RECEIVE_METHOD);
+        router.fireEvent(new SubEvent(this));
+
+        router.removeListener(BaseEvent.class, first, RECEIVE_METHOD);
+        router.fireEvent(new SubEvent(this));
+
+        router.removeAllListeners();
+        router.fireEvent(new SubEvent(this));
+        assertEquals("[first:SubEvent, first:SubEvent, second:SubEvent, "
+                + "second:SubEvent]", calls.toString());
+    }
+
+    public void testCommonListenerInterfaceCalled() {
+        Button button = new Button();
+        button.addClickListener(new ClickListener() {
+            @Override
+            public void buttonClick(ClickEvent event) {
+                calls.add("click:" + event.getButton().getCaption());
+            }
+        });
+        button.setCaption("first");
+        button.click();
+        button.setCaption("second");
+        button.click();
+        assertEquals("[click:first, click:second]", calls.toString());
+    }
+
+    public void testCommonListenerInterfaceExceptionWrapped() {
+        final IllegalStateException failure = new IllegalStateException();
+        EventRouter router = new EventRouter();
+        router.addListener(ClickEvent.class, new ClickListener() {
+            @Override
+            public void buttonClick(ClickEvent event) {
+                throw failure;
+            }
+        }, ClickListener.BUTTON_CLICK_METHOD);
+
+        try {
+            router.fireEvent(new ClickEvent(new Button()));
+            fail("Exception thrown by the listener was not rethrown");
+        } catch (ListenerMethod.MethodException e) {
+            assertSame(failure, e.getCause());
+        }
+    }
 }
@@ -3,7 +3,9 @@ package com.vaadin.tests.server;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
+import java.util.Random;
 
 import junit.framework.TestCase;
 
@@ -131,6 +133,90 @@ public class SimpleMultiPartInputStreamTest extends TestCase {
     // }
     // }
 
+    public void testBlockReadsWithSmallBuffers() throws Exception {
+        Random random = new Random(42);
+        byte[] content = new byte[10000];
+        random.nextBytes(content);
+        // Partial boundaries in the content
+        for (int i = 0; i < content.length - 10; i += 97) {
+            System.arraycopy("\r\n--abcd".getBytes(), 0, content, i,
+                    3 + i % 6);
+        }
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        input.write(content);
+        input.write(getFullBoundary("abcde").getBytes());
+        input.write("trailing data".getBytes());
+
+        for (int bufferSize : new int[] { 1, 7, 64, 4096 }) {
+            for (int readSize : new int[] { 1, 13, 8192 }) {
+                SimpleMultiPartInputStream stream = new SimpleMultiPartInputStream(
+                        new TricklingInputStream(input.toByteArray()), "abcde",
+                        bufferSize);
+                assertTrue(Arrays.equals(content, readAll(stream, readSize)));
+                assertEquals(-1, stream.read());
+            }
+        }
+    }
+
+    public void testBufferedBytesReadWithoutUnderlyingStream()
+            throws Exception {
+        byte[] content = new byte[10000];
+        new Random(42).nextBytes(content);
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        input.write(content);
+        input.write(getFullBoundary("abcde").getBytes());
+
+        final int[] underlyingReads = new int[1];
+        InputStream underlying = new ByteArrayInputStream(input.toByteArray()) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                underlyingReads[0]++;
+                return super.read(b, off, len);
+            }
+        };
+        SimpleMultiPartInputStream stream = new SimpleMultiPartInputStream(
+                underlying, "abcde", 1000);
+        assertTrue(Arrays.equals(content, readAll(stream, 1)));
+        // About one read per 1000 bytes instead of one per returned byte
+        assertTrue("Underlying stream read " + underlyingReads[0] + " times",
+                underlyingReads[0] <= 12);
+    }
+
+    public void testUnexpectedEndOfStream() throws Exception {
+        SimpleMultiPartInputStream stream = new SimpleMultiPartInputStream(
+                new ByteArrayInputStream("xyz123\r\n--ab".getBytes()), "abc");
+        try {
+            readAll(stream, 100);
+            fail();
+        } catch (IOException e) {
+        }
+    }
+
+    private static byte[] readAll(InputStream stream, int readSize)
+            throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[readSize];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            result.write(buffer, 0, read);
+        }
+        return result.toByteArray();
+    }
+
+    /**
+     * Returns at most 1000 bytes per read like a slow network stream.
+     */
+    private static class TricklingInputStream extends ByteArrayInputStream {
+        public TricklingInputStream(byte[] buf) {
+            super(buf);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 1 + pos % 1000));
+        }
+    }
+
     public static String getFullBoundary(String str) {
         return "\r\n--" + str + "--";
     }
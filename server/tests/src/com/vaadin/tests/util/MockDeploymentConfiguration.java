@@ -22,6 +22,8 @@ public class MockDeploymentConfiguration extends
     private LegacyProperyToStringMode legacyPropertyToStringMode = LegacyProperyToStringMode.DISABLED;
     private boolean syncIdCheckEnabled = true;
     private boolean sendUrlsAsParameters = true;
+    private boolean uidlIoOutsideSessionLock = false;
+    private int accessCoalescingInterval = 0;
 
     @Override
     public boolean isProductionMode() {
@@ -125,4 +127,22 @@ public class MockDeploymentConfiguration extends
         return sendUrlsAsParameters;
     }
 
+    @Override
+    public boolean isUidlIoOutsideSessionLock() {
+        return uidlIoOutsideSessionLock;
+    }
+
+    public void setUidlIoOutsideSessionLock(boolean uidlIoOutsideSessionLock) {
+        this.uidlIoOutsideSessionLock = uidlIoOutsideSessionLock;
+    }
+
+    @Override
+    public int getAccessCoalescingInterval() {
+        return accessCoalescingInterval;
+    }
+
+    public void setAccessCoalescingInterval(int accessCoalescingInterval) {
+        this.accessCoalescingInterval = accessCoalescingInterval;
+    }
+
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.ui;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.server.JsonCodec;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.tests.util.AlwaysLockedVaadinSession;
+import com.vaadin.tests.util.MockUI;
+
+import elemental.json.JsonObject;
+
+public class ConnectorTrackerSerializationTest {
+
+    private MockUI ui;
+    private Label label;
+
+    @Before
+    public void setup() {
+        VaadinSession session = new AlwaysLockedVaadinSession(null);
+        VaadinSession.setCurrent(session);
+        ui = new MockUI(session);
+
+        label = new Label("Some text");
+        label.setCaption("Caption");
+        label.addStyleName("my-style");
+        ui.setContent(label);
+    }
+
+    @Test
+    public void diffStateRestoredAfterDeserialization() throws Exception {
+        JsonObject initialDiff = label.encodeState();
+        Assert.assertTrue(initialDiff.keys().length > 0);
+        JsonObject diffState = ui.getConnectorTracker().getDiffState(label);
+
+        UI ui2 = serializeAndDeserialize(ui);
+        Label label2 = (Label) ui2.getContent();
+        JsonObject diffState2 = ui2.getConnectorTracker()
+                .getDiffState(label2);
+
+        Assert.assertNotNull("Diff state was not restored", diffState2);
+        Assert.assertTrue("Restored diff state differs from the original",
+                JsonCodec.jsonEquals(diffState, diffState2));
+    }
+
+    @Test
+    public void unchangedConnectorSendsNoStateAfterDeserialization()
+            throws Exception {
+        label.encodeState();
+
+        UI ui2 = serializeAndDeserialize(ui);
+        Label label2 = (Label) ui2.getContent();
+
+        Assert.assertEquals(0, label2.encodeState().keys().length);
+
+        label2.setValue("Changed");
+        JsonObject diff = label2.encodeState();
+        Assert.assertArrayEquals(new String[] { "text" }, diff.keys());
+    }
+
+    @Test
+    public void connectorWithoutDiffStateSendsFullState() throws Exception {
+        UI ui2 = serializeAndDeserialize(ui);
+        Label label2 = (Label) ui2.getContent();
+
+        Assert.assertNull(ui2.getConnectorTracker().getDiffState(label2));
+        Assert.assertTrue(label2.encodeState().hasKey("caption"));
+    }
+
+    private static UI serializeAndDeserialize(UI ui) throws IOException,
+            ClassNotFoundException {
+        ByteArrayOutputStream bs = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bs);
+        out.writeObject(ui);
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(
+                bs.toByteArray()));
+        UI ui2 = (UI) in.readObject();
+
+        // The lock of the deserialized session is not held
+        ui2.getSession().lock();
+        VaadinSession.setCurrent(ui2.getSession());
+        UI.setCurrent(ui2);
+        return ui2;
+    }
+}
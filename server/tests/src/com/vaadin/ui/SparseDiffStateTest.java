@@ -0,0 +1,120 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.ui;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.server.JsonCodec;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.tests.util.AlwaysLockedVaadinSession;
+import com.vaadin.tests.util.MockUI;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.JsonValue;
+
+public class SparseDiffStateTest {
+
+    private JsonObject reference;
+
+    @Before
+    public void setup() {
+        reference = Json.createObject();
+        reference.put("caption", Json.createNull());
+        reference.put("enabled", true);
+        reference.put("styles", Json.createArray());
+    }
+
+    @Test
+    public void onlyChangedValuesStored() {
+        JsonObject diffState = Json.parse(reference.toJson());
+        diffState.put("caption", "Caption");
+
+        SparseDiffState sparse = SparseDiffState.create(reference, diffState,
+                null);
+
+        Assert.assertArrayEquals(new String[] { "caption" }, sparse
+                .getOverlay().keys());
+        Assert.assertTrue(JsonCodec.jsonEquals(diffState, sparse));
+        Assert.assertSame(reference.get("styles"), sparse.get("styles"));
+    }
+
+    @Test
+    public void putAndRemove() {
+        SparseDiffState sparse = SparseDiffState.create(reference,
+                Json.parse(reference.toJson()), null);
+
+        sparse.put("enabled", false);
+        Assert.assertFalse(sparse.getBoolean("enabled"));
+        Assert.assertTrue(reference.getBoolean("enabled"));
+
+        sparse.remove("caption");
+        Assert.assertFalse(sparse.hasKey("caption"));
+        Assert.assertNull(sparse.get("caption"));
+        Assert.assertArrayEquals(new String[] { "enabled", "styles" },
+                sparse.keys());
+        Assert.assertTrue(reference.hasKey("caption"));
+
+        sparse.put("caption", "Back");
+        Assert.assertEquals("Back", sparse.getString("caption"));
+    }
+
+    @Test
+    public void equalValuesInterned() {
+        DiffStateValueInterner interner = new DiffStateValueInterner();
+
+        JsonObject diffState1 = Json.parse(reference.toJson());
+        diffState1.put("styles", createStyles("primary"));
+        JsonObject diffState2 = Json.parse(reference.toJson());
+        diffState2.put("styles", createStyles("primary"));
+
+        JsonValue styles1 = SparseDiffState.create(reference, diffState1,
+                interner).get("styles");
+        JsonValue styles2 = SparseDiffState.create(reference, diffState2,
+                interner).get("styles");
+
+        Assert.assertSame(styles1, styles2);
+    }
+
+    private static JsonArray createStyles(String style) {
+        JsonArray styles = Json.createArray();
+        styles.set(0, style);
+        return styles;
+    }
+
+    @Test
+    public void connectorTrackerStoresSparseDiffState() {
+        VaadinSession session = new AlwaysLockedVaadinSession(null);
+        VaadinSession.setCurrent(session);
+        MockUI ui = new MockUI(session);
+        Label label = new Label("Text");
+        ui.setContent(label);
+
+        label.encodeState();
+        JsonObject diffState = ui.getConnectorTracker().getDiffState(label);
+
+        Assert.assertTrue(diffState instanceof SparseDiffState);
+        Assert.assertEquals("Text", diffState.getString("text"));
+        Assert.assertEquals(0, label.encodeState().keys().length);
+
+        label.setValue("Changed");
+        Assert.assertArrayEquals(new String[] { "text" }, label.encodeState()
+                .keys());
+    }
+}